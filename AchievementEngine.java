@@ -0,0 +1,647 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unlocks achievements as care actions happen and pets' stats change, without checking
+ * every rule against every pet each tick. Each rule names the care action types or pet
+ * fields it depends on, and the engine indexes the rules by them: a care event is passed
+ * only to the rules for its type and a field change only to the rules for that field, so
+ * an event costs as much as the rules it can affect, however many rules there are.
+ *
+ * Progress is kept either per pet or summed over every pet of the profile. Counts of care
+ * actions are read from the care event log's projections rather than counted again, the
+ * dabloons earned are added up from each change, and how long a stat has stayed above a
+ * threshold is timed from when the pet was watched. Dabloons earned and unlocked
+ * achievements are written to achievements.txt as "key=value" lines, on a background
+ * thread so an unlock never waits for the disk.
+ */
+public class AchievementEngine implements PetChangeListener, AutoCloseable {
+    /** Name of the achievements file inside the save directory */
+    public static final String ACHIEVEMENTS_FILE = "achievements.txt";
+    /** Progress scope of rules summed over every pet */
+    public static final String ALL_PETS = "*";
+    /** Prefix of the keys holding a rule's progress */
+    private static final String PROGRESS_PREFIX = "progress.";
+    /** Prefix of the keys holding when an achievement was unlocked */
+    private static final String UNLOCKED_PREFIX = "unlocked.";
+    /** Rules passed no events */
+    private static final Rule[] NO_RULES = new Rule[0];
+
+    /**
+     * An achievement the player can unlock.
+     *
+     * @param id The achievement's id, without dots.
+     * @param title The title shown to the player.
+     * @param description What the player has to do.
+     */
+    public record Achievement(String id, String title, String description) { }
+
+    /**
+     * Told when an achievement is unlocked.
+     */
+    public interface UnlockListener {
+        /**
+         * Called on the thread of the event that unlocked the achievement.
+         *
+         * @param achievement The achievement.
+         * @param saveFile The save file of the pet that unlocked it, or ALL_PETS.
+         */
+        void unlocked(Achievement achievement, String saveFile);
+    }
+
+    /**
+     * A rule unlocking an achievement, with its progress.
+     */
+    private abstract static class Rule {
+        /** The achievement unlocked */
+        private final Achievement achievement;
+        /** Whether progress is kept per pet rather than summed over every pet */
+        private final boolean perPet;
+        /** Progress kept by the rule and saved, by save file or ALL_PETS */
+        final Map<String, Long> progress = new HashMap<>();
+        /** When the achievement was unlocked, by save file or ALL_PETS */
+        final Map<String, Long> unlocked = new LinkedHashMap<>();
+
+        /**
+         * Creates a rule.
+         *
+         * @param achievement The achievement unlocked.
+         * @param perPet Whether progress is kept per pet rather than summed over every pet.
+         */
+        Rule(Achievement achievement, boolean perPet) {
+            this.achievement = achievement;
+            this.perPet = perPet;
+        }
+
+        /**
+         * Get the scope of a pet's progress.
+         *
+         * @param saveFile The pet's save file.
+         * @return The save file, or ALL_PETS if progress is summed over every pet.
+         */
+        String scope(String saveFile) {
+            return perPet ? saveFile : ALL_PETS;
+        }
+
+        /**
+         * Get the progress towards the achievement.
+         *
+         * @param scope The save file or ALL_PETS.
+         * @param now The current time, in milliseconds since the epoch.
+         * @return The progress, or zero if there is none.
+         */
+        long getProgress(String scope, long now) {
+            return progress.getOrDefault(scope, 0L);
+        }
+
+        /**
+         * Starts following a pet's fields.
+         *
+         * @param pet The pet.
+         */
+        void watch(Pet pet) {
+        }
+
+        /**
+         * Forgets the progress that is not saved.
+         */
+        void reset() {
+        }
+
+        /**
+         * Updates the progress with a care event of one of the rule's types.
+         *
+         * @param event The event.
+         * @return True if the achievement is now unlocked for the event's scope.
+         */
+        boolean careEvent(CareEvent event) {
+            return false;
+        }
+
+        /**
+         * Updates the progress with a change of one of the rule's fields.
+         *
+         * @param pet The pet that changed.
+         * @param field The field.
+         * @param now The current time, in milliseconds since the epoch.
+         * @return True if the achievement is now unlocked for the pet's scope.
+         */
+        boolean fieldChanged(Pet pet, int field, long now) {
+            return false;
+        }
+    }
+
+    /**
+     * Unlocks an achievement once a care action has been done a number of times. The count
+     * is read from the care event log, which has already recorded the event passed.
+     */
+    private static final class CountRule extends Rule {
+        /** The log counting the actions */
+        private final CareEventLog careEvents;
+        /** The care action counted */
+        private final CareEvent.Type type;
+        /** Number of actions needed */
+        private final long target;
+
+        /**
+         * Creates a count rule.
+         *
+         * @param achievement The achievement unlocked.
+         * @param perPet Whether actions are counted per pet rather than over every pet.
+         * @param careEvents The log counting the actions.
+         * @param type The care action counted.
+         * @param target Number of actions needed.
+         */
+        CountRule(Achievement achievement, boolean perPet, CareEventLog careEvents, CareEvent.Type type, long target) {
+            super(achievement, perPet);
+            this.careEvents = careEvents;
+            this.type = type;
+            this.target = target;
+        }
+
+        @Override
+        long getProgress(String scope, long now) {
+            return scope.equals(ALL_PETS) ? careEvents.getTotalCount(type) : careEvents.getCount(scope, type);
+        }
+
+        @Override
+        boolean careEvent(CareEvent event) {
+            return getProgress(scope(event.saveFile()), 0) >= target;
+        }
+    }
+
+    /**
+     * Unlocks an achievement once a field has gone up by a total amount, e.g. dabloons earned.
+     */
+    private static final class EarnedRule extends Rule {
+        /** Total increase needed */
+        private final long target;
+        /** Value of the field of each watched pet at its last change, by save file */
+        private final Map<String, Integer> lastValues = new HashMap<>();
+        /** The field */
+        private final int field;
+
+        /**
+         * Creates an earned rule.
+         *
+         * @param achievement The achievement unlocked.
+         * @param perPet Whether increases are summed per pet rather than over every pet.
+         * @param field The field.
+         * @param target Total increase needed.
+         */
+        EarnedRule(Achievement achievement, boolean perPet, int field, long target) {
+            super(achievement, perPet);
+            this.field = field;
+            this.target = target;
+        }
+
+        @Override
+        void watch(Pet pet) {
+            lastValues.put(pet.getSaveFile(), statValue(pet, field));
+        }
+
+        @Override
+        boolean fieldChanged(Pet pet, int changedField, long now) {
+            int value = statValue(pet, field);
+            Integer last = lastValues.put(pet.getSaveFile(), value);
+            if (last == null || value <= last) {
+                return false;
+            }
+            return progress(this, scope(pet.getSaveFile()), value - last) >= target;
+        }
+    }
+
+    /**
+     * Unlocks an achievement once a pet's field has stayed above a threshold for some time.
+     * The time held is checked whenever the field changes, which for the stats happens
+     * every tick. It is not saved: the hold starts again whenever the pet is watched, so
+     * time spent with the game closed never counts.
+     */
+    private static final class StatAboveRule extends Rule {
+        /** The field */
+        private final int field;
+        /** Value the field has to stay above */
+        private final int threshold;
+        /** Time the field has to stay above the threshold, in milliseconds */
+        private final long holdMillis;
+        /** When the field last rose above the threshold, by save file, for pets above it */
+        private final Map<String, Long> since = new HashMap<>();
+
+        /**
+         * Creates a stat above rule, kept per pet.
+         *
+         * @param achievement The achievement unlocked.
+         * @param field The field.
+         * @param threshold Value the field has to stay above.
+         * @param holdMillis Time the field has to stay above the threshold, in milliseconds.
+         */
+        StatAboveRule(Achievement achievement, int field, int threshold, long holdMillis) {
+            super(achievement, true);
+            this.field = field;
+            this.threshold = threshold;
+            this.holdMillis = holdMillis;
+        }
+
+        @Override
+        long getProgress(String scope, long now) {
+            Long start = since.get(scope);
+            return start == null ? 0 : now - start;
+        }
+
+        @Override
+        void watch(Pet pet) {
+            since.remove(pet.getSaveFile());
+        }
+
+        @Override
+        void reset() {
+            since.clear();
+        }
+
+        @Override
+        boolean fieldChanged(Pet pet, int changedField, long now) {
+            String scope = scope(pet.getSaveFile());
+            if (statValue(pet, field) <= threshold) {
+                since.remove(scope);
+                return false;
+            }
+            long start = since.computeIfAbsent(scope, key -> now);
+            return now - start >= holdMillis;
+        }
+    }
+
+    /** The achievements file */
+    private final Path achievementsFile;
+    /** The log counting care actions */
+    private final CareEventLog careEvents;
+    /** Thread writing the achievements file after an unlock */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "achievements-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Held while the achievements file is written, so writes never overlap or go out of order */
+    private final Object writeLock = new Object();
+    /** The clock timing how long stats are held */
+    private final Clock clock;
+    /** Told when an achievement is unlocked, or null */
+    private final UnlockListener listener;
+    /** Every rule, by achievement id */
+    private final Map<String, Rule> rules = new LinkedHashMap<>();
+    /** Rules passed each care event type */
+    private final Map<CareEvent.Type, Rule[]> rulesByType = new EnumMap<>(CareEvent.Type.class);
+    /** Rules passed changes of each field, indexed by field */
+    private final Rule[][] rulesByField = new Rule[Pet.FIELD_COUNT][];
+
+    /**
+     * Creates an engine without rules in the given save directory. Add rules, then call
+     * load to read the recorded progress.
+     *
+     * @param saveDirectory The save directory.
+     * @param careEvents The log counting care actions, appended to before each event is passed on.
+     * @param clock The clock timing how long stats are held.
+     * @param listener Told when an achievement is unlocked, or null.
+     */
+    public AchievementEngine(Path saveDirectory, CareEventLog careEvents, Clock clock, UnlockListener listener) {
+        this.achievementsFile = saveDirectory.resolve(ACHIEVEMENTS_FILE);
+        this.careEvents = careEvents;
+        this.clock = clock;
+        this.listener = listener;
+        Arrays.fill(rulesByField, NO_RULES);
+        for (CareEvent.Type type : CareEvent.Type.values()) {
+            rulesByType.put(type, NO_RULES);
+        }
+    }
+
+    /**
+     * Adds the game's achievements.
+     */
+    public void addDefaultRules() {
+        addCountRule(new Achievement("fed_100", "Well Fed", "Feed your pets 100 times"),
+                false, CareEvent.Type.FEED, 100);
+        addCountRule(new Achievement("vet_10", "Regular Checkups", "Take your pets to the vet 10 times"),
+                false, CareEvent.Type.VET, 10);
+        addCountRule(new Achievement("play_50", "Best Friends", "Play with one pet 50 times"),
+                true, CareEvent.Type.PLAY, 50);
+        addEarnedRule(new Achievement("earned_1000", "Dabloon Hoarder", "Earn 1000 dabloons"),
+                false, Pet.CURRENCY, 1000);
+        addStatAboveRule(new Achievement("happy_day", "Happy Day", "Keep a pet's happiness above 80 for a day"),
+                Pet.HAPPINESS, 80, TimeUnit.DAYS.toMillis(1));
+    }
+
+    /**
+     * Adds an achievement unlocked once a care action has been done a number of times.
+     *
+     * @param achievement The achievement.
+     * @param perPet Whether actions are counted per pet rather than over every pet.
+     * @param type The care action.
+     * @param target Number of actions needed.
+     */
+    public synchronized void addCountRule(Achievement achievement, boolean perPet, CareEvent.Type type, long target) {
+        Rule rule = new CountRule(achievement, perPet, careEvents, type, target);
+        rules.put(achievement.id(), rule);
+        rulesByType.put(type, append(rulesByType.get(type), rule));
+    }
+
+    /**
+     * Adds an achievement unlocked once a field has gone up by a total amount.
+     *
+     * @param achievement The achievement.
+     * @param perPet Whether increases are summed per pet rather than over every pet.
+     * @param field The field, e.g. Pet.CURRENCY.
+     * @param target Total increase needed.
+     */
+    public synchronized void addEarnedRule(Achievement achievement, boolean perPet, int field, long target) {
+        Rule rule = new EarnedRule(achievement, perPet, field, target);
+        rules.put(achievement.id(), rule);
+        rulesByField[field] = append(rulesByField[field], rule);
+    }
+
+    /**
+     * Adds an achievement unlocked once a pet's field has stayed above a threshold for some time.
+     *
+     * @param achievement The achievement.
+     * @param field The field, e.g. Pet.HAPPINESS.
+     * @param threshold Value the field has to stay above.
+     * @param holdMillis Time the field has to stay above the threshold, in milliseconds.
+     */
+    public synchronized void addStatAboveRule(Achievement achievement, int field, int threshold, long holdMillis) {
+        Rule rule = new StatAboveRule(achievement, field, threshold, holdMillis);
+        rules.put(achievement.id(), rule);
+        rulesByField[field] = append(rulesByField[field], rule);
+    }
+
+    /**
+     * Starts following a pet's field changes. Watching a pet again restarts the time its
+     * stats are held above their thresholds.
+     *
+     * @param pet The pet.
+     */
+    public synchronized void watch(Pet pet) {
+        if (pet == null || pet.getSaveFile() == null) {
+            return;
+        }
+        for (Rule rule : rules.values()) {
+            rule.watch(pet);
+        }
+        pet.addChangeListener(this);
+    }
+
+    /**
+     * Passes a care event to the rules depending on its type.
+     *
+     * @param event The event.
+     */
+    public synchronized void careEvent(CareEvent event) {
+        for (Rule rule : rulesByType.get(event.type())) {
+            String scope = rule.scope(event.saveFile());
+            if (!rule.unlocked.containsKey(scope) && rule.careEvent(event)) {
+                unlock(rule, scope);
+            }
+        }
+    }
+
+    /**
+     * Passes a field change to the rules depending on the field.
+     *
+     * @param pet The pet that changed.
+     * @param field The field index.
+     */
+    @Override
+    public synchronized void fieldChanged(Pet pet, int field) {
+        Rule[] fieldRules = rulesByField[field];
+        if (fieldRules.length == 0 || pet.getSaveFile() == null) {
+            return;
+        }
+        long now = clock.millis();
+        for (Rule rule : fieldRules) {
+            String scope = rule.scope(pet.getSaveFile());
+            if (!rule.unlocked.containsKey(scope) && rule.fieldChanged(pet, field, now)) {
+                unlock(rule, scope);
+            }
+        }
+    }
+
+    /**
+     * Inventory changes do not affect any rule.
+     *
+     * @param pet The pet that changed.
+     * @param item The name of the item.
+     */
+    @Override
+    public void itemChanged(Pet pet, String item) {
+    }
+
+    /**
+     * Checks if an achievement is unlocked.
+     *
+     * @param id The achievement's id.
+     * @param saveFile The pet's save file, ignored by achievements summed over every pet.
+     * @return True if the achievement is unlocked.
+     */
+    public synchronized boolean isUnlocked(String id, String saveFile) {
+        Rule rule = rules.get(id);
+        return rule != null && rule.unlocked.containsKey(rule.scope(saveFile));
+    }
+
+    /**
+     * Get an achievement's progress: the number of actions done, the amount earned, or the
+     * milliseconds a stat has been held above its threshold, depending on the rule.
+     *
+     * @param id The achievement's id.
+     * @param saveFile The pet's save file, ignored by achievements summed over every pet.
+     * @return The progress, or zero if there is none.
+     */
+    public synchronized long getProgress(String id, String saveFile) {
+        Rule rule = rules.get(id);
+        return rule == null ? 0 : rule.getProgress(rule.scope(saveFile), clock.millis());
+    }
+
+    /**
+     * Get every achievement unlocked by any pet.
+     *
+     * @return The achievements, in the order the rules were added.
+     */
+    public synchronized List<Achievement> getUnlocked() {
+        List<Achievement> unlocked = new ArrayList<>();
+        for (Rule rule : rules.values()) {
+            if (!rule.unlocked.isEmpty()) {
+                unlocked.add(rule.achievement);
+            }
+        }
+        return unlocked;
+    }
+
+    /**
+     * Get every achievement.
+     *
+     * @return The achievements, in the order the rules were added.
+     */
+    public synchronized List<Achievement> getAchievements() {
+        List<Achievement> achievements = new ArrayList<>(rules.size());
+        for (Rule rule : rules.values()) {
+            achievements.add(rule.achievement);
+        }
+        return achievements;
+    }
+
+    /**
+     * Reads the recorded progress and unlocked achievements. Lines of unknown
+     * achievements are ignored. Counts are read from the care event log, so load it first.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    public synchronized void load() throws IOException {
+        for (Rule rule : rules.values()) {
+            rule.progress.clear();
+            rule.unlocked.clear();
+            rule.reset();
+        }
+        if (!Files.exists(achievementsFile)) {
+            return;
+        }
+        KeyValueReader reader = KeyValueReader.read(achievementsFile);
+        while (reader.next()) {
+            boolean isProgress = reader.keyStartsWith(PROGRESS_PREFIX);
+            if (!isProgress && !reader.keyStartsWith(UNLOCKED_PREFIX)) {
+                continue;
+            }
+            String key = reader.keySuffix(isProgress ? PROGRESS_PREFIX.length() : UNLOCKED_PREFIX.length());
+            int dot = key.indexOf('.');
+            Rule rule = dot < 0 ? null : rules.get(key.substring(0, dot));
+            // Older files also held action counts and hold times, which are no longer saved
+            if (rule == null || isProgress && !(rule instanceof EarnedRule)) {
+                continue;
+            }
+            try {
+                (isProgress ? rule.progress : rule.unlocked).put(key.substring(dot + 1), reader.longValue());
+            } catch (NumberFormatException e) {
+                System.err.println("Skipping bad achievement line: " + reader.key());
+            }
+        }
+    }
+
+    /**
+     * Writes the progress and unlocked achievements on the calling thread. Events passed
+     * meanwhile do not wait for the write.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public void save() throws IOException {
+        synchronized (writeLock) {
+            StringBuilder text = new StringBuilder();
+            synchronized (this) {
+                for (Rule rule : rules.values()) {
+                    String id = rule.achievement.id();
+                    rule.progress.forEach((scope, value) -> text.append(PROGRESS_PREFIX).append(id).append('.')
+                            .append(scope).append('=').append(value).append(System.lineSeparator()));
+                    rule.unlocked.forEach((scope, time) -> text.append(UNLOCKED_PREFIX).append(id).append('.')
+                            .append(scope).append('=').append(time).append(System.lineSeparator()));
+                }
+            }
+            Files.createDirectories(achievementsFile.getParent());
+            Path tempFile = achievementsFile.resolveSibling(ACHIEVEMENTS_FILE + ".tmp");
+            Files.writeString(tempFile, text, StandardCharsets.UTF_8);
+            Files.move(tempFile, achievementsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * Stops the writer thread and writes the progress and unlocked achievements.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writer.shutdown();
+        save();
+    }
+
+    /**
+     * Marks an achievement unlocked, has it saved in the background and tells the listener.
+     *
+     * @param rule The achievement's rule.
+     * @param scope The save file of the pet that unlocked it, or ALL_PETS.
+     */
+    private void unlock(Rule rule, String scope) {
+        rule.unlocked.put(scope, clock.millis());
+        if (!writer.isShutdown()) {
+            writer.execute(this::saveQuietly);
+        }
+        if (listener != null) {
+            listener.unlocked(rule.achievement, scope);
+        }
+    }
+
+    /**
+     * Writes the achievements from the writer thread, reporting a failure.
+     */
+    private void saveQuietly() {
+        try {
+            save();
+        } catch (IOException e) {
+            System.err.println("Failed to write achievements: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Adds to a rule's progress.
+     *
+     * @param rule The rule.
+     * @param scope The save file or ALL_PETS.
+     * @param amount The amount added.
+     * @return The new progress.
+     */
+    private static long progress(Rule rule, String scope, long amount) {
+        return rule.progress.merge(scope, amount, Long::sum);
+    }
+
+    /**
+     * Get the value of one of a pet's numeric fields.
+     *
+     * @param pet The pet.
+     * @param field The field index.
+     * @return The value.
+     */
+    private static int statValue(Pet pet, int field) {
+        return switch (field) {
+            case Pet.MAX_HEALTH -> pet.getMaxHealth();
+            case Pet.HEALTH -> pet.getHealth();
+            case Pet.HAPPINESS -> pet.getHappiness();
+            case Pet.FULLNESS -> pet.getFullness();
+            case Pet.ENERGY -> pet.getEnergy();
+            case Pet.CURRENCY -> pet.getCurrency();
+            case Pet.SCORE -> pet.getScore();
+            default -> throw new IllegalArgumentException("Not a numeric field: " + field);
+        };
+    }
+
+    /**
+     * Appends a rule to an index entry.
+     *
+     * @param index The rules in the entry.
+     * @param rule The rule.
+     * @return The rules with the rule added.
+     */
+    private static Rule[] append(Rule[] index, Rule rule) {
+        Rule[] rules = Arrays.copyOf(index, index.length + 1);
+        rules[index.length] = rule;
+        return rules;
+    }
+}
@@ -0,0 +1,190 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AchievementEngineTest {
+    /**
+     * A clock that only moves when told to.
+     */
+    private static final class ManualClock extends Clock {
+        /** The current time, in milliseconds since the epoch */
+        private long millis;
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    /**
+     * Creates a pet with a save file.
+     */
+    private static Pet pet(String name) {
+        Pet pet = new Pet(name, "dog");
+        pet.setSaveFile(name + ".txt");
+        return pet;
+    }
+
+    /**
+     * Logs a care event, then passes it to the engine, the way the game does.
+     */
+    private static void care(CareEventLog log, AchievementEngine engine, CareEvent.Type type, Pet pet) throws Exception {
+        CareEvent event = CareEvent.of(type, pet, type == CareEvent.Type.FEED ? "Kibble" : null);
+        log.append(event);
+        engine.careEvent(event);
+    }
+
+    @Test
+    void testCountRuleOnlySeesItsEventType() throws Exception {
+        List<String> unlocked = new ArrayList<>();
+        Path saveDirectory = Files.createTempDirectory("saves");
+        CareEventLog log = new CareEventLog(saveDirectory);
+        log.load();
+        AchievementEngine engine = new AchievementEngine(saveDirectory, log, Clock.systemUTC(),
+                (achievement, saveFile) -> unlocked.add(achievement.id() + "@" + saveFile));
+        engine.addCountRule(new AchievementEngine.Achievement("fed_3", "Fed", "Feed 3 times"),
+                false, CareEvent.Type.FEED, 3);
+        engine.addCountRule(new AchievementEngine.Achievement("play_2", "Played", "Play 2 times with a pet"),
+                true, CareEvent.Type.PLAY, 2);
+        Pet rex = pet("rex");
+        Pet tom = pet("tom");
+
+        care(log, engine, CareEvent.Type.FEED, rex);
+        care(log, engine, CareEvent.Type.PLAY, rex);
+        care(log, engine, CareEvent.Type.PLAY, tom);
+        care(log, engine, CareEvent.Type.FEED, tom);
+        assertTrue(unlocked.isEmpty());
+        assertEquals(2, engine.getProgress("fed_3", "rex.txt"));
+        assertEquals(1, engine.getProgress("play_2", "rex.txt"));
+
+        care(log, engine, CareEvent.Type.FEED, tom);
+        care(log, engine, CareEvent.Type.PLAY, rex);
+        care(log, engine, CareEvent.Type.FEED, tom);
+        assertEquals(List.of("fed_3@" + AchievementEngine.ALL_PETS, "play_2@rex.txt"), unlocked);
+        assertTrue(engine.isUnlocked("play_2", "rex.txt"));
+        assertFalse(engine.isUnlocked("play_2", "tom.txt"));
+        engine.close();
+        log.close();
+    }
+
+    @Test
+    void testEarnedRuleCountsOnlyIncreases() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        AchievementEngine engine = new AchievementEngine(saveDirectory, new CareEventLog(saveDirectory), Clock.systemUTC(), null);
+        engine.addEarnedRule(new AchievementEngine.Achievement("earned_50", "Rich", "Earn 50 dabloons"),
+                false, Pet.CURRENCY, 50);
+        Pet rex = pet("rex");
+        Pet tom = pet("tom");
+        engine.watch(rex);
+        engine.watch(tom);
+
+        rex.addCurrency(30);
+        rex.spendCurrency(20);
+        tom.addCurrency(15);
+        assertEquals(45, engine.getProgress("earned_50", "rex.txt"));
+        assertFalse(engine.isUnlocked("earned_50", "rex.txt"));
+
+        tom.addCurrency(5);
+        assertTrue(engine.isUnlocked("earned_50", "tom.txt"));
+    }
+
+    @Test
+    void testStatAboveRuleNeedsTheStatHeld() throws Exception {
+        ManualClock clock = new ManualClock();
+        Path saveDirectory = Files.createTempDirectory("saves");
+        AchievementEngine engine = new AchievementEngine(saveDirectory, new CareEventLog(saveDirectory), clock, null);
+        engine.addStatAboveRule(new AchievementEngine.Achievement("happy_hour", "Happy", "Stay happy"),
+                Pet.HAPPINESS, 80, TimeUnit.HOURS.toMillis(1));
+        Pet rex = pet("rex");
+        engine.watch(rex);
+
+        rex.setHappiness(90);
+        clock.millis += TimeUnit.MINUTES.toMillis(40);
+        rex.setHappiness(70);
+        clock.millis += TimeUnit.MINUTES.toMillis(40);
+        rex.setHappiness(85);
+        clock.millis += TimeUnit.MINUTES.toMillis(40);
+        rex.setHappiness(95);
+        assertFalse(engine.isUnlocked("happy_hour", "rex.txt"));
+
+        assertEquals(TimeUnit.MINUTES.toMillis(40), engine.getProgress("happy_hour", "rex.txt"));
+
+        clock.millis += TimeUnit.MINUTES.toMillis(20);
+        rex.setHappiness(90);
+        assertTrue(engine.isUnlocked("happy_hour", "rex.txt"));
+    }
+
+    @Test
+    void testStatHoldStartsAgainAfterRestart() throws Exception {
+        ManualClock clock = new ManualClock();
+        Path saveDirectory = Files.createTempDirectory("saves");
+        AchievementEngine engine = new AchievementEngine(saveDirectory, new CareEventLog(saveDirectory), clock, null);
+        engine.addStatAboveRule(new AchievementEngine.Achievement("happy_hour", "Happy", "Stay happy"),
+                Pet.HAPPINESS, 80, TimeUnit.HOURS.toMillis(1));
+        Pet rex = pet("rex");
+        engine.watch(rex);
+        rex.setHappiness(90);
+        clock.millis += TimeUnit.MINUTES.toMillis(50);
+        engine.close();
+        assertFalse(Files.readString(saveDirectory.resolve(AchievementEngine.ACHIEVEMENTS_FILE)).contains("happy_hour"));
+
+        // A day passes with the game closed
+        clock.millis += TimeUnit.DAYS.toMillis(1);
+        AchievementEngine reopened = new AchievementEngine(saveDirectory, new CareEventLog(saveDirectory), clock, null);
+        reopened.addStatAboveRule(new AchievementEngine.Achievement("happy_hour", "Happy", "Stay happy"),
+                Pet.HAPPINESS, 80, TimeUnit.HOURS.toMillis(1));
+        reopened.load();
+        reopened.watch(rex);
+        rex.setHappiness(95);
+        assertFalse(reopened.isUnlocked("happy_hour", "rex.txt"));
+        assertEquals(0, reopened.getProgress("happy_hour", "rex.txt"));
+    }
+
+    @Test
+    void testProgressSurvivesRestart() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        CareEventLog log = new CareEventLog(saveDirectory);
+        log.load();
+        AchievementEngine engine = new AchievementEngine(saveDirectory, log, Clock.systemUTC(), null);
+        engine.addDefaultRules();
+        Pet rex = pet("rex");
+        for (int i = 0; i < 10; i++) {
+            care(log, engine, CareEvent.Type.VET, rex);
+            care(log, engine, CareEvent.Type.FEED, rex);
+        }
+        engine.close();
+        log.close();
+
+        CareEventLog reopenedLog = new CareEventLog(saveDirectory);
+        reopenedLog.load();
+        AchievementEngine reopened = new AchievementEngine(saveDirectory, reopenedLog, Clock.systemUTC(), null);
+        reopened.addDefaultRules();
+        reopened.load();
+        assertTrue(reopened.isUnlocked("vet_10", "rex.txt"));
+        assertFalse(reopened.isUnlocked("fed_100", "rex.txt"));
+        assertEquals(10, reopened.getProgress("fed_100", "tom.txt"));
+        assertEquals(1, reopened.getUnlocked().size());
+    }
+}
@@ -0,0 +1,149 @@
+package group02;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Periodically saves pets that have changed since their last save.
+ * Each pet is assigned to one of BUCKETS buckets by its save file, and one bucket is
+ * checked every interval / BUCKETS, so every pet is visited once per interval while the
+ * saves themselves are spread evenly across it. Pets with nothing dirty are skipped.
+ * Only copying the pets' state happens on the snapshot executor, e.g. the UI thread that
+ * changes them; the copies are then written on the autosave thread.
+ */
+public class AutosaveScheduler {
+    /** Number of buckets the autosave interval is divided into */
+    public static final int BUCKETS = 32;
+    /** Default time between autosaves of a pet, in seconds */
+    public static final int DEFAULT_INTERVAL_SECONDS = 60;
+
+    /** Copies what a save of a pet needs, for the writer to write later */
+    private final Consumer<Pet> snapshotter;
+    /** Writes the copies taken so far durably */
+    private final Runnable writer;
+    /** Runs the snapshots, e.g. on the JavaFX application thread */
+    private final Executor snapshotExecutor;
+    /** Registered pets, grouped by bucket */
+    private final List<List<Pet>> buckets = new ArrayList<>();
+    /** Timer thread that triggers each bucket in turn and runs the writer */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "autosave");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The scheduled bucket checks, or null if autosave is off */
+    private ScheduledFuture<?> task;
+    /** The bucket checked next */
+    private int nextBucket;
+
+    /**
+     * Creates an autosave scheduler. Call setInterval to start it.
+     *
+     * @param snapshotter Copies what a save of a pet needs, on the snapshot executor.
+     * @param writer Writes the copies taken so far durably, on the autosave thread.
+     * @param snapshotExecutor Runs the snapshots, e.g. Platform::runLater.
+     */
+    public AutosaveScheduler(Consumer<Pet> snapshotter, Runnable writer, Executor snapshotExecutor) {
+        this.snapshotter = snapshotter;
+        this.writer = writer;
+        this.snapshotExecutor = snapshotExecutor;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Sets the time between autosaves of a pet and restarts the timer.
+     *
+     * @param intervalSeconds The interval in seconds, or 0 to turn autosave off.
+     */
+    public synchronized void setInterval(int intervalSeconds) {
+        if (task != null) {
+            task.cancel(false);
+            task = null;
+        }
+        if (intervalSeconds > 0) {
+            long period = TimeUnit.SECONDS.toMillis(intervalSeconds) / BUCKETS;
+            task = timer.scheduleAtFixedRate(() -> snapshotExecutor.execute(this::saveNextBucket),
+                    period, Math.max(period, 1), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Starts autosaving a pet. Registering a pet twice has no effect.
+     *
+     * @param pet The pet to autosave.
+     */
+    public synchronized void register(Pet pet) {
+        List<Pet> bucket = buckets.get(bucketOf(pet));
+        if (!bucket.contains(pet)) {
+            bucket.add(pet);
+        }
+    }
+
+    /**
+     * Stops autosaving a pet.
+     *
+     * @param pet The pet to stop autosaving.
+     */
+    public synchronized void unregister(Pet pet) {
+        for (List<Pet> bucket : buckets) {
+            bucket.remove(pet);
+        }
+    }
+
+    /**
+     * Copies the dirty pets in the next bucket, on the snapshot executor, and has the
+     * autosave thread write the copies.
+     */
+    synchronized void saveNextBucket() {
+        List<Pet> bucket = buckets.get(nextBucket);
+        nextBucket = (nextBucket + 1) % BUCKETS;
+        boolean copied = false;
+        for (int i = 0; i < bucket.size(); i++) {
+            Pet pet = bucket.get(i);
+            if (pet.isDirty()) {
+                try {
+                    snapshotter.accept(pet);
+                    copied = true;
+                } catch (RuntimeException e) {
+                    System.err.println("Autosave failed for " + pet.getSaveFile() + ": " + e.getMessage());
+                }
+            }
+        }
+        if (copied) {
+            try {
+                timer.execute(writer);
+            } catch (RejectedExecutionException e) {
+                // Shut down; the copies are written by the next explicit save
+            }
+        }
+    }
+
+    /**
+     * Stops the timer. A write already handed to the autosave thread still finishes, but
+     * nothing more is saved; save the pets explicitly before shutting down.
+     */
+    public synchronized void shutdown() {
+        setInterval(0);
+        timer.shutdown();
+    }
+
+    /**
+     * Picks the bucket of a pet from its save file so that pets spread evenly.
+     *
+     * @param pet The pet.
+     * @return The bucket index.
+     */
+    private static int bucketOf(Pet pet) {
+        String key = pet.getSaveFile() != null ? pet.getSaveFile() : pet.getName();
+        return Math.floorMod(key == null ? 0 : key.hashCode(), BUCKETS);
+    }
+}
@@ -0,0 +1,63 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AutosaveSchedulerTest {
+
+    @Test
+    void testSavesOnlyDirtyPetsOncePerInterval() {
+        List<Pet> saved = new ArrayList<>();
+        AutosaveScheduler scheduler = new AutosaveScheduler(pet -> {
+            saved.add(pet);
+            pet.markClean();
+        }, () -> { }, Runnable::run);
+
+        Pet dirty = new Pet("Buddy", "dog");
+        dirty.setSaveFile("dog_a_save.txt");
+        Pet clean = new Pet("Rex", "dog");
+        clean.setSaveFile("dog_b_save.txt");
+        clean.markClean();
+        scheduler.register(dirty);
+        scheduler.register(clean);
+
+        for (int i = 0; i < AutosaveScheduler.BUCKETS; i++) {
+            scheduler.saveNextBucket();
+        }
+        assertEquals(List.of(dirty), saved);
+
+        for (int i = 0; i < AutosaveScheduler.BUCKETS; i++) {
+            scheduler.saveNextBucket();
+        }
+        assertEquals(1, saved.size(), "A pet that has not changed since its last save should not be saved again");
+        scheduler.shutdown();
+    }
+
+    @Test
+    void testCopiesAreWrittenOnTheAutosaveThread() throws Exception {
+        CountDownLatch written = new CountDownLatch(1);
+        String[] writerThread = new String[1];
+        AutosaveScheduler scheduler = new AutosaveScheduler(Pet::markClean, () -> {
+            writerThread[0] = Thread.currentThread().getName();
+            written.countDown();
+        }, Runnable::run);
+        Pet dirty = new Pet("Buddy", "dog");
+        dirty.setSaveFile("dog_a_save.txt");
+        scheduler.register(dirty);
+
+        for (int i = 0; i < AutosaveScheduler.BUCKETS; i++) {
+            scheduler.saveNextBucket();
+        }
+
+        assertTrue(written.await(5, TimeUnit.SECONDS));
+        assertEquals("autosave", writerThread[0]);
+        assertFalse(dirty.isDirty());
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,122 @@
+package group02;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Loads every saved pet in the background. Each pet is read and parsed on its own virtual
+ * thread, so slow reads overlap instead of queuing, while a semaphore caps how many reads
+ * are in flight at once. Pets are handed over as soon as they are parsed, so the game can
+ * start before every pet is loaded.
+ *
+ * Virtual threads each get their own thread-local reader, so a reader is instead taken
+ * from a pool along with each permit and returned with it: there are never more readers,
+ * or read buffers, than permits.
+ */
+public class BulkPetLoader {
+    /** Default maximum number of pets read at the same time */
+    public static final int DEFAULT_MAX_CONCURRENT_READS = 64;
+
+    /**
+     * Listener told how far the loading has got.
+     */
+    public interface ProgressListener {
+        /**
+         * Called after each pet has been loaded or has failed to load, and once with the
+         * total before the first pet.
+         *
+         * @param done The number of pets loaded or failed so far.
+         * @param total The number of pets to load.
+         */
+        void progress(int done, int total);
+    }
+
+    /** Where the pets are loaded from */
+    private final PetRepository repository;
+    /** Limits the number of reads in flight */
+    private final Semaphore permits;
+    /** Readers not in use; holds at most as many readers as there are permits */
+    private final Queue<KeyValueReader> readers = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Creates a loader reading from the given repository.
+     *
+     * @param repository Where the pets are loaded from.
+     * @param maxConcurrentReads The maximum number of pets read at the same time.
+     */
+    public BulkPetLoader(PetRepository repository, int maxConcurrentReads) {
+        this.repository = repository;
+        this.permits = new Semaphore(maxConcurrentReads);
+    }
+
+    /**
+     * Starts loading every pet in the repository on a background thread and returns at once.
+     *
+     * @param onLoaded Receives each pet as soon as it is loaded, on the thread that loaded it.
+     * @param progress Told how far the loading has got, on the thread that loaded the last pet.
+     * @return Completes with the number of pets loaded once every pet has been loaded or has failed.
+     */
+    public CompletableFuture<Integer> loadAll(Consumer<Pet> onLoaded, ProgressListener progress) {
+        CompletableFuture<Integer> result = new CompletableFuture<>();
+        Thread.ofVirtual().name("pet-loader").start(() -> {
+            try {
+                result.complete(loadAllNow(onLoaded, progress));
+            } catch (Exception e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Loads every pet in the repository, returning once all of them have been loaded or have failed.
+     *
+     * @param onLoaded Receives each pet as soon as it is loaded.
+     * @param progress Told how far the loading has got.
+     * @return The number of pets loaded.
+     * @throws IOException If the list of pets could not be read.
+     * @throws InterruptedException If the loading thread was interrupted.
+     */
+    public int loadAllNow(Consumer<Pet> onLoaded, ProgressListener progress) throws IOException, InterruptedException {
+        List<SaveSummary> summaries = repository.list(0, Integer.MAX_VALUE);
+        int total = summaries.size();
+        AtomicInteger done = new AtomicInteger();
+        AtomicInteger loaded = new AtomicInteger();
+        progress.progress(0, total);
+
+        // Closing the executor waits for every read to finish
+        try (ExecutorService threads = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (SaveSummary summary : summaries) {
+                permits.acquire();
+                threads.submit(() -> {
+                    KeyValueReader reader = readers.poll();
+                    if (reader == null) {
+                        reader = new KeyValueReader();
+                    }
+                    try {
+                        Pet pet = repository.load(summary.saveFile(), reader);
+                        if (pet != null) {
+                            onLoaded.accept(pet);
+                            loaded.incrementAndGet();
+                        }
+                    } catch (IOException e) {
+                        System.err.println("Failed to load " + summary.saveFile() + ": " + e.getMessage());
+                    } finally {
+                        readers.offer(reader);
+                        permits.release();
+                        progress.progress(done.incrementAndGet(), total);
+                    }
+                });
+            }
+        }
+        return loaded.get();
+    }
+}
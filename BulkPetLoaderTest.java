@@ -0,0 +1,49 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BulkPetLoaderTest {
+
+    @Test
+    void testLoadsEveryPetAndReportsProgress() throws Exception {
+        TextPetRepository repository = new TextPetRepository(Files.createTempDirectory("saves"));
+        for (int i = 0; i < 20; i++) {
+            repository.saveAs(new Pet("Pet " + i, "Cat"), "cat_" + i + "_save.txt");
+        }
+
+        Map<String, Pet> pets = new ConcurrentHashMap<>();
+        AtomicInteger lastDone = new AtomicInteger(-1);
+        int loaded = new BulkPetLoader(repository, 4).loadAllNow(pet -> pets.put(pet.getSaveFile(), pet),
+                (done, total) -> lastDone.accumulateAndGet(done, Math::max));
+
+        assertEquals(20, loaded);
+        assertEquals(20, lastDone.get());
+        assertEquals("Pet 7", pets.get("cat_7_save.txt").getName());
+    }
+
+    @Test
+    void testReusesOneReaderPerPermit() throws Exception {
+        Set<KeyValueReader> readers = ConcurrentHashMap.newKeySet();
+        TextPetRepository repository = new TextPetRepository(Files.createTempDirectory("saves")) {
+            @Override
+            public Pet load(String saveFile, KeyValueReader reader) throws java.io.IOException {
+                readers.add(reader);
+                return super.load(saveFile, reader);
+            }
+        };
+        for (int i = 0; i < 50; i++) {
+            repository.saveAs(new Pet("Pet " + i, "Dog"), "dog_" + i + "_save.txt");
+        }
+
+        assertEquals(50, new BulkPetLoader(repository, 3).loadAllNow(pet -> { }, (done, total) -> { }));
+        assertTrue(readers.size() <= 3, "Readers created: " + readers.size());
+    }
+}
@@ -0,0 +1,53 @@
+package group02;
+
+/**
+ * One thing the player did for a pet, with the pet's stats and dabloons right after it.
+ * Care events are appended to the CareEventLog and never changed.
+ *
+ * @param time The time of the action, in milliseconds since the epoch.
+ * @param type What the player did.
+ * @param saveFile The save file of the pet it was done for.
+ * @param item The item fed, used or bought, or an empty string.
+ * @param health The pet's health after the action.
+ * @param happiness The pet's happiness after the action.
+ * @param fullness The pet's fullness after the action.
+ * @param energy The pet's energy after the action.
+ * @param currency The pet's dabloons after the action.
+ */
+public record CareEvent(long time, Type type, String saveFile, String item,
+                        int health, int happiness, int fullness, int energy, int currency) {
+
+    /**
+     * The kinds of care action. The log stores each type by its ordinal, so new types
+     * must be added at the end.
+     */
+    public enum Type {
+        /** Fed the pet a food item */
+        FEED,
+        /** Played with the pet */
+        PLAY,
+        /** Put the pet to sleep */
+        SLEEP,
+        /** Exercised the pet */
+        EXERCISE,
+        /** Took the pet to the vet */
+        VET,
+        /** Bought an item in the shop */
+        PURCHASE,
+        /** Gave the pet a gift */
+        USE_ITEM
+    }
+
+    /**
+     * Creates the event of an action just done for a pet, reading its stats now.
+     *
+     * @param type What the player did.
+     * @param pet The pet it was done for.
+     * @param item The item fed, used or bought, or null.
+     * @return The event.
+     */
+    public static CareEvent of(Type type, Pet pet, String item) {
+        return new CareEvent(System.currentTimeMillis(), type, pet.getSaveFile(), item == null ? "" : item,
+                pet.getHealth(), pet.getHappiness(), pet.getFullness(), pet.getEnergy(), pet.getCurrency());
+    }
+}
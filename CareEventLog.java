@@ -0,0 +1,363 @@
+package group02;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Append-only log of every care action, with projections kept up to date as events are
+ * appended: for each pet, how many times each action was done and its stats and dabloons
+ * after the last one, and the same counts and dabloons summed over every pet. Reports read
+ * the projections instead of going through the log.
+ *
+ * Each record in care.log is its length followed by the time, type ordinal, save file,
+ * item, four stats and dabloons. The projections are written to projections.txt as
+ * "key=value" lines when the log is closed, together with the log length they cover, so
+ * opening the log only replays the records appended since. A record cut short by a crash
+ * is dropped when the log is opened; a whole record that cannot be decoded, e.g. one
+ * written by a newer version, is skipped and kept.
+ */
+public class CareEventLog implements AutoCloseable {
+    /** Name of the events directory inside the save directory */
+    public static final String EVENTS_DIRECTORY = "events";
+    /** Name of the log file inside the events directory */
+    public static final String LOG_FILE = "care.log";
+    /** Name of the projections file inside the events directory */
+    public static final String PROJECTIONS_FILE = "projections.txt";
+    /** Largest record a valid log holds; anything longer is a torn or corrupt length */
+    private static final int MAX_RECORD_BYTES = 4096;
+    /** Projections key of the log length the projections cover */
+    private static final String OFFSET_KEY = "offset";
+    /** Prefix of the projections keys holding a pet's projection */
+    private static final String PET_PREFIX = "pet.";
+    /** Number of care action types */
+    private static final int TYPE_COUNT = CareEvent.Type.values().length;
+
+    /**
+     * What the log says about one pet.
+     */
+    private static final class PetProjection {
+        /** Number of actions of each type, indexed by type ordinal */
+        private final int[] counts = new int[TYPE_COUNT];
+        /** The last action, or null if none */
+        private CareEvent last;
+    }
+
+    /** The log file */
+    private final Path logFile;
+    /** The projections file */
+    private final Path projectionsFile;
+    /** Projection of each pet, by save file */
+    private final Map<String, PetProjection> pets = new HashMap<>();
+    /** Number of actions of each type over every pet, indexed by type ordinal */
+    private final int[] totalCounts = new int[TYPE_COUNT];
+    /** Dabloons of every pet after its last action, summed */
+    private long totalCurrency;
+    /** Length of the valid part of the log */
+    private long logLength;
+    /** Stream appending to the log, or null until the first append */
+    private DataOutputStream out;
+
+    /**
+     * Creates a log in the given save directory. Call load to read the recorded events.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public CareEventLog(Path saveDirectory) {
+        Path directory = saveDirectory.resolve(EVENTS_DIRECTORY);
+        this.logFile = directory.resolve(LOG_FILE);
+        this.projectionsFile = directory.resolve(PROJECTIONS_FILE);
+    }
+
+    /**
+     * Reads the projections written when the log was last closed and replays the events
+     * appended after them, dropping a record cut short by a crash and skipping records
+     * that cannot be decoded.
+     *
+     * @throws IOException If the log could not be read.
+     */
+    public synchronized void load() throws IOException {
+        clearProjections();
+        long fileLength = Files.exists(logFile) ? Files.size(logFile) : 0;
+        long offset = readProjections();
+        if (offset > fileLength) {
+            // The projections cover more than the log holds, so rebuild them from the log
+            clearProjections();
+            offset = 0;
+        }
+        logLength = offset;
+        if (fileLength == 0) {
+            return;
+        }
+        try (InputStream stream = Files.newInputStream(logFile)) {
+            stream.skipNBytes(offset);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(stream));
+            int skipped = 0;
+            while (logLength < fileLength) {
+                byte[] record;
+                try {
+                    int length = in.readInt();
+                    if (length <= 0 || length > MAX_RECORD_BYTES) {
+                        break;
+                    }
+                    record = new byte[length];
+                    in.readFully(record);
+                } catch (EOFException e) {
+                    break;
+                }
+                logLength += Integer.BYTES + record.length;
+                try {
+                    project(decode(record));
+                } catch (IOException e) {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                System.err.println("Skipped " + skipped + " care events that could not be read in " + logFile);
+            }
+        }
+        if (logLength < fileLength) {
+            System.err.println("Dropping " + (fileLength - logLength) + " unreadable bytes from the end of " + logFile);
+            try (FileChannel channel = FileChannel.open(logFile, StandardOpenOption.WRITE)) {
+                channel.truncate(logLength);
+            }
+        }
+    }
+
+    /**
+     * Appends an event to the log and updates the projections.
+     *
+     * @param event The event.
+     * @throws IOException If the event could not be written, or is too long to be read back.
+     */
+    public synchronized void append(CareEvent event) throws IOException {
+        if (event.saveFile() == null) {
+            return;
+        }
+        byte[] record = encode(event);
+        if (record.length > MAX_RECORD_BYTES) {
+            throw new IOException("Care event for " + event.saveFile() + " is too long to log: " + record.length + " bytes");
+        }
+        if (out == null) {
+            Files.createDirectories(logFile.getParent());
+            OutputStream stream = Files.newOutputStream(logFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            out = new DataOutputStream(stream);
+        }
+        out.writeInt(record.length);
+        out.write(record);
+        out.flush();
+        logLength += Integer.BYTES + record.length;
+        project(event);
+    }
+
+    /**
+     * Get how many times an action was done for a pet.
+     *
+     * @param saveFile The pet's save file.
+     * @param type The action.
+     * @return The number of times.
+     */
+    public synchronized int getCount(String saveFile, CareEvent.Type type) {
+        PetProjection projection = pets.get(saveFile);
+        return projection == null ? 0 : projection.counts[type.ordinal()];
+    }
+
+    /**
+     * Get how many times an action was done for any pet.
+     *
+     * @param type The action.
+     * @return The number of times.
+     */
+    public synchronized int getTotalCount(CareEvent.Type type) {
+        return totalCounts[type.ordinal()];
+    }
+
+    /**
+     * Get the dabloons of every pet after its last action, summed.
+     *
+     * @return The dabloons.
+     */
+    public synchronized long getTotalCurrency() {
+        return totalCurrency;
+    }
+
+    /**
+     * Get a pet's last action, holding its stats and dabloons after it.
+     *
+     * @param saveFile The pet's save file.
+     * @return The last event, or null if nothing was ever done for the pet.
+     */
+    public synchronized CareEvent getLastEvent(String saveFile) {
+        PetProjection projection = pets.get(saveFile);
+        return projection == null ? null : projection.last;
+    }
+
+    /**
+     * Writes the projections so the next load does not replay the events before now.
+     *
+     * @throws IOException If the projections could not be written.
+     */
+    public synchronized void saveProjections() throws IOException {
+        StringBuilder text = new StringBuilder();
+        text.append(OFFSET_KEY).append('=').append(logLength).append(System.lineSeparator());
+        pets.forEach((saveFile, projection) -> {
+            text.append(PET_PREFIX).append(saveFile).append('=');
+            for (int i = 0; i < TYPE_COUNT; i++) {
+                text.append(i == 0 ? "" : ",").append(projection.counts[i]);
+            }
+            CareEvent last = projection.last;
+            text.append(';').append(last.time()).append(';').append(last.type().ordinal())
+                    .append(';').append(last.health()).append(';').append(last.happiness())
+                    .append(';').append(last.fullness()).append(';').append(last.energy())
+                    .append(';').append(last.currency()).append(';').append(last.item())
+                    .append(System.lineSeparator());
+        });
+        Files.createDirectories(projectionsFile.getParent());
+        Path tempFile = projectionsFile.resolveSibling(PROJECTIONS_FILE + ".tmp");
+        Files.writeString(tempFile, text, StandardCharsets.UTF_8);
+        Files.move(tempFile, projectionsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the projections and closes the log.
+     *
+     * @throws IOException If the projections could not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        if (logLength > 0) {
+            saveProjections();
+        }
+    }
+
+    /**
+     * Empties the projections.
+     */
+    private void clearProjections() {
+        pets.clear();
+        Arrays.fill(totalCounts, 0);
+        totalCurrency = 0;
+    }
+
+    /**
+     * Adds an event to the projections.
+     *
+     * @param event The event.
+     */
+    private void project(CareEvent event) {
+        PetProjection projection = pets.computeIfAbsent(event.saveFile(), saveFile -> new PetProjection());
+        projection.counts[event.type().ordinal()]++;
+        totalCounts[event.type().ordinal()]++;
+        if (projection.last != null) {
+            totalCurrency -= projection.last.currency();
+        }
+        totalCurrency += event.currency();
+        projection.last = event;
+    }
+
+    /**
+     * Reads the projections file, if there is one.
+     *
+     * @return The log length the projections cover.
+     * @throws IOException If the file could not be read.
+     */
+    private long readProjections() throws IOException {
+        if (!Files.exists(projectionsFile)) {
+            return 0;
+        }
+        long offset = 0;
+        KeyValueReader reader = KeyValueReader.read(projectionsFile);
+        while (reader.next()) {
+            try {
+                if (reader.keyEquals(OFFSET_KEY)) {
+                    offset = reader.longValue();
+                } else if (reader.keyStartsWith(PET_PREFIX)) {
+                    String saveFile = reader.keySuffix(PET_PREFIX.length());
+                    String[] parts = reader.value().split(";", 9);
+                    String[] counts = parts[0].split(",");
+                    PetProjection projection = new PetProjection();
+                    for (int i = 0; i < Math.min(counts.length, TYPE_COUNT); i++) {
+                        projection.counts[i] = Integer.parseInt(counts[i]);
+                    }
+                    projection.last = new CareEvent(Long.parseLong(parts[1]),
+                            CareEvent.Type.values()[Integer.parseInt(parts[2])], saveFile, parts[8],
+                            Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]),
+                            Integer.parseInt(parts[6]), Integer.parseInt(parts[7]));
+                    PetProjection previous = pets.put(saveFile, projection);
+                    if (previous != null) {
+                        totalCurrency -= previous.last.currency();
+                        for (int i = 0; i < TYPE_COUNT; i++) {
+                            totalCounts[i] -= previous.counts[i];
+                        }
+                    }
+                    totalCurrency += projection.last.currency();
+                    for (int i = 0; i < TYPE_COUNT; i++) {
+                        totalCounts[i] += projection.counts[i];
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Skipping bad projection line: " + reader.key());
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Encodes an event as a log record, without its length.
+     *
+     * @param event The event.
+     * @return The record.
+     * @throws IOException Never, the record is written to memory.
+     */
+    private static byte[] encode(CareEvent event) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream data = new DataOutputStream(bytes);
+        data.writeLong(event.time());
+        data.writeByte(event.type().ordinal());
+        data.writeUTF(event.saveFile());
+        data.writeUTF(event.item());
+        data.writeShort(event.health());
+        data.writeShort(event.happiness());
+        data.writeShort(event.fullness());
+        data.writeShort(event.energy());
+        data.writeInt(event.currency());
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decodes a log record.
+     *
+     * @param record The record, without its length.
+     * @return The event.
+     * @throws IOException If the record is damaged or has an unknown type.
+     */
+    private static CareEvent decode(byte[] record) throws IOException {
+        DataInputStream data = new DataInputStream(new ByteArrayInputStream(record));
+        long time = data.readLong();
+        int type = data.readUnsignedByte();
+        if (type >= TYPE_COUNT) {
+            throw new IOException("Unknown care event type " + type);
+        }
+        return new CareEvent(time, CareEvent.Type.values()[type], data.readUTF(), data.readUTF(),
+                data.readShort(), data.readShort(), data.readShort(), data.readShort(), data.readInt());
+    }
+}
@@ -0,0 +1,120 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CareEventLogTest {
+    /**
+     * Creates an event for a pet with the given dabloons.
+     */
+    private static CareEvent event(CareEvent.Type type, String saveFile, int currency) {
+        return new CareEvent(1000, type, saveFile, "Kibble", 90, 80, 70, 60, currency);
+    }
+
+    @Test
+    void testProjectionsFollowAppends() throws Exception {
+        CareEventLog log = new CareEventLog(Files.createTempDirectory("saves"));
+        log.load();
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        log.append(event(CareEvent.Type.VET, "rex.txt", 5));
+        log.append(event(CareEvent.Type.FEED, "tom.txt", 20));
+
+        assertEquals(2, log.getCount("rex.txt", CareEvent.Type.FEED));
+        assertEquals(1, log.getCount("rex.txt", CareEvent.Type.VET));
+        assertEquals(3, log.getTotalCount(CareEvent.Type.FEED));
+        assertEquals(0, log.getTotalCount(CareEvent.Type.PLAY));
+        assertEquals(25, log.getTotalCurrency());
+        assertEquals(CareEvent.Type.VET, log.getLastEvent("rex.txt").type());
+        assertNull(log.getLastEvent("missing.txt"));
+        log.close();
+    }
+
+    @Test
+    void testReopenReplaysEventsAfterProjections() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        CareEventLog log = new CareEventLog(saveDirectory);
+        log.load();
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        log.close();
+
+        // Appended after the projections were written, then the game crashes
+        CareEventLog crashed = new CareEventLog(saveDirectory);
+        crashed.load();
+        crashed.append(event(CareEvent.Type.PLAY, "rex.txt", 15));
+
+        CareEventLog reopened = new CareEventLog(saveDirectory);
+        reopened.load();
+        assertEquals(1, reopened.getCount("rex.txt", CareEvent.Type.FEED));
+        assertEquals(1, reopened.getCount("rex.txt", CareEvent.Type.PLAY));
+        assertEquals(15, reopened.getTotalCurrency());
+        assertEquals("Kibble", reopened.getLastEvent("rex.txt").item());
+        crashed.close();
+        reopened.close();
+    }
+
+    @Test
+    void testTornRecordIsDropped() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        CareEventLog log = new CareEventLog(saveDirectory);
+        log.load();
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        Path logFile = saveDirectory.resolve(CareEventLog.EVENTS_DIRECTORY).resolve(CareEventLog.LOG_FILE);
+        long length = Files.size(logFile);
+        Files.write(logFile, new byte[] {0, 0, 0, 40, 1, 2}, StandardOpenOption.APPEND);
+
+        CareEventLog reopened = new CareEventLog(saveDirectory);
+        reopened.load();
+        assertEquals(1, reopened.getTotalCount(CareEvent.Type.FEED));
+        assertEquals(length, Files.size(logFile));
+
+        reopened.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        CareEventLog again = new CareEventLog(saveDirectory);
+        again.load();
+        assertEquals(2, again.getTotalCount(CareEvent.Type.FEED));
+        log.close();
+        reopened.close();
+    }
+
+    @Test
+    void testUnreadableRecordIsSkippedAndKept() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        CareEventLog log = new CareEventLog(saveDirectory);
+        log.load();
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        Path logFile = saveDirectory.resolve(CareEventLog.EVENTS_DIRECTORY).resolve(CareEventLog.LOG_FILE);
+        // A whole record with a type this version does not know
+        Files.write(logFile, new byte[] {0, 0, 0, 9, 0, 0, 0, 0, 0, 0, 0, 1, 127}, StandardOpenOption.APPEND);
+        log.close();
+        Files.delete(saveDirectory.resolve(CareEventLog.EVENTS_DIRECTORY).resolve(CareEventLog.PROJECTIONS_FILE));
+        long length = Files.size(logFile);
+
+        CareEventLog reopened = new CareEventLog(saveDirectory);
+        reopened.load();
+        reopened.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        CareEventLog again = new CareEventLog(saveDirectory);
+        again.load();
+        assertEquals(2, again.getTotalCount(CareEvent.Type.FEED));
+        assertTrue(Files.size(logFile) > length);
+        reopened.close();
+        again.close();
+    }
+
+    @Test
+    void testRecordTooLongToReadBackIsRejected() throws Exception {
+        CareEventLog log = new CareEventLog(Files.createTempDirectory("saves"));
+        log.load();
+        CareEvent huge = new CareEvent(1000, CareEvent.Type.FEED, "rex.txt", "x".repeat(5000), 90, 80, 70, 60, 0);
+
+        assertThrows(IOException.class, () -> log.append(huge));
+        log.append(event(CareEvent.Type.FEED, "rex.txt", 10));
+        assertEquals(1, log.getTotalCount(CareEvent.Type.FEED));
+        log.close();
+    }
+}
@@ -0,0 +1,160 @@
+package group02;
+
+import java.util.Arrays;
+
+/**
+ * Compact encoding of a column of numbers. Each value is stored as its difference from the
+ * previous one, and repeated differences are stored once with a repeat count, as pairs of
+ * variable-length integers. Timestamps taken at a fixed tick and stats that drift by the
+ * same amount every tick therefore shrink to a few bytes per block.
+ */
+public final class ColumnCodec {
+
+    /** Not instantiable */
+    private ColumnCodec() {
+    }
+
+    /**
+     * Encodes the first values of a column.
+     *
+     * @param values The values.
+     * @param count The number of values to encode.
+     * @return The encoded bytes.
+     */
+    public static byte[] encode(long[] values, int count) {
+        byte[] out = new byte[Math.max(16, count * 2)];
+        int length = 0;
+        long previous = 0;
+        long runDelta = 0;
+        int runLength = 0;
+        for (int i = 0; i < count; i++) {
+            long delta = values[i] - previous;
+            previous = values[i];
+            if (runLength > 0 && delta == runDelta) {
+                runLength++;
+                continue;
+            }
+            if (runLength > 0) {
+                out = ensureCapacity(out, length + 20);
+                length = writeVarLong(out, length, runLength);
+                length = writeVarLong(out, length, zigZag(runDelta));
+            }
+            runDelta = delta;
+            runLength = 1;
+        }
+        if (runLength > 0) {
+            out = ensureCapacity(out, length + 20);
+            length = writeVarLong(out, length, runLength);
+            length = writeVarLong(out, length, zigZag(runDelta));
+        }
+        return Arrays.copyOf(out, length);
+    }
+
+    /**
+     * Decodes a column.
+     *
+     * @param bytes The encoded bytes.
+     * @param count The number of values encoded.
+     * @return The values.
+     * @throws IllegalArgumentException If the bytes hold fewer values than expected or are damaged.
+     */
+    public static long[] decode(byte[] bytes, int count) {
+        long[] values = new long[count];
+        int position = 0;
+        int decoded = 0;
+        long value = 0;
+        while (decoded < count) {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Column ends after " + decoded + " of " + count + " values");
+            }
+            long runLength = readVarLong(bytes, position);
+            position = varLongEnd(bytes, position);
+            long zigZagged = readVarLong(bytes, position);
+            position = varLongEnd(bytes, position);
+            if (runLength <= 0) {
+                throw new IllegalArgumentException("Column has a run of " + runLength + " values");
+            }
+            long delta = (zigZagged >>> 1) ^ -(zigZagged & 1);
+            for (long i = 0; i < runLength && decoded < count; i++) {
+                value += delta;
+                values[decoded++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Maps signed values to unsigned ones so that small negative deltas stay short.
+     *
+     * @param value The signed value.
+     * @return The zigzag-encoded value.
+     */
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    /**
+     * Writes a variable-length integer, seven bits per byte.
+     *
+     * @param out The buffer.
+     * @param position Where to write.
+     * @param value The unsigned value.
+     * @return The position after the value.
+     */
+    private static int writeVarLong(byte[] out, int position, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    /**
+     * Reads a variable-length integer, seven bits per byte.
+     *
+     * @param bytes The encoded bytes.
+     * @param position Where the integer starts.
+     * @return The unsigned value.
+     * @throws IllegalArgumentException If the bytes end inside the integer or it is longer than a long.
+     */
+    private static long readVarLong(byte[] bytes, int position) {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            if (position >= bytes.length) {
+                throw new IllegalArgumentException("Column ends inside a number");
+            }
+            byte b = bytes[position++];
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Column holds a number longer than 64 bits");
+    }
+
+    /**
+     * Finds the end of a variable-length integer that readVarLong has read.
+     *
+     * @param bytes The encoded bytes.
+     * @param position Where the integer starts.
+     * @return The position after the integer.
+     */
+    private static int varLongEnd(byte[] bytes, int position) {
+        while (bytes[position] < 0) {
+            position++;
+        }
+        return position + 1;
+    }
+
+    /**
+     * Grows a buffer if it cannot hold the given number of bytes.
+     *
+     * @param out The buffer.
+     * @param needed The number of bytes needed.
+     * @return The buffer, or a larger copy of it.
+     */
+    private static byte[] ensureCapacity(byte[] out, int needed) {
+        return needed <= out.length ? out : Arrays.copyOf(out, Math.max(needed, out.length * 2));
+    }
+}
@@ -1,6 +1,5 @@
 package group02;
 
-import javafx.animation.AnimationTimer;
 import javafx.animation.ScaleTransition;
 import javafx.animation.Timeline;
 import javafx.animation.KeyFrame;
@@ -11,6 +10,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.ProgressBar;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.GridPane;
@@ -28,6 +28,9 @@ import javafx.stage.Stage;
 import java.io.File;
 import javafx.scene.image.ImageView;
 import javafx.util.Duration;
+import javafx.util.StringConverter;
+import java.util.Arrays;
+import java.util.Comparator;
 
 /**
  * The GameScreen class handles the main gameplay screen where the player interacts with their pet.
@@ -52,10 +55,13 @@ public class GameScreen {
     private ImageView petSprite;
     private Text scoreText;
     private Text currencyText;
+    /** Chart of the pet's stats over the last ticks */
+    private StatChart statChart;
     
-    // Game loop for periodic updates
-    private AnimationTimer gameLoop;
-    private long lastUpdate = 0;
+    /** Redraws the screen after each household tick, or null while the screen is not listening */
+    private Runnable gameLoop;
+    /** Picks which pet of the household is on screen */
+    private ComboBox<Pet> petPicker;
     
     private VBox root;
     private VBox centerBox;
@@ -168,6 +174,10 @@ public class GameScreen {
         
         // Start the game loop
         setupGameLoop();
+
+        // Congratulate the player as achievements are unlocked
+        gameState.setAchievementListener((achievement, saveFile) -> Platform.runLater(() ->
+                showAlert("Achievement Unlocked!", achievement.title() + "\n" + achievement.description())));
     }
     
     private HBox createTopBar() {
@@ -204,7 +214,33 @@ public class GameScreen {
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
-        topBar.getChildren().addAll(petNameText, scoreText, currencyText, spacer, saveButton, backButton);
+        // Every pet in the household keeps living; pick the one to look after
+        petPicker = new ComboBox<>();
+        petPicker.setConverter(new StringConverter<>() {
+            @Override
+            public String toString(Pet listed) {
+                return listed == null ? "" : listed.getName() + " (" + listed.getType() + ")";
+            }
+
+            @Override
+            public Pet fromString(String text) {
+                return null;
+            }
+        });
+        petPicker.setOnShowing(e -> {
+            Pet[] pets = gameState.getHousehold().getPets();
+            Arrays.sort(pets, Comparator.comparing(Pet::getName, String.CASE_INSENSITIVE_ORDER));
+            petPicker.getItems().setAll(pets);
+        });
+        petPicker.getItems().setAll(pet);
+        petPicker.setValue(pet);
+        petPicker.setOnAction(e -> {
+            if (petPicker.getValue() != null) {
+                switchPet(petPicker.getValue());
+            }
+        });
+
+        topBar.getChildren().addAll(petNameText, scoreText, currencyText, spacer, petPicker, saveButton, backButton);
         return topBar;
     }
 
@@ -297,13 +333,19 @@ public class GameScreen {
         
         energyBar = createStatusBar(pet.getEnergy(), Color.BLUE);
         energyText = new Text("Energy: " + pet.getEnergy());
+
+        Text historyTitle = new Text("History");
+        historyTitle.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        statChart = new StatChart(210, 90, StatChart.DEFAULT_WINDOW);
+        statChart.setHistory(pet.getStatHistory());
         
         statsBox.getChildren().addAll(
             statsTitle,
             healthText, healthBar,
             happinessText, happinessBar,
             fullnessText, fullnessBar,
-            energyText, energyBar
+            energyText, energyBar,
+            historyTitle, statChart
         );
         
         return statsBox;
@@ -345,46 +387,66 @@ public class GameScreen {
     }
 
     /**
-     * Start the game loop for periodic updates. we will use the term "tick" to refer to the periodic updates.
+     * Start redrawing the screen after each tick. We use the term "tick" for the periodic
+     * updates; the household ticks every pet, whether or not this screen is listening.
      */
     private void setupGameLoop() {
-        if (gameLoop != null) {
-            gameLoop.stop();
-        }
-        
-        gameLoop = new AnimationTimer() {
-            @Override
-            public void handle(long now) {
-                // Update every 3 seconds (3,000,000,000 nanoseconds)
-                if (now - lastUpdate >= 3_000_000_000L) {
-                    lastUpdate = now;
-                    updatePetStats();
-                    updatePetSprite();
-                }
+        gameLoop = () -> {
+            // Stop once another screen has replaced this one, e.g. when play time is over
+            if (stage.getScene() != scene) {
+                stopGameLoop();
+                return;
             }
+            updatePetStats();
+            updatePetSprite();
         };
-        gameLoop.start();
+        gameState.setHouseholdListener(gameLoop);
     }
 
     /**
-     * Stop the game loop.
+     * Stop redrawing the screen after each tick. The pets keep living.
      */
     private void stopGameLoop() {
         if (gameLoop != null) {
-            gameLoop.stop();
+            gameState.setHouseholdListener(null);
             gameLoop = null;
         }
     }
 
     /**
-     * Update the pet by one tick.
+     * Shows another pet of the household. The household keeps ticking throughout.
+     *
+     * @param next The pet to show.
+     */
+    private void switchPet(Pet next) {
+        if (next == pet) {
+            return;
+        }
+        pet = next;
+        gameState.setPet(next);
+        stage.setTitle("Virtual Pet Game - " + pet.getName());
+        petNameText.setText(pet.getName());
+        statChart.setHistory(pet.getStatHistory());
+        healthWarningShown = false;
+        energyWarningShown = false;
+        fullnessWarningShown = false;
+        happinessWarningShown = false;
+        updateStats();
+        updateTopBar();
+        updatePetSprite();
+        updateInventoryDisplay();
+        if (gameLoop == null) {
+            setupGameLoop();
+        }
+    }
+
+    /**
+     * Update the screen after the household's tick.
      */
     private void updatePetStats() {
-        // Update the pet's state (this will handle stat decreases)
-        pet.update();
-        
         // Update the UI
         updateStats();
+        statChart.refresh();
         
         // Check for stat warnings
         checkStatWarnings();
@@ -576,6 +638,7 @@ public class GameScreen {
                         break;
                 }
                 pet.removeItem(name, 1);
+                gameState.recordCare(CareEvent.Type.FEED, pet, name);
                 dialog.close();
                 updateInventoryDisplay();
                 updateStats();
@@ -598,6 +661,7 @@ public class GameScreen {
         pet.setScore(pet.getScore() + 15);
         int earnedDabloons = 5 + (int)(Math.random() * 5); // 5-9 dabloons
         pet.addCurrency(earnedDabloons);
+        gameState.recordCare(CareEvent.Type.PLAY, pet, null);
         
         showAlert("Playing!", "You played with " + pet.getName() + ".\nHappiness +15, Energy -10\nEarned " + earnedDabloons + " dabloons!\nScore +15");
         
@@ -622,6 +686,7 @@ public class GameScreen {
         pet.setScore(pet.getScore() + 10);
         int earnedDabloons = 3 + (int)(Math.random() * 3); // 3-5 dabloons
         pet.addCurrency(earnedDabloons);
+        gameState.recordCare(CareEvent.Type.SLEEP, pet, null);
         
         showAlert("Sleeping!", pet.getName() + " is sleeping.\nEnergy +100, Fullness -20\nEarned " + earnedDabloons + " dabloons!\nScore +10");
         
@@ -753,6 +818,7 @@ public class GameScreen {
 
         // Remove the item from inventory
         pet.removeItem(itemName, 1);
+        gameState.recordCare(CareEvent.Type.USE_ITEM, pet, itemName);
         
         // Show success message
         showAlert("Gift Used", "You gave " + itemName + " to " + pet.getName() + "!");
@@ -775,6 +841,7 @@ public class GameScreen {
             
             // Add score
             pet.setScore(pet.getScore() + 20);
+            gameState.recordCare(CareEvent.Type.VET, pet, null);
             
             // Update the display
             updateStats();
@@ -790,12 +857,11 @@ public class GameScreen {
      * Saves the current pet being played
      */
     private void saveGame() {
-        stopGameLoop(); // Stop the game loop before saving
         
-        String fileName = pet.getType().toLowerCase() + "_save.txt";
         try {
             // Save pet information
-            gameState.savePet(fileName);
+            gameState.savePet();
+            String fileName = pet.getSaveFile();
             
             System.out.println("Game saved to " + fileName);
             
@@ -993,6 +1059,7 @@ public class GameScreen {
             updateStats();
             updateTopBar();
             gameOverDialog.close();
+            setupGameLoop();
         });
         
         mainMenuButton.setOnAction(e -> {
@@ -1009,10 +1076,8 @@ public class GameScreen {
         // Use Platform.runLater to show the dialog safely
         Platform.runLater(() -> {
             gameOverDialog.show();
-            // Stop the game loop when showing game over
-            if (gameLoop != null) {
-                gameLoop.stop();
-            }
+            // Stop redrawing when showing game over
+            stopGameLoop();
         });
     }
 
@@ -1039,6 +1104,7 @@ public class GameScreen {
         pet.setScore(pet.getScore() + 20);
         int earnedDabloons = 5 + (int)(Math.random() * 5); // 5-9 dabloons
         pet.addCurrency(earnedDabloons);
+        gameState.recordCare(CareEvent.Type.EXERCISE, pet, null);
         
         showAlert("Exercise Complete!", "Your pet has exercised!\n" +
                                                      "Health +15, Energy -30\n" +
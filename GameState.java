@@ -1,9 +1,19 @@
 package group02;
 
 import java.io.*;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.time.Clock;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import static java.time.temporal.ChronoUnit.MINUTES;
 
 /**
  * Manages the overall state of the game, including the current pet, player, and game settings.
@@ -11,25 +21,399 @@ import static java.time.temporal.ChronoUnit.MINUTES;
 public class GameState {
     /** The directory where game saves are stored */
     public static final String SAVE_DIRECTORY = "saves/";
+    /** Name of the settings file inside the save directory */
+    public static final String SETTINGS_FILE = "settings.txt";
+    /** The directory of the profile being played */
+    private final Path saveDirectory;
     /** The current pet in the game */
     private Pet pet;
     /** The player object */
     private Player player;
-    /** The time the session started */
-    private LocalTime sessionStartTime= LocalTime.now();
+    /** Where pets are saved */
+    private final PetRepository petRepository;
+    /** Where the player's settings are saved */
+    private final PlayerRepository playerRepository;
+    /** Journal of changes made since the last save, replayed after a crash */
+    private final Journal journal;
+    /** Every pet's stats at every tick, for analytics */
+    private final StatSeriesStore statSeries;
+    /** Writes the stat history, journal and play time after ticks, off the UI thread */
+    private final TickWriter tickWriter;
+    /** Writes the player's settings in the background */
+    private final SettingsStore settingsStore;
+    /** Pets in memory, by save file, so each save has at most one Pet; only the household's pets are ticked */
+    private final Map<String, Pet> residentPets = new ConcurrentHashMap<>();
+    /** Told how far loadAllPets has got, or null */
+    private volatile BulkPetLoader.ProgressListener petLoadListener;
+    /** Number of pets loadAllPets has loaded or failed to load so far */
+    private volatile int petsLoadedCount;
+    /** Number of pets loadAllPets is loading, or -1 before it has started */
+    private volatile int petsToLoadCount = -1;
+    /** Cold storage for pets that have not been played for a long time */
+    private final PetArchive archive;
+    /** Catalog of pet saves kept in sync with the save directory, or null until startSaveCatalog is called */
+    private SaveCatalog saveCatalog;
+    /** Saves changed pets in the background, or null until startAutosave is called */
+    private AutosaveScheduler autosave;
+    /** Minutes played per day, timing this session */
+    private final PlayTimeLedger playTime;
+    /** Ends play when the time restrictions stop allowing it, or null until startPlayTimeEnforcement is called */
+    private PlayTimeEnforcer playTimeEnforcer;
+    /** The pets the player has taken into play, ticked together whichever one is on screen */
+    private final Household household = new Household();
+    /** Told on the UI thread after every tick of the household, or null */
+    private volatile Runnable householdListener;
+    /** Every player profile on this device, or null if profiles cannot be switched */
+    private ProfileStore profiles;
+    /** Switches the game to the profile with the given id, or null if profiles cannot be switched */
+    private Consumer<String> profileSwitcher;
+    /** Distributions of session length and time of day played */
+    private final SessionHistograms sessionHistograms;
+    /** Every care action, with counts and stats projected from them */
+    private final CareEventLog careEvents;
+    /** Unlocks achievements from care actions and pets' changes */
+    private final AchievementEngine achievements;
+    /** Told when an achievement is unlocked, or null */
+    private volatile AchievementEngine.UnlockListener achievementListener;
+    /** Copies of pets taken by autosave and not written yet, by save file */
+    private final Map<String, PendingSave> pendingSaves = new HashMap<>();
+    /** Held while pets are written, so an autosaved copy and a later save of the same pet land in order */
+    private final Object saveLock = new Object();
+
+    /**
+     * A copy of a pet taken by autosave, waiting to be written.
+     *
+     * @param pet The pet the copy was taken from.
+     * @param copy The copy.
+     * @param sequence The journal sequence number of the last change the copy holds.
+     */
+    private record PendingSave(Pet pet, Pet copy, long sequence) {}
 
     /**
      * Creates a new game state with default settings if it's the first time playing
      * and loads settings from previous play sessions otherwise.
      */
     public GameState() {
-        File savesDir = new File(GameState.SAVE_DIRECTORY + "settings.txt");
-        if (savesDir.exists()) {
-            this.player = new Player(GameState.SAVE_DIRECTORY + "settings.txt");
-        }else {
+        this(Paths.get(SAVE_DIRECTORY));
+    }
+
+    /**
+     * Creates the game state of the default profile saved in the given directory, with
+     * default settings if it's the first time the profile plays.
+     *
+     * @param saveDirectory The profile's save directory.
+     */
+    public GameState(Path saveDirectory) {
+        this(saveDirectory, ProfileStore.DEFAULT_PROFILE);
+    }
+
+    /**
+     * Creates the game state of a profile saved in the given directory, with default
+     * settings if it's the first time the profile plays.
+     *
+     * @param saveDirectory The profile's save directory.
+     * @param profileId The profile's id, keeping its pets and settings apart in a shared database store.
+     */
+    public GameState(Path saveDirectory, String profileId) {
+        this.saveDirectory = saveDirectory;
+        this.journal = new Journal(saveDirectory);
+        this.statSeries = new StatSeriesStore(saveDirectory);
+        this.archive = new PetArchive(saveDirectory);
+        this.playTime = new PlayTimeLedger(saveDirectory);
+        this.sessionHistograms = new SessionHistograms(saveDirectory);
+        this.careEvents = new CareEventLog(saveDirectory);
+        this.tickWriter = new TickWriter(statSeries, journal, playTime);
+        this.achievements = new AchievementEngine(saveDirectory, careEvents, Clock.systemDefaultZone(), this::achievementUnlocked);
+        achievements.addDefaultRules();
+        PetRepository pets;
+        PlayerRepository players;
+        try {
+            pets = PetRepository.open(saveDirectory, profileId);
+            players = PlayerRepository.open(saveDirectory, profileId);
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to open the configured store, using the save files instead");
+            pets = new TextPetRepository(saveDirectory);
+            players = new TextPlayerRepository(saveDirectory);
+        }
+        this.petRepository = pets;
+        this.playerRepository = players;
+        this.settingsStore = new SettingsStore(players, this::settingsWritten);
+
+        try {
+            this.player = playerRepository.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to load settings, using defaults");
             this.player = new Player();
         }
+
+        recoverFromJournal();
+        try {
+            playTime.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to read play time, counting from zero");
+        }
+        try {
+            sessionHistograms.load();
+        } catch (IOException e) {
+            System.err.println("Failed to read session histograms: " + e.getMessage());
+        }
+        try {
+            careEvents.load();
+        } catch (IOException e) {
+            System.err.println("Failed to read care events: " + e.getMessage());
+        }
+        try {
+            achievements.load();
+        } catch (IOException e) {
+            System.err.println("Failed to read achievements: " + e.getMessage());
+        }
+        playTime.startSession();
         this.player.incrementSessions();
+        journal.record(SETTINGS_FILE, "numberOfSessions", String.valueOf(player.getNumberOfSessions()));
+    }
+
+    /**
+     * Replays changes that were journaled but not saved if the last session crashed,
+     * then starts journaling this session.
+     */
+    private void recoverFromJournal() {
+        try {
+            for (Map.Entry<String, Map<String, String>> changes : journal.recover().entrySet()) {
+                if (changes.getKey().equals(SETTINGS_FILE)) {
+                    changes.getValue().forEach(player::applySetting);
+                    playerRepository.save(player);
+                    continue;
+                }
+                Pet recovered = petRepository.load(changes.getKey());
+                if (recovered == null) {
+                    System.err.println("Skipping journaled changes to missing save " + changes.getKey());
+                    continue;
+                }
+                changes.getValue().forEach(recovered::applyField);
+                petRepository.save(recovered);
+            }
+            journal.open();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to recover unsaved changes from the journal");
+        }
+    }
+
+    /**
+     * Writes journaled changes to disk. Called once per game tick so that a crash loses
+     * at most one tick of changes.
+     */
+    public void flushJournal() {
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write journal: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Records a pet's stats after a tick, to be written to the stat history store in the
+     * background.
+     *
+     * @param pet The pet that was ticked.
+     */
+    public void recordTick(Pet pet) {
+        tickWriter.add(pet);
+    }
+
+
+    /**
+     * Records a care action just done for a pet in the care event log.
+     *
+     * @param type What the player did.
+     * @param pet The pet it was done for.
+     * @param item The item fed, used or bought, or null.
+     */
+    public void recordCare(CareEvent.Type type, Pet pet, String item) {
+        if (pet == null || pet.getSaveFile() == null) {
+            return;
+        }
+        CareEvent event = CareEvent.of(type, pet, item);
+        try {
+            careEvents.append(event);
+        } catch (IOException e) {
+            System.err.println("Failed to write care event: " + e.getMessage());
+        }
+        achievements.careEvent(event);
+    }
+
+    /**
+     * Returns the achievements engine.
+     *
+     * @return The achievements engine.
+     */
+    public AchievementEngine getAchievements() {
+        return achievements;
+    }
+
+    /**
+     * Sets the listener told when an achievement is unlocked, e.g. to congratulate the player.
+     *
+     * @param listener The listener, or null to stop listening.
+     */
+    public void setAchievementListener(AchievementEngine.UnlockListener listener) {
+        this.achievementListener = listener;
+    }
+
+    /**
+     * Tells the achievement listener about an unlocked achievement.
+     *
+     * @param achievement The achievement.
+     * @param saveFile The save file of the pet that unlocked it, or AchievementEngine.ALL_PETS.
+     */
+    private void achievementUnlocked(AchievementEngine.Achievement achievement, String saveFile) {
+        AchievementEngine.UnlockListener listener = achievementListener;
+        if (listener != null) {
+            listener.unlocked(achievement, saveFile);
+        }
+    }
+
+    /**
+     * Returns the log of every care action and its projections.
+     *
+     * @return The care event log.
+     */
+    public CareEventLog getCareEvents() {
+        return careEvents;
+    }
+
+    /**
+     * Has what the household's tick changed written in the background and tells the
+     * household listener.
+     */
+    private void householdTicked() {
+        tickWriter.handOff();
+        Runnable listener = householdListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Checks if the player is allowed to play now, counting today's play time across sessions.
+     *
+     * @return true if the player may play, false otherwise.
+     */
+    public boolean isAllowedToPlay() {
+        return player.isAllowedToPlay(LocalDateTime.now(), playTime.getMinutesToday());
+    }
+
+    /**
+     * Returns the ledger of minutes played per day.
+     *
+     * @return The play time ledger.
+     */
+    public PlayTimeLedger getPlayTime() {
+        return playTime;
+    }
+
+    /**
+     * Returns the player's total play time including this session.
+     *
+     * @return The total play time in minutes.
+     */
+    public int getTotalPlayMinutes() {
+        return player.getTotalPlayTime() + playTime.getSessionMinutes();
+    }
+
+    /**
+     * Returns the distributions of session length and time of day played.
+     *
+     * @return The session histograms.
+     */
+    public SessionHistograms getSessionHistograms() {
+        return sessionHistograms;
+    }
+
+    /**
+     * Returns the store of every pet's stats over time.
+     *
+     * @return The stat series store.
+     */
+    public StatSeriesStore getStatSeries() {
+        return statSeries;
+    }
+
+    /**
+     * Ends the session cleanly: stops autosave, writes pending settings and closes the journal.
+     */
+    public void close() {
+        household.shutdown();
+        tickWriter.close();
+        stopAutosave();
+        writePendingSaves();
+        // Pets other than the current one changed by ticks since their last save
+        for (Pet member : household.getPets()) {
+            if (member != pet && member.isDirty() && member.getSaveFile() != null) {
+                savePet(member);
+            }
+        }
+        if (playTimeEnforcer != null) {
+            playTimeEnforcer.close();
+        }
+        try {
+            sessionHistograms.recordSession(playTime.getSessionStart(), playTime.getSessionMillis(), playTime.getZone());
+            sessionHistograms.save();
+        } catch (IOException e) {
+            System.err.println("Failed to write session histograms: " + e.getMessage());
+        }
+        try {
+            playTime.stopSession();
+        } catch (IOException e) {
+            System.err.println("Failed to write play time: " + e.getMessage());
+        }
+        try {
+            settingsStore.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to save settings to " + SETTINGS_FILE);
+        }
+        try {
+            statSeries.close();
+        } catch (IOException e) {
+            System.err.println("Failed to write stat history: " + e.getMessage());
+        }
+        try {
+            careEvents.close();
+        } catch (IOException e) {
+            System.err.println("Failed to write care event projections: " + e.getMessage());
+        }
+        try {
+            achievements.close();
+        } catch (IOException e) {
+            System.err.println("Failed to write achievements: " + e.getMessage());
+        }
+        // Each in its own try, so one failing does not leave the others open
+        try {
+            if (saveCatalog != null) {
+                saveCatalog.close();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to stop watching the save directory: " + e.getMessage());
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close journal: " + e.getMessage());
+        }
+        try {
+            petRepository.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close the pet store: " + e.getMessage());
+        }
+        try {
+            playerRepository.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close the settings store: " + e.getMessage());
+        }
     }
 
     /**
@@ -40,68 +424,626 @@ public class GameState {
      */
     public void startNewGame(String petName, String petType) {
         this.pet = new Pet(petName, petType);
+        this.pet.setSaveFile(newSaveFile(petType));
         this.pet.addItem("Kibble", 5);
         this.pet.addItem("Treats", 2);
         this.pet.addItem("Premium Food", 1);
         this.pet.addItem("Vaccine", 1);
+        track(this.pet);
+        household.add(this.pet);
+    }
+
+    /**
+     * Starts archiving inactive pets and then loading every saved pet, in the background so
+     * the game can start right away. Loaded pets are kept by save file and handed out by
+     * getResidentPet; they are not ticked until the player takes them into play. A pet
+     * already in memory, such as the current one, is not replaced by the loaded copy.
+     */
+    public void loadAllPets() {
+        BulkPetLoader loader = new BulkPetLoader(petRepository, BulkPetLoader.DEFAULT_MAX_CONCURRENT_READS);
+        CompletableFuture.runAsync(this::archiveInactivePets,
+                task -> Thread.ofVirtual().name("pet-archiver").start(task)).thenCompose(archived -> loader.loadAll(pet -> {
+            Pet current = this.pet;
+            if (current == null || !pet.getSaveFile().equals(current.getSaveFile())) {
+                residentPets.putIfAbsent(pet.getSaveFile(), pet);
+            }
+        }, (done, total) -> {
+            petsLoadedCount = done;
+            petsToLoadCount = total;
+            BulkPetLoader.ProgressListener listener = petLoadListener;
+            if (listener != null) {
+                listener.progress(done, total);
+            }
+        })).whenComplete((loaded, error) -> {
+            if (error != null) {
+                System.err.println("Failed to load saved pets: " + error.getMessage());
+            } else {
+                System.out.println("Loaded " + loaded + " saved pets");
+            }
+        });
+    }
+
+    /**
+     * Moves pets nobody has played for a long time from the save list to the archive: dead
+     * pets after DEAD_PET_GRACE_DAYS and live pets after the player's archiveAfterDays.
+     * Only pets that are not open are archived, straight from their save files; the current
+     * pet, pets in the household and pets already loaded are left alone, so the background
+     * thread never touches a pet the game is using. A pet already in the archive, left
+     * behind by a run stopped between writing the archive and deleting the save, only has
+     * its save deleted. loadAllPets calls this on a background thread before loading, so
+     * archived pets are not loaded.
+     *
+     * @return The number of pets archived.
+     */
+    public int archiveInactivePets() {
+        long now = System.currentTimeMillis();
+        long deadCutoff = now - TimeUnit.DAYS.toMillis(PetArchive.DEAD_PET_GRACE_DAYS);
+        long liveCutoff = player.getArchiveAfterDays() > 0
+                ? now - TimeUnit.DAYS.toMillis(player.getArchiveAfterDays()) : Long.MIN_VALUE;
+
+        int archived = 0;
+        try {
+            List<String> inactive = new ArrayList<>();
+            for (SaveSummary summary : petRepository.list(0, Integer.MAX_VALUE)) {
+                long cutoff = summary.isAlive() ? liveCutoff : deadCutoff;
+                if (summary.lastSaved() < cutoff && !isOpen(summary.saveFile())) {
+                    if (archive.contains(summary.saveFile())) {
+                        petRepository.delete(summary.saveFile());
+                        archived++;
+                    } else {
+                        inactive.add(summary.saveFile());
+                    }
+                }
+            }
+            // One block at a time, so only a block's worth of pets is held in memory
+            for (int start = 0; start < inactive.size(); start += PetArchive.BLOCK_PETS) {
+                List<Pet> block = new ArrayList<>();
+                for (String saveFile : inactive.subList(start, Math.min(start + PetArchive.BLOCK_PETS, inactive.size()))) {
+                    Pet stored = isOpen(saveFile) ? null : petRepository.load(saveFile);
+                    if (stored != null) {
+                        block.add(stored);
+                    }
+                }
+                archive.archive(block);
+                for (Pet archivedPet : block) {
+                    // A pet opened while its block was archived keeps its save, which hides
+                    // the archived copy from listArchivedPets
+                    if (!isOpen(archivedPet.getSaveFile())) {
+                        petRepository.delete(archivedPet.getSaveFile());
+                        archived++;
+                    }
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to archive inactive pets");
+        }
+        if (archived > 0) {
+            System.out.println("Archived " + archived + " inactive pets");
+        }
+        return archived;
+    }
+
+    /**
+     * Checks whether the game is using a pet: it is the current pet, in the household, or
+     * already loaded.
+     *
+     * @param saveFile The pet's save file.
+     * @return Whether the pet is open.
+     */
+    private boolean isOpen(String saveFile) {
+        Pet current = pet;
+        if (current != null && saveFile.equals(current.getSaveFile())) {
+            return true;
+        }
+        if (residentPets.containsKey(saveFile)) {
+            return true;
+        }
+        for (Pet member : household.getPets()) {
+            if (saveFile.equals(member.getSaveFile())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Lists the archived pets that can be restored, leaving out any whose save is still in
+     * the save list because archiving was stopped before it was deleted.
+     *
+     * @return The archived pets, in no particular order.
+     * @throws IOException If the archive or the save list could not be read.
+     */
+    public List<PetArchive.Entry> listArchivedPets() throws IOException {
+        List<PetArchive.Entry> entries = new ArrayList<>();
+        for (PetArchive.Entry entry : archive.list()) {
+            if (!petRepository.exists(entry.saveFile())) {
+                entries.add(entry);
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Moves a pet from the archive back to the save list. If the pet's save is still in the
+     * save list, that save is kept and only the archive entry is dropped.
+     *
+     * @param saveFile The pet's save file.
+     * @return The restored pet, or null if it is not archived or could not be restored.
+     */
+    public Pet restoreArchivedPet(String saveFile) {
+        try {
+            if (petRepository.exists(saveFile)) {
+                archive.remove(saveFile);
+                Pet resident = residentPets.get(saveFile);
+                return resident != null ? resident : petRepository.load(saveFile);
+            }
+            Pet restored = archive.load(saveFile);
+            if (restored == null) {
+                return null;
+            }
+            petRepository.saveAs(restored, saveFile);
+            archive.remove(saveFile);
+            Pet resident = residentPets.putIfAbsent(saveFile, restored);
+            return resident != null ? resident : restored;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to restore " + saveFile + " from the archive");
+            return null;
+        }
+    }
+
+    /**
+     * Returns the archive of inactive pets.
+     *
+     * @return The pet archive.
+     */
+    public PetArchive getArchive() {
+        return archive;
+    }
+
+    /**
+     * Sets the listener told how far loadAllPets has got. It is called on background threads
+     * and is told the progress so far right away if loading has started.
+     *
+     * @param listener The listener, or null to stop listening.
+     */
+    public void setPetLoadListener(BulkPetLoader.ProgressListener listener) {
+        this.petLoadListener = listener;
+        if (listener != null && petsToLoadCount >= 0) {
+            listener.progress(petsLoadedCount, petsToLoadCount);
+        }
+    }
+
+    /**
+     * Returns a pet already loaded in the background, without reading its save file again.
+     *
+     * @param saveFile The pet's save file.
+     * @return The pet, or null if it has not been loaded yet.
+     */
+    public Pet getResidentPet(String saveFile) {
+        return residentPets.get(saveFile);
+    }
+
+    /**
+     * Returns the pet of a save file, reading it only if it is not in memory yet. A pet read
+     * here is kept in memory too, so the background load never makes a second copy of it.
+     *
+     * @param saveFile The pet's save file.
+     * @return The pet, or null if there is no such save.
+     * @throws IOException If the save file could not be read.
+     */
+    public Pet loadPet(String saveFile) throws IOException {
+        Pet resident = residentPets.get(saveFile);
+        if (resident != null) {
+            return resident;
+        }
+        Pet loaded = petRepository.load(saveFile);
+        if (loaded == null) {
+            return null;
+        }
+        resident = residentPets.putIfAbsent(saveFile, loaded);
+        return resident != null ? resident : loaded;
+    }
+
+    /**
+     * Starts keeping a catalog of the pet saves in memory, updated as save files change on
+     * disk. Only the text store has save files to watch; with other stores nothing happens.
+     */
+    public void startSaveCatalog() {
+        if (saveCatalog != null || !(petRepository instanceof TextPetRepository)) {
+            return;
+        }
+        SaveCatalog catalog = new SaveCatalog(saveDirectory, (TextPetRepository) petRepository);
+        try {
+            catalog.start();
+            saveCatalog = catalog;
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to watch the save directory, the load screen will read the manifest instead");
+        }
+    }
+
+    /**
+     * Returns the catalog of pet saves.
+     *
+     * @return The save catalog, or null if startSaveCatalog has not been called or failed.
+     */
+    public SaveCatalog getSaveCatalog() {
+        return saveCatalog;
+    }
+
+    /**
+     * Starts saving changed pets periodically, at the interval from the player's settings.
+     * The pets are copied on the given executor and the copies written on the autosave
+     * thread, so the UI thread never waits for the disk.
+     *
+     * @param snapshotExecutor Copies the pets, e.g. Platform::runLater so it happens on the UI thread that changes them.
+     */
+    public void startAutosave(java.util.concurrent.Executor snapshotExecutor) {
+        if (autosave == null) {
+            autosave = new AutosaveScheduler(this::snapshotForSave, this::writePendingSaves, snapshotExecutor);
+            track(pet);
+        }
+        autosave.setInterval(player.getAutosaveInterval());
     }
 
     /**
-     * Saves the settings to a file called settings.txt
+     * Starts watching the time restrictions, telling the given action as soon as they stop
+     * allowing play. Saving the settings re-reads the restrictions.
+     *
+     * @param onLocked Told when play stops being allowed, on a background thread.
+     */
+    public void startPlayTimeEnforcement(Runnable onLocked) {
+        if (playTimeEnforcer == null) {
+            playTimeEnforcer = new PlayTimeEnforcer(this::getPlayer, playTime::getMinutesToday,
+                    Clock.systemDefaultZone(), onLocked);
+        }
+        playTimeEnforcer.rearm();
+    }
+
+    /**
+     * Starts ticking every pet in the household. The ticks themselves are driven by calling
+     * the household's tickIfDue from the UI thread, e.g. on every frame.
+     */
+    public void startHousehold() {
+        household.start(this::recordTick, this::householdTicked);
+    }
+
+    /**
+     * Returns the pets the player has taken into play, ticked together.
+     *
+     * @return The household.
+     */
+    public Household getHousehold() {
+        return household;
+    }
+
+    /**
+     * Sets the listener told after every tick of the household, e.g. to redraw the screen.
+     *
+     * @param listener The listener, or null to stop listening.
+     */
+    public void setHouseholdListener(Runnable listener) {
+        this.householdListener = listener;
+    }
+
+    /**
+     * Lets the screens list and switch profiles.
+     *
+     * @param profiles Every player profile on this device.
+     * @param profileSwitcher Switches the game to the profile with the given id.
+     */
+    public void setProfiles(ProfileStore profiles, Consumer<String> profileSwitcher) {
+        this.profiles = profiles;
+        this.profileSwitcher = profileSwitcher;
+    }
+
+    /**
+     * Returns every player profile on this device.
+     *
+     * @return The profile store, or null if profiles cannot be switched.
+     */
+    public ProfileStore getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Saves this profile and switches the game to another one. The screens must not use
+     * this game state afterwards.
+     *
+     * @param profileId The id of the profile to play.
+     */
+    public void switchProfile(String profileId) {
+        if (profileSwitcher != null) {
+            profileSwitcher.accept(profileId);
+        }
+    }
+
+    /**
+     * Stops periodic saving. Unsaved changes are kept in memory.
+     */
+    public void stopAutosave() {
+        if (autosave != null) {
+            autosave.shutdown();
+            autosave = null;
+        }
+    }
+
+    /**
+     * Journals a pet's changes and adds it to the autosave schedule if autosave is running.
+     *
+     * @param pet The pet to track.
+     */
+    private void track(Pet pet) {
+        if (pet == null) {
+            return;
+        }
+        pet.addChangeListener(journal);
+        achievements.watch(pet);
+        if (autosave != null) {
+            autosave.register(pet);
+        }
+    }
+
+    /**
+     * Stops journaling and autosaving a pet the game no longer keeps, so it is not saved
+     * again after it has been archived or put away.
+     *
+     * @param pet The pet to stop tracking.
+     */
+    private void untrack(Pet pet) {
+        pet.removeChangeListener(journal);
+        pet.removeChangeListener(achievements);
+        if (autosave != null) {
+            autosave.unregister(pet);
+        }
+    }
+
+    /**
+     * Picks a save file name that no existing save uses, so every pet gets its own file.
+     *
+     * @param petType The type of the pet.
+     * @return The new save file name.
+     */
+    public String newSaveFile(String petType) {
+        long id = System.currentTimeMillis();
+        String saveFile;
+        do {
+            saveFile = petType.toLowerCase() + "_" + Long.toString(id++, 36) + "_save.txt";
+        } while (saveFileTaken(saveFile));
+        return saveFile;
+    }
+
+    /**
+     * Checks if a save file name is already used by a stored pet.
+     *
+     * @param saveFile The save file name.
+     * @return true if the name is taken, false otherwise.
+     */
+    private boolean saveFileTaken(String saveFile) {
+        try {
+            return petRepository.exists(saveFile) || archive.contains(saveFile);
+        } catch (IOException e) {
+            System.err.println("Failed to look up save " + saveFile + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Saves the settings to a file called settings.txt. The write is made in the background
+     * shortly afterwards, together with any other settings changes made in the meantime;
+     * on exit it is made right away.
      *
      * @param exit If true, saves the total play time and number of sessions
      */
     public void saveSettings(boolean exit) {
-        try (PrintWriter writer = new PrintWriter(new File("saves/settings.txt"))) {
-            writer.println("parentalPassword=" + this.player.getParentalPassword());
-            writer.println("dailyTimeLimit=" + this.player.getDailyTimeLimit());
-            writer.println("allowedStartTime=" + this.player.getAllowedStartTime());
-            writer.println("allowedEndTime=" + this.player.getAllowedEndTime());
-            if (exit) {
-                writer.println("totalPlayTime=" + (this.player.getTotalPlayTime()) + sessionStartTime.until(LocalTime.now(), MINUTES));
-            }else {
-                writer.println("totalPlayTime=" + this.player.getTotalPlayTime());
+        Player saved = new Player(this.player);
+        if (exit) {
+            saved.setTotalPlayTime(getTotalPlayMinutes());
+        }
+        settingsStore.submit(saved, journalSettings(saved));
+        if (exit) {
+            try {
+                settingsStore.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.err.println("Failed to save settings to " + SETTINGS_FILE);
+            }
+        }
+
+        if (autosave != null) {
+            autosave.setInterval(this.player.getAutosaveInterval());
+        }
+        if (playTimeEnforcer != null) {
+            playTimeEnforcer.rearm();
+        }
+    }
+
+    /**
+     * Journals every setting, so settings changed but not yet written by the settings
+     * store are replayed after a crash.
+     *
+     * @param settings The settings about to be written.
+     * @return The journal sequence number of the last setting.
+     */
+    private long journalSettings(Player settings) {
+        long sequence = 0;
+        for (String line : settings.toSettingsText().split("\\R")) {
+            int equals = line.indexOf('=');
+            if (equals > 0) {
+                sequence = journal.record(SETTINGS_FILE, line.substring(0, equals), line.substring(equals + 1));
             }
-            writer.println("numberOfSessions=" + this.player.getNumberOfSessions());
-            writer.println("timeRestrictionsEnabled=" + this.player.isTimeRestrictionsEnabled());
-            writer.println("fullscreen=" + this.player.isFullScreen());
+        }
+        flushJournal();
+        return sequence;
+    }
 
+    /**
+     * Drops the journaled settings changes once the settings have been written, unless
+     * settings were changed again after the written ones were taken.
+     *
+     * @param sequence The journal sequence number of the written settings.
+     */
+    private void settingsWritten(long sequence) {
+        try {
+            journal.saved(SETTINGS_FILE, sequence);
         } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Failed to save settings to " + "settings.txt");
+            System.err.println("Failed to update journal: " + e.getMessage());
         }
     }
 
     /**
-     * Saves the pet to the given file.
+     * Saves the current pet to its own save file, picking a new file if it has none yet.
+     */
+    public void savePet() {
+        savePet(pet);
+    }
+
+    /**
+     * Saves a pet to its own save file, picking a new file if it has none yet.
+     *
+     * @param pet The pet to save.
+     */
+    public void savePet(Pet pet) {
+        if (pet.getSaveFile() == null) {
+            pet.setSaveFile(newSaveFile(pet.getType()));
+        }
+        savePet(pet, pet.getSaveFile());
+    }
+
+    /**
+     * Saves the current pet to the given file.
      *
      * @param petSaveFile The file to save the pet to.
      */
     public void savePet(String petSaveFile) {
-        try (PrintWriter writer = new PrintWriter(SAVE_DIRECTORY + petSaveFile)) {
-            writer.println("name=" + this.pet.getName());
-            writer.println("type=" + this.pet.getType());
-            writer.println("maxHealth=" + this.pet.getMaxHealth());
-            writer.println("health=" + this.pet.getHealth());
-            writer.println("happiness=" + this.pet.getHappiness() );
-            writer.println("fullness=" + this.pet.getFullness() );
-            writer.println("energy=" + this.pet.getEnergy() );
-            writer.println("currency=" + this.pet.getCurrency() );
-            writer.println("score=" + this.pet.getScore());
-            writer.println("creationDate=" + this.pet.getCreationDate().toString() );
+        savePet(pet, petSaveFile);
+    }
 
-            Map<String, Integer> inv = this.pet.getInventory();
-            for (Map.Entry<String, Integer> entry : inv.entrySet()) {
-                writer.println(entry.getKey() + "=" + entry.getValue());
+    /**
+     * Saves a pet to the given file. If the file already holds this pet, only what changed
+     * since the last save is written; otherwise a full copy is written to the new file.
+     *
+     * @param pet The pet to save.
+     * @param petSaveFile The file to save the pet to.
+     */
+    public void savePet(Pet pet, String petSaveFile) {
+        synchronized (saveLock) {
+            // Autosaved copies first, so none of them lands after this newer save
+            writePendingSaves();
+            try {
+                if (petSaveFile.equals(pet.getSaveFile())) {
+                    petRepository.save(pet);
+                } else {
+                    petRepository.saveAs(pet, petSaveFile);
+                }
+                journal.saved(petSaveFile);
+
+                System.out.println("Game saved to saves/" + petSaveFile);
+
+            } catch (IOException e) {
+                e.printStackTrace();
+                System.err.println("Failed to save pet to " + petSaveFile);
             }
+        }
+    }
 
-            System.out.println("Game saved to saves/" + petSaveFile);
+    /**
+     * Copies a changed pet for autosave and marks it saved, on the thread that changes it.
+     * The copy replaces an older copy of the pet still waiting and takes over its changes.
+     *
+     * @param pet The pet to copy.
+     */
+    private void snapshotForSave(Pet pet) {
+        if (pet.getSaveFile() == null) {
+            pet.setSaveFile(newSaveFile(pet.getType()));
+        }
+        synchronized (pendingSaves) {
+            Pet copy = new Pet(pet);
+            PendingSave older = pendingSaves.get(pet.getSaveFile());
+            if (older != null) {
+                copy.markDirty(older.copy());
+            }
+            pendingSaves.put(pet.getSaveFile(), new PendingSave(pet, copy, journal.getSequence()));
+            pet.markClean();
+        }
+    }
 
+    /**
+     * Writes the autosaved copies still waiting, on the autosave thread or before any other
+     * save of a pet. A copy that could not be written waits for the next write.
+     */
+    private void writePendingSaves() {
+        synchronized (saveLock) {
+            List<PendingSave> saves;
+            synchronized (pendingSaves) {
+                if (pendingSaves.isEmpty()) {
+                    return;
+                }
+                saves = new ArrayList<>(pendingSaves.values());
+                pendingSaves.clear();
+            }
+            for (PendingSave save : saves) {
+                String saveFile = save.copy().getSaveFile();
+                try {
+                    petRepository.save(save.copy());
+                    synchronized (pendingSaves) {
+                        save.pet().setDeltaLineCount(save.copy().getDeltaLineCount());
+                    }
+                    journal.saved(saveFile, save.sequence());
+                    System.out.println("Game saved to saves/" + saveFile);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    System.err.println("Failed to save pet to " + saveFile);
+                    synchronized (pendingSaves) {
+                        PendingSave newer = pendingSaves.get(saveFile);
+                        if (newer != null) {
+                            newer.copy().markDirty(save.copy());
+                        } else {
+                            pendingSaves.put(saveFile, save);
+                        }
+                    }
+                }
+            }
+        }
+    }
 
-        } catch (IOException e) {
-            e.printStackTrace();
-            System.err.println("Failed to save pet to " + petSaveFile);
+    /**
+     * Changes the same fields of many stored pets, e.g. to revive them. Pets the game has in
+     * memory are changed through the pet and saved, so the change is not lost at their next
+     * save; every other pet is patched in its store without being loaded.
+     *
+     * @param saveFiles The save files of the pets to change.
+     * @param fields The new values by save file key (e.g., "health", or an item name).
+     * @return The number of pets changed.
+     * @throws IllegalArgumentException If a key or value is not valid.
+     */
+    public int patchPets(java.util.Collection<String> saveFiles, Map<String, String> fields) {
+        fields.forEach(Pet::checkFieldValue);
+        int patched = 0;
+        synchronized (saveLock) {
+            // Autosaved copies first, so none of them lands after the patch
+            writePendingSaves();
+            for (String saveFile : saveFiles) {
+                Pet open = pet != null && saveFile.equals(pet.getSaveFile()) ? pet : residentPets.get(saveFile);
+                try {
+                    if (open != null) {
+                        fields.forEach(open::applyPatch);
+                        petRepository.save(open);
+                        journal.saved(saveFile);
+                        // The patch is not earnings, so measure later earnings from the patched values
+                        achievements.watch(open);
+                    } else {
+                        petRepository.patch(saveFile, fields);
+                    }
+                    patched++;
+                } catch (IOException e) {
+                    System.err.println("Failed to patch " + saveFile + ": " + e.getMessage());
+                }
+            }
         }
+        return patched;
     }
 
     /**
@@ -114,6 +1056,16 @@ public class GameState {
         saveSettings(exit);
     }
 
+    /**
+     * Saves the settings and the current pet to its own save file.
+     *
+     * @param exit If true, saves the total play time and number of sessions
+     */
+    public void saveAll(boolean exit) {
+        savePet();
+        saveSettings(exit);
+    }
+
     /**
      * Exits the game and saves the settings and pet for exiting during a game.
      *
@@ -142,20 +1094,46 @@ public class GameState {
     }
 
     /**
-     * Sets the current pet.
+     * Returns the repository pets are saved in.
+     *
+     * @return The pet repository.
+     */
+    public PetRepository getPetRepository() {
+        return petRepository;
+    }
+
+    /**
+     * Sets the current pet. A dead pet that is switched away from is saved and put away,
+     * since it no longer lives in the household.
      *
      * @param pet The new pet.
      */
     public void setPet(Pet pet) {
+        Pet previous = this.pet;
+        if (previous != null && previous != pet && !previous.isAlive()) {
+            if (previous.isDirty() && previous.getSaveFile() != null) {
+                savePet(previous);
+            }
+            household.remove(previous);
+            untrack(previous);
+        }
         this.pet = pet;
+        if (pet != null && pet.getSaveFile() != null) {
+            residentPets.putIfAbsent(pet.getSaveFile(), pet);
+        }
+        track(pet);
+        household.add(pet);
     }
 
     public void saveToFile(String fileName) {
         try {
             // Ensure we're using the save directory
-            String filePath = SAVE_DIRECTORY + fileName;
+            String filePath = saveDirectory.resolve(fileName).toString();
             PrintWriter writer = new PrintWriter(new FileWriter(filePath));
 
+            // This export keeps the version 0 layout, which SaveSchema upgrades when it is read as a pet
+            writer.println(SaveSchema.VERSION_KEY + "=0");
+
             // Player information
             writer.println("playerName=" + "hawk");
 
@@ -185,8 +1163,8 @@ public class GameState {
             // Settings and stats
             writer.println("totalPlayTime=" + player.getTotalPlayTime());
             writer.println("totalPlaySessions=" + player.getNumberOfSessions());
-            writer.println("totalFeedings=" + 333);
-            writer.println("totalVetVisits=" + 222);
+            writer.println("totalFeedings=" + careEvents.getTotalCount(CareEvent.Type.FEED));
+            writer.println("totalVetVisits=" + careEvents.getTotalCount(CareEvent.Type.VET));
 
             writer.close();
             System.out.println("Game saved to " + filePath);
@@ -195,24 +1173,24 @@ public class GameState {
         }
     }
 
+    /**
+     * Saves the session's play time, unless the session has lasted less than a minute.
+     */
     public void endGameSession() {
-        if (sessionStartTime.until(LocalTime.now(), MINUTES) == 0) {
-            System.out.println("No active session to end");
-            return;
-        }
-
-        long sessionDuration = sessionStartTime.until(LocalTime.now(), MINUTES);
-
-        if (sessionDuration < 1) {
-            System.out.println("Session too short (" + (sessionDuration) + " minute), not counting");
+        int sessionMinutes = playTime.getSessionMinutes();
+        if (sessionMinutes < 1) {
+            System.out.println("Session too short (" + sessionMinutes + " minutes), not counting");
             return;
         }
 
         saveSettings(true);
     }
 
+    /**
+     * Starts timing a new session.
+     */
     public void startSessionTimeTracking () {
-        sessionStartTime = LocalTime.now();
-        System.out.println("Session tracking started at: " + sessionStartTime);
+        playTime.startSession();
+        System.out.println("Session tracking started at: " + LocalTime.now());
     }
 }
\ No newline at end of file
@@ -1,23 +1,28 @@
 package group02;
 import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import java.time.LocalTime;
 import java.io.File;
 import java.nio.file.Files;
-import java.nio.file.Paths;
+import java.nio.file.Path;
 
 
 public class GameStateTest {
 
     private GameState gameState;
-    private static final String SAVE_DIRECTORY = "saves/";
+    private Path saveDirectory;
 
     @BeforeEach
-    public void setUp() {
-        gameState = new GameState();
-        // Ensure the save directory exists
-        new File(SAVE_DIRECTORY).mkdirs();
+    public void setUp() throws Exception {
+        saveDirectory = Files.createTempDirectory("saves");
+        gameState = new GameState(saveDirectory);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        gameState.close();
     }
 
     @Test
@@ -38,10 +43,10 @@ public class GameStateTest {
         Thread.sleep(2000); // Wait for 2 seconds to simulate play time
         gameState.saveSettings(true);
 
-        File settingsFile = new File(SAVE_DIRECTORY + "settings.txt");
+        File settingsFile = saveDirectory.resolve("settings.txt").toFile();
         assertTrue(settingsFile.exists(), "Settings file should be created");
 
-        String content = new String(Files.readAllBytes(Paths.get(SAVE_DIRECTORY + "settings.txt")));
+        String content = new String(Files.readAllBytes(saveDirectory.resolve("settings.txt")));
         assertTrue(content.contains("numberOfSessions=" + gameState.getPlayer().getNumberOfSessions()), "Number of sessions should be recorded in settings");
     }
 
@@ -50,11 +55,9 @@ public class GameStateTest {
         gameState.startSessionTimeTracking();
         gameState.endGameSession();
 
-        File settingsFile = new File(SAVE_DIRECTORY + "settings.txt");
-        assertTrue(settingsFile.exists(), "Settings file should be updated after ending session");
-
-        // Verify session duration was recorded
-        // For a more detailed test, parse the file content and verify time calculations
+        // A session shorter than a minute is not counted, so nothing is written yet
+        File settingsFile = saveDirectory.resolve("settings.txt").toFile();
+        assertFalse(settingsFile.exists(), "Settings file should not be written for a session under a minute");
     }
 
     @Test
@@ -62,9 +65,145 @@ public class GameStateTest {
         gameState.startNewGame("Buddy", "Dog");
         gameState.exitGame("pet_save_test.txt");
 
-        File petSaveFile = new File(SAVE_DIRECTORY + "pet_save_test.txt");
+        File petSaveFile = new SaveLayout(saveDirectory).path("pet_save_test.txt").toFile();
         assertTrue(petSaveFile.exists(), "Pet save file should be created when exiting the game");
 
         // Verify pet details are saved (name, type, etc.)
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSavePetAppendsOnlyChangedFields() throws Exception {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.savePet("pet_delta_test.txt");
+        Path saveFile = new SaveLayout(saveDirectory).path("pet_delta_test.txt");
+        long fullSize = Files.size(saveFile);
+
+        gameState.getPet().setEnergy(42);
+        gameState.savePet("pet_delta_test.txt");
+
+        String content = new String(Files.readAllBytes(saveFile));
+        assertTrue(content.endsWith("energy=42" + System.lineSeparator()), "Only the changed field should be appended");
+        assertTrue(Files.size(saveFile) < fullSize * 2);
+        assertEquals(42, new Pet(saveFile).getEnergy(), "The appended value should win when reloaded");
+    }
+
+    @Test
+    public void testNewGamesGetTheirOwnSaveFiles() throws Exception {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.savePet();
+        String firstSave = gameState.getPet().getSaveFile();
+
+        gameState.startNewGame("Rex", "Dog");
+        gameState.savePet();
+        String secondSave = gameState.getPet().getSaveFile();
+
+        assertNotEquals(firstSave, secondSave, "A second dog should not overwrite the first");
+        assertEquals("Buddy", gameState.getPetRepository().load(firstSave).getName());
+        assertEquals("Rex", gameState.getPetRepository().load(secondSave).getName());
+    }
+
+    @Test
+    public void testPatchPetsChangesTheOpenPet() {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.getPet().setHealth(0);
+        gameState.savePet();
+        String saveFile = gameState.getPet().getSaveFile();
+
+        assertEquals(1, gameState.patchPets(java.util.List.of(saveFile), java.util.Map.of("health", "100")));
+
+        assertEquals(100, gameState.getPet().getHealth(), "The open pet should see the patch");
+        gameState.savePet();
+        assertEquals(100, new Pet(new SaveLayout(saveDirectory).path(saveFile)).getHealth(),
+                "Saving the open pet should keep the patch");
+    }
+
+    @Test
+    public void testCleanCloseLeavesNoJournal() {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.saveAll(true);
+        gameState.close();
+
+        assertFalse(Files.exists(saveDirectory.resolve(Journal.LOCK_FILE)));
+        assertFalse(Files.exists(saveDirectory.resolve(Journal.JOURNAL_FILE)));
+    }
+
+    @Test
+    public void testPetLeftInBothStoresKeepsItsSave() throws Exception {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.savePet();
+        Pet pet = gameState.getPet();
+        // Archived, then stopped before the save was deleted
+        gameState.getArchive().archive(java.util.List.of(pet));
+        pet.setHealth(50);
+        gameState.savePet();
+
+        assertTrue(gameState.listArchivedPets().isEmpty(), "A pet still in the save list is not offered for restore");
+        Pet restored = gameState.restoreArchivedPet(pet.getSaveFile());
+        assertEquals(50, restored.getHealth(), "Restoring should keep the newer save");
+        assertFalse(gameState.getArchive().contains(pet.getSaveFile()));
+        assertEquals(50, gameState.getPetRepository().load(pet.getSaveFile()).getHealth());
+    }
+
+    @Test
+    public void testArchivingLeavesOpenPetsAlone() throws Exception {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.getPet().setHealth(0);
+        gameState.savePet();
+        String open = gameState.getPet().getSaveFile();
+        gameState.startNewGame("Rex", "Dog");
+        gameState.getPet().setHealth(0);
+        gameState.savePet();
+        String closed = gameState.getPet().getSaveFile();
+        gameState.saveAll(true);
+        gameState.close();
+        // Both dead for longer than the grace period; the manifest is rebuilt from the files
+        java.nio.file.attribute.FileTime old = java.nio.file.attribute.FileTime.fromMillis(
+                System.currentTimeMillis() - java.util.concurrent.TimeUnit.DAYS.toMillis(PetArchive.DEAD_PET_GRACE_DAYS + 1));
+        try (java.util.stream.Stream<Path> files = Files.walk(saveDirectory.resolve(SaveLayout.PETS_DIRECTORY))) {
+            for (Path file : files.filter(Files::isRegularFile).toList()) {
+                Files.setLastModifiedTime(file, old);
+            }
+        }
+        Files.delete(saveDirectory.resolve(SaveManifest.MANIFEST_FILE));
+
+        gameState = new GameState(saveDirectory);
+        Pet loaded = gameState.loadPet(open);
+        assertEquals(1, gameState.archiveInactivePets());
+
+        assertTrue(gameState.getPetRepository().exists(open), "A loaded pet keeps its save");
+        assertFalse(gameState.getArchive().contains(open));
+        assertSame(loaded, gameState.getResidentPet(open));
+        assertFalse(gameState.getPetRepository().exists(closed));
+        assertTrue(gameState.getArchive().contains(closed));
+    }
+
+    @Test
+    public void testAutosaveCopiesOnTheCallerAndWritesInTheBackground() throws Exception {
+        gameState.startNewGame("Buddy", "Dog");
+        gameState.savePet();
+        Pet pet = gameState.getPet();
+        pet.setHealth(40);
+        java.util.concurrent.BlockingQueue<Runnable> snapshots = new java.util.concurrent.LinkedBlockingQueue<>();
+        gameState.getPlayer().setAutosaveInterval(1);
+        gameState.startAutosave(snapshots::add);
+
+        while (pet.isDirty()) {
+            snapshots.take().run();
+        }
+        // Written by the autosave thread, without the test thread saving anything
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gameState.getPetRepository().load(pet.getSaveFile()).getHealth() != 40
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(40, gameState.getPetRepository().load(pet.getSaveFile()).getHealth());
+
+        // A change made after the copy was taken is still unsaved
+        pet.setEnergy(30);
+        assertTrue(pet.isDirty());
+        gameState.savePet();
+        Pet saved = gameState.getPetRepository().load(pet.getSaveFile());
+        assertEquals(40, saved.getHealth());
+        assertEquals(30, saved.getEnergy());
+    }
+}
@@ -0,0 +1,195 @@
+package group02;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The pets the player has taken into play, kept alive together: all of them are ticked
+ * every TICK_MILLIS, whichever pet (if any) is on screen. Ticks are driven by tickIfDue,
+ * called from the UI thread's frame pulse, so pets change on the UI thread without a task
+ * being queued for each tick. The pets are kept in a plain array so a tick is one pass
+ * over it that allocates nothing, whatever the size of the household. Dead pets stay in
+ * the household but are not ticked.
+ *
+ * Only the pets' updates happen under the household's lock. The listeners are told
+ * afterwards, outside it, and are expected to hand any disk work to another thread.
+ */
+public class Household {
+    /** Time between ticks */
+    public static final long TICK_MILLIS = StatSeriesStore.TICK_MILLIS;
+
+    /**
+     * Told about each pet right after it is ticked.
+     */
+    public interface TickListener {
+        /**
+         * Called on the thread ticking the household after the pet's update, outside the household's lock.
+         *
+         * @param pet The pet that was ticked.
+         */
+        void ticked(Pet pet);
+    }
+
+    /** Time between ticks, in System.nanoTime terms */
+    private static final long TICK_NANOS = TimeUnit.MILLISECONDS.toNanos(TICK_MILLIS);
+
+    /** Told about each pet after it is ticked, or null until started */
+    private TickListener listener;
+    /** Told after every pet has been ticked, or null */
+    private Runnable afterTick;
+    /** The pets, in slots 0 to size - 1 */
+    private Pet[] pets = new Pet[16];
+    /** Number of pets */
+    private int size;
+    /** Slot of each pet, so adding and removing take the same time in any household */
+    private final Map<Pet, Integer> slots = new IdentityHashMap<>();
+    /** The pets updated by the tick in progress, reused by every tick */
+    private Pet[] ticked = new Pet[16];
+    /** Whether tickIfDue ticks the pets */
+    private boolean running;
+    /** When the next tick is due, in System.nanoTime terms */
+    private long nextTickNanos;
+
+    /**
+     * Adds a pet. Adding a pet twice has no effect.
+     *
+     * @param pet The pet.
+     */
+    public synchronized void add(Pet pet) {
+        if (pet == null || slots.containsKey(pet)) {
+            return;
+        }
+        if (size == pets.length) {
+            pets = Arrays.copyOf(pets, size * 2);
+        }
+        slots.put(pet, size);
+        pets[size++] = pet;
+    }
+
+    /**
+     * Removes a pet, e.g. because it was archived. The last pet takes its slot.
+     *
+     * @param pet The pet.
+     */
+    public synchronized void remove(Pet pet) {
+        Integer slot = slots.remove(pet);
+        if (slot == null) {
+            return;
+        }
+        Pet last = pets[--size];
+        pets[size] = null;
+        if (last != pet) {
+            pets[slot] = last;
+            slots.put(last, slot);
+        }
+    }
+
+    /**
+     * Checks if a pet is in the household.
+     *
+     * @param pet The pet.
+     * @return True if the pet is ticked by this household.
+     */
+    public synchronized boolean contains(Pet pet) {
+        return slots.containsKey(pet);
+    }
+
+    /**
+     * Get the number of pets.
+     *
+     * @return The number of pets.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Get the pets.
+     *
+     * @return A copy of the pets, in no particular order.
+     */
+    public synchronized Pet[] getPets() {
+        return Arrays.copyOf(pets, size);
+    }
+
+    /**
+     * Updates every living pet by one tick, then tells the listeners. Called from one
+     * thread at a time, normally the UI thread.
+     */
+    public void tick() {
+        TickListener tickListener;
+        Runnable after;
+        Pet[] updated;
+        int count = 0;
+        synchronized (this) {
+            if (ticked.length < size) {
+                ticked = new Pet[pets.length];
+            }
+            updated = ticked;
+            for (int i = 0; i < size; i++) {
+                Pet pet = pets[i];
+                if (pet.isAlive()) {
+                    pet.update();
+                    updated[count++] = pet;
+                }
+            }
+            tickListener = listener;
+            after = afterTick;
+        }
+        for (int i = 0; i < count; i++) {
+            if (tickListener != null) {
+                tickListener.ticked(updated[i]);
+            }
+            updated[i] = null;
+        }
+        if (after != null) {
+            after.run();
+        }
+    }
+
+    /**
+     * Starts ticking: from now on tickIfDue ticks the pets every TICK_MILLIS. Starting
+     * twice has no effect.
+     *
+     * @param listener Told about each pet after it is ticked.
+     * @param afterTick Told after every pet has been ticked, or null.
+     */
+    public synchronized void start(TickListener listener, Runnable afterTick) {
+        if (!running) {
+            this.listener = listener;
+            this.afterTick = afterTick;
+            this.nextTickNanos = System.nanoTime() + TICK_NANOS;
+            this.running = true;
+        }
+    }
+
+    /**
+     * Ticks the pets if the household is running and a tick is due. Meant to be called
+     * often, e.g. on every frame; a tick missed by more than one interval is not caught up.
+     *
+     * @param nowNanos The current time, in System.nanoTime terms.
+     * @return True if the pets were ticked.
+     */
+    public boolean tickIfDue(long nowNanos) {
+        synchronized (this) {
+            if (!running || nowNanos - nextTickNanos < 0) {
+                return false;
+            }
+            nextTickNanos += TICK_NANOS;
+            if (nowNanos - nextTickNanos >= 0) {
+                nextTickNanos = nowNanos + TICK_NANOS;
+            }
+        }
+        tick();
+        return true;
+    }
+
+    /**
+     * Stops ticking. The pets stay in the household.
+     */
+    public synchronized void shutdown() {
+        running = false;
+    }
+}
@@ -0,0 +1,73 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HouseholdTest {
+    @Test
+    void testTickUpdatesEveryLivingPet() {
+        List<Pet> ticked = new ArrayList<>();
+        int[] afterTicks = new int[1];
+        Household household = new Household();
+        household.start(ticked::add, () -> afterTicks[0]++);
+        Pet buddy = new Pet("Buddy", "dog");
+        Pet tom = new Pet("Tom", "cat");
+        Pet ghost = new Pet("Ghost", "cat");
+        ghost.setHealth(0);
+        household.add(buddy);
+        household.add(tom);
+        household.add(ghost);
+        household.add(buddy);
+        int fullness = tom.getFullness();
+
+        household.tick();
+
+        assertEquals(3, household.size());
+        assertEquals(List.of(buddy, tom), ticked);
+        assertEquals(fullness - 1, tom.getFullness());
+        assertEquals(1, afterTicks[0]);
+    }
+
+    @Test
+    void testRemoveMovesLastPetIntoSlot() {
+        Household household = new Household();
+        Pet[] pets = new Pet[40];
+        for (int i = 0; i < pets.length; i++) {
+            pets[i] = new Pet("Pet" + i, "dog");
+            household.add(pets[i]);
+        }
+
+        household.remove(pets[3]);
+        household.remove(pets[39]);
+        household.remove(pets[3]);
+
+        assertEquals(38, household.size());
+        assertFalse(household.contains(pets[3]));
+        assertTrue(household.contains(pets[38]));
+        assertEquals(38, household.getPets().length);
+    }
+
+    @Test
+    void testTicksOnlyWhenDue() {
+        Household household = new Household();
+        Pet buddy = new Pet("Buddy", "dog");
+        household.add(buddy);
+        int fullness = buddy.getFullness();
+        long tick = TimeUnit.MILLISECONDS.toNanos(Household.TICK_MILLIS);
+
+        assertFalse(household.tickIfDue(System.nanoTime() + tick), "Not ticked before it is started");
+        household.start(pet -> { }, null);
+        long now = System.nanoTime();
+        assertFalse(household.tickIfDue(now));
+        assertTrue(household.tickIfDue(now + tick + 1));
+        assertFalse(household.tickIfDue(now + tick + 2));
+        household.shutdown();
+        assertFalse(household.tickIfDue(now + 5 * tick));
+        assertEquals(fullness - 1, buddy.getFullness());
+    }
+}
@@ -0,0 +1,520 @@
+package group02;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps pets in an embedded SQL database such as SQLite or H2 in file mode, opened from a
+ * JDBC URL. The driver only has to be on the class path at run time. Every statement is
+ * prepared once and reused, and the type, alive and score queries are backed by indexes.
+ *
+ * Every profile shares the database, so each row holds the id of the profile it belongs
+ * to and every statement is limited to the profile the repository was opened for. Tables
+ * written before profiles existed are moved over to the default profile when opened.
+ */
+public class JdbcPetRepository implements PetRepository {
+    /** Columns of the pets table, in the order the select statements return them */
+    private static final String PET_COLUMNS = "save_file, name, type, max_health, health, happiness, fullness,"
+            + " energy, currency, score, creation_date, last_saved";
+
+    /** Column of each pet field, indexed by field index */
+    private static final String[] FIELD_COLUMNS = {
+            "name", "type", "max_health", "health", "happiness",
+            "fullness", "energy", "currency", "score", "creation_date"
+    };
+
+    /** The database connection */
+    private final Connection connection;
+    /** Id of the profile whose pets are read and written */
+    private final String profileId;
+    /** Reads one pet's row */
+    private final PreparedStatement selectPet;
+    /** Reads one pet's inventory */
+    private final PreparedStatement selectItems;
+    /** Updates an existing pet's row */
+    private final PreparedStatement updatePet;
+    /** Inserts a new pet's row */
+    private final PreparedStatement insertPet;
+    /** Updates an existing inventory entry */
+    private final PreparedStatement updateItem;
+    /** Inserts a new inventory entry */
+    private final PreparedStatement insertItem;
+    /** Deletes a pet's row */
+    private final PreparedStatement deletePet;
+    /** Deletes a pet's inventory */
+    private final PreparedStatement deleteItems;
+    /** Counts the pets */
+    private final PreparedStatement countPets;
+    /** Lists a page of pets */
+    private final PreparedStatement listPets;
+    /** Finds pets by type */
+    private final PreparedStatement selectByType;
+    /** Finds living or dead pets */
+    private final PreparedStatement selectByAlive;
+    /** Finds the highest scoring pets */
+    private final PreparedStatement selectTopScore;
+    /** Updates a single field of a pet, indexed by field index and prepared when first used */
+    private final PreparedStatement[] updateField = new PreparedStatement[Pet.FIELD_COUNT];
+
+    /**
+     * Opens the database and creates the tables and indexes if they do not exist yet.
+     *
+     * @param url The JDBC URL, e.g. "jdbc:sqlite:saves/pets.db" or "jdbc:h2:./saves/pets".
+     * @param profileId Id of the profile whose pets are read and written.
+     * @throws IOException If the database could not be opened.
+     */
+    public JdbcPetRepository(String url, String profileId) throws IOException {
+        this.profileId = profileId;
+        try {
+            this.connection = DriverManager.getConnection(url);
+            createSchema(connection);
+            selectPet = connection.prepareStatement("SELECT " + PET_COLUMNS + " FROM pets WHERE save_file = ? AND profile_id = ?");
+            selectItems = connection.prepareStatement("SELECT item, amount FROM pet_items WHERE save_file = ? AND profile_id = ?");
+            updatePet = connection.prepareStatement("UPDATE pets SET name = ?, type = ?, max_health = ?, health = ?,"
+                    + " happiness = ?, fullness = ?, energy = ?, currency = ?, score = ?, creation_date = ?,"
+                    + " alive = ?, last_saved = ? WHERE save_file = ? AND profile_id = ?");
+            insertPet = connection.prepareStatement("INSERT INTO pets (name, type, max_health, health, happiness,"
+                    + " fullness, energy, currency, score, creation_date, alive, last_saved, save_file, profile_id)"
+                    + " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            updateItem = connection.prepareStatement("UPDATE pet_items SET amount = ?"
+                    + " WHERE save_file = ? AND item = ? AND profile_id = ?");
+            insertItem = connection.prepareStatement("INSERT INTO pet_items (amount, save_file, item, profile_id) VALUES (?, ?, ?, ?)");
+            deletePet = connection.prepareStatement("DELETE FROM pets WHERE save_file = ? AND profile_id = ?");
+            deleteItems = connection.prepareStatement("DELETE FROM pet_items WHERE save_file = ? AND profile_id = ?");
+            countPets = connection.prepareStatement("SELECT COUNT(*) FROM pets WHERE profile_id = ?");
+            listPets = connection.prepareStatement("SELECT " + PET_COLUMNS + " FROM pets WHERE profile_id = ?"
+                    + " ORDER BY save_file LIMIT ? OFFSET ?");
+            selectByType = connection.prepareStatement("SELECT " + PET_COLUMNS + " FROM pets WHERE profile_id = ?"
+                    + " AND type = ? ORDER BY save_file");
+            selectByAlive = connection.prepareStatement("SELECT " + PET_COLUMNS + " FROM pets WHERE profile_id = ?"
+                    + " AND alive = ? ORDER BY save_file");
+            selectTopScore = connection.prepareStatement("SELECT " + PET_COLUMNS + " FROM pets WHERE profile_id = ?"
+                    + " ORDER BY score DESC LIMIT ?");
+        } catch (SQLException e) {
+            throw new IOException("Failed to open pet database " + url, e);
+        }
+    }
+
+    /**
+     * Creates the tables and indexes if they do not exist yet, first moving tables written
+     * before profiles existed over to the default profile.
+     *
+     * @param connection The database connection.
+     * @throws SQLException If the schema could not be created.
+     */
+    private static void createSchema(Connection connection) throws SQLException {
+        boolean legacyPets = isLegacyTable(connection, "pets");
+        boolean legacyItems = isLegacyTable(connection, "pet_items");
+        try (Statement statement = connection.createStatement()) {
+            if (legacyPets) {
+                statement.executeUpdate("ALTER TABLE pets RENAME TO pets_legacy");
+            }
+            if (legacyItems) {
+                statement.executeUpdate("ALTER TABLE pet_items RENAME TO pet_items_legacy");
+            }
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS pets (profile_id VARCHAR(64), save_file VARCHAR(255),"
+                    + " name VARCHAR(255), type VARCHAR(32), max_health INT, health INT, happiness INT,"
+                    + " fullness INT, energy INT, currency INT, score INT, creation_date VARCHAR(10),"
+                    + " alive BOOLEAN, last_saved BIGINT, PRIMARY KEY (profile_id, save_file))");
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS pet_items (profile_id VARCHAR(64), save_file VARCHAR(255),"
+                    + " item VARCHAR(255), amount INT, PRIMARY KEY (profile_id, save_file, item))");
+            if (legacyPets) {
+                statement.executeUpdate("INSERT INTO pets (profile_id, " + PET_COLUMNS + ", alive) SELECT '"
+                        + ProfileStore.DEFAULT_PROFILE + "', " + PET_COLUMNS + ", alive FROM pets_legacy");
+                statement.executeUpdate("DROP TABLE pets_legacy");
+            }
+            if (legacyItems) {
+                statement.executeUpdate("INSERT INTO pet_items (profile_id, save_file, item, amount) SELECT '"
+                        + ProfileStore.DEFAULT_PROFILE + "', save_file, item, amount FROM pet_items_legacy");
+                statement.executeUpdate("DROP TABLE pet_items_legacy");
+            }
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS pets_profile_type ON pets (profile_id, type)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS pets_profile_alive ON pets (profile_id, alive)");
+            statement.executeUpdate("CREATE INDEX IF NOT EXISTS pets_profile_score ON pets (profile_id, score)");
+        }
+    }
+
+    /**
+     * Checks if a table was written before profiles existed, i.e. exists without a
+     * profile_id column.
+     *
+     * @param connection The database connection.
+     * @param table The table's name.
+     * @return True if the table exists and has no profile_id column.
+     */
+    static boolean isLegacyTable(Connection connection, String table) {
+        try (Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0")) {
+            ResultSetMetaData columns = rows.getMetaData();
+            for (int i = 1; i <= columns.getColumnCount(); i++) {
+                if (columns.getColumnName(i).equalsIgnoreCase("profile_id")) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (SQLException e) {
+            // No such table yet
+            return false;
+        }
+    }
+
+    @Override
+    public synchronized Pet load(String saveFile) throws IOException {
+        try {
+            selectPet.setString(1, saveFile);
+            selectPet.setString(2, profileId);
+            Pet pet;
+            try (ResultSet row = selectPet.executeQuery()) {
+                if (!row.next()) {
+                    return null;
+                }
+                pet = new Pet(row.getString("name"), row.getString("type"));
+                pet.applyField("maxHealth", row.getString("max_health"));
+                pet.applyField("health", row.getString("health"));
+                pet.applyField("happiness", row.getString("happiness"));
+                pet.applyField("fullness", row.getString("fullness"));
+                pet.applyField("energy", row.getString("energy"));
+                pet.applyField("currency", row.getString("currency"));
+                pet.applyField("score", row.getString("score"));
+                pet.applyField("creationDate", row.getString("creation_date"));
+            }
+            selectItems.setString(1, saveFile);
+            selectItems.setString(2, profileId);
+            try (ResultSet items = selectItems.executeQuery()) {
+                while (items.next()) {
+                    pet.applyField(Pet.getItemKey(items.getString(1)), items.getString(2));
+                }
+            }
+            pet.setSaveFile(saveFile);
+            pet.markClean();
+            return pet;
+        } catch (SQLException e) {
+            throw new IOException("Failed to load pet " + saveFile, e);
+        }
+    }
+
+    @Override
+    public synchronized void save(Pet pet) throws IOException {
+        saveAll(List.of(pet));
+    }
+
+    @Override
+    public synchronized void saveAs(Pet pet, String saveFile) throws IOException {
+        pet.setSaveFile(saveFile);
+        try {
+            connection.setAutoCommit(false);
+            try {
+                writePet(pet, true);
+                insertItem.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            pet.markClean();
+        } catch (SQLException e) {
+            throw new IOException("Failed to save pet " + saveFile, e);
+        }
+    }
+
+    @Override
+    public synchronized void saveAll(Collection<Pet> pets) throws IOException {
+        try {
+            // One transaction for the whole batch instead of one per statement
+            connection.setAutoCommit(false);
+            try {
+                for (Pet pet : pets) {
+                    writePet(pet, false);
+                }
+                insertItem.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+            for (Pet pet : pets) {
+                pet.markClean();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to save " + pets.size() + " pets", e);
+        }
+    }
+
+    /**
+     * Writes a pet's row and its changed inventory entries. Rows that do not exist yet are
+     * inserted with the whole inventory. Inventory inserts are added to the insert batch,
+     * which the caller executes.
+     *
+     * @param pet The pet to write.
+     * @param full If true, every inventory entry is written, not just the changed ones.
+     * @throws SQLException If the pet could not be written.
+     */
+    private void writePet(Pet pet, boolean full) throws SQLException {
+        if (!full && !pet.isDirty()) {
+            return;
+        }
+        bindPet(updatePet, pet);
+        boolean inserted = false;
+        if (updatePet.executeUpdate() == 0) {
+            bindPet(insertPet, pet);
+            insertPet.executeUpdate();
+            inserted = true;
+        }
+
+        if (inserted || full) {
+            deleteItems.setString(1, pet.getSaveFile());
+            deleteItems.setString(2, profileId);
+            deleteItems.executeUpdate();
+            for (Map.Entry<String, Integer> entry : pet.getInventory().entrySet()) {
+                bindItem(insertItem, pet.getSaveFile(), entry.getKey(), entry.getValue());
+                insertItem.addBatch();
+            }
+            return;
+        }
+        for (String item : pet.getDirtyItems()) {
+            bindItem(updateItem, pet.getSaveFile(), item, pet.getItemCount(item));
+            if (updateItem.executeUpdate() == 0) {
+                bindItem(insertItem, pet.getSaveFile(), item, pet.getItemCount(item));
+                insertItem.addBatch();
+            }
+        }
+    }
+
+    /**
+     * Binds a pet's fields and the profile to the update or insert statement, which share
+     * their parameter order.
+     *
+     * @param statement The statement to bind.
+     * @param pet The pet.
+     * @throws SQLException If a parameter could not be bound.
+     */
+    private void bindPet(PreparedStatement statement, Pet pet) throws SQLException {
+        statement.setString(1, pet.getName());
+        statement.setString(2, pet.getType());
+        statement.setInt(3, pet.getMaxHealth());
+        statement.setInt(4, pet.getHealth());
+        statement.setInt(5, pet.getHappiness());
+        statement.setInt(6, pet.getFullness());
+        statement.setInt(7, pet.getEnergy());
+        statement.setInt(8, pet.getCurrency());
+        statement.setInt(9, pet.getScore());
+        statement.setString(10, String.valueOf(pet.getCreationDate()));
+        statement.setBoolean(11, pet.getHealth() > 0);
+        statement.setLong(12, System.currentTimeMillis());
+        statement.setString(13, pet.getSaveFile());
+        statement.setString(14, profileId);
+    }
+
+    /**
+     * Binds an inventory entry and the profile to the item update or insert statement, which
+     * share their parameter order.
+     *
+     * @param statement The statement to bind.
+     * @param saveFile The pet's save file name.
+     * @param item The item name.
+     * @param amount The item count.
+     * @throws SQLException If a parameter could not be bound.
+     */
+    private void bindItem(PreparedStatement statement, String saveFile, String item, int amount) throws SQLException {
+        statement.setInt(1, amount);
+        statement.setString(2, saveFile);
+        statement.setString(3, item);
+        statement.setString(4, profileId);
+    }
+
+    /**
+     * Updates only the patched columns and inventory rows, in one transaction.
+     */
+    @Override
+    public synchronized void patch(String saveFile, Map<String, String> fields) throws IOException {
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            Pet.checkFieldValue(field.getKey(), field.getValue());
+        }
+        if (!exists(saveFile)) {
+            throw new IOException("No such pet: " + saveFile);
+        }
+        try {
+            connection.setAutoCommit(false);
+            try {
+                long now = System.currentTimeMillis();
+                for (Map.Entry<String, String> field : fields.entrySet()) {
+                    int index = Pet.getFieldIndex(field.getKey());
+                    if (index < 0) {
+                        int amount = Integer.parseInt(field.getValue());
+                        String itemName = Pet.getItemName(field.getKey());
+                        bindItem(updateItem, saveFile, itemName, amount);
+                        if (updateItem.executeUpdate() == 0) {
+                            bindItem(insertItem, saveFile, itemName, amount);
+                            insertItem.executeUpdate();
+                        }
+                        continue;
+                    }
+                    PreparedStatement statement = updateFieldStatement(index);
+                    int parameter = 1;
+                    if (index == Pet.NAME || index == Pet.TYPE || index == Pet.CREATION_DATE) {
+                        statement.setString(parameter++, field.getValue());
+                    } else {
+                        statement.setInt(parameter++, Integer.parseInt(field.getValue()));
+                    }
+                    if (index == Pet.HEALTH) {
+                        statement.setBoolean(parameter++, Integer.parseInt(field.getValue()) > 0);
+                    }
+                    statement.setLong(parameter++, now);
+                    statement.setString(parameter++, saveFile);
+                    statement.setString(parameter, profileId);
+                    statement.executeUpdate();
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to patch pet " + saveFile, e);
+        }
+    }
+
+    /**
+     * Get the statement updating a single field, preparing it the first time.
+     *
+     * @param field The field index.
+     * @return The statement, taking the value, then the alive flag for health, then the save time, save file and profile.
+     * @throws SQLException If the statement could not be prepared.
+     */
+    private PreparedStatement updateFieldStatement(int field) throws SQLException {
+        if (updateField[field] == null) {
+            String alive = field == Pet.HEALTH ? ", alive = ?" : "";
+            updateField[field] = connection.prepareStatement("UPDATE pets SET " + FIELD_COLUMNS[field] + " = ?"
+                    + alive + ", last_saved = ? WHERE save_file = ? AND profile_id = ?");
+        }
+        return updateField[field];
+    }
+
+    @Override
+    public synchronized boolean exists(String saveFile) throws IOException {
+        try {
+            selectPet.setString(1, saveFile);
+            selectPet.setString(2, profileId);
+            try (ResultSet row = selectPet.executeQuery()) {
+                return row.next();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to look up pet " + saveFile, e);
+        }
+    }
+
+    @Override
+    public synchronized void delete(String saveFile) throws IOException {
+        try {
+            deleteItems.setString(1, saveFile);
+            deleteItems.setString(2, profileId);
+            deleteItems.executeUpdate();
+            deletePet.setString(1, saveFile);
+            deletePet.setString(2, profileId);
+            deletePet.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete pet " + saveFile, e);
+        }
+    }
+
+    @Override
+    public synchronized int count() throws IOException {
+        try {
+            countPets.setString(1, profileId);
+            try (ResultSet row = countPets.executeQuery()) {
+                return row.next() ? row.getInt(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to count pets", e);
+        }
+    }
+
+    @Override
+    public synchronized List<SaveSummary> list(int offset, int limit) throws IOException {
+        try {
+            listPets.setString(1, profileId);
+            listPets.setInt(2, limit);
+            listPets.setInt(3, offset);
+            return summaries(listPets);
+        } catch (SQLException e) {
+            throw new IOException("Failed to list pets", e);
+        }
+    }
+
+    @Override
+    public synchronized List<SaveSummary> findByType(String type) throws IOException {
+        try {
+            selectByType.setString(1, profileId);
+            selectByType.setString(2, type.toUpperCase());
+            return summaries(selectByType);
+        } catch (SQLException e) {
+            throw new IOException("Failed to find pets of type " + type, e);
+        }
+    }
+
+    @Override
+    public synchronized List<SaveSummary> findByAlive(boolean alive) throws IOException {
+        try {
+            selectByAlive.setString(1, profileId);
+            selectByAlive.setBoolean(2, alive);
+            return summaries(selectByAlive);
+        } catch (SQLException e) {
+            throw new IOException("Failed to find pets", e);
+        }
+    }
+
+    @Override
+    public synchronized List<SaveSummary> topByScore(int limit) throws IOException {
+        try {
+            selectTopScore.setString(1, profileId);
+            selectTopScore.setInt(2, limit);
+            return summaries(selectTopScore);
+        } catch (SQLException e) {
+            throw new IOException("Failed to find the highest scoring pets", e);
+        }
+    }
+
+    /**
+     * Runs a query over the pets table and turns its rows into summaries.
+     *
+     * @param query The bound query.
+     * @return The summaries.
+     * @throws SQLException If the query failed.
+     */
+    private static List<SaveSummary> summaries(PreparedStatement query) throws SQLException {
+        List<SaveSummary> summaries = new ArrayList<>();
+        try (ResultSet row = query.executeQuery()) {
+            while (row.next()) {
+                summaries.add(new SaveSummary(row.getString("save_file"), row.getString("name"), row.getString("type"),
+                        row.getInt("max_health"), row.getInt("health"), row.getInt("energy"), row.getInt("fullness"),
+                        row.getInt("happiness"), row.getInt("currency"), row.getInt("score"), row.getLong("last_saved")));
+            }
+        }
+        return summaries;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close pet database", e);
+        }
+    }
+}
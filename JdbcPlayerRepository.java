@@ -0,0 +1,103 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps the player's settings in an embedded SQL database, as the same key=value text
+ * the settings file holds, so both stores read and write settings the same way. Each
+ * profile has its own row, keyed by the profile's id; a table written before profiles
+ * existed is moved over to the default profile when opened.
+ */
+public class JdbcPlayerRepository implements PlayerRepository {
+    /** The database connection */
+    private final Connection connection;
+    /** Id of the profile whose settings are read and written */
+    private final String profileId;
+    /** Reads the settings */
+    private final PreparedStatement selectSettings;
+    /** Updates the settings */
+    private final PreparedStatement updateSettings;
+    /** Inserts the settings the first time they are saved */
+    private final PreparedStatement insertSettings;
+
+    /**
+     * Opens the database and creates the settings table if it does not exist yet.
+     *
+     * @param url The JDBC URL, e.g. "jdbc:sqlite:saves/pets.db".
+     * @param profileId Id of the profile whose settings are read and written.
+     * @throws IOException If the database could not be opened.
+     */
+    public JdbcPlayerRepository(String url, String profileId) throws IOException {
+        this.profileId = profileId;
+        try {
+            this.connection = DriverManager.getConnection(url);
+            boolean legacy = JdbcPetRepository.isLegacyTable(connection, "player_settings");
+            try (Statement statement = connection.createStatement()) {
+                if (legacy) {
+                    statement.executeUpdate("ALTER TABLE player_settings RENAME TO player_settings_legacy");
+                }
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS player_settings (profile_id VARCHAR(64) PRIMARY KEY,"
+                        + " settings VARCHAR(4096))");
+                if (legacy) {
+                    statement.executeUpdate("INSERT INTO player_settings (profile_id, settings) SELECT '"
+                            + ProfileStore.DEFAULT_PROFILE + "', settings FROM player_settings_legacy WHERE id = 1");
+                    statement.executeUpdate("DROP TABLE player_settings_legacy");
+                }
+            }
+            selectSettings = connection.prepareStatement("SELECT settings FROM player_settings WHERE profile_id = ?");
+            updateSettings = connection.prepareStatement("UPDATE player_settings SET settings = ? WHERE profile_id = ?");
+            insertSettings = connection.prepareStatement("INSERT INTO player_settings (settings, profile_id) VALUES (?, ?)");
+        } catch (SQLException e) {
+            throw new IOException("Failed to open settings database " + url, e);
+        }
+    }
+
+    @Override
+    public synchronized Player load() throws IOException {
+        try {
+            selectSettings.setString(1, profileId);
+            try (ResultSet row = selectSettings.executeQuery()) {
+                if (!row.next()) {
+                    return new Player();
+                }
+                byte[] settings = row.getString(1).getBytes(StandardCharsets.UTF_8);
+                return new Player(new KeyValueReader(ByteBuffer.wrap(settings)));
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load settings", e);
+        }
+    }
+
+    @Override
+    public synchronized void save(Player player) throws IOException {
+        try {
+            String settings = player.toSettingsText();
+            updateSettings.setString(1, settings);
+            updateSettings.setString(2, profileId);
+            if (updateSettings.executeUpdate() == 0) {
+                insertSettings.setString(1, settings);
+                insertSettings.setString(2, profileId);
+                insertSettings.executeUpdate();
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to save settings", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close settings database", e);
+        }
+    }
+}
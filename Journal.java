@@ -0,0 +1,384 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-ahead journal of changes to pets and settings that have not been saved yet.
+ * Each line is "file TAB key=value", and later lines override earlier ones.
+ * A lock file marks a running session; if it is still there at startup, the previous
+ * session did not shut down cleanly and the journaled changes are recovered.
+ *
+ * Flushing hands the buffered records to the operating system, which keeps them if the
+ * game crashes. Forcing them onto the disk as well, which only matters if the whole
+ * machine goes down, is slow, so it is done at most once every FORCE_INTERVAL_MILLIS
+ * and when the journal is closed. Records are written outside the journal's lock, so
+ * recording a change never waits for the disk.
+ *
+ * Some pet is nearly always unsaved while the household ticks, so the journal is not only
+ * emptied once everything is saved: when a save comes in and the journal has grown past
+ * COMPACT_BYTES and twice its size after the last compaction, it is rewritten with just
+ * the latest value of each key of the files still unsaved, through a temporary file moved
+ * into place. Its size stays proportional to the unsaved changes, not the session length.
+ */
+public class Journal implements PetChangeListener {
+    /** Name of the journal file inside the save directory */
+    public static final String JOURNAL_FILE = "journal.log";
+    /** Name of the lock file that marks a running session */
+    public static final String LOCK_FILE = "session.lock";
+    /** Minimum time between forcing the journal onto the disk */
+    public static final long FORCE_INTERVAL_MILLIS = 30_000;
+    /** Size below which the journal is never compacted, in bytes */
+    public static final long COMPACT_BYTES = 64 * 1024;
+
+    /** The directory holding the save files */
+    private final Path saveDirectory;
+    /** The journal file */
+    private final Path journalFile;
+    /** The lock file */
+    private final Path lockFile;
+    /** Records not yet written to the journal file */
+    private final StringBuilder pending = new StringBuilder();
+    /** Held while the journal file is written, before the journal's own lock */
+    private final Object writeLock = new Object();
+    /** Files with journaled changes that have not been saved yet, with the sequence number of their last change */
+    private final Map<String, long[]> unsavedFiles = new HashMap<>();
+    /** Sequence number of the last change recorded */
+    private long sequence;
+    /** When the journal was last forced onto the disk, in System.nanoTime terms */
+    private long lastForced = System.nanoTime();
+    /** Size of the journal file, in bytes */
+    private long journalBytes;
+    /** Size of the journal file after it was last compacted, in bytes */
+    private long compactedBytes;
+
+    /**
+     * Creates a journal for the saves in the given directory.
+     *
+     * @param saveDirectory The directory holding the save files.
+     */
+    public Journal(Path saveDirectory) {
+        this.saveDirectory = saveDirectory;
+        this.journalFile = saveDirectory.resolve(JOURNAL_FILE);
+        this.lockFile = saveDirectory.resolve(LOCK_FILE);
+    }
+
+    /**
+     * Reads back the changes journaled by a previous session that did not shut down cleanly.
+     * The work done is proportional to the size of the journal. The changes are not applied;
+     * the caller saves them through its repositories and then calls open.
+     *
+     * @return The latest value of every journaled key, grouped by the file it belongs to,
+     *         or an empty map if the previous session shut down cleanly.
+     * @throws IOException If the journal could not be read.
+     */
+    public synchronized Map<String, Map<String, String>> recover() throws IOException {
+        Map<String, Map<String, String>> changes = new LinkedHashMap<>();
+        if (!Files.exists(lockFile) || !Files.exists(journalFile)) {
+            return changes;
+        }
+
+        // Later lines override earlier ones, just like in the save files
+        List<String> lines = Files.readAllLines(journalFile, StandardCharsets.UTF_8);
+        for (String line : lines) {
+            int tab = line.indexOf('\t');
+            int equals = line.indexOf('=', tab);
+            if (tab <= 0 || equals < 0) {
+                continue; // a torn last line from the crash
+            }
+            changes.computeIfAbsent(line.substring(0, tab), f -> new LinkedHashMap<>())
+                    .put(line.substring(tab + 1, equals), line.substring(equals + 1));
+        }
+        System.out.println("Recovered " + lines.size() + " journaled changes to " + changes.size() + " files");
+        return changes;
+    }
+
+    /**
+     * Marks a session as running. Call after the recovered changes have been saved, as it
+     * empties the previous session's journal.
+     *
+     * @throws IOException If the journal could not be emptied or the lock file created.
+     */
+    public void open() throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                Files.createDirectories(saveDirectory);
+                Files.deleteIfExists(journalFile);
+                journalBytes = 0;
+                compactedBytes = 0;
+                if (!Files.exists(lockFile)) {
+                    Files.createFile(lockFile);
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the sequence number of the last change recorded, e.g. to pass to saved once a
+     * copy taken now has been saved.
+     *
+     * @return The sequence number.
+     */
+    public synchronized long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Records a change to a file. The change is buffered until the next flush.
+     *
+     * @param file The save file the change belongs to.
+     * @param key The key that changed.
+     * @param value The new value.
+     * @return The sequence number of the change, to pass to saved once it has been saved.
+     */
+    public synchronized long record(String file, String key, String value) {
+        if (file == null) {
+            return sequence;
+        }
+        pending.append(file).append('\t').append(key).append('=').append(value).append('\n');
+        return noteChange(file);
+    }
+
+    /**
+     * Records a change to a numeric value, appending the number without turning it into a
+     * string first, so journaling a tick allocates nothing.
+     *
+     * @param file The save file the change belongs to.
+     * @param key The key that changed.
+     * @param value The new value.
+     * @return The sequence number of the change, to pass to saved once it has been saved.
+     */
+    public synchronized long record(String file, String key, int value) {
+        if (file == null) {
+            return sequence;
+        }
+        pending.append(file).append('\t').append(key).append('=').append(value).append('\n');
+        return noteChange(file);
+    }
+
+    /**
+     * Gives a change the next sequence number and notes that its file is unsaved. Only
+     * the first change to a file after a save allocates.
+     *
+     * @param file The save file the change belongs to.
+     * @return The change's sequence number.
+     */
+    private long noteChange(String file) {
+        long[] last = unsavedFiles.get(file);
+        if (last == null) {
+            last = new long[1];
+            unsavedFiles.put(file, last);
+        }
+        last[0] = ++sequence;
+        return sequence;
+    }
+
+    @Override
+    public void fieldChanged(Pet pet, int field) {
+        int number = pet.getFieldNumber(field);
+        if (number >= 0) {
+            record(pet.getSaveFile(), Pet.getFieldKey(field), number);
+        } else {
+            record(pet.getSaveFile(), Pet.getFieldKey(field), pet.getFieldValue(field));
+        }
+    }
+
+    @Override
+    public void itemChanged(Pet pet, String item) {
+        record(pet.getSaveFile(), Pet.getItemKey(item), String.valueOf(pet.getItemCount(item)));
+    }
+
+    /**
+     * Writes buffered changes to the journal file, forcing them to disk if they have not
+     * been forced for FORCE_INTERVAL_MILLIS. Changes recorded meanwhile do not wait for
+     * the write.
+     *
+     * @throws IOException If the journal could not be written; the changes stay buffered.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            String text;
+            boolean force;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                text = pending.toString();
+                pending.setLength(0);
+                force = System.nanoTime() - lastForced >= TimeUnit.MILLISECONDS.toNanos(FORCE_INTERVAL_MILLIS);
+            }
+            long written;
+            try {
+                written = append(text, force);
+            } catch (IOException e) {
+                synchronized (this) {
+                    pending.insert(0, text);
+                }
+                throw e;
+            }
+            synchronized (this) {
+                journalBytes += written;
+                if (force) {
+                    lastForced = System.nanoTime();
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes buffered changes to the journal file. Called holding both locks.
+     *
+     * @param force Whether to force them onto the disk.
+     * @throws IOException If the journal could not be written.
+     */
+    private void write(boolean force) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        journalBytes += append(pending.toString(), force);
+        if (force) {
+            lastForced = System.nanoTime();
+        }
+        pending.setLength(0);
+    }
+
+    /**
+     * Appends records to the journal file.
+     *
+     * @param text The records.
+     * @param force Whether to force them onto the disk.
+     * @return The number of bytes written.
+     * @throws IOException If the journal could not be written.
+     */
+    private long append(String text, boolean force) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            if (force) {
+                channel.force(false);
+            }
+        }
+        return bytes.limit();
+    }
+
+    /**
+     * Rewrites the journal with only the latest value of each key of the files that are
+     * still unsaved, replacing it in one step. Called holding both locks.
+     *
+     * @throws IOException If the journal could not be rewritten.
+     */
+    private void compact() throws IOException {
+        write(false);
+        Map<String, String> latest = new LinkedHashMap<>();
+        for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+            int tab = line.indexOf('\t');
+            int equals = line.indexOf('=', tab);
+            if (tab <= 0 || equals < 0 || !unsavedFiles.containsKey(line.substring(0, tab))) {
+                continue;
+            }
+            // Removed first so the line moves to the end, after the lines it overrides
+            String key = line.substring(0, equals);
+            latest.remove(key);
+            latest.put(key, line);
+        }
+        StringBuilder text = new StringBuilder();
+        for (String line : latest.values()) {
+            text.append(line).append('\n');
+        }
+        ByteBuffer bytes = ByteBuffer.wrap(text.toString().getBytes(StandardCharsets.UTF_8));
+        Path tempFile = journalFile.resolveSibling(JOURNAL_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+        Files.move(tempFile, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        journalBytes = bytes.limit();
+        compactedBytes = journalBytes;
+        lastForced = System.nanoTime();
+    }
+
+    /**
+     * Notes that a file has been saved durably. Once every journaled file has been saved,
+     * the journal is emptied; until then it is compacted when it has grown.
+     *
+     * @param file The save file that was written.
+     * @throws IOException If the journal could not be emptied or compacted.
+     */
+    public void saved(String file) throws IOException {
+        saved(file, Long.MAX_VALUE);
+    }
+
+    /**
+     * Notes that a file has been saved durably with its changes up to a sequence number.
+     * If the file has changed since, it is still unsaved. Once every journaled file has
+     * been saved, the journal is emptied; until then it is compacted when it has grown.
+     *
+     * @param file The save file that was written.
+     * @param savedSequence The sequence number of the last change the save holds.
+     * @throws IOException If the journal could not be emptied or compacted.
+     */
+    public void saved(String file, long savedSequence) throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                long[] last = unsavedFiles.get(file);
+                if (last != null && last[0] <= savedSequence) {
+                    unsavedFiles.remove(file);
+                }
+                if (unsavedFiles.isEmpty()) {
+                    pending.setLength(0);
+                    Files.deleteIfExists(journalFile);
+                    journalBytes = 0;
+                    compactedBytes = 0;
+                } else if (journalBytes + pending.length() >= Math.max(COMPACT_BYTES, 2 * compactedBytes)) {
+                    compact();
+                }
+            }
+        }
+    }
+
+    /**
+     * Get the size of the journal file.
+     *
+     * @return The size in bytes, not counting changes not yet flushed.
+     */
+    public synchronized long getJournalBytes() {
+        return journalBytes;
+    }
+
+    /**
+     * Ends the session. The lock file is only removed if every change has been saved,
+     * so unsaved changes are still replayed at the next startup.
+     *
+     * @throws IOException If the journal could not be written.
+     */
+    public void close() throws IOException {
+        synchronized (writeLock) {
+            synchronized (this) {
+                write(true);
+                if (unsavedFiles.isEmpty()) {
+                    Files.deleteIfExists(journalFile);
+                    Files.deleteIfExists(lockFile);
+                    journalBytes = 0;
+                    compactedBytes = 0;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package group02;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+    private Path saveDirectory;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        saveDirectory = Files.createTempDirectory("saves");
+        Files.writeString(saveDirectory.resolve("dog_save.txt"), "name=Buddy\nenergy=100\n");
+    }
+
+    @Test
+    void testReplaysChangesAfterCrash() throws Exception {
+        Journal journal = new Journal(saveDirectory);
+        journal.open();
+        Pet pet = new Pet(saveDirectory.resolve("dog_save.txt"));
+        pet.addChangeListener(journal);
+        pet.setEnergy(40);
+        pet.addItem("Kibble", 2);
+        journal.flush();
+        // The process dies here without saving or closing
+
+        Journal next = new Journal(saveDirectory);
+        Map<String, Map<String, String>> recovered = next.recover();
+
+        assertEquals(Set.of("dog_save.txt"), recovered.keySet());
+        assertEquals("40", recovered.get("dog_save.txt").get("energy"));
+        assertEquals("2", recovered.get("dog_save.txt").get(Pet.getItemKey("Kibble")));
+        next.open();
+        assertFalse(Files.exists(saveDirectory.resolve(Journal.JOURNAL_FILE)));
+    }
+
+    @Test
+    void testCleanShutdownSkipsReplay() throws Exception {
+        Journal journal = new Journal(saveDirectory);
+        journal.open();
+        journal.record("dog_save.txt", "energy", "40");
+        journal.flush();
+        journal.saved("dog_save.txt");
+        journal.close();
+
+        assertTrue(new Journal(saveDirectory).recover().isEmpty());
+        assertFalse(Files.exists(saveDirectory.resolve(Journal.LOCK_FILE)));
+        assertEquals(100, new Pet(saveDirectory.resolve("dog_save.txt")).getEnergy());
+    }
+
+    @Test
+    void testJournalStaysBoundedWhileAPetIsAlwaysUnsaved() throws Exception {
+        Journal journal = new Journal(saveDirectory);
+        journal.open();
+        Path journalFile = saveDirectory.resolve(Journal.JOURNAL_FILE);
+        long largest = 0;
+        for (int cycle = 0; cycle < 20; cycle++) {
+            // The ticking pet changes every time; the saved one is written out each cycle
+            for (int tick = 0; tick < 1000; tick++) {
+                journal.record("dog_save.txt", "energy", cycle * 1000 + tick);
+                journal.record("cat_save.txt", "fullness", tick);
+            }
+            journal.flush();
+            journal.saved("cat_save.txt");
+            largest = Math.max(largest, Files.size(journalFile));
+            assertEquals(Files.size(journalFile), journal.getJournalBytes());
+        }
+        assertTrue(largest < 4 * Journal.COMPACT_BYTES, "Journal grew to " + largest + " bytes");
+
+        Map<String, Map<String, String>> recovered = new Journal(saveDirectory).recover();
+        assertEquals(Set.of("dog_save.txt"), recovered.keySet());
+        assertEquals("19999", recovered.get("dog_save.txt").get("energy"));
+    }
+}
@@ -0,0 +1,273 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader for the key=value files used by pet saves and settings.
+ * The file is read into a reusable buffer and scanned in place: keys are matched and
+ * integers are parsed straight from the bytes, so only values that are asked for as
+ * strings allocate anything.
+ */
+public class KeyValueReader {
+    /** One reader per thread so that bulk loads reuse the same buffer */
+    private static final ThreadLocal<KeyValueReader> READERS = ThreadLocal.withInitial(KeyValueReader::new);
+
+    /** The bytes being scanned */
+    private ByteBuffer buffer;
+    /** Position of the next line to scan */
+    private int position;
+    /** Start of the current key (inclusive) */
+    private int keyStart;
+    /** End of the current key (exclusive) */
+    private int keyEnd;
+    /** Start of the current value (inclusive) */
+    private int valueStart;
+    /** End of the current value (exclusive) */
+    private int valueEnd;
+
+    /**
+     * Creates a reader with an empty buffer.
+     */
+    public KeyValueReader() {
+        this.buffer = ByteBuffer.allocate(1024);
+        this.buffer.limit(0);
+    }
+
+    /**
+     * Creates a reader over the given bytes, from the buffer's position to its limit.
+     *
+     * @param buffer The bytes to scan.
+     */
+    public KeyValueReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.position = buffer.position();
+    }
+
+    /**
+     * Returns this thread's reader, loaded with the given file. The reader is only valid
+     * until the next call to this method on the same thread.
+     *
+     * @param file The file to read.
+     * @return The reader, positioned before the first line.
+     * @throws IOException If the file could not be read.
+     */
+    public static KeyValueReader read(Path file) throws IOException {
+        KeyValueReader reader = READERS.get();
+        reader.load(file);
+        return reader;
+    }
+
+    /**
+     * Reads the whole file into this reader's buffer, growing it only if the file is larger.
+     *
+     * @param file The file to read.
+     * @throws IOException If the file could not be read.
+     */
+    public void load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int size = (int) channel.size();
+            if (buffer.capacity() < size || !buffer.hasArray()) {
+                buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            }
+            buffer.clear();
+            while (buffer.position() < size && channel.read(buffer) > 0) {
+                // keep reading until the file is in the buffer
+            }
+            buffer.flip();
+        }
+        position = 0;
+    }
+
+    /**
+     * Advances to the next line containing a key and a value. Lines without an '=' are skipped.
+     *
+     * @return true if a line was found, false at the end of the input.
+     */
+    public boolean next() {
+        int limit = buffer.limit();
+        while (position < limit) {
+            int lineStart = position;
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+            position = lineEnd + 1;
+            if (lineEnd > lineStart && buffer.get(lineEnd - 1) == '\r') {
+                lineEnd--;
+            }
+
+            int separator = lineStart;
+            while (separator < lineEnd && buffer.get(separator) != '=') {
+                separator++;
+            }
+            if (separator == lineStart || separator == lineEnd) {
+                continue;
+            }
+
+            keyStart = lineStart;
+            keyEnd = separator;
+            valueStart = separator + 1;
+            valueEnd = lineEnd;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the current key equals the given key.
+     *
+     * @param key The key to compare against.
+     * @return true if the keys are equal, false otherwise.
+     */
+    public boolean keyEquals(String key) {
+        return regionEquals(keyStart, keyEnd, key);
+    }
+
+    /**
+     * Checks if the current key starts with the given prefix.
+     *
+     * @param prefix The prefix to compare against.
+     * @return true if the key starts with the prefix, false otherwise.
+     */
+    public boolean keyStartsWith(String prefix) {
+        return keyEnd - keyStart >= prefix.length() && regionEquals(keyStart, keyStart + prefix.length(), prefix);
+    }
+
+    /**
+     * Checks if the current value equals the given string.
+     *
+     * @param value The string to compare against.
+     * @return true if the value is equal, false otherwise.
+     */
+    public boolean valueEquals(String value) {
+        return regionEquals(valueStart, valueEnd, value);
+    }
+
+    /**
+     * Get the current key.
+     *
+     * @return The key as a new string.
+     */
+    public String key() {
+        return decode(keyStart, keyEnd);
+    }
+
+    /**
+     * Get the current key with a prefix removed.
+     *
+     * @param prefixLength The number of leading characters to drop.
+     * @return The rest of the key as a new string.
+     */
+    public String keySuffix(int prefixLength) {
+        return decode(keyStart + prefixLength, keyEnd);
+    }
+
+    /**
+     * Get the current value.
+     *
+     * @return The value as a new string.
+     */
+    public String value() {
+        return decode(valueStart, valueEnd);
+    }
+
+    /**
+     * Parses the current value as an int without creating a string.
+     *
+     * @return The value as an int.
+     * @throws NumberFormatException If the value is not a valid int.
+     */
+    public int intValue() {
+        long value = longValue();
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of int range: " + value());
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parses the current value as a long without creating a string.
+     *
+     * @return The value as a long.
+     * @throws NumberFormatException If the value is not a valid long.
+     */
+    public long longValue() {
+        int i = valueStart;
+        boolean negative = false;
+        if (i < valueEnd && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == valueEnd) {
+            throw new NumberFormatException("Not a number: " + value());
+        }
+
+        long result = 0;
+        for (; i < valueEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result > (Long.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("Not a number: " + value());
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Parses the current value as a boolean the same way Boolean.parseBoolean does.
+     *
+     * @return true if the value is "true" ignoring case, false otherwise.
+     */
+    public boolean booleanValue() {
+        if (valueEnd - valueStart != 4) {
+            return false;
+        }
+        for (int i = 0; i < 4; i++) {
+            if (Character.toLowerCase((char) buffer.get(valueStart + i)) != "true".charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compares a region of the buffer with an ASCII string.
+     *
+     * @param start The start of the region (inclusive).
+     * @param end The end of the region (exclusive).
+     * @param text The string to compare against.
+     * @return true if the region holds exactly the string, false otherwise.
+     */
+    private boolean regionEquals(int start, int end, String text) {
+        if (end - start != text.length()) {
+            return false;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (buffer.get(start + i) != text.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decodes a region of the buffer as UTF-8.
+     *
+     * @param start The start of the region (inclusive).
+     * @param end The end of the region (exclusive).
+     * @return The decoded string.
+     */
+    private String decode(int start, int end) {
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, end - start, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[end - start];
+        buffer.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
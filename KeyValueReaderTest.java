@@ -0,0 +1,58 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyValueReaderTest {
+
+    private KeyValueReader readerFor(String text) {
+        return new KeyValueReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void testReadsKeysAndValues() {
+        KeyValueReader reader = readerFor("name=Buddy\r\nhealth=-15\nfullscreen=TRUE\n");
+
+        assertTrue(reader.next());
+        assertTrue(reader.keyEquals("name"));
+        assertEquals("Buddy", reader.value());
+
+        assertTrue(reader.next());
+        assertTrue(reader.keyEquals("health"));
+        assertEquals(-15, reader.intValue());
+
+        assertTrue(reader.next());
+        assertTrue(reader.booleanValue());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void testSkipsLinesWithoutValues() {
+        KeyValueReader reader = readerFor("\ngarbage\n=5\nPremium Food=1");
+
+        assertTrue(reader.next());
+        assertEquals("Premium Food", reader.key());
+        assertEquals(1, reader.intValue());
+        assertFalse(reader.next());
+    }
+
+    @Test
+    void testKeepsEqualsSignsInValues() {
+        KeyValueReader reader = readerFor("parentalPassword=a=b");
+
+        assertTrue(reader.next());
+        assertEquals("a=b", reader.value());
+    }
+
+    @Test
+    void testRejectsInvalidNumbers() {
+        KeyValueReader reader = readerFor("score=12a");
+
+        assertTrue(reader.next());
+        assertThrows(NumberFormatException.class, reader::intValue);
+    }
+}
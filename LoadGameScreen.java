@@ -4,6 +4,7 @@ import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
 import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
 import javafx.scene.layout.VBox;
 import javafx.scene.shape.Rectangle;
 import javafx.scene.paint.Color;
@@ -11,10 +12,10 @@ import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import javafx.scene.image.ImageView;
-import java.util.Map;
 
 /**
  * LoadGameScreen class handles the loading of saved games.
@@ -22,7 +23,13 @@ import java.util.Map;
 public class LoadGameScreen {
     private final Stage stage;
     private final GameState gameState;
-    private final List<Pet> saveSlots = new ArrayList<>();
+    private final List<SaveSlot> saveSlots = new ArrayList<>();
+    /** Number of save slots shown on each page */
+    private static final int PAGE_SIZE = 3;
+    /** The page currently shown, starting at zero */
+    private int page = 0;
+    /** The number of pages of saves */
+    private int pageCount = 1;
 
     /**
      * Constructor for LoadGameScreen.
@@ -33,54 +40,42 @@ public class LoadGameScreen {
     public LoadGameScreen(Stage stage, GameState gameState) {
         this.stage = stage;
         this.gameState = gameState;
-        loadSaveSlots();
     }
 
     /**
-     * Loads the save slots with existing pet data.
+     * Loads the save slots of the current page from the save catalog in memory, or from the
+     * pet repository if there is no catalog, reading only that page's summaries.
      */
     private void loadSaveSlots() {
-        // Look for save files in the saves directory
-        File savesDir = new File("saves");
-        if (!savesDir.exists()) {
-            savesDir.mkdir();
-        }
-
-        // Check for existing save files - one for each animal type
         saveSlots.clear();
-        
-        // Look for dog save
-        File dogSave = new File("saves/dog_save.txt");
-        if (dogSave.exists()) {
-            saveSlots.add(new Pet("dog_save.txt"));
-        } else {
-            saveSlots.add(new Pet("Empty Slot", "DOG"));
-        }
-        
-        // Look for cat save
-        File catSave = new File("saves/cat_save.txt");
-        if (catSave.exists()) {
-            saveSlots.add(new Pet("cat_save.txt"));
-        } else {
-            saveSlots.add(new Pet("Empty Slot", "CAT"));
+        SaveCatalog catalog = gameState.getSaveCatalog();
+        if (catalog != null) {
+            pageCount = Math.max(1, (catalog.size() + PAGE_SIZE - 1) / PAGE_SIZE);
+            page = Math.min(page, pageCount - 1);
+            for (SaveSummary summary : catalog.list(page * PAGE_SIZE, PAGE_SIZE)) {
+                saveSlots.add(new SaveSlot(summary.type(), summary.saveFile(), summary));
+            }
+            return;
         }
-        
-        // Look for bunny save
-        File bunnySave = new File("saves/bunny_save.txt");
-        if (bunnySave.exists()) {
-            saveSlots.add(new Pet("bunny_save.txt"));
-        } else {
-            saveSlots.add(new Pet("Empty Slot", "BUNNY"));
+        try {
+            PetRepository pets = gameState.getPetRepository();
+            pageCount = Math.max(1, (pets.count() + PAGE_SIZE - 1) / PAGE_SIZE);
+            page = Math.min(page, pageCount - 1);
+            for (SaveSummary summary : pets.list(page * PAGE_SIZE, PAGE_SIZE)) {
+                saveSlots.add(new SaveSlot(summary.type(), summary.saveFile(), summary));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read saved pets: " + e.getMessage());
         }
     }
 
     /**
      * Creates a save slot box for a pet.
      *
-     * @param pet The pet to display in the save slot.
+     * @param pet The save slot to display.
      * @return A VBox containing the pet's information and load button.
      */
-    private VBox createSaveSlotBox(Pet pet) {
+    private VBox createSaveSlotBox(SaveSlot pet) {
         VBox box = new VBox(15);
         box.setAlignment(Pos.CENTER);
         box.setPadding(new Insets(15));
@@ -89,18 +84,18 @@ public class LoadGameScreen {
         box.setStyle("-fx-background-color: #FFFFFF; -fx-border-color: #8B4513; -fx-border-width: 2px; -fx-border-radius: 10; -fx-background-radius: 10;");
 
         // Animal type label
-        Text animalType = new Text(pet.getType());
+        Text animalType = new Text(pet.animalType());
         animalType.setStyle("-fx-font-size: 20px; -fx-font-weight: bold; -fx-fill: #8B4513;");
 
         // Create pet sprite image
         ImageView portrait = null;
-        String prefix = pet.getType();
+        String prefix = pet.animalType();
         String spritePath = "images/" + prefix + "_NORMAL.png";
         
         try {
             File imageFile = new File(spritePath);
             System.out.println("Load screen - attempting to load sprite: " + spritePath);
-            System.out.println("Animal type: " + pet.getType());
+            System.out.println("Animal type: " + pet.animalType());
             System.out.println("File exists: " + imageFile.exists());
             System.out.println("File absolute path: " + imageFile.getAbsolutePath());
             String imageURI = imageFile.toURI().toString();
@@ -124,19 +119,19 @@ public class LoadGameScreen {
         }
 
         // Pet name
-        Text nameText = new Text(pet.getName());
+        Text nameText = new Text(pet.name());
         nameText.setStyle("-fx-font-size: 16px; -fx-font-weight: bold;");
 
         // Stats
         VBox statsBox = new VBox(5);
         statsBox.setAlignment(Pos.CENTER);
         
-        Text healthText = new Text("Health: " + pet.getHealth() + "/" + pet.getMaxHealth());
-        Text energyText = new Text("Energy: " + pet.getEnergy() + "%");
-        Text fullnessText = new Text("Fullness: " + pet.getFullness() + "%");
-        Text happinessText = new Text("Happiness: " + pet.getHappiness() + "%");
-        Text currencyText = new Text("Dabloons: " + pet.getCurrency());
-        Text scoreText = new Text("Score: " + pet.getScore());
+        Text healthText = new Text("Health: " + pet.health() + "/" + pet.maxHealth());
+        Text energyText = new Text("Energy: " + pet.energy() + "%");
+        Text fullnessText = new Text("Fullness: " + pet.fullness() + "%");
+        Text happinessText = new Text("Happiness: " + pet.happiness() + "%");
+        Text currencyText = new Text("Dabloons: " + pet.currency());
+        Text scoreText = new Text("Score: " + pet.score());
 
         // Style all stat texts
         healthText.setStyle("-fx-font-size: 14px;");
@@ -157,16 +152,26 @@ public class LoadGameScreen {
     }
 
     /**
-     * Loads the game with the selected pet.
+     * Loads the game with the pet in the selected save slot.
      *
-     * @param pet The pet to load.
+     * @param slot The save slot to load.
      */
-    private void loadGame(Pet pet) {
-        if (gameState.getPet() == null || gameState.getPet().getName().contains("Empty Slot")) {
+    private void loadGame(SaveSlot slot) {
+        if (slot.summary() == null) {
             return;
         }
 
-
+        // Use the copy loaded at startup if it is there already
+        Pet pet;
+        try {
+            pet = gameState.loadPet(slot.saveFile());
+        } catch (IOException e) {
+            System.err.println("Failed to load " + slot.saveFile() + ": " + e.getMessage());
+            return;
+        }
+        if (pet == null) {
+            return;
+        }
         gameState.setPet(pet);
 
         GameScreen gameScreen = new GameScreen(stage, gameState, pet);
@@ -215,6 +220,36 @@ public class LoadGameScreen {
         return button;
     }
 
+    /**
+     * Loads a page of save slots and shows it in the grid.
+     *
+     * @param newPage The page to show.
+     * @param saveGrid The grid holding the save slot boxes.
+     * @param pageText The text showing the page number.
+     * @param previousButton The button that shows the previous page.
+     * @param nextButton The button that shows the next page.
+     */
+    private void showPage(int newPage, GridPane saveGrid, Text pageText, Button previousButton, Button nextButton) {
+        page = Math.max(0, newPage);
+        loadSaveSlots();
+
+        saveGrid.getChildren().clear();
+        if (saveSlots.isEmpty()) {
+            Text noSaves = new Text("No saved games yet.\nStart a new game to create one.");
+            noSaves.setStyle("-fx-font-size: 16px;");
+            saveGrid.add(noSaves, 0, 0);
+        }
+        for (int i = 0; i < saveSlots.size(); i++) {
+            SaveSlot slot = saveSlots.get(i);
+            VBox slotBox = createSaveSlotBox(slot);
+            saveGrid.add(slotBox, i, 0);
+        }
+
+        pageText.setText("Page " + (page + 1) + " of " + pageCount);
+        previousButton.setDisable(page == 0);
+        nextButton.setDisable(page >= pageCount - 1);
+    }
+
     /**
      * Displays the load game screen.
      */
@@ -240,13 +275,20 @@ public class LoadGameScreen {
         saveGrid.setVgap(20);
         saveGrid.setAlignment(Pos.CENTER);
 
-        for (int i = 0; i < saveSlots.size(); i++) {
-            Pet slot = saveSlots.get(i);
-            VBox slotBox = createSaveSlotBox(slot);
-            saveGrid.add(slotBox, i, 0);
-        }
+        // Page controls
+        HBox pageControls = new HBox(20);
+        pageControls.setAlignment(Pos.CENTER);
+        Button previousButton = createStyledButton("Previous");
+        Button nextButton = createStyledButton("Next");
+        Text pageText = new Text();
+        pageText.setStyle("-fx-font-size: 14px;");
+        pageControls.getChildren().addAll(previousButton, pageText, nextButton);
+
+        previousButton.setOnAction(e -> showPage(page - 1, saveGrid, pageText, previousButton, nextButton));
+        nextButton.setOnAction(e -> showPage(page + 1, saveGrid, pageText, previousButton, nextButton));
+        showPage(page, saveGrid, pageText, previousButton, nextButton);
 
-        saveContainer.getChildren().add(saveGrid);
+        saveContainer.getChildren().addAll(saveGrid, pageControls);
 
         Button backButton = createStyledButton("Back to Main Menu");
         backButton.setStyle(backButton.getStyle().replace("#4CAF50", "#8B4513")); // Brown for back button
@@ -262,40 +304,44 @@ public class LoadGameScreen {
         stage.setTitle("Tamagotchi Game - Load Game");
     }
 
-    private record SaveSlot(String animalType, String petType, PetStats stats) {
+    /**
+     * A save slot on the load screen, empty when it has no saved pet.
+     *
+     * @param animalType The animal type shown in the slot.
+     * @param saveFile The save file the slot loads from.
+     * @param summary The summary of the saved pet, or null if the slot is empty.
+     */
+    private record SaveSlot(String animalType, String saveFile, SaveSummary summary) {
         public String name() {
-            return stats != null ? stats.name() : "Empty Slot";
+            return summary != null ? summary.name() : "Empty Slot";
         }
 
         public int health() {
-            return stats != null ? stats.health() : 0;
+            return summary != null ? summary.health() : 0;
         }
 
         public int maxHealth() {
-            return stats != null ? stats.maxHealth() : 100;
+            return summary != null ? summary.maxHealth() : 100;
         }
 
         public int energy() {
-            return stats != null ? stats.energy() : 0;
+            return summary != null ? summary.energy() : 0;
         }
 
         public int fullness() {
-            return stats != null ? stats.fullness() : 0;
+            return summary != null ? summary.fullness() : 0;
         }
 
         public int happiness() {
-            return stats != null ? stats.happiness() : 0;
+            return summary != null ? summary.happiness() : 0;
         }
 
         public int currency() {
-            return stats != null ? stats.currency() : 0;
+            return summary != null ? summary.currency() : 0;
         }
 
         public int score() {
-            return stats != null ? stats.score() : 0;
+            return summary != null ? summary.score() : 0;
         }
     }
-
-    private record PetStats(String name, int health, int maxHealth, int energy, int fullness, int happiness, int currency, int score,
-                            Map<String, Integer> inventory) {}
-} 
\ No newline at end of file
+}
@@ -0,0 +1,210 @@
+package group02;
+
+/**
+ * Fixed-size histogram of non-negative values with logarithmic buckets, in the manner of
+ * HdrHistogram: every power of two is split into SUB_BUCKETS equal buckets, so any value
+ * is counted in a bucket no wider than about 1/SUB_BUCKETS of it. The histogram takes the
+ * same memory however many values are recorded, and two histograms merge by adding counts.
+ */
+public class LogHistogram {
+    /** Number of bits used for the buckets within each power of two */
+    private static final int SUB_BUCKET_BITS = 3;
+    /** Number of buckets per power of two */
+    public static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Largest value counted in its own bucket; larger values are counted as this value */
+    public static final long MAX_VALUE = Integer.MAX_VALUE;
+    /** Number of buckets */
+    public static final int BUCKET_COUNT = bucketIndex(MAX_VALUE) + 1;
+
+    /** Count of values per bucket */
+    private final long[] counts = new long[BUCKET_COUNT];
+    /** Number of values recorded */
+    private long totalCount;
+    /** Sum of the values recorded */
+    private long sum;
+    /** Smallest value recorded */
+    private long min = Long.MAX_VALUE;
+    /** Largest value recorded */
+    private long max;
+
+    /**
+     * Records a value.
+     *
+     * @param value The value; negative values are counted as 0.
+     */
+    public void record(long value) {
+        long clamped = Math.max(0, Math.min(MAX_VALUE, value));
+        counts[bucketIndex(clamped)]++;
+        totalCount++;
+        sum += clamped;
+        min = Math.min(min, clamped);
+        max = Math.max(max, clamped);
+    }
+
+    /**
+     * Adds every value recorded in another histogram to this one.
+     *
+     * @param other The histogram to merge in.
+     */
+    public void merge(LogHistogram other) {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts[i] += other.counts[i];
+        }
+        totalCount += other.totalCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Get the number of values recorded.
+     *
+     * @return The number of values.
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Get the mean of the values recorded.
+     *
+     * @return The mean, or 0 if nothing has been recorded.
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Get the largest value recorded.
+     *
+     * @return The largest value, or 0 if nothing has been recorded.
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Get the value below which the given percentage of the recorded values fall, to
+     * within the width of its bucket.
+     *
+     * @param percentile The percentage, 0 to 100.
+     * @return The highest value of the bucket holding the percentile, or 0 if nothing has been recorded.
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.max(min, Math.min(max, bucketUpperBound(i)));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Get the number of values recorded in a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The count.
+     */
+    public long getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Get the smallest value counted in a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The lower bound.
+     */
+    public static long bucketLowerBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        return (long) (bucket % SUB_BUCKETS + SUB_BUCKETS) << shift;
+    }
+
+    /**
+     * Get the largest value counted in a bucket.
+     *
+     * @param bucket The bucket index.
+     * @return The upper bound.
+     */
+    public static long bucketUpperBound(int bucket) {
+        return bucket + 1 < BUCKET_COUNT ? bucketLowerBound(bucket + 1) - 1 : MAX_VALUE;
+    }
+
+    /**
+     * Get the bucket a value is counted in.
+     *
+     * @param value The value, 0 to MAX_VALUE.
+     * @return The bucket index.
+     */
+    public static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /**
+     * Writes the histogram as "sum;min;max;bucket:count,bucket:count", listing only the
+     * buckets that have values.
+     *
+     * @return The histogram as text.
+     */
+    public String toText() {
+        StringBuilder text = new StringBuilder();
+        text.append(sum).append(';').append(totalCount == 0 ? 0 : min).append(';').append(max).append(';');
+        boolean first = true;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                if (!first) {
+                    text.append(',');
+                }
+                text.append(i).append(':').append(counts[i]);
+                first = false;
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Reads a histogram written by toText.
+     *
+     * @param text The histogram as text.
+     * @return The histogram.
+     * @throws IllegalArgumentException If the text is not a histogram.
+     */
+    public static LogHistogram fromText(String text) {
+        String[] parts = text.split(";", -1);
+        if (parts.length != 4) {
+            throw new IllegalArgumentException("Not a histogram: " + text);
+        }
+        LogHistogram histogram = new LogHistogram();
+        try {
+            histogram.sum = Long.parseLong(parts[0]);
+            if (!parts[3].isEmpty()) {
+                for (String bucket : parts[3].split(",")) {
+                    int colon = bucket.indexOf(':');
+                    long count = Long.parseLong(bucket.substring(colon + 1));
+                    histogram.counts[Integer.parseInt(bucket.substring(0, colon))] += count;
+                    histogram.totalCount += count;
+                }
+            }
+            if (histogram.totalCount > 0) {
+                histogram.min = Long.parseLong(parts[1]);
+                histogram.max = Long.parseLong(parts[2]);
+            }
+        } catch (NumberFormatException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Not a histogram: " + text, e);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,71 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogHistogramTest {
+    @Test
+    void testBucketsCoverEveryValue() {
+        for (long value : new long[] {0, 1, 7, 8, 9, 15, 16, 17, 1000, 65_535, 65_536, LogHistogram.MAX_VALUE}) {
+            int bucket = LogHistogram.bucketIndex(value);
+            assertTrue(LogHistogram.bucketLowerBound(bucket) <= value, "lower bound of " + value);
+            assertTrue(LogHistogram.bucketUpperBound(bucket) >= value, "upper bound of " + value);
+        }
+        // Buckets are no wider than an eighth of the values in them
+        int bucket = LogHistogram.bucketIndex(1000);
+        assertTrue(LogHistogram.bucketUpperBound(bucket) - LogHistogram.bucketLowerBound(bucket) < 1000 / 8);
+    }
+
+    @Test
+    void testPercentiles() {
+        LogHistogram histogram = new LogHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 60);
+        }
+
+        assertEquals(100, histogram.getTotalCount());
+        assertEquals(3030, histogram.getMean(), 0.001);
+        assertEquals(3000, histogram.getValueAtPercentile(50), 3000 / 8.0);
+        assertEquals(5400, histogram.getValueAtPercentile(90), 5400 / 8.0);
+        assertEquals(6000, histogram.getValueAtPercentile(100));
+        assertEquals(0, new LogHistogram().getValueAtPercentile(50));
+    }
+
+    @Test
+    void testMergeAndTextRoundTrip() {
+        LogHistogram first = new LogHistogram();
+        LogHistogram second = new LogHistogram();
+        first.record(10);
+        first.record(20);
+        second.record(400);
+
+        first.merge(second);
+        LogHistogram read = LogHistogram.fromText(first.toText());
+
+        assertEquals(3, read.getTotalCount());
+        assertEquals(400, read.getValueAtPercentile(100));
+        assertEquals(first.toText(), read.toText());
+    }
+
+    @Test
+    void testSessionsAreSplitByHourAndSaved() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        SessionHistograms histograms = new SessionHistograms(saveDirectory);
+        histograms.recordSession(LocalDateTime.of(2024, 3, 31, 16, 50).toInstant(ZoneOffset.UTC),
+                20 * 60_000, ZoneOffset.UTC);
+        histograms.save();
+
+        SessionHistograms read = new SessionHistograms(saveDirectory);
+        read.load();
+        assertEquals(600, read.getHourSeconds()[16]);
+        assertEquals(600, read.getHourSeconds()[17]);
+        assertEquals(1, read.getSessionSeconds().getTotalCount());
+        assertEquals(1200, read.getSessionSeconds().getValueAtPercentile(50));
+    }
+}
@@ -1,13 +1,28 @@
 package group02;
 
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
+import javafx.scene.control.Alert;
 import javafx.stage.Stage;
 import java.io.*;
+import java.nio.file.Paths;
 
 /**
  * Main class to launch the Tamagotchi virtual pet application.
  */
 public class Main extends Application {
+    /** The game state shared by every screen */
+    private GameState gameState;
+    /** Every player profile on this device */
+    private ProfileStore profiles;
+    /** Ticks the household of the profile being played on every frame, once a tick is due */
+    private final AnimationTimer householdPulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            gameState.getHousehold().tickIfDue(now);
+        }
+    };
 
     @Override
     public void start(Stage primaryStage) {
@@ -17,8 +32,14 @@ public class Main extends Application {
             savesDir.mkdir();
         }
 
-        // Initialize game state
-        GameState gameState = new GameState();
+        // Play the profile played last; the others are not read until switched to
+        profiles = new ProfileStore(Paths.get(GameState.SAVE_DIRECTORY));
+        try {
+            profiles.load();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to read the profile index, playing the default profile");
+        }
 
         // Set up stage properties
         primaryStage.setTitle("Tamagotchi Game");
@@ -26,13 +47,8 @@ public class Main extends Application {
         primaryStage.setMinWidth(800);
         primaryStage.setMinHeight(600);
 
-        // Force windowed mode at startup
-        primaryStage.setFullScreen(false);
-        gameState.getPlayer().setFullScreen(false);
-
-        // Show main menu
-        MainMenuScreen mainMenu = new MainMenuScreen(primaryStage, gameState);
-        mainMenu.show();
+        openProfile(primaryStage, profiles.getActive().id());
+        householdPulse.start();
 
         // Update session time when window is closed
         primaryStage.setOnCloseRequest(event -> {
@@ -41,7 +57,7 @@ public class Main extends Application {
             if (gameState.getPet() == null) {
                 gameState.saveSettings(true);
             }else {
-                gameState.saveAll(gameState.getPet().getType().toUpperCase() + "_save.txt", true);
+                gameState.saveAll(true);
             }
 
 
@@ -50,6 +66,85 @@ public class Main extends Application {
         primaryStage.show();
     }
 
+    /**
+     * Loads a profile's game state, starts its background work and shows the main menu.
+     *
+     * @param stage The primary stage.
+     * @param profileId The id of the profile to play.
+     */
+    private void openProfile(Stage stage, String profileId) {
+        gameState = new GameState(profiles.getDirectory(profileId), profileId);
+        gameState.setProfiles(profiles, id -> switchProfile(stage, id));
+        gameState.startAutosave(Platform::runLater);
+        gameState.startHousehold();
+        gameState.loadAllPets();
+        gameState.startSaveCatalog();
+
+        // Force windowed mode at startup
+        stage.setFullScreen(false);
+        gameState.getPlayer().setFullScreen(false);
+
+        // Show main menu
+        MainMenuScreen mainMenu = new MainMenuScreen(stage, gameState);
+        mainMenu.show();
+
+        // Send the player back to the main menu as soon as play time is over
+        gameState.startPlayTimeEnforcement(() -> Platform.runLater(() -> lockSession(stage)));
+    }
+
+    /**
+     * Saves and closes the profile being played and opens another one.
+     *
+     * @param stage The primary stage.
+     * @param profileId The id of the profile to play.
+     */
+    private void switchProfile(Stage stage, String profileId) {
+        if (gameState.getPet() == null) {
+            gameState.saveSettings(true);
+        } else {
+            gameState.saveAll(true);
+        }
+        gameState.close();
+        try {
+            profiles.setActive(profileId);
+        } catch (IOException e) {
+            System.err.println("Failed to update the profile index: " + e.getMessage());
+        }
+        openProfile(stage, profileId);
+    }
+
+    /**
+     * Saves the game and returns to the main menu because the time restrictions no longer
+     * allow play. The main menu keeps refusing to start a game until they do.
+     *
+     * @param stage The primary stage.
+     */
+    private void lockSession(Stage stage) {
+        if (gameState.getPet() == null) {
+            gameState.saveSettings(false);
+        } else {
+            gameState.saveAll(false);
+        }
+        MainMenuScreen mainMenu = new MainMenuScreen(stage, gameState);
+        mainMenu.show();
+
+        Alert alert = new Alert(Alert.AlertType.WARNING);
+        alert.setTitle("Play Time Over");
+        alert.setHeaderText("Play time is over for now");
+        alert.setContentText("Your pet has been saved. You can play again when your allowed play time starts.");
+        alert.show();
+    }
+
+    /**
+     * Stops background saving and closes the journal when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (gameState != null) {
+            gameState.close();
+        }
+    }
+
     /**
      * Main method to launch the application.
      */
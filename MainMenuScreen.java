@@ -7,10 +7,13 @@ import javafx.scene.layout.VBox;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
-import java.time.LocalTime;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.control.Alert;
+import javafx.scene.control.ChoiceDialog;
 import javafx.application.Platform;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 
 
 /**
@@ -139,6 +142,9 @@ public class MainMenuScreen {
             controlsScreen.show();
         });
 
+        Button switchProfileButton = createStyledButton("Switch Profile");
+        switchProfileButton.setOnAction(e -> showSwitchProfileDialog());
+
         Button exitButton = createStyledButton("Exit");
         exitButton.setOnAction(e -> {
             System.out.println("Exit button clicked - updating session time");
@@ -181,11 +187,26 @@ public class MainMenuScreen {
                 loadGameButton,
                 tutorialButton,
                 settingsButton,
-                parentalControlsButton,
-                exitButton
+                parentalControlsButton
         );
-
-        mainContent.getChildren().addAll(title, buttonContainer);
+        if (gameState.getProfiles() != null && gameState.getProfiles().list().size() > 1) {
+            buttonContainer.getChildren().add(switchProfileButton);
+        }
+        buttonContainer.getChildren().add(exitButton);
+
+        // Saved pets load in the background; show how far that has got
+        Text loadingStatus = new Text();
+        loadingStatus.setStyle("-fx-font-size: 14px; -fx-fill: #8B4513;");
+        gameState.setPetLoadListener((done, total) -> Platform.runLater(() ->
+                loadingStatus.setText(done < total ? "Loading saved pets: " + done + " of " + total : "")));
+
+        mainContent.getChildren().add(title);
+        if (gameState.getProfiles() != null) {
+            Text profileName = new Text("Playing as " + gameState.getProfiles().getActive().name());
+            profileName.setStyle("-fx-font-size: 16px; -fx-fill: #8B4513;");
+            mainContent.getChildren().add(profileName);
+        }
+        mainContent.getChildren().addAll(buttonContainer, loadingStatus);
 
         // Create team information section
         VBox teamInfo = new VBox(5);
@@ -217,17 +238,43 @@ public class MainMenuScreen {
         stage.setTitle("Tamagotchi Game - Main Menu");
     }
 
+    /**
+     * Lets the player pick another profile and switches to it.
+     */
+    private void showSwitchProfileDialog() {
+        ProfileStore profiles = gameState.getProfiles();
+        Map<String, String> idsByLabel = new LinkedHashMap<>();
+        for (ProfileStore.Profile profile : profiles.list()) {
+            String label = idsByLabel.containsKey(profile.name()) ? profile.name() + " (" + profile.id() + ")" : profile.name();
+            idsByLabel.put(label, profile.id());
+        }
+        String current = profiles.getActive().id();
+        String currentLabel = idsByLabel.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(current))
+                .map(Map.Entry::getKey)
+                .findFirst().orElse(null);
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(currentLabel, idsByLabel.keySet());
+        dialog.setTitle("Switch Profile");
+        dialog.setHeaderText("Who is playing?");
+        dialog.setContentText("Profile:");
+        Optional<String> choice = dialog.showAndWait();
+        if (choice.isPresent() && !idsByLabel.get(choice.get()).equals(current)) {
+            gameState.switchProfile(idsByLabel.get(choice.get()));
+        }
+    }
+
     /**
      * Checks if the player is allowed to play at the current time.
      *
      * @return true if allowed, false otherwise.
      */
     private boolean checkPlayTimeAllowed() {
-        if (!gameState.getPlayer().isAllowedToPlay(LocalTime.now())) {
+        if (!gameState.isAllowedToPlay()) {
             Alert alert = new Alert(Alert.AlertType.WARNING);
             alert.setTitle("Play Time Restricted");
             alert.setHeaderText("You are not allowed to play at this time");
-            alert.setContentText("The current time is outside your allowed play time. Please try again later.");
+            alert.setContentText("It is outside your allowed play time, or you have played for as long as you may today. Please try again later.");
             alert.showAndWait();
             return false;
         }
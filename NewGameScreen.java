@@ -221,14 +221,12 @@ public class NewGameScreen {
             return;
         }
 
-        // Create the pet based on selected type
-        Pet pet = new Pet(petName, selectedPetType);
-        
         // Start the game in GameState with the player's name (using pet name for now)
         gameState.startNewGame(petName, selectedPetType);
+        Pet pet = gameState.getPet();
         
-        // Save the game to a file
-        gameState.savePet(pet.getType().toLowerCase() + "_save.txt");
+        // Save the game to its own new save file
+        gameState.savePet();
         
         // Show the game screen
         GameScreen gameScreen = new GameScreen(stage, gameState, pet);
@@ -2,15 +2,27 @@ package group02;
 
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
+import javafx.scene.paint.Color;
 import javafx.scene.text.Text;
 import javafx.stage.Stage;
 import javafx.geometry.Insets;
-import java.io.File;
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.time.format.TextStyle;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
@@ -27,6 +39,29 @@ public class ParentalSettingsScreen {
     private CheckBox enableTimeRestrictions;
     private ComboBox<String> startTime;
     private ComboBox<String> endTime;
+    /** Windows of each weekday, blank to use the default times */
+    private final Map<DayOfWeek, TextField> dayWindows = new EnumMap<>(DayOfWeek.class);
+    /** Dated exceptions, one "date=windows" line each */
+    private TextArea scheduleExceptions;
+    /** Days without play after which a live pet is archived, 0 for never */
+    private Spinner<Integer> archiveAfterDays;
+    /** Shown in a weekday or exception field for a day without play time */
+    private static final String NO_PLAY = "none";
+    /** The stats a revived pet is given */
+    private static final Map<String, String> REVIVED_STATS = Map.of(
+            "health", "100", "happiness", "100", "fullness", "100", "energy", "100");
+    /** Upper ends, in minutes, of the session length ranges charted; the last range has no end */
+    private static final int[] SESSION_RANGE_MINUTES = {5, 15, 30, 60, 120};
+    /** Labels of the session length ranges */
+    private static final String[] SESSION_RANGE_LABELS = {"<5m", "5-15m", "15-30m", "30-60m", "1-2h", "2h+"};
+    /** Labels of the hours of the day, every sixth hour */
+    private static final String[] HOUR_LABELS = {
+            "0h", null, null, null, null, null, "6h", null, null, null, null, null,
+            "12h", null, null, null, null, null, "18h", null, null, null, null, null};
+    /** Width of the statistics charts */
+    private static final double CHART_WIDTH = 420;
+    /** Height of the statistics charts */
+    private static final double CHART_HEIGHT = 80;
 
     /**
      * Constructor for ParentalSettingsScreen.
@@ -61,6 +96,9 @@ public class ParentalSettingsScreen {
         // Time settings section (combines daily limit and allowed times)
         VBox timeSettingsBox = createTimeSection();
 
+        // Saved pets section
+        VBox archiveBox = createArchiveSection();
+
         // Game statistics section
         VBox statsSection = createStatsSection();
 
@@ -80,6 +118,21 @@ public class ParentalSettingsScreen {
             showRevivePetDialog();
         });
 
+        Button reviveAllButton = createStyledButton("Revive All Pets");
+        reviveAllButton.setOnAction(e -> {
+            reviveAllPets();
+        });
+
+        Button restoreArchivedButton = createStyledButton("Restore Archived Pet");
+        restoreArchivedButton.setOnAction(e -> {
+            showRestoreArchivedPetDialog();
+        });
+
+        Button addProfileButton = createStyledButton("Add Profile");
+        addProfileButton.setOnAction(e -> {
+            showAddProfileDialog();
+        });
+
         Button resetStatsButton = createStyledButton("Reset Stats");
         resetStatsButton.setOnAction(e -> {
             resetAllStats();
@@ -94,12 +147,16 @@ public class ParentalSettingsScreen {
             mainMenu.show();
         });
 
-        buttonBox.getChildren().addAll(saveButton, revivePetButton, resetStatsButton, backButton);
+        buttonBox.getChildren().addAll(saveButton, revivePetButton, reviveAllButton, restoreArchivedButton, resetStatsButton, backButton);
+        if (gameState.getProfiles() != null) {
+            buttonBox.getChildren().add(buttonBox.getChildren().size() - 1, addProfileButton);
+        }
 
         // Add all sections to root
         root.getChildren().addAll(
                 title,
                 timeSettingsBox,
+                archiveBox,
                 statsSection,
                 buttonBox
         );
@@ -169,17 +226,77 @@ public class ParentalSettingsScreen {
 
         timePickerBox.getChildren().addAll(startBox, endBox);
 
+        // Weekdays with windows of their own, such as "07:00-08:00,16:00-19:30"
+        Text dayWindowsLabel = new Text("Times per Day (blank for the times above, \"" + NO_PLAY + "\" for no play):");
+        dayWindowsLabel.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+        GridPane dayGrid = new GridPane();
+        dayGrid.setHgap(10);
+        dayGrid.setVgap(5);
+        dayGrid.setAlignment(Pos.CENTER);
+        PlaySchedule schedule = gameState.getPlayer().getPlaySchedule();
+        for (DayOfWeek day : DayOfWeek.values()) {
+            TextField windows = new TextField(schedule.hasOwnWindows(day) ? formatWindows(schedule.getWindows(day)) : "");
+            windows.setPromptText(formatTime(gameState.getPlayer().getAllowedStartTime()) + "-"
+                    + formatTime(gameState.getPlayer().getAllowedEndTime()));
+            windows.setPrefWidth(260);
+            dayWindows.put(day, windows);
+            Text dayName = new Text(day.getDisplayName(TextStyle.FULL, Locale.getDefault()) + ":");
+            dayName.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+            dayGrid.add(dayName, 0, day.ordinal());
+            dayGrid.add(windows, 1, day.ordinal());
+        }
+
+        // Dates played differently, such as holidays
+        Text exceptionsLabel = new Text("Special Days (one \"2024-12-25=10:00-18:00\" per line):");
+        exceptionsLabel.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+        StringBuilder exceptionLines = new StringBuilder();
+        schedule.getExceptions().forEach((date, windows) ->
+                exceptionLines.append(date).append('=').append(formatWindows(windows)).append('\n'));
+        scheduleExceptions = new TextArea(exceptionLines.toString());
+        scheduleExceptions.setPrefRowCount(3);
+        scheduleExceptions.setPrefWidth(360);
+
         timeBox.getChildren().addAll(
                 timeTitle,
                 new Separator(),
                 enableTimeRestrictions,
                 playTimesLabel,
-                timePickerBox
+                timePickerBox,
+                dayWindowsLabel,
+                dayGrid,
+                exceptionsLabel,
+                scheduleExceptions
         );
 
         return timeBox;
     }
 
+    /**
+     * Creates the saved pets section, setting when unplayed pets are archived.
+     *
+     * @return VBox containing the saved pets UI elements.
+     */
+    private VBox createArchiveSection() {
+        VBox archiveBox = new VBox(15);
+        archiveBox.setAlignment(Pos.CENTER);
+        archiveBox.setPadding(new Insets(25));
+        archiveBox.setMaxWidth(500);
+        archiveBox.setStyle("-fx-background-color: #FFFFFF; -fx-border-color: #8B4513; -fx-border-width: 2px; -fx-border-radius: 10; -fx-background-radius: 10;");
+
+        Text archiveTitle = new Text("Saved Pets");
+        archiveTitle.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+        archiveTitle.setStyle("-fx-fill: #8B4513;");
+
+        Text archiveLabel = new Text("Archive pets not played for (days, 0 for never):");
+        archiveLabel.setFont(Font.font("Arial", FontWeight.NORMAL, 14));
+        archiveAfterDays = new Spinner<>(0, 3650, gameState.getPlayer().getArchiveAfterDays(), 30);
+        archiveAfterDays.setEditable(true);
+        archiveAfterDays.setPrefWidth(100);
+
+        archiveBox.getChildren().addAll(archiveTitle, new Separator(), archiveLabel, archiveAfterDays);
+        return archiveBox;
+    }
+
     /**
      * Creates the game statistics section.
      *
@@ -201,8 +318,8 @@ public class ParentalSettingsScreen {
         statsGrid.setVgap(10);
         statsGrid.setAlignment(Pos.CENTER);
 
-        // Calculate time played
-        long totalMinutesPlayed = gameState.getPlayer().getTotalPlayTime() / (1000 * 60);
+        // Total play time is kept in minutes
+        long totalMinutesPlayed = gameState.getTotalPlayMinutes();
         String timePlayedStr = String.format("%d hours, %d minutes",
                 totalMinutesPlayed / 60, totalMinutesPlayed % 60);
 
@@ -220,11 +337,92 @@ public class ParentalSettingsScreen {
         // Add total sessions
         addStatRow(statsGrid, 2, "Total Sessions:", String.valueOf(gameState.getPlayer().getNumberOfSessions()));
 
-        statsBox.getChildren().addAll(statsTitle, new Separator(), statsGrid);
+        PlayTimeLedger playTime = gameState.getPlayTime();
+        LocalDate today = LocalDate.now();
+        addStatRow(statsGrid, 3, "Played Today:", String.format("%d minutes", playTime.getMinutesToday()));
+        addStatRow(statsGrid, 4, "Played This Week:", String.format("%d minutes", playTime.getMinutesInWeekOf(today)));
+        addStatRow(statsGrid, 5, "Played This Month:",
+                String.format("%d minutes", playTime.getMinutesInMonth(YearMonth.from(today))));
+
+        SessionHistograms histograms = gameState.getSessionHistograms();
+        LogHistogram sessionSeconds = histograms.getSessionSeconds();
+        addStatRow(statsGrid, 6, "Typical Session:", formatSeconds(sessionSeconds.getValueAtPercentile(50)));
+        addStatRow(statsGrid, 7, "Long Sessions (90%):", formatSeconds(sessionSeconds.getValueAtPercentile(90)));
+        addStatRow(statsGrid, 8, "Longest Sessions (99%):", formatSeconds(sessionSeconds.getValueAtPercentile(99)));
+
+        // Group the session lengths into a few ranges; bucket boundaries are close enough for a chart
+        long[] sessionCounts = new long[SESSION_RANGE_LABELS.length];
+        for (int bucket = 0; bucket < LogHistogram.BUCKET_COUNT; bucket++) {
+            long count = sessionSeconds.getCount(bucket);
+            if (count > 0) {
+                int range = 0;
+                while (range < SESSION_RANGE_MINUTES.length
+                        && LogHistogram.bucketLowerBound(bucket) >= SESSION_RANGE_MINUTES[range] * 60L) {
+                    range++;
+                }
+                sessionCounts[range] += count;
+            }
+        }
+
+        statsBox.getChildren().addAll(statsTitle, new Separator(), statsGrid,
+                createChartTitle("Session Lengths"), createBarChart(sessionCounts, SESSION_RANGE_LABELS),
+                createChartTitle("Time of Day Played"), createBarChart(histograms.getHourSeconds(), HOUR_LABELS));
 
         return statsBox;
     }
 
+    /**
+     * Formats a duration for the statistics grid.
+     *
+     * @param seconds The duration in seconds.
+     * @return The duration in minutes, or "-" if there is none.
+     */
+    private String formatSeconds(long seconds) {
+        return seconds == 0 ? "-" : String.format("%d minutes", (seconds + 59) / 60);
+    }
+
+    /**
+     * Creates the title shown above a chart.
+     *
+     * @param title The title.
+     * @return The title text.
+     */
+    private Text createChartTitle(String title) {
+        Text chartTitle = new Text(title);
+        chartTitle.setFont(Font.font("Arial", FontWeight.BOLD, 14));
+        chartTitle.setStyle("-fx-fill: #8B4513;");
+        return chartTitle;
+    }
+
+    /**
+     * Draws a fixed-size bar chart, one bar per value, scaled to the largest value.
+     *
+     * @param values The bar heights.
+     * @param labels The label under each bar, or null to leave it blank.
+     * @return The chart.
+     */
+    private Canvas createBarChart(long[] values, String[] labels) {
+        Canvas chart = new Canvas(CHART_WIDTH, CHART_HEIGHT);
+        GraphicsContext graphics = chart.getGraphicsContext2D();
+        graphics.setFont(Font.font("Arial", 10));
+        long largest = 1;
+        for (long value : values) {
+            largest = Math.max(largest, value);
+        }
+        double barWidth = CHART_WIDTH / values.length;
+        double plotHeight = CHART_HEIGHT - 14;
+        for (int i = 0; i < values.length; i++) {
+            double height = plotHeight * values[i] / largest;
+            graphics.setFill(Color.web("#4CAF50"));
+            graphics.fillRect(i * barWidth + 1, plotHeight - height, barWidth - 2, height);
+            if (labels[i] != null) {
+                graphics.setFill(Color.web("#8B4513"));
+                graphics.fillText(labels[i], i * barWidth + 1, CHART_HEIGHT - 2);
+            }
+        }
+        return chart;
+    }
+
     /**
      * Adds a row to the statistics grid.
      *
@@ -289,6 +487,27 @@ public class ParentalSettingsScreen {
      */
     private String formatTime(LocalTime time) { return String.format("%02d:00", time.getHour()); }
 
+    /**
+     * Writes play windows for a weekday or exception field.
+     *
+     * @param windows The windows.
+     * @return The windows separated by commas, or NO_PLAY if there are none.
+     */
+    private String formatWindows(List<PlaySchedule.Window> windows) {
+        return windows.isEmpty() ? NO_PLAY : PlaySchedule.formatWindows(windows);
+    }
+
+    /**
+     * Reads play windows from a weekday or exception field.
+     *
+     * @param text The windows separated by commas, or NO_PLAY.
+     * @return The windows.
+     * @throws IllegalArgumentException If a window cannot be read.
+     */
+    private List<PlaySchedule.Window> parseWindows(String text) {
+        return text.equalsIgnoreCase(NO_PLAY) ? List.of() : PlaySchedule.parseWindows(text);
+    }
+
     /**
      * Parses a string in HH:00 format to a LocalTime object.
      *
@@ -308,11 +527,66 @@ public class ParentalSettingsScreen {
         gameState.getPlayer().setTimeRestrictionsEnabled(enableTimeRestrictions.isSelected());
         gameState.getPlayer().setAllowedStartTime(parseTime(startTime.getValue()));
         gameState.getPlayer().setAllowedEndTime(parseTime(endTime.getValue()));
+        gameState.getPlayer().setArchiveAfterDays(archiveAfterDays.getValue());
+
+        // Build the whole schedule first so it is compiled once, on its next check
+        PlaySchedule schedule = gameState.getPlayer().getPlaySchedule();
+        List<String> problems = new ArrayList<>();
+        for (Map.Entry<DayOfWeek, TextField> day : dayWindows.entrySet()) {
+            String text = day.getValue().getText().trim();
+            try {
+                schedule = schedule.withDay(day.getKey(), text.isEmpty() ? null : parseWindows(text));
+            } catch (IllegalArgumentException e) {
+                problems.add(day.getKey() + ": " + e.getMessage());
+            }
+        }
+        for (LocalDate date : schedule.getExceptions().keySet()) {
+            schedule = schedule.withException(date, null);
+        }
+        for (String line : scheduleExceptions.getText().split("\\R")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            int equals = line.indexOf('=');
+            try {
+                schedule = schedule.withException(LocalDate.parse(line.substring(0, Math.max(0, equals)).trim()),
+                        parseWindows(line.substring(equals + 1).trim()));
+            } catch (DateTimeParseException | IllegalArgumentException e) {
+                problems.add(line + ": " + e.getMessage());
+            }
+        }
+        gameState.getPlayer().setPlaySchedule(schedule);
+        if (!problems.isEmpty()) {
+            showAlert("Some Times Were Not Saved", String.join("\n", problems));
+        }
 
         // Save settings to a special parental controls file, not the main game file
         gameState.saveSettings(false);
     }
 
+    /**
+     * Shows a dialog to add a profile for another player, with its own pets, restrictions
+     * and statistics. The new profile starts without a parental password or restrictions.
+     */
+    private void showAddProfileDialog() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("Add Profile");
+        dialog.setHeaderText("Add a profile for another player");
+        dialog.setContentText("Name:");
+        Optional<String> name = dialog.showAndWait();
+        if (name.isEmpty() || name.get().isBlank()) {
+            return;
+        }
+        try {
+            ProfileStore.Profile profile = gameState.getProfiles().create(name.get());
+            showAlert("Profile Added", "Added " + profile.name()
+                    + ". Choose Switch Profile on the main menu to play as them, then set up their parental controls.");
+        } catch (IOException e) {
+            e.printStackTrace();
+            showAlert("Add Profile", "The profile could not be added: " + e.getMessage());
+        }
+    }
+
     /**
      * Resets all statistics to zero.
      */
@@ -333,90 +607,100 @@ public class ParentalSettingsScreen {
      * Shows a dialog to revive a pet.
      */
     private void showRevivePetDialog() {
+        // List every saved pet by name and type
+        Map<String, SaveSummary> saveFiles = new LinkedHashMap<>();
+        try {
+            for (SaveSummary summary : gameState.getPetRepository().list(0, Integer.MAX_VALUE)) {
+                saveFiles.put(summary.name() + " (" + summary.type() + ") - " + summary.saveFile(), summary);
+            }
+        } catch (IOException e) {
+            showAlert("Error", "Failed to read saved pets: " + e.getMessage());
+            return;
+        }
+
+        if (saveFiles.isEmpty()) {
+            showAlert("Revive Pet", "There are no saved pets to revive.");
+            return;
+        }
+
         // Create dialog
-        Dialog<String> dialog = new Dialog<>();
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(saveFiles.keySet().iterator().next(), saveFiles.keySet());
         dialog.setTitle("Revive Pet");
-        dialog.setHeaderText("Select a save slot to revive pet");
-
-        // Set the button types
-        ButtonType dogSaveType = new ButtonType("Dog Save", ButtonBar.ButtonData.OK_DONE);
-        ButtonType catSaveType = new ButtonType("Cat Save", ButtonBar.ButtonData.OK_DONE);
-        ButtonType bunnySaveType = new ButtonType("Bunny Save", ButtonBar.ButtonData.OK_DONE);
-        ButtonType cancelButtonType = new ButtonType("Cancel", ButtonBar.ButtonData.CANCEL_CLOSE);
-        dialog.getDialogPane().getButtonTypes().addAll(dogSaveType, catSaveType, bunnySaveType, cancelButtonType);
-
-        // Create content
-        VBox content = new VBox(10);
-        content.setPadding(new Insets(20));
-
-        Text infoText = new Text("Reviving will set the pet's health, happiness, energy, and fullness to maximum values.");
-        infoText.setWrappingWidth(400);
-
-        content.getChildren().add(infoText);
-        dialog.getDialogPane().setContent(content);
-
-        // Convert the result
-        dialog.setResultConverter(dialogButton -> {
-            if (dialogButton == dogSaveType) {
-                return "dog";
-            } else if (dialogButton == catSaveType) {
-                return "cat";
-            } else if (dialogButton == bunnySaveType) {
-                return "bunny";
-            }
-            return null;
-        });
+        dialog.setHeaderText("Select a saved pet to revive");
+        dialog.setContentText("Reviving will set the pet's health, happiness, energy, and fullness to maximum values.");
 
         // Show the dialog and process the result
         Optional<String> result = dialog.showAndWait();
-        result.ifPresent(this::revivePet);
+        result.map(saveFiles::get).ifPresent(this::revivePet);
     }
 
     /**
-     * Revives the pet by reading from the save file and updating stats.
+     * Revives the pet by setting its stats to maximum values in its save.
      *
-     * @param petType The type of pet to revive (dog, cat, or bunny).
+     * @param pet The summary of the pet to revive.
      */
-    private void revivePet(String petType) {
-        String saveFile = GameState.SAVE_DIRECTORY + petType.toLowerCase() + "_save.txt";
-        File file = new File(saveFile);
-
-        if (!file.exists()) {
-            showAlert("Error", "No save file found for " + petType);
+    private void revivePet(SaveSummary pet) {
+        if (gameState.patchPets(List.of(pet.saveFile()), REVIVED_STATS) == 0) {
+            showAlert("Error", "Failed to revive pet: " + pet.saveFile());
             return;
         }
+        showAlert("Success", pet.name() + " has been revived with maximum stats!");
+    }
 
+    /**
+     * Revives every dead pet at once by setting their stats to maximum values.
+     */
+    private void reviveAllPets() {
+        List<String> deadPets = new ArrayList<>();
         try {
-            // Read the save file
-            java.util.Map<String, String> saveData = new java.util.HashMap<>();
-            java.util.Scanner scanner = new java.util.Scanner(file);
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] parts = line.split("=");
-                if (parts.length == 2) {
-                    saveData.put(parts[0], parts[1]);
-                }
+            for (SaveSummary summary : gameState.getPetRepository().findByAlive(false)) {
+                deadPets.add(summary.saveFile());
             }
-            scanner.close();
-
-            // Update pet stats to maximum values
-            saveData.put("health", "100");
-            saveData.put("happiness", "100");
-            saveData.put("fullness", "100");
-            saveData.put("energy", "100");
-
-            // Write back to file
-            PrintWriter writer = new PrintWriter(file);
-            for (java.util.Map.Entry<String, String> entry : saveData.entrySet()) {
-                writer.println(entry.getKey() + "=" + entry.getValue());
-            }
-            writer.close();
-
-            showAlert("Success", petType + " has been revived with maximum stats!");
+        } catch (IOException e) {
+            showAlert("Error", "Failed to read saved pets: " + e.getMessage());
+            return;
+        }
+        if (deadPets.isEmpty()) {
+            showAlert("Revive All Pets", "There are no dead pets to revive.");
+            return;
+        }
+        int revived = gameState.patchPets(deadPets, REVIVED_STATS);
+        showAlert("Success", revived + " of " + deadPets.size() + " pets have been revived with maximum stats!");
+    }
 
+    /**
+     * Shows a dialog to move an archived pet back to the saved pets.
+     */
+    private void showRestoreArchivedPetDialog() {
+        Map<String, String> saveFiles = new LinkedHashMap<>();
+        try {
+            for (PetArchive.Entry entry : gameState.listArchivedPets()) {
+                saveFiles.put(entry.name() + " (" + entry.type() + ") - " + entry.saveFile(), entry.saveFile());
+            }
         } catch (IOException e) {
-            showAlert("Error", "Failed to revive pet: " + e.getMessage());
+            showAlert("Error", "Failed to read archived pets: " + e.getMessage());
+            return;
+        }
+
+        if (saveFiles.isEmpty()) {
+            showAlert("Restore Archived Pet", "There are no archived pets to restore.");
+            return;
         }
+
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(saveFiles.keySet().iterator().next(), saveFiles.keySet());
+        dialog.setTitle("Restore Archived Pet");
+        dialog.setHeaderText("Select an archived pet to restore");
+        dialog.setContentText("Restored pets appear in the saved games list again.");
+
+        Optional<String> result = dialog.showAndWait();
+        result.map(saveFiles::get).ifPresent(saveFile -> {
+            Pet restored = gameState.restoreArchivedPet(saveFile);
+            if (restored == null) {
+                showAlert("Error", "Failed to restore pet: " + saveFile);
+                return;
+            }
+            showAlert("Success", restored.getName() + " has been restored!");
+        });
     }
 
     /**
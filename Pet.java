@@ -1,16 +1,55 @@
 package group02;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
 import javafx.scene.image.Image;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 
 /**
  * Pet object containing information about the pet and functions relating to the
  * pet's appearance and changing the pet's stats.
  */
 public class Pet {
+    /** Field index of the pet's name, used for dirty tracking */
+    public static final int NAME = 0;
+    /** Field index of the pet's type */
+    public static final int TYPE = 1;
+    /** Field index of the pet's maximum health */
+    public static final int MAX_HEALTH = 2;
+    /** Field index of the pet's health */
+    public static final int HEALTH = 3;
+    /** Field index of the pet's happiness */
+    public static final int HAPPINESS = 4;
+    /** Field index of the pet's fullness */
+    public static final int FULLNESS = 5;
+    /** Field index of the pet's energy */
+    public static final int ENERGY = 6;
+    /** Field index of the pet's currency */
+    public static final int CURRENCY = 7;
+    /** Field index of the pet's score */
+    public static final int SCORE = 8;
+    /** Field index of the pet's creation date */
+    public static final int CREATION_DATE = 9;
+    /** Number of scalar fields written to a save file */
+    public static final int FIELD_COUNT = 10;
+    /** Save file keys for each scalar field, indexed by field index */
+    private static final String[] FIELD_KEYS = {
+            "name", "type", "maxHealth", "health", "happiness",
+            "fullness", "energy", "currency", "score", "creationDate"
+    };
+
     /** The pet's name */
     private String name;
     /** The pet's type (e.g., DOG, BUNNY, CAT) */
@@ -37,6 +76,22 @@ public class Pet {
     private State state;
     /** The pet's current sprite image */
     private Image currentSprite;
+    /** Bit set of scalar fields changed since the last save */
+    private int dirtyFields;
+    /** Inventory items changed since the last save */
+    private final Set<String> dirtyItems = new HashSet<>();
+    /** The save file this pet was last loaded from or saved to */
+    private String saveFile;
+    /** Number of delta lines appended to the save file since it was last fully written */
+    private int deltaLineCount;
+    /** Whether the pet was read from an older save format and needs a full rewrite at its next save */
+    private boolean schemaUpgraded;
+    /** The pet's stats after each tick, or null until the first tick */
+    private StatHistory statHistory;
+    /** Listeners notified when a saved field or inventory entry changes */
+    private final List<PetChangeListener> changeListeners = new ArrayList<>();
+    /** Whether change listeners are told about changes; off while a patch is applied */
+    private boolean notifying = true;
     /** Map of sprite images for each pet type */
     private static final Map<String, Map<String, Image>> sprites = new HashMap<>();
 
@@ -58,6 +113,8 @@ public class Pet {
         this.score = 0;
         this.state = State.NORMAL;
         this.creationDate = LocalDate.now();
+        // A new pet has never been saved, so everything about it is unsaved
+        this.dirtyFields = (1 << FIELD_COUNT) - 1;
         updateSprite();
     }
 
@@ -67,30 +124,191 @@ public class Pet {
      * @param petFile The file to read the pet information from.
      */
     public Pet(String petFile){
-        try (BufferedReader reader = new BufferedReader(new FileReader("saves\\" + petFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("=");
-
-                switch (parts[0]) {
-                    case "name" -> this.name = parts[1];
-                    case "type" -> this.type = parts[1];
-                    case "maxHealth" -> this.maxHealth = Integer.parseInt(parts[1]);
-                    case "health" -> this.health = Integer.parseInt(parts[1]);
-                    case "happiness" -> this.happiness = Integer.parseInt(parts[1]);
-                    case "fullness" -> this.fullness = Integer.parseInt(parts[1]);
-                    case "energy" -> this.energy = Integer.parseInt(parts[1]);
-                    case "currency" -> this.currency = Integer.parseInt(parts[1]);
-                    case "score" -> this.score = Integer.parseInt(parts[1]);
-                    case "creationDate" -> this.creationDate = LocalDate.parse(parts[1]);
-                    default -> this.inventory.put(parts[0], Integer.parseInt(parts[1]));
-                }
-            }
+        this(new SaveLayout(Paths.get(GameState.SAVE_DIRECTORY)).path(petFile));
+    }
+
+    /**
+     * Pet constructor. Constructs a new Pet object from the save file at the given path.
+     *
+     * @param petPath The path of the file to read the pet information from.
+     */
+    public Pet(Path petPath){
+        try {
+            readSaveFile(petPath, KeyValueReader.read(petPath));
         }catch (Exception e){
             e.printStackTrace();
         }
     }
 
+    /**
+     * Pet constructor. Constructs a new Pet object from the save file at the given path,
+     * reading it into the given reader's buffer, e.g. one pooled by a bulk loader.
+     *
+     * @param petPath The path of the file to read the pet information from.
+     * @param reader The reader to read the file with.
+     * @throws IOException If the file could not be read.
+     */
+    public Pet(Path petPath, KeyValueReader reader) throws IOException {
+        reader.load(petPath);
+        readSaveFile(petPath, reader);
+    }
+
+    /**
+     * Applies a whole save file to this pet and takes its name as the save file.
+     *
+     * @param petPath The path of the save file.
+     * @param reader The reader holding the file, positioned before the first line.
+     */
+    private void readSaveFile(Path petPath, KeyValueReader reader) {
+        int lineCount = readFields(reader);
+        this.saveFile = petPath.getFileName().toString();
+        // Later lines override earlier ones, so anything beyond one line per key is a delta record
+        this.deltaLineCount = Math.max(0, lineCount - 1 - FIELD_COUNT - inventory.size());
+    }
+
+    /**
+     * Pet constructor. Constructs a new Pet object from save file lines held elsewhere,
+     * e.g. in an archive.
+     *
+     * @param reader The reader positioned before the first line.
+     * @param saveFile The save file the pet belongs to.
+     */
+    public Pet(KeyValueReader reader, String saveFile) {
+        readFields(reader);
+        this.saveFile = saveFile;
+    }
+
+    /**
+     * Pet constructor. Constructs a copy of everything another pet's save writes, including
+     * what has changed since its last save, so the copy can be saved on another thread
+     * while the pet keeps changing. Sprites, stat history and listeners are not copied.
+     *
+     * @param other The pet to copy.
+     */
+    public Pet(Pet other) {
+        this.name = other.name;
+        this.type = other.type;
+        this.health = other.health;
+        this.maxHealth = other.maxHealth;
+        this.happiness = other.happiness;
+        this.fullness = other.fullness;
+        this.energy = other.energy;
+        this.currency = other.currency;
+        this.score = other.score;
+        this.creationDate = other.creationDate;
+        this.inventory = new HashMap<>(other.inventory);
+        this.state = other.state;
+        this.dirtyFields = other.dirtyFields;
+        this.dirtyItems.addAll(other.dirtyItems);
+        this.saveFile = other.saveFile;
+        this.deltaLineCount = other.deltaLineCount;
+        this.schemaUpgraded = other.schemaUpgraded;
+    }
+
+    /**
+     * Applies every remaining line of a save file to this pet. Records in the current
+     * format are read straight from the reader; older records are collected, upgraded by
+     * SaveSchema and read from their upgraded text.
+     *
+     * @param reader The reader positioned before the first line.
+     * @return The number of lines read.
+     */
+    private int readFields(KeyValueReader reader) {
+        if (!reader.next()) {
+            return 0;
+        }
+        int lineCount = 1;
+        if (reader.keyEquals(SaveSchema.VERSION_KEY) && reader.valueEquals(String.valueOf(SaveSchema.CURRENT_VERSION))) {
+            while (reader.next()) {
+                lineCount++;
+                readField(reader);
+            }
+            return lineCount;
+        }
+
+        Map<String, String> record = new LinkedHashMap<>();
+        record.put(reader.key(), reader.value());
+        while (reader.next()) {
+            lineCount++;
+            // Keep each key at the position of its last line, as later lines override earlier ones
+            record.remove(reader.key());
+            record.put(reader.key(), reader.value());
+        }
+        String upgraded = SaveSchema.toText(SaveSchema.upgrade(record));
+        readFields(new KeyValueReader(ByteBuffer.wrap(upgraded.getBytes(StandardCharsets.UTF_8))));
+        this.schemaUpgraded = true;
+        return lineCount;
+    }
+
+    /**
+     * Applies the current line of a save file in the current format to this pet.
+     * Unknown keys are ignored.
+     *
+     * @param reader The reader positioned on the line to apply.
+     */
+    private void readField(KeyValueReader reader) {
+        if (reader.keyEquals("name")) this.name = reader.value();
+        else if (reader.keyEquals("type")) this.type = reader.value();
+        else if (reader.keyEquals("maxHealth")) this.maxHealth = reader.intValue();
+        else if (reader.keyEquals("health")) this.health = reader.intValue();
+        else if (reader.keyEquals("happiness")) this.happiness = reader.intValue();
+        else if (reader.keyEquals("fullness")) this.fullness = reader.intValue();
+        else if (reader.keyEquals("energy")) this.energy = reader.intValue();
+        else if (reader.keyEquals("currency")) this.currency = reader.intValue();
+        else if (reader.keyEquals("score")) this.score = reader.intValue();
+        else if (reader.keyEquals("creationDate")) this.creationDate = LocalDate.parse(reader.value());
+        else if (reader.keyStartsWith(SaveSchema.ITEM_PREFIX)) {
+            this.inventory.put(reader.keySuffix(SaveSchema.ITEM_PREFIX.length()), reader.intValue());
+        }
+    }
+
+    /**
+     * Sets a saved field or inventory entry from its key and value as written in a save file.
+     * Unlike loading, the change is tracked as dirty and reported to change listeners.
+     *
+     * @param key The save file key; keys that are not pet fields are inventory items, with
+     *            or without the item prefix.
+     * @param value The value as written in a save file.
+     * @throws NumberFormatException If a numeric field's value is not a number.
+     */
+    public void applyField(String key, String value) {
+        switch (key) {
+            case "name" -> setName(value);
+            case "type" -> setType(value);
+            case "maxHealth" -> setMaxHealth(Integer.parseInt(value));
+            case "health" -> setHealth(Integer.parseInt(value));
+            case "happiness" -> setHappiness(Integer.parseInt(value));
+            case "fullness" -> setFullness(Integer.parseInt(value));
+            case "energy" -> setEnergy(Integer.parseInt(value));
+            case "currency" -> setCurrency(Integer.parseInt(value));
+            case "score" -> setScore(Integer.parseInt(value));
+            case "creationDate" -> setCreationDate(LocalDate.parse(value));
+            default -> {
+                String itemName = getItemName(key);
+                inventory.put(itemName, Integer.parseInt(value));
+                markItemDirty(itemName);
+            }
+        }
+    }
+
+    /**
+     * Sets a saved field or inventory entry that has been patched in the store already.
+     * The change is tracked as dirty, but change listeners are not told: it is not something
+     * that happened to the pet, such as dabloons being earned, and it is saved already.
+     *
+     * @param key The save file key, as for applyField.
+     * @param value The value as written in a save file.
+     * @throws NumberFormatException If a numeric field's value is not a number.
+     */
+    public void applyPatch(String key, String value) {
+        notifying = false;
+        try {
+            applyField(key, value);
+        } finally {
+            notifying = true;
+        }
+    }
+
     /**
      * Enum representing different states of the pet.
      */
@@ -172,13 +390,25 @@ public class Pet {
             this.state = State.ANGRY;
         }
 
-
-
+        getStatHistory().record(health, happiness, fullness, energy);
 
         // Update sprite after all changes
         updateSprite();
     }
 
+    /**
+     * Get the history of the pet's stats, one sample per tick. The history is kept in
+     * memory only and is created empty the first time it is needed.
+     *
+     * @return The stat history.
+     */
+    public StatHistory getStatHistory() {
+        if (statHistory == null) {
+            statHistory = new StatHistory(StatHistory.DEFAULT_CAPACITY);
+        }
+        return statHistory;
+    }
+
     /**
      * Updates the sprite based on the pet's current state and attributes.
      */
@@ -228,7 +458,7 @@ public class Pet {
      * Put the pet to sleep to restore energy, decreases fullness.
      */
     public void sleep() {
-        this.health = Math.max(this.health - 10, 0);
+        setHealth(Math.max(this.health - 10, 0));
         this.state = State.SLEEP;
     }
 
@@ -239,12 +469,25 @@ public class Pet {
      */
     public int getCurrency(){ return this.currency; }
 
+    /**
+     * Set the pet's currency, e.g. when restoring a balance rather than earning or spending.
+     *
+     * @param currency The pet's currency.
+     */
+    public void setCurrency(int currency) {
+        this.currency = currency;
+        markDirty(CURRENCY);
+    }
+
     /**
      * Add currency to the pet's total.
      *
      * @param amount The amount of currency to add.
      */
-    public void addCurrency(int amount){ this.currency += amount; }
+    public void addCurrency(int amount){
+        this.currency += amount;
+        markDirty(CURRENCY);
+    }
 
     /**
      * Spend currency if player has enough.
@@ -255,6 +498,7 @@ public class Pet {
     public boolean spendCurrency(int amount) {
         if (this.currency >= amount) {
             this.currency -= amount;
+            markDirty(CURRENCY);
             return true;
         }
         return false;
@@ -279,7 +523,10 @@ public class Pet {
      *
      * @param name The new name for the pet.
      */
-    public void setName(String name) { this.name = name; }
+    public void setName(String name) {
+        this.name = name;
+        markDirty(NAME);
+    }
 
     /**
      * Get the pet's type.
@@ -293,7 +540,10 @@ public class Pet {
      *
      * @param type The new type for the pet.
      */
-    public void setType(String type) { this.type = type; }
+    public void setType(String type) {
+        this.type = type;
+        markDirty(TYPE);
+    }
 
     /**
      * Get the pet's health.
@@ -308,7 +558,10 @@ public class Pet {
      * @param health The new health value.
      */
     public void setHealth(int health) {
-        this.health = health;
+        if (this.health != health) {
+            this.health = health;
+            markDirty(HEALTH);
+        }
         updateSprite();
     }
 
@@ -324,7 +577,12 @@ public class Pet {
      *
      * @param maxHealth The new maximum health value.
      */
-    public void setMaxHealth(int maxHealth) { this.maxHealth = maxHealth; }
+    public void setMaxHealth(int maxHealth) {
+        if (this.maxHealth != maxHealth) {
+            this.maxHealth = maxHealth;
+            markDirty(MAX_HEALTH);
+        }
+    }
 
     /**
      * Get the pet's state.
@@ -356,7 +614,11 @@ public class Pet {
      * @param fullness The new fullness value.
      */
     public void setFullness(int fullness) {
-        this.fullness = Math.max(0, Math.min(fullness, 100));
+        int clamped = Math.max(0, Math.min(fullness, 100));
+        if (this.fullness != clamped) {
+            this.fullness = clamped;
+            markDirty(FULLNESS);
+        }
         updateSprite();
     }
 
@@ -373,7 +635,11 @@ public class Pet {
      * @param energy The new energy value.
      */
     public void setEnergy(int energy) {
-        this.energy = Math.max(0, Math.min(energy, 100));
+        int clamped = Math.max(0, Math.min(energy, 100));
+        if (this.energy != clamped) {
+            this.energy = clamped;
+            markDirty(ENERGY);
+        }
         updateSprite();
     }
 
@@ -390,7 +656,11 @@ public class Pet {
      * @param happiness The new happiness value.
      */
     public void setHappiness(int happiness) {
-        this.happiness = Math.max(0, Math.min(happiness, 100));
+        int clamped = Math.max(0, Math.min(happiness, 100));
+        if (this.happiness != clamped) {
+            this.happiness = clamped;
+            markDirty(HAPPINESS);
+        }
         updateSprite();
     }
 
@@ -406,7 +676,12 @@ public class Pet {
      *
      * @param score The new score value.
      */
-    public void setScore(int score) { this.score = score; }
+    public void setScore(int score) {
+        if (this.score != score) {
+            this.score = score;
+            markDirty(SCORE);
+        }
+    }
 
     /**
      * Get the pet's inventory count for a specific item.
@@ -422,7 +697,10 @@ public class Pet {
      * @param itemName The name of the item to add.
      * @param amount The amount of the item to add.
      */
-    public void addItem(String itemName, int amount) { inventory.put(itemName, getItemCount(itemName) + amount); }
+    public void addItem(String itemName, int amount) {
+        inventory.put(itemName, getItemCount(itemName) + amount);
+        markItemDirty(itemName);
+    }
 
     /**
      * Remove an item from the pet's inventory.
@@ -434,6 +712,7 @@ public class Pet {
         int currentAmount = getItemCount(itemName);
         if (currentAmount >= amount) {
             inventory.put(itemName, currentAmount - amount);
+            markItemDirty(itemName);
             return true;
         }
         return false;
@@ -451,7 +730,10 @@ public class Pet {
      *
      * @param creationDate The new creation date.
      */
-    public void setCreationDate(LocalDate creationDate) { this.creationDate = creationDate; }
+    public void setCreationDate(LocalDate creationDate) {
+        this.creationDate = creationDate;
+        markDirty(CREATION_DATE);
+    }
 
     /**
      * Get the pet's inventory.
@@ -459,4 +741,264 @@ public class Pet {
      * @return The pet's inventory.
      */
     public Map<String, Integer> getInventory(){ return this.inventory; }
+
+    /**
+     * Get the save file key of a scalar field.
+     *
+     * @param field The field index (e.g., HEALTH, ENERGY).
+     * @return The key the field is written under in a save file.
+     */
+    public static String getFieldKey(int field) { return FIELD_KEYS[field]; }
+
+    /**
+     * Writes every field and inventory entry in the key=value form of a save file.
+     *
+     * @return The save file lines.
+     */
+    public String toSaveText() {
+        StringBuilder text = new StringBuilder(256);
+        text.append(SaveSchema.VERSION_KEY).append('=').append(SaveSchema.CURRENT_VERSION).append(System.lineSeparator());
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            text.append(FIELD_KEYS[field]).append('=').append(getFieldValue(field)).append(System.lineSeparator());
+        }
+        for (Map.Entry<String, Integer> entry : inventory.entrySet()) {
+            text.append(getItemKey(entry.getKey())).append('=').append(entry.getValue()).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Get the field index of a save file key.
+     *
+     * @param key The save file key.
+     * @return The field index, or -1 if the key is an inventory item.
+     */
+    public static int getFieldIndex(String key) {
+        for (int field = 0; field < FIELD_COUNT; field++) {
+            if (FIELD_KEYS[field].equals(key)) {
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Get the save file key of an inventory item.
+     *
+     * @param itemName The item's name.
+     * @return The key the item is written under in a save file.
+     */
+    public static String getItemKey(String itemName) { return SaveSchema.ITEM_PREFIX + itemName; }
+
+    /**
+     * Get the item name from an inventory key, which may or may not carry the item prefix.
+     *
+     * @param key The inventory key.
+     * @return The item's name.
+     */
+    public static String getItemName(String key) {
+        return key.startsWith(SaveSchema.ITEM_PREFIX) ? key.substring(SaveSchema.ITEM_PREFIX.length()) : key;
+    }
+
+    /**
+     * Get the key a field or inventory entry is written under in a save file.
+     *
+     * @param key A field key, or an item name with or without the item prefix.
+     * @return The field key, or the item's prefixed key.
+     */
+    public static String getSaveKey(String key) {
+        return getFieldIndex(key) >= 0 ? key : getItemKey(getItemName(key));
+    }
+
+    /**
+     * Checks that a key and value can be written to a save file and read back by applyField.
+     *
+     * @param key The save file key; keys that are not pet fields are inventory items.
+     * @param value The value.
+     * @throws IllegalArgumentException If the key or value is not valid.
+     */
+    public static void checkFieldValue(String key, String value) {
+        if (key.isEmpty() || key.indexOf('=') >= 0 || key.indexOf('\n') >= 0 || key.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid key: " + key);
+        }
+        if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Invalid value for " + key);
+        }
+        try {
+            switch (getFieldIndex(key)) {
+                case NAME, TYPE -> {
+                    if (value.isBlank()) {
+                        throw new IllegalArgumentException("Empty value for " + key);
+                    }
+                }
+                case CREATION_DATE -> LocalDate.parse(value);
+                default -> Integer.parseInt(value);
+            }
+        } catch (NumberFormatException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid value for " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Get the value of a numeric field without turning it into text.
+     *
+     * @param field The field index (e.g., HEALTH, ENERGY).
+     * @return The field's value, or -1 for a field that is not a number (NAME, TYPE, CREATION_DATE).
+     */
+    public int getFieldNumber(int field) {
+        return switch (field) {
+            case MAX_HEALTH -> maxHealth;
+            case HEALTH -> health;
+            case HAPPINESS -> happiness;
+            case FULLNESS -> fullness;
+            case ENERGY -> energy;
+            case CURRENCY -> currency;
+            case SCORE -> score;
+            default -> -1;
+        };
+    }
+
+    /**
+     * Get the value of a scalar field as it is written to a save file.
+     *
+     * @param field The field index (e.g., HEALTH, ENERGY).
+     * @return The field's value as a string.
+     */
+    public String getFieldValue(int field) {
+        return switch (field) {
+            case NAME -> name;
+            case TYPE -> type;
+            case MAX_HEALTH -> String.valueOf(maxHealth);
+            case HEALTH -> String.valueOf(health);
+            case HAPPINESS -> String.valueOf(happiness);
+            case FULLNESS -> String.valueOf(fullness);
+            case ENERGY -> String.valueOf(energy);
+            case CURRENCY -> String.valueOf(currency);
+            case SCORE -> String.valueOf(score);
+            case CREATION_DATE -> String.valueOf(creationDate);
+            default -> throw new IllegalArgumentException("Unknown field: " + field);
+        };
+    }
+
+    /**
+     * Marks a scalar field as changed since the last save.
+     *
+     * @param field The field index.
+     */
+    private void markDirty(int field) {
+        this.dirtyFields |= 1 << field;
+        for (int i = 0; notifying && i < changeListeners.size(); i++) {
+            changeListeners.get(i).fieldChanged(this, field);
+        }
+    }
+
+    /**
+     * Marks an inventory item as changed since the last save.
+     *
+     * @param itemName The name of the item.
+     */
+    private void markItemDirty(String itemName) {
+        dirtyItems.add(itemName);
+        for (int i = 0; notifying && i < changeListeners.size(); i++) {
+            changeListeners.get(i).itemChanged(this, itemName);
+        }
+    }
+
+    /**
+     * Adds a listener notified whenever a saved field or inventory entry changes.
+     * Adding the same listener twice has no effect.
+     *
+     * @param listener The listener to add.
+     */
+    public void addChangeListener(PetChangeListener listener) {
+        if (!changeListeners.contains(listener)) {
+            changeListeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a change listener.
+     *
+     * @param listener The listener to remove.
+     */
+    public void removeChangeListener(PetChangeListener listener) { changeListeners.remove(listener); }
+
+    /**
+     * Check if anything about the pet changed since the last save.
+     *
+     * @return true if any field or inventory entry is dirty, false otherwise.
+     */
+    public boolean isDirty() { return dirtyFields != 0 || !dirtyItems.isEmpty(); }
+
+    /**
+     * Check if a scalar field changed since the last save.
+     *
+     * @param field The field index.
+     * @return true if the field is dirty, false otherwise.
+     */
+    public boolean isFieldDirty(int field) { return (dirtyFields & (1 << field)) != 0; }
+
+    /**
+     * Get the inventory items changed since the last save.
+     *
+     * @return An unmodifiable view of the dirty item names.
+     */
+    public Set<String> getDirtyItems() { return Collections.unmodifiableSet(dirtyItems); }
+
+    /**
+     * Clears all dirty tracking after the pet has been saved.
+     */
+    public void markClean() {
+        dirtyFields = 0;
+        dirtyItems.clear();
+        schemaUpgraded = false;
+    }
+
+    /**
+     * Marks what another copy of this pet has unsaved as unsaved here too, e.g. when the
+     * copy's save failed or a newer copy replaces it before it was written.
+     *
+     * @param other The copy whose changes are still unsaved.
+     */
+    public void markDirty(Pet other) {
+        dirtyFields |= other.dirtyFields;
+        dirtyItems.addAll(other.dirtyItems);
+        schemaUpgraded |= other.schemaUpgraded;
+    }
+
+    /**
+     * Checks if the pet was read from an older save format, so that its next save has to
+     * write the whole file in the current format instead of appending to the old one.
+     *
+     * @return true if the save file is in an older format, false otherwise.
+     */
+    public boolean isSchemaUpgraded() { return schemaUpgraded; }
+
+    /**
+     * Get the save file this pet was last loaded from or saved to.
+     *
+     * @return The save file name, or null if the pet has never been saved.
+     */
+    public String getSaveFile() { return saveFile; }
+
+    /**
+     * Set the save file this pet was last loaded from or saved to.
+     *
+     * @param saveFile The save file name.
+     */
+    public void setSaveFile(String saveFile) { this.saveFile = saveFile; }
+
+    /**
+     * Get the number of delta lines appended to the save file since its last full write.
+     *
+     * @return The number of delta lines.
+     */
+    public int getDeltaLineCount() { return deltaLineCount; }
+
+    /**
+     * Set the number of delta lines appended to the save file since its last full write.
+     *
+     * @param deltaLineCount The number of delta lines.
+     */
+    public void setDeltaLineCount(int deltaLineCount) { this.deltaLineCount = deltaLineCount; }
 }
@@ -0,0 +1,346 @@
+package group02;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Cold storage for pets that have not been played for a long time. Pets are written in
+ * their save file form to append-only segment files, grouped into blocks of up to
+ * BLOCK_PETS pets that are compressed together. A small index maps each archived pet to
+ * its segment and block, so restoring a pet reads and inflates a single block.
+ *
+ * Each block is its compressed length, its raw length and the compressed bytes; the raw
+ * bytes hold, for each pet, its save file name and its save file text. The index has one
+ * "saveFile=segment TAB blockOffset TAB type TAB name" line per archived pet; later lines
+ * override earlier ones and a value of "-" marks a pet that has been restored.
+ */
+public class PetArchive {
+    /** Name of the archive directory inside the save directory */
+    public static final String ARCHIVE_DIRECTORY = "archive";
+    /** Name of the index file inside the archive directory */
+    public static final String INDEX_FILE = "index.txt";
+    /** Maximum number of pets compressed together in one block */
+    public static final int BLOCK_PETS = 64;
+    /** Size after which a new segment file is started */
+    public static final long SEGMENT_BYTES = 16L * 1024 * 1024;
+    /** Default number of days without a save after which a pet is archived */
+    public static final int DEFAULT_ARCHIVE_AFTER_DAYS = 90;
+    /** Number of days a dead pet stays in the save list before it is archived */
+    public static final int DEAD_PET_GRACE_DAYS = 7;
+
+    /**
+     * Where an archived pet is stored.
+     *
+     * @param saveFile The pet's save file name.
+     * @param segment The segment file number.
+     * @param blockOffset The position of the pet's block in the segment.
+     * @param type The pet's type.
+     * @param name The pet's name.
+     */
+    public record Entry(String saveFile, int segment, long blockOffset, String type, String name) { }
+
+    /** The archive directory */
+    private final Path archiveDirectory;
+    /** The index file */
+    private final Path indexFile;
+    /** Archived pets by save file, or null until the index is first read */
+    private Map<String, Entry> entries;
+
+    /**
+     * Creates the archive in the given save directory.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public PetArchive(Path saveDirectory) {
+        this.archiveDirectory = saveDirectory.resolve(ARCHIVE_DIRECTORY);
+        this.indexFile = archiveDirectory.resolve(INDEX_FILE);
+    }
+
+    /**
+     * Writes pets to the archive. The caller removes them from the hot store afterwards.
+     *
+     * @param pets The pets to archive; each must have a save file.
+     * @throws IOException If the archive could not be written.
+     */
+    public synchronized void archive(Collection<Pet> pets) throws IOException {
+        Map<String, Entry> index = entries();
+        Files.createDirectories(archiveDirectory);
+        List<Pet> all = new ArrayList<>(pets);
+        StringBuilder indexLines = new StringBuilder();
+
+        for (int start = 0; start < all.size(); start += BLOCK_PETS) {
+            List<Pet> block = all.subList(start, Math.min(start + BLOCK_PETS, all.size()));
+            int segment = currentSegment();
+            long offset = appendBlock(segmentFile(segment), block);
+            for (Pet pet : block) {
+                Entry entry = new Entry(pet.getSaveFile(), segment, offset, pet.getType(), clean(pet.getName()));
+                index.put(entry.saveFile(), entry);
+                indexLines.append(entry.saveFile()).append('=').append(segment).append('\t').append(offset)
+                        .append('\t').append(entry.type()).append('\t').append(entry.name()).append('\n');
+            }
+        }
+        // The blocks are durable before the index points at them
+        appendIndex(indexLines.toString());
+    }
+
+    /**
+     * Reads a pet back from the archive without removing it.
+     *
+     * @param saveFile The pet's save file name.
+     * @return The pet, or null if it is not archived.
+     * @throws IOException If the archive could not be read.
+     */
+    public synchronized Pet load(String saveFile) throws IOException {
+        Entry entry = entries().get(saveFile);
+        if (entry == null) {
+            return null;
+        }
+        byte[] raw = readBlock(segmentFile(entry.segment()), entry.blockOffset());
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw))) {
+            while (in.available() > 0) {
+                String file = in.readUTF();
+                byte[] text = new byte[in.readInt()];
+                in.readFully(text);
+                if (file.equals(saveFile)) {
+                    return new Pet(new KeyValueReader(ByteBuffer.wrap(text)), saveFile);
+                }
+            }
+        }
+        throw new IOException("Archive block does not hold " + saveFile);
+    }
+
+    /**
+     * Marks a pet as no longer archived, after it has been restored to the hot store.
+     * Its block stays in the segment.
+     *
+     * @param saveFile The pet's save file name.
+     * @throws IOException If the index could not be written.
+     */
+    public synchronized void remove(String saveFile) throws IOException {
+        if (entries().remove(saveFile) != null) {
+            appendIndex(saveFile + "=-\n");
+        }
+    }
+
+    /**
+     * Checks if a pet is archived.
+     *
+     * @param saveFile The pet's save file name.
+     * @return true if the pet is archived, false otherwise.
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized boolean contains(String saveFile) throws IOException {
+        return entries().containsKey(saveFile);
+    }
+
+    /**
+     * Lists every archived pet.
+     *
+     * @return The archived pets, in no particular order.
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized List<Entry> list() throws IOException {
+        return new ArrayList<>(entries().values());
+    }
+
+    /**
+     * Returns the index, reading it the first time.
+     *
+     * @return The archived pets by save file.
+     * @throws IOException If the index could not be read.
+     */
+    private Map<String, Entry> entries() throws IOException {
+        if (entries == null) {
+            Map<String, Entry> index = new HashMap<>();
+            if (Files.exists(indexFile)) {
+                KeyValueReader reader = KeyValueReader.read(indexFile);
+                while (reader.next()) {
+                    String saveFile = reader.key();
+                    String[] parts = reader.value().split("\t", 4);
+                    if (parts.length == 4) {
+                        index.put(saveFile, new Entry(saveFile, Integer.parseInt(parts[0]),
+                                Long.parseLong(parts[1]), parts[2], parts[3]));
+                    } else {
+                        index.remove(saveFile);
+                    }
+                }
+            }
+            entries = index;
+        }
+        return entries;
+    }
+
+    /**
+     * Get the number of the segment new blocks are appended to, moving on to a new
+     * segment once the current one is full.
+     *
+     * @return The segment number.
+     * @throws IOException If the segment size could not be read.
+     */
+    private int currentSegment() throws IOException {
+        int segment = 0;
+        while (Files.exists(segmentFile(segment + 1))) {
+            segment++;
+        }
+        Path file = segmentFile(segment);
+        if (Files.exists(file) && Files.size(file) >= SEGMENT_BYTES) {
+            segment++;
+        }
+        return segment;
+    }
+
+    /**
+     * Get the path of a segment file.
+     *
+     * @param segment The segment number.
+     * @return The segment file.
+     */
+    private Path segmentFile(int segment) {
+        return archiveDirectory.resolve(String.format("segment-%05d.dat", segment));
+    }
+
+    /**
+     * Compresses pets into one block and appends it to a segment.
+     *
+     * @param segment The segment file.
+     * @param pets The pets in the block.
+     * @return The position of the block in the segment.
+     * @throws IOException If the segment could not be written.
+     */
+    private static long appendBlock(Path segment, List<Pet> pets) throws IOException {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(raw)) {
+            for (Pet pet : pets) {
+                byte[] text = pet.toSaveText().getBytes(StandardCharsets.UTF_8);
+                out.writeUTF(pet.getSaveFile());
+                out.writeInt(text.length);
+                out.write(text);
+            }
+        }
+        byte[] rawBytes = raw.toByteArray();
+
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setInput(rawBytes);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(rawBytes.length / 4 + 64);
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            compressed.write(chunk, 0, deflater.deflate(chunk));
+        }
+        deflater.end();
+
+        ByteBuffer block = ByteBuffer.allocate(8 + compressed.size());
+        block.putInt(compressed.size()).putInt(rawBytes.length).put(compressed.toByteArray()).flip();
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            long offset = channel.size();
+            while (block.hasRemaining()) {
+                channel.write(block, offset + block.position());
+            }
+            channel.force(false);
+            return offset;
+        }
+    }
+
+    /**
+     * Reads and inflates one block of a segment.
+     *
+     * @param segment The segment file.
+     * @param offset The position of the block.
+     * @return The raw block bytes.
+     * @throws IOException If the block could not be read or is damaged.
+     */
+    private static byte[] readBlock(Path segment, long offset) throws IOException {
+        if (!Files.exists(segment)) {
+            throw new NoSuchFileException(segment.toString());
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            readFully(channel, header, offset);
+            header.flip();
+            int compressedLength = header.getInt();
+            int rawLength = header.getInt();
+            ByteBuffer compressed = ByteBuffer.allocate(compressedLength);
+            readFully(channel, compressed, offset + 8);
+
+            Inflater inflater = new Inflater();
+            inflater.setInput(compressed.array());
+            byte[] raw = new byte[rawLength];
+            try {
+                int length = 0;
+                while (length < rawLength && !inflater.finished()) {
+                    length += inflater.inflate(raw, length, rawLength - length);
+                }
+            } catch (DataFormatException e) {
+                throw new IOException("Damaged archive block in " + segment, e);
+            } finally {
+                inflater.end();
+            }
+            return raw;
+        }
+    }
+
+    /**
+     * Fills a buffer from a channel at a position.
+     *
+     * @param channel The channel.
+     * @param buffer The buffer to fill.
+     * @param position The position to read from.
+     * @throws IOException If the channel ends before the buffer is full.
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Archive segment is truncated");
+            }
+        }
+    }
+
+    /**
+     * Appends lines to the index and forces them to disk.
+     *
+     * @param lines The index lines.
+     * @throws IOException If the index could not be written.
+     */
+    private void appendIndex(String lines) throws IOException {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(archiveDirectory);
+        ByteBuffer bytes = ByteBuffer.wrap(lines.getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Removes characters that would break an index line from a pet's name.
+     *
+     * @param name The name.
+     * @return The name without tabs or line breaks.
+     */
+    private static String clean(String name) {
+        return name == null ? "" : name.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
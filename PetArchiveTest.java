@@ -0,0 +1,52 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PetArchiveTest {
+
+    @Test
+    void testArchivedPetsLoadBackUnchanged() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        List<Pet> pets = new ArrayList<>();
+        for (int i = 0; i < PetArchive.BLOCK_PETS + 3; i++) {
+            Pet pet = new Pet("Pet" + i, "DOG");
+            pet.setSaveFile("dog_" + i + "_save.txt");
+            pet.setHealth(i % 50);
+            pet.addItem("Kibble", i);
+            pets.add(pet);
+        }
+
+        new PetArchive(saveDirectory).archive(pets);
+
+        // A fresh archive reads the index from disk
+        PetArchive archive = new PetArchive(saveDirectory);
+        assertEquals(pets.size(), archive.list().size());
+        Pet last = archive.load("dog_" + (PetArchive.BLOCK_PETS + 2) + "_save.txt");
+        assertEquals("Pet" + (PetArchive.BLOCK_PETS + 2), last.getName());
+        assertEquals((PetArchive.BLOCK_PETS + 2) % 50, last.getHealth());
+        assertEquals(PetArchive.BLOCK_PETS + 2, last.getItemCount("Kibble"));
+        assertNull(archive.load("cat_save.txt"));
+    }
+
+    @Test
+    void testRemovedPetsStayRemoved() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Pet pet = new Pet("Buddy", "DOG");
+        pet.setSaveFile("dog_save.txt");
+
+        PetArchive archive = new PetArchive(saveDirectory);
+        archive.archive(List.of(pet));
+        assertTrue(archive.contains("dog_save.txt"));
+        archive.remove("dog_save.txt");
+
+        assertFalse(archive.contains("dog_save.txt"));
+        assertFalse(new PetArchive(saveDirectory).contains("dog_save.txt"));
+    }
+}
@@ -0,0 +1,22 @@
+package group02;
+
+/**
+ * Listener notified whenever a pet's saved fields or inventory change.
+ */
+public interface PetChangeListener {
+    /**
+     * Called after a scalar field of the pet changed value.
+     *
+     * @param pet The pet that changed.
+     * @param field The field index (e.g., Pet.HEALTH, Pet.ENERGY).
+     */
+    void fieldChanged(Pet pet, int field);
+
+    /**
+     * Called after the count of an inventory item changed.
+     *
+     * @param pet The pet that changed.
+     * @param item The name of the item.
+     */
+    void itemChanged(Pet pet, String item);
+}
@@ -0,0 +1,490 @@
+package group02;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Exports and imports pets as JSON Lines: one JSON object per line, one line per pet, e.g.
+ * {"saveFile":"dog_x_save.txt","name":"Buddy","type":"DOG",...,"inventory":{"Kibble":5}}.
+ * Both directions stream one pet at a time, so memory use does not grow with the number
+ * of pets. Imported lines are checked before anything is written, and valid pets are
+ * written through the repository in batches.
+ * Can also be run on its own: java group02.PetJsonLines export|import file
+ */
+public class PetJsonLines {
+    /** Number of pets written to the repository at once when importing */
+    public static final int BATCH_SIZE = 1000;
+    /** Number of summaries read from the repository at once when exporting */
+    private static final int EXPORT_PAGE_SIZE = 1000;
+    /** Pet types the game has sprites for */
+    private static final Set<String> PET_TYPES = Set.of("DOG", "CAT", "BUNNY");
+
+    /**
+     * Result of an import.
+     *
+     * @param imported The number of pets imported.
+     * @param rejected The number of lines rejected as invalid.
+     */
+    public record ImportResult(int imported, int rejected) { }
+
+    /**
+     * Exports or imports the pets in saves/ from the command line.
+     *
+     * @param args "export" or "import", then the JSON Lines file.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[0].equals("export") || args[0].equals("import"))) {
+            System.err.println("Usage: java group02.PetJsonLines export|import file");
+            return;
+        }
+        try (PetRepository repository = PetRepository.open(Paths.get(GameState.SAVE_DIRECTORY), ProfileStore.DEFAULT_PROFILE)) {
+            if (args[0].equals("export")) {
+                try (BufferedWriter out = Files.newBufferedWriter(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                    System.out.println("Exported " + exportAll(repository, out) + " pets to " + args[1]);
+                }
+            } else {
+                try (BufferedReader in = Files.newBufferedReader(Paths.get(args[1]), StandardCharsets.UTF_8)) {
+                    ImportResult result = importAll(repository, in);
+                    System.out.println("Imported " + result.imported() + " pets, rejected " + result.rejected() + " lines");
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to " + args[0] + " " + args[1]);
+        }
+    }
+
+    /**
+     * Writes every pet in the repository as one JSON line each.
+     *
+     * @param repository Where the pets are read from.
+     * @param out Where the lines are written.
+     * @return The number of pets exported.
+     * @throws IOException If a pet could not be read or written.
+     */
+    public static int exportAll(PetRepository repository, Writer out) throws IOException {
+        int exported = 0;
+        for (int offset = 0; ; offset += EXPORT_PAGE_SIZE) {
+            List<SaveSummary> page = repository.list(offset, EXPORT_PAGE_SIZE);
+            for (SaveSummary summary : page) {
+                Pet pet = repository.load(summary.saveFile());
+                if (pet != null) {
+                    out.write(toJson(pet));
+                    out.write('\n');
+                    exported++;
+                }
+            }
+            if (page.size() < EXPORT_PAGE_SIZE) {
+                return exported;
+            }
+        }
+    }
+
+    /**
+     * Reads pets from JSON lines and saves them in the repository. Invalid lines are reported
+     * and skipped. A pet whose save file is already taken gets a new one, so an import never
+     * overwrites an existing pet.
+     *
+     * @param repository Where the pets are saved.
+     * @param in The JSON lines.
+     * @return How many pets were imported and how many lines were rejected.
+     * @throws IOException If the lines could not be read or the pets could not be saved.
+     */
+    public static ImportResult importAll(PetRepository repository, BufferedReader in) throws IOException {
+        String idBase = Long.toString(System.currentTimeMillis(), 36);
+        int nextId = 0;
+        int imported = 0;
+        int rejected = 0;
+        int lineNumber = 0;
+        List<Pet> batch = new ArrayList<>(BATCH_SIZE);
+        Set<String> batchFiles = new HashSet<>();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            Pet pet;
+            try {
+                pet = fromJson(line);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping line " + lineNumber + ": " + e.getMessage());
+                rejected++;
+                continue;
+            }
+
+            String saveFile = pet.getSaveFile();
+            while (saveFile == null || batchFiles.contains(saveFile) || repository.exists(saveFile)) {
+                saveFile = pet.getType().toLowerCase() + "_" + idBase + "_" + Integer.toString(nextId++, 36) + "_save.txt";
+            }
+            pet.setSaveFile(saveFile);
+            batch.add(pet);
+            batchFiles.add(saveFile);
+
+            if (batch.size() == BATCH_SIZE) {
+                repository.saveAll(batch);
+                imported += batch.size();
+                batch.clear();
+                batchFiles.clear();
+            }
+        }
+        repository.saveAll(batch);
+        imported += batch.size();
+        return new ImportResult(imported, rejected);
+    }
+
+    /**
+     * Writes a pet as a single line of JSON.
+     *
+     * @param pet The pet.
+     * @return The JSON object, without a line break.
+     */
+    static String toJson(Pet pet) {
+        StringBuilder json = new StringBuilder(256);
+        json.append('{');
+        appendString(json, "saveFile").append(':');
+        if (pet.getSaveFile() == null) {
+            json.append("null");
+        } else {
+            appendString(json, pet.getSaveFile());
+        }
+        for (int field = 0; field < Pet.FIELD_COUNT; field++) {
+            json.append(',');
+            appendString(json, Pet.getFieldKey(field)).append(':');
+            if (field == Pet.NAME || field == Pet.TYPE || field == Pet.CREATION_DATE) {
+                appendString(json, pet.getFieldValue(field));
+            } else {
+                json.append(pet.getFieldValue(field));
+            }
+        }
+        json.append(",\"inventory\":{");
+        boolean first = true;
+        for (Map.Entry<String, Integer> entry : pet.getInventory().entrySet()) {
+            if (!first) {
+                json.append(',');
+            }
+            appendString(json, entry.getKey()).append(':').append(entry.getValue());
+            first = false;
+        }
+        return json.append("}}").toString();
+    }
+
+    /**
+     * Reads a pet from a single line of JSON, checking every value.
+     *
+     * @param line The JSON object.
+     * @return The pet, with its save file set if the line names one.
+     * @throws IllegalArgumentException If the line is not valid JSON or does not describe a valid pet.
+     */
+    static Pet fromJson(String line) {
+        JsonCursor cursor = new JsonCursor(line);
+        Map<String, Object> fields = cursor.readObject();
+        cursor.expectEnd();
+
+        String name = requireString(fields, "name");
+        String type = requireString(fields, "type").toUpperCase();
+        if (name.isBlank() || name.indexOf('\n') >= 0 || name.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("invalid name");
+        }
+        if (!PET_TYPES.contains(type)) {
+            throw new IllegalArgumentException("unknown pet type " + type);
+        }
+
+        Pet pet = new Pet(name, type);
+        int maxHealth = requireInt(fields, "maxHealth", 1, Integer.MAX_VALUE);
+        pet.setMaxHealth(maxHealth);
+        pet.setHealth(requireInt(fields, "health", 0, maxHealth));
+        pet.setHappiness(requireInt(fields, "happiness", 0, 100));
+        pet.setFullness(requireInt(fields, "fullness", 0, 100));
+        pet.setEnergy(requireInt(fields, "energy", 0, 100));
+        pet.setCurrency(requireInt(fields, "currency", 0, Integer.MAX_VALUE));
+        pet.setScore(requireInt(fields, "score", Integer.MIN_VALUE, Integer.MAX_VALUE));
+        try {
+            pet.setCreationDate(LocalDate.parse(requireString(fields, "creationDate")));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("invalid creationDate");
+        }
+
+        Object inventory = fields.get("inventory");
+        if (inventory != null) {
+            if (!(inventory instanceof Map<?, ?> items)) {
+                throw new IllegalArgumentException("inventory is not an object");
+            }
+            for (Map.Entry<?, ?> item : items.entrySet()) {
+                String itemName = (String) item.getKey();
+                if (itemName.isEmpty() || itemName.indexOf('=') >= 0 || itemName.indexOf('\n') >= 0
+                        || itemName.indexOf('\r') >= 0 || Pet.getFieldIndex(itemName) >= 0) {
+                    throw new IllegalArgumentException("invalid item name " + itemName);
+                }
+                if (!(item.getValue() instanceof Long amount) || amount < 0 || amount > Integer.MAX_VALUE) {
+                    throw new IllegalArgumentException("invalid amount of " + itemName);
+                }
+                pet.addItem(itemName, amount.intValue());
+            }
+        }
+
+        Object saveFile = fields.get("saveFile");
+        if (saveFile instanceof String file && !file.isEmpty()) {
+            if (file.contains("/") || file.contains("\\") || !file.endsWith(".txt")) {
+                throw new IllegalArgumentException("invalid saveFile " + file);
+            }
+            pet.setSaveFile(file);
+        }
+        return pet;
+    }
+
+    /**
+     * Gets a required string member.
+     *
+     * @param fields The object's members.
+     * @param key The member name.
+     * @return The string.
+     * @throws IllegalArgumentException If the member is missing or not a string.
+     */
+    private static String requireString(Map<String, Object> fields, String key) {
+        if (!(fields.get(key) instanceof String value)) {
+            throw new IllegalArgumentException("missing or invalid " + key);
+        }
+        return value;
+    }
+
+    /**
+     * Gets a required whole number member within a range.
+     *
+     * @param fields The object's members.
+     * @param key The member name.
+     * @param min The smallest allowed value.
+     * @param max The largest allowed value.
+     * @return The number.
+     * @throws IllegalArgumentException If the member is missing, not a whole number or out of range.
+     */
+    private static int requireInt(Map<String, Object> fields, String key, int min, int max) {
+        if (!(fields.get(key) instanceof Long value) || value < min || value > max) {
+            throw new IllegalArgumentException("missing or invalid " + key);
+        }
+        return value.intValue();
+    }
+
+    /**
+     * Appends a string as a quoted JSON string.
+     *
+     * @param json The JSON being built.
+     * @param text The string.
+     * @return The JSON being built.
+     */
+    private static StringBuilder appendString(StringBuilder json, String text) {
+        json.append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        json.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        return json.append('"');
+    }
+
+    /**
+     * Reads the small subset of JSON the pet lines use: objects whose members are strings,
+     * whole numbers, null or nested objects.
+     */
+    private static final class JsonCursor {
+        /** The text being read */
+        private final String text;
+        /** The position of the next character */
+        private int position;
+
+        /**
+         * Creates a cursor at the start of the text.
+         *
+         * @param text The text to read.
+         */
+        JsonCursor(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Reads an object.
+         *
+         * @return The members, in order; numbers are Longs and nested objects are Maps.
+         */
+        Map<String, Object> readObject() {
+            Map<String, Object> members = new LinkedHashMap<>();
+            expect('{');
+            if (peek() == '}') {
+                position++;
+                return members;
+            }
+            do {
+                String key = readString();
+                expect(':');
+                members.put(key, readValue());
+            } while (consume(','));
+            expect('}');
+            return members;
+        }
+
+        /**
+         * Reads a string, number, null or object.
+         *
+         * @return The value.
+         */
+        private Object readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (c == '{') {
+                return readObject();
+            }
+            if (text.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            int start = position;
+            if (c == '-') {
+                position++;
+            }
+            while (position < text.length() && Character.isDigit(text.charAt(position))) {
+                position++;
+            }
+            try {
+                return Long.parseLong(text.substring(start, position));
+            } catch (NumberFormatException e) {
+                throw error("expected a whole number");
+            }
+        }
+
+        /**
+         * Reads a quoted string, undoing escapes.
+         *
+         * @return The string.
+         */
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (position >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(position++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 'r' -> value.append('\r');
+                    case 't' -> value.append('\t');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) {
+                            throw error("bad escape");
+                        }
+                        try {
+                            value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("bad escape");
+                        }
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+            throw error("unterminated string");
+        }
+
+        /**
+         * Checks that nothing but whitespace is left.
+         */
+        void expectEnd() {
+            skipWhitespace();
+            if (position < text.length()) {
+                throw error("unexpected text after the object");
+            }
+        }
+
+        /**
+         * Skips whitespace and reads the given character.
+         *
+         * @param c The expected character.
+         */
+        private void expect(char c) {
+            if (!consume(c)) {
+                throw error("expected '" + c + "'");
+            }
+        }
+
+        /**
+         * Skips whitespace and reads the given character if it is next.
+         *
+         * @param c The character.
+         * @return true if the character was read, false otherwise.
+         */
+        private boolean consume(char c) {
+            if (peek() == c) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Skips whitespace and returns the next character without reading it.
+         *
+         * @return The next character, or 0 at the end of the text.
+         */
+        private char peek() {
+            skipWhitespace();
+            return position < text.length() ? text.charAt(position) : 0;
+        }
+
+        /**
+         * Skips spaces, tabs and line breaks.
+         */
+        private void skipWhitespace() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+        }
+
+        /**
+         * Creates an error for the current position.
+         *
+         * @param message What went wrong.
+         * @return The error.
+         */
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException(message + " at column " + (position + 1));
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.file.Files;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PetJsonLinesTest {
+
+    @Test
+    void testExportThenImportRoundTrips() throws Exception {
+        TextPetRepository source = new TextPetRepository(Files.createTempDirectory("saves"));
+        Pet pet = new Pet("Buddy \"the\" Dog", "Dog");
+        pet.setEnergy(40);
+        pet.addItem("Kibble", 5);
+        source.saveAs(pet, "dog_a_save.txt");
+        source.saveAs(new Pet("Tom", "Cat"), "cat_b_save.txt");
+
+        StringWriter out = new StringWriter();
+        assertEquals(2, PetJsonLines.exportAll(source, out));
+
+        TextPetRepository target = new TextPetRepository(Files.createTempDirectory("saves"));
+        PetJsonLines.ImportResult result = PetJsonLines.importAll(target,
+                new BufferedReader(new StringReader(out.toString())));
+
+        assertEquals(new PetJsonLines.ImportResult(2, 0), result);
+        Pet imported = target.load("dog_a_save.txt");
+        assertEquals("Buddy \"the\" Dog", imported.getName());
+        assertEquals(40, imported.getEnergy());
+        assertEquals(5, imported.getItemCount("Kibble"));
+    }
+
+    @Test
+    void testImportRejectsInvalidLinesAndKeepsExistingPets() throws Exception {
+        TextPetRepository target = new TextPetRepository(Files.createTempDirectory("saves"));
+        target.saveAs(new Pet("Rex", "Dog"), "dog_a_save.txt");
+        String valid = PetJsonLines.toJson(target.load("dog_a_save.txt")).replace("Rex", "Copy");
+        String lines = valid + "\n"
+                + valid.replace("\"health\":100", "\"health\":500") + "\n"
+                + valid.replace("\"inventory\":{}", "\"inventory\":{\"Kib\\nble\":1}") + "\n"
+                + valid.replace("\"inventory\":{}", "\"inventory\":{\"Kib\\rble\":1}") + "\n"
+                + "{\"name\":\"Broken\"\n";
+        assertTrue(valid.contains("\"inventory\":{}"));
+
+        PetJsonLines.ImportResult result = PetJsonLines.importAll(target, new BufferedReader(new StringReader(lines)));
+
+        assertEquals(new PetJsonLines.ImportResult(1, 4), result);
+        assertEquals("Rex", target.load("dog_a_save.txt").getName());
+        assertEquals(2, target.count());
+    }
+}
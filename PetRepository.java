@@ -0,0 +1,163 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Storage for pets, identified by their save file names. Implementations can keep pets in
+ * the key=value text files (TextPetRepository) or an embedded SQL database (JdbcPetRepository).
+ */
+public interface PetRepository extends AutoCloseable {
+    /** System property choosing the store: "text" (default) or a JDBC URL such as "jdbc:sqlite:saves/pets.db" */
+    String STORE_PROPERTY = "tomogachi.store";
+
+    /**
+     * Opens a profile's pets in the store selected by the tomogachi.store system property.
+     *
+     * @param saveDirectory The profile's directory holding the text saves.
+     * @param profileId The profile's id, keeping its pets apart from other profiles' in a shared database.
+     * @return The pet repository.
+     * @throws IOException If the store could not be opened.
+     */
+    static PetRepository open(Path saveDirectory, String profileId) throws IOException {
+        String store = System.getProperty(STORE_PROPERTY, "text");
+        if (store.startsWith("jdbc:")) {
+            return new JdbcPetRepository(store, profileId);
+        }
+        SaveLayoutMigrator.migrate(saveDirectory);
+        return new TextPetRepository(saveDirectory);
+    }
+
+    /**
+     * Loads a pet.
+     *
+     * @param saveFile The pet's save file name.
+     * @return The pet, or null if there is no such pet.
+     * @throws IOException If the pet could not be read.
+     */
+    Pet load(String saveFile) throws IOException;
+
+    /**
+     * Loads a pet, reading its save file with the given reader where the store has files.
+     * Lets bulk loads reuse a few buffers however many threads they run on.
+     *
+     * @param saveFile The pet's save file name.
+     * @param reader The reader to read with.
+     * @return The pet, or null if there is no such pet.
+     * @throws IOException If the pet could not be read.
+     */
+    default Pet load(String saveFile, KeyValueReader reader) throws IOException {
+        return load(saveFile);
+    }
+
+    /**
+     * Saves a pet under its save file name, writing only what changed where the store allows it.
+     *
+     * @param pet The pet to save.
+     * @throws IOException If the pet could not be written.
+     */
+    void save(Pet pet) throws IOException;
+
+    /**
+     * Saves a full copy of a pet under a new save file name, which becomes the pet's save file.
+     *
+     * @param pet The pet to save.
+     * @param saveFile The new save file name.
+     * @throws IOException If the pet could not be written.
+     */
+    void saveAs(Pet pet, String saveFile) throws IOException;
+
+    /**
+     * Changes some fields or inventory entries of a stored pet without reading or rewriting
+     * the rest of it. The whole patch is applied or none of it. A pet the game has open must
+     * be changed through the pet instead, or its next save overwrites the patch; see
+     * GameState.patchPets.
+     *
+     * @param saveFile The pet's save file name.
+     * @param fields The new values by save file key (e.g., "health", or an item name).
+     * @throws IllegalArgumentException If a key or value is not valid.
+     * @throws IOException If there is no such pet or the patch could not be written.
+     */
+    void patch(String saveFile, Map<String, String> fields) throws IOException;
+
+    /**
+     * Saves many pets as one batch.
+     *
+     * @param pets The pets to save.
+     * @throws IOException If the pets could not be written.
+     */
+    void saveAll(Collection<Pet> pets) throws IOException;
+
+    /**
+     * Checks if a pet is stored under a save file name.
+     *
+     * @param saveFile The save file name.
+     * @return true if the pet exists, false otherwise.
+     * @throws IOException If the store could not be read.
+     */
+    boolean exists(String saveFile) throws IOException;
+
+    /**
+     * Deletes a pet.
+     *
+     * @param saveFile The pet's save file name.
+     * @throws IOException If the pet could not be deleted.
+     */
+    void delete(String saveFile) throws IOException;
+
+    /**
+     * Get the number of stored pets.
+     *
+     * @return The number of pets.
+     * @throws IOException If the store could not be read.
+     */
+    int count() throws IOException;
+
+    /**
+     * Lists a range of pet summaries in a stable order, for paging.
+     *
+     * @param offset The index of the first summary.
+     * @param limit The maximum number of summaries.
+     * @return The summaries.
+     * @throws IOException If the store could not be read.
+     */
+    List<SaveSummary> list(int offset, int limit) throws IOException;
+
+    /**
+     * Finds the summaries of all pets of a type.
+     *
+     * @param type The pet type (e.g., DOG, BUNNY, CAT).
+     * @return The summaries.
+     * @throws IOException If the store could not be read.
+     */
+    List<SaveSummary> findByType(String type) throws IOException;
+
+    /**
+     * Finds the summaries of all living or all dead pets.
+     *
+     * @param alive true for living pets, false for dead ones.
+     * @return The summaries.
+     * @throws IOException If the store could not be read.
+     */
+    List<SaveSummary> findByAlive(boolean alive) throws IOException;
+
+    /**
+     * Finds the summaries of the highest scoring pets, best first.
+     *
+     * @param limit The maximum number of summaries.
+     * @return The summaries.
+     * @throws IOException If the store could not be read.
+     */
+    List<SaveSummary> topByScore(int limit) throws IOException;
+
+    /**
+     * Releases any resources held by the store.
+     *
+     * @throws IOException If the store could not be closed cleanly.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -51,4 +51,48 @@ class PetTest {
     void testGetCreationDate() {
         assertEquals(LocalDate.now(), pet.getCreationDate());
     }
+
+    @Test
+    void testDirtyTracking() {
+        pet.markClean();
+        assertFalse(pet.isDirty());
+
+        pet.setEnergy(100);
+        assertFalse(pet.isDirty(), "Setting an unchanged value should not dirty the pet");
+
+        pet.setEnergy(90);
+        pet.addItem("Bone", 1);
+        assertTrue(pet.isFieldDirty(Pet.ENERGY));
+        assertFalse(pet.isFieldDirty(Pet.HEALTH));
+        assertTrue(pet.getDirtyItems().contains("Bone"));
+
+        pet.markClean();
+        assertFalse(pet.isDirty());
+    }
+
+    @Test
+    void testPatchIsDirtyButNotReported() {
+        java.util.List<Integer> reported = new java.util.ArrayList<>();
+        pet.addChangeListener(new PetChangeListener() {
+            @Override
+            public void fieldChanged(Pet changed, int field) {
+                reported.add(field);
+            }
+
+            @Override
+            public void itemChanged(Pet changed, String item) {
+                reported.add(-1);
+            }
+        });
+        pet.markClean();
+
+        pet.applyPatch("currency", "999");
+        pet.applyPatch("Bone", "2");
+        assertEquals(999, pet.getCurrency());
+        assertTrue(pet.isFieldDirty(Pet.CURRENCY));
+        assertTrue(reported.isEmpty());
+
+        pet.addCurrency(1);
+        assertEquals(java.util.List.of(Pet.CURRENCY), reported);
+    }
 }
@@ -0,0 +1,480 @@
+package group02;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The times of the week the game may be played: any number of windows per weekday, a
+ * default used by weekdays without windows of their own, and dated exceptions that
+ * replace the windows of one day. A window whose end is not after its start runs past
+ * midnight into the next day; a window from 00:00 to 00:00 is the whole day.
+ *
+ * A schedule is immutable. The first check compiles it into one bit per minute of the
+ * week, plus one bit per minute of each day touched by an exception, so every later
+ * check is a single bit lookup. Exceptions before the day of the first check are left
+ * out; a later check of an earlier day compiles the schedule again. Changing the schedule
+ * makes a new one, which is compiled again on its first check.
+ */
+public class PlaySchedule {
+    /** Minutes in a day */
+    private static final int DAY_MINUTES = 24 * 60;
+    /** Minutes in a week */
+    private static final int WEEK_MINUTES = 7 * DAY_MINUTES;
+
+    /** Windows of weekdays without windows of their own */
+    private final List<Window> defaultWindows;
+    /** Windows of each weekday that has its own */
+    private final Map<DayOfWeek, List<Window>> days;
+    /** Windows replacing those of a date */
+    private final NavigableMap<LocalDate, List<Window>> exceptions;
+    /** The bitmaps read by isAllowed, or null until compiled */
+    private volatile Compiled compiled;
+
+    /**
+     * The bitmaps of a compiled schedule.
+     *
+     * @param weekBits Allowed minutes of the week from Monday 00:00.
+     * @param exceptionBits Allowed minutes of each date from the first date whose minutes
+     *                      differ from its weekday's because of an exception.
+     * @param firstDate The first date the bitmaps are right for.
+     */
+    private record Compiled(long[] weekBits, Map<LocalDate, long[]> exceptionBits, LocalDate firstDate) {
+        /**
+         * Finds a date's bitmap.
+         *
+         * @param date The date.
+         * @return The date's own bitmap, or the week bitmap.
+         */
+        long[] bitsOn(LocalDate date) {
+            long[] dayBits = exceptionBits.get(date);
+            return dayBits != null ? dayBits : weekBits;
+        }
+
+        /**
+         * Finds where a date's minutes start in its bitmap.
+         *
+         * @param date The date.
+         * @return The bit of the date's midnight.
+         */
+        int offsetOf(LocalDate date) {
+            return exceptionBits.containsKey(date) ? 0 : date.getDayOfWeek().ordinal() * DAY_MINUTES;
+        }
+    }
+
+    /**
+     * One span of allowed play time.
+     *
+     * @param start The first allowed minute.
+     * @param end The minute play stops; at or before start for a window running past midnight.
+     */
+    public record Window(LocalTime start, LocalTime end) {
+        /**
+         * Reads a window written as "HH:mm-HH:mm".
+         *
+         * @param text The window as text.
+         * @return The window.
+         * @throws IllegalArgumentException If the text is not a window.
+         */
+        public static Window parse(String text) {
+            int dash = text.indexOf('-');
+            if (dash < 0) {
+                throw new IllegalArgumentException("Not a play window: " + text);
+            }
+            try {
+                return new Window(LocalTime.parse(text.substring(0, dash).trim()),
+                        LocalTime.parse(text.substring(dash + 1).trim()));
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Not a play window: " + text, e);
+            }
+        }
+
+        /**
+         * Get the window's length.
+         *
+         * @return The minutes from start to end, counting past midnight.
+         */
+        public int minutes() {
+            int length = (minuteOfDay(end) - minuteOfDay(start) + DAY_MINUTES) % DAY_MINUTES;
+            return length == 0 ? DAY_MINUTES : length;
+        }
+
+        /**
+         * Writes the window as "HH:mm-HH:mm".
+         *
+         * @return The window as text.
+         */
+        @Override
+        public String toString() {
+            return start + "-" + end;
+        }
+    }
+
+    /**
+     * Creates a schedule allowing play between the same two times every day.
+     *
+     * @param start The first allowed minute.
+     * @param end The minute play stops.
+     */
+    public PlaySchedule(LocalTime start, LocalTime end) {
+        this(List.of(new Window(start, end)), new EnumMap<>(DayOfWeek.class), new TreeMap<>());
+    }
+
+    /**
+     * Creates a schedule.
+     *
+     * @param defaultWindows Windows of weekdays without windows of their own.
+     * @param days Windows of each weekday that has its own.
+     * @param exceptions Windows replacing those of a date.
+     */
+    private PlaySchedule(List<Window> defaultWindows, Map<DayOfWeek, List<Window>> days,
+                         NavigableMap<LocalDate, List<Window>> exceptions) {
+        this.defaultWindows = defaultWindows;
+        this.days = days;
+        this.exceptions = exceptions;
+    }
+
+    /**
+     * Get the windows of weekdays without windows of their own.
+     *
+     * @return The default windows.
+     */
+    public List<Window> getDefaultWindows() {
+        return defaultWindows;
+    }
+
+    /**
+     * Get the windows of a weekday.
+     *
+     * @param day The weekday.
+     * @return The weekday's own windows, or the default windows if it has none.
+     */
+    public List<Window> getWindows(DayOfWeek day) {
+        return days.getOrDefault(day, defaultWindows);
+    }
+
+    /**
+     * Checks if a weekday has windows of its own.
+     *
+     * @param day The weekday.
+     * @return True if the weekday does not use the default windows.
+     */
+    public boolean hasOwnWindows(DayOfWeek day) {
+        return days.containsKey(day);
+    }
+
+    /**
+     * Get the dated exceptions.
+     *
+     * @return The windows replacing those of each date, by date.
+     */
+    public NavigableMap<LocalDate, List<Window>> getExceptions() {
+        return Collections.unmodifiableNavigableMap(exceptions);
+    }
+
+    /**
+     * Returns this schedule with other default windows.
+     *
+     * @param windows The windows of weekdays without windows of their own.
+     * @return The changed schedule.
+     */
+    public PlaySchedule withDefaultWindows(List<Window> windows) {
+        return new PlaySchedule(List.copyOf(windows), days, exceptions);
+    }
+
+    /**
+     * Returns this schedule with other windows for a weekday.
+     *
+     * @param day The weekday.
+     * @param windows The weekday's windows, or null to use the default windows.
+     * @return The changed schedule.
+     */
+    public PlaySchedule withDay(DayOfWeek day, List<Window> windows) {
+        Map<DayOfWeek, List<Window>> changed = new EnumMap<>(DayOfWeek.class);
+        changed.putAll(days);
+        if (windows == null) {
+            changed.remove(day);
+        } else {
+            changed.put(day, List.copyOf(windows));
+        }
+        return new PlaySchedule(defaultWindows, changed, exceptions);
+    }
+
+    /**
+     * Returns this schedule with an exception for a date.
+     *
+     * @param date The date.
+     * @param windows The windows replacing the date's, empty to forbid play, or null to remove the exception.
+     * @return The changed schedule.
+     */
+    public PlaySchedule withException(LocalDate date, List<Window> windows) {
+        NavigableMap<LocalDate, List<Window>> changed = new TreeMap<>(exceptions);
+        if (windows == null) {
+            changed.remove(date);
+        } else {
+            changed.put(date, List.copyOf(windows));
+        }
+        return new PlaySchedule(defaultWindows, days, changed);
+    }
+
+    /**
+     * Returns this schedule with one entry changed, as written by toSettingsText: a
+     * weekday name or a date, and its windows.
+     *
+     * @param key The weekday name or ISO date.
+     * @param value The windows as written by formatWindows.
+     * @return The changed schedule.
+     * @throws IllegalArgumentException If the key or value cannot be read.
+     */
+    public PlaySchedule withEntry(String key, String value) {
+        List<Window> windows = parseWindows(value);
+        try {
+            return withDay(DayOfWeek.valueOf(key), windows);
+        } catch (IllegalArgumentException notWeekday) {
+            try {
+                return withException(LocalDate.parse(key), windows);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Not a weekday or date: " + key, e);
+            }
+        }
+    }
+
+    /**
+     * Writes the weekday and exception windows as "prefix + key=windows" lines, in the
+     * form read by withEntry. The default windows are not written.
+     *
+     * @param prefix The prefix of every key.
+     * @return The lines.
+     */
+    public String toSettingsText(String prefix) {
+        String newline = System.lineSeparator();
+        StringBuilder text = new StringBuilder();
+        days.forEach((day, windows) -> text.append(prefix).append(day).append('=')
+                .append(formatWindows(windows)).append(newline));
+        exceptions.forEach((date, windows) -> text.append(prefix).append(date).append('=')
+                .append(formatWindows(windows)).append(newline));
+        return text.toString();
+    }
+
+    /**
+     * Checks if play is allowed at a time.
+     *
+     * @param time The date and time.
+     * @return True if the minute holding the time is in a window.
+     */
+    public boolean isAllowed(LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        Compiled bits = compiledFor(date);
+        return isSet(bits.bitsOn(date), bits.offsetOf(date) + minuteOfDay(time.toLocalTime()));
+    }
+
+    /**
+     * Finds the next minute at which play becomes allowed or stops being allowed.
+     *
+     * @param time The date and time to search from.
+     * @return The start of the first minute after time whose permission differs from
+     *         time's, or null if it never changes.
+     */
+    public LocalDateTime nextChange(LocalDateTime time) {
+        boolean allowed = isAllowed(time);
+        Compiled bits = compiledFor(time.toLocalDate());
+        LocalDateTime next = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        LocalDate date = next.toLocalDate();
+        int fromMinute = minuteOfDay(next.toLocalTime());
+        // The week repeats, so a change is found within a week of the last exception
+        LocalDate last = exceptions.isEmpty() || exceptions.lastKey().isBefore(time.toLocalDate())
+                ? date.plusDays(8) : exceptions.lastKey().plusDays(9);
+        for (; date.isBefore(last); date = date.plusDays(1), fromMinute = 0) {
+            int offset = bits.offsetOf(date);
+            int found = nextDifferent(bits.bitsOn(date), offset + fromMinute, offset + DAY_MINUTES, allowed);
+            if (found >= 0) {
+                return date.atStartOfDay().plusMinutes(found - offset);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the first bit in a range that differs from a value, a word at a time.
+     *
+     * @param bits The bitmap.
+     * @param from The first bit of the range.
+     * @param to The bit after the range.
+     * @param value The value searched past.
+     * @return The first bit that differs, or -1 if every bit in the range equals value.
+     */
+    private static int nextDifferent(long[] bits, int from, int to, boolean value) {
+        int word = from >>> 6;
+        long different = (value ? ~bits[word] : bits[word]) & (-1L << from);
+        while (different == 0) {
+            if (++word << 6 >= to) {
+                return -1;
+            }
+            different = value ? ~bits[word] : bits[word];
+        }
+        int bit = (word << 6) + Long.numberOfTrailingZeros(different);
+        return bit < to ? bit : -1;
+    }
+
+    /**
+     * Get the bitmaps, compiling them if this schedule has not been compiled for a date yet.
+     *
+     * @param date The date checked.
+     * @return The bitmaps, right for the date.
+     */
+    private Compiled compiledFor(LocalDate date) {
+        Compiled bits = compiled;
+        if (bits == null || date.isBefore(bits.firstDate())) {
+            bits = compile(date);
+        }
+        return bits;
+    }
+
+    /**
+     * Builds the bitmaps read by isAllowed. A date with an exception, and the date after
+     * it, get bitmaps of their own, because windows of one day run into the next.
+     * Exceptions that end before the given date are left out.
+     *
+     * @param firstDate The first date the bitmaps have to be right for.
+     * @return The bitmaps.
+     */
+    private synchronized Compiled compile(LocalDate firstDate) {
+        Compiled current = compiled;
+        if (current != null && !firstDate.isBefore(current.firstDate())) {
+            return current;
+        }
+        long[] week = new long[(WEEK_MINUTES + 63) / 64];
+        for (DayOfWeek day : DayOfWeek.values()) {
+            for (Window window : getWindows(day)) {
+                setRange(week, WEEK_MINUTES, day.ordinal() * DAY_MINUTES + minuteOfDay(window.start()), window.minutes());
+            }
+        }
+
+        Map<LocalDate, long[]> dates = new HashMap<>();
+        for (LocalDate date : exceptions.tailMap(firstDate.minusDays(1), true).keySet()) {
+            for (LocalDate affected : List.of(date, date.plusDays(1))) {
+                if (!dates.containsKey(affected)) {
+                    long[] dayBits = new long[(DAY_MINUTES + 63) / 64];
+                    addSpill(dayBits, windowsOn(affected.minusDays(1)), true);
+                    addSpill(dayBits, windowsOn(affected), false);
+                    dates.put(affected, dayBits);
+                }
+            }
+        }
+        current = new Compiled(week, dates, firstDate);
+        compiled = current;
+        return current;
+    }
+
+    /**
+     * Get the windows that start on a date.
+     *
+     * @param date The date.
+     * @return The exception's windows if the date has one, otherwise its weekday's.
+     */
+    private List<Window> windowsOn(LocalDate date) {
+        List<Window> windows = exceptions.get(date);
+        return windows != null ? windows : getWindows(date.getDayOfWeek());
+    }
+
+    /**
+     * Marks the minutes of one day covered by windows starting that day or the day before.
+     *
+     * @param dayBits The day's bitmap.
+     * @param windows The windows.
+     * @param previousDay True to mark only the part of windows that runs past midnight,
+     *                    false to mark only the part before midnight.
+     */
+    private static void addSpill(long[] dayBits, List<Window> windows, boolean previousDay) {
+        for (Window window : windows) {
+            int start = minuteOfDay(window.start());
+            int end = start + window.minutes();
+            if (previousDay) {
+                setRange(dayBits, DAY_MINUTES, 0, Math.max(0, end - DAY_MINUTES));
+            } else {
+                setRange(dayBits, DAY_MINUTES, start, Math.min(end, DAY_MINUTES) - start);
+            }
+        }
+    }
+
+    /**
+     * Sets a run of bits, wrapping from the end of the bitmap to its start.
+     *
+     * @param bits The bitmap.
+     * @param size The number of bits in use.
+     * @param from The first bit.
+     * @param count The number of bits to set.
+     */
+    private static void setRange(long[] bits, int size, int from, int count) {
+        for (int i = 0; i < count; i++) {
+            int bit = (from + i) % size;
+            bits[bit >>> 6] |= 1L << bit;
+        }
+    }
+
+    /**
+     * Reads one bit.
+     *
+     * @param bits The bitmap.
+     * @param bit The bit.
+     * @return True if the bit is set.
+     */
+    private static boolean isSet(long[] bits, int bit) {
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    /**
+     * Get the minute of the day a time falls in.
+     *
+     * @param time The time.
+     * @return The minutes since midnight.
+     */
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Reads windows written by formatWindows.
+     *
+     * @param text The windows separated by commas; empty for none.
+     * @return The windows.
+     * @throws IllegalArgumentException If a window cannot be read.
+     */
+    public static List<Window> parseWindows(String text) {
+        List<Window> windows = new ArrayList<>();
+        for (String window : text.split(",")) {
+            if (!window.isBlank()) {
+                windows.add(Window.parse(window));
+            }
+        }
+        return windows;
+    }
+
+    /**
+     * Writes windows separated by commas.
+     *
+     * @param windows The windows.
+     * @return The windows as text; empty for none.
+     */
+    public static String formatWindows(List<Window> windows) {
+        StringBuilder text = new StringBuilder();
+        for (Window window : windows) {
+            if (!text.isEmpty()) {
+                text.append(',');
+            }
+            text.append(window);
+        }
+        return text.toString();
+    }
+}
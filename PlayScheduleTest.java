@@ -0,0 +1,87 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayScheduleTest {
+    /** A Friday */
+    private static final LocalDate FRIDAY = LocalDate.of(2024, 4, 5);
+
+    @Test
+    void testWindowsPerWeekdayAndAcrossMidnight() {
+        PlaySchedule schedule = new PlaySchedule(LocalTime.of(8, 0), LocalTime.of(20, 0))
+                .withDay(DayOfWeek.FRIDAY, PlaySchedule.parseWindows("07:00-08:00,22:00-01:30"));
+
+        assertFalse(schedule.isAllowed(FRIDAY.atTime(12, 0)));
+        assertTrue(schedule.isAllowed(FRIDAY.atTime(7, 59)));
+        assertFalse(schedule.isAllowed(FRIDAY.atTime(8, 0)));
+        assertTrue(schedule.isAllowed(FRIDAY.atTime(23, 0)));
+        assertTrue(schedule.isAllowed(FRIDAY.plusDays(1).atTime(1, 29)), "Friday's window runs into Saturday");
+        assertFalse(schedule.isAllowed(FRIDAY.plusDays(1).atTime(1, 30)));
+        assertTrue(schedule.isAllowed(FRIDAY.plusDays(1).atTime(19, 59)));
+        assertFalse(schedule.isAllowed(FRIDAY.plusDays(1).atTime(20, 0)));
+    }
+
+    @Test
+    void testExceptionReplacesOneDate() {
+        PlaySchedule schedule = new PlaySchedule(LocalTime.of(22, 0), LocalTime.of(2, 0))
+                .withException(FRIDAY, List.of());
+
+        assertFalse(schedule.isAllowed(FRIDAY.atTime(23, 0)));
+        assertTrue(schedule.isAllowed(FRIDAY.atTime(1, 0)), "Thursday's window still runs into the exception");
+        assertFalse(schedule.isAllowed(FRIDAY.plusDays(1).atTime(1, 0)), "The exception forbids what would run into Saturday");
+        assertTrue(schedule.isAllowed(FRIDAY.plusDays(1).atTime(23, 0)));
+        assertTrue(schedule.isAllowed(FRIDAY.plusDays(7).atTime(23, 0)));
+    }
+
+    @Test
+    void testScheduleSurvivesSettingsFile() {
+        Player player = new Player();
+        player.setTimeRestrictionsEnabled(true);
+        player.setPlaySchedule(player.getPlaySchedule()
+                .withDay(DayOfWeek.SATURDAY, PlaySchedule.parseWindows("10:00-12:00"))
+                .withException(FRIDAY, PlaySchedule.parseWindows("00:00-00:00")));
+
+        Player loaded = new Player(new KeyValueReader(ByteBuffer.wrap(player.toSettingsText().getBytes(StandardCharsets.UTF_8))));
+        assertTrue(loaded.isAllowedToPlay(FRIDAY.atTime(3, 0), 0));
+        assertFalse(loaded.isAllowedToPlay(LocalDateTime.of(FRIDAY.plusDays(1), LocalTime.of(9, 0)), 0));
+        assertTrue(loaded.isAllowedToPlay(LocalDateTime.of(FRIDAY.plusDays(1), LocalTime.of(11, 0)), 0));
+        assertEquals(LocalTime.of(8, 0), loaded.getAllowedStartTime());
+    }
+
+    @Test
+    void testNextChangeMatchesMinuteByMinuteScan() {
+        PlaySchedule schedule = new PlaySchedule(LocalTime.of(8, 0), LocalTime.of(20, 0))
+                .withDay(DayOfWeek.SATURDAY, PlaySchedule.parseWindows("10:00-12:00,22:30-01:15"))
+                .withDay(DayOfWeek.SUNDAY, List.of())
+                .withException(FRIDAY, PlaySchedule.parseWindows("00:00-00:00"));
+
+        for (LocalDateTime time = FRIDAY.minusDays(2).atStartOfDay(); time.isBefore(FRIDAY.plusDays(5).atStartOfDay());
+             time = time.plusMinutes(37)) {
+            LocalDateTime expected = time.withSecond(0).withNano(0).plusMinutes(1);
+            while (schedule.isAllowed(expected) == schedule.isAllowed(time)) {
+                expected = expected.plusMinutes(1);
+            }
+            assertEquals(expected, schedule.nextChange(time), "From " + time);
+        }
+        assertNull(new PlaySchedule(LocalTime.MIDNIGHT, LocalTime.MIDNIGHT).nextChange(FRIDAY.atTime(9, 0)));
+    }
+
+    @Test
+    void testEarlierDateAfterCompilingSeesItsException() {
+        PlaySchedule schedule = new PlaySchedule(LocalTime.of(8, 0), LocalTime.of(20, 0))
+                .withException(FRIDAY, List.of());
+
+        assertTrue(schedule.isAllowed(FRIDAY.plusDays(30).atTime(9, 0)));
+        assertFalse(schedule.isAllowed(FRIDAY.atTime(9, 0)));
+    }
+}
@@ -0,0 +1,124 @@
+package group02;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Ends play as soon as the time restrictions stop allowing it, whatever screen is open.
+ * Instead of checking every so often, the enforcer works out when the answer of
+ * Player.isAllowedToPlay next changes (the end or start of a play window, the daily
+ * limit being reached, or midnight resetting it) and arms a single timer for that moment.
+ * When the timer fires the enforcer checks again, locks the session if play is no longer
+ * allowed, and arms the timer for the next change. Call rearm whenever the settings change.
+ */
+public class PlayTimeEnforcer implements AutoCloseable {
+    /** Extra time after a computed change before checking, so the check lands past the change */
+    private static final long MARGIN_MILLIS = 250;
+
+    /** The settings whose restrictions are enforced */
+    private final Supplier<Player> settings;
+    /** The minutes already played today */
+    private final IntSupplier minutesPlayedToday;
+    /** The wall clock and time zone the restrictions are read in */
+    private final Clock clock;
+    /** Told when play stops being allowed, on the timer thread */
+    private final Runnable onLocked;
+    /** Timer thread that checks the restrictions */
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "play-time-enforcer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** The armed check, or null if none is armed */
+    private ScheduledFuture<?> scheduledCheck;
+    /** Whether play was allowed at the last check */
+    private boolean allowed = true;
+
+    /**
+     * Creates an enforcer. Call rearm to start it.
+     *
+     * @param settings The settings whose restrictions are enforced.
+     * @param minutesPlayedToday The minutes already played today.
+     * @param clock The wall clock and time zone the restrictions are read in.
+     * @param onLocked Told when play stops being allowed, on the enforcer's thread.
+     */
+    public PlayTimeEnforcer(Supplier<Player> settings, IntSupplier minutesPlayedToday, Clock clock, Runnable onLocked) {
+        this.settings = settings;
+        this.minutesPlayedToday = minutesPlayedToday;
+        this.clock = clock;
+        this.onLocked = onLocked;
+    }
+
+    /**
+     * Checks the restrictions now and arms the timer for the next time they change,
+     * replacing the armed one.
+     */
+    public synchronized void rearm() {
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+            scheduledCheck = null;
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        Player player = settings.get();
+        int minutesPlayed = minutesPlayedToday.getAsInt();
+        boolean nowAllowed = player.isAllowedToPlay(now, minutesPlayed);
+        if (allowed && !nowAllowed) {
+            onLocked.run();
+        }
+        allowed = nowAllowed;
+
+        LocalDateTime next = nextChange(player, now, minutesPlayed);
+        if (next != null) {
+            long delay = Duration.between(now, next).toMillis() + MARGIN_MILLIS;
+            scheduledCheck = timer.schedule(this::rearm, Math.max(0, delay), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Works out the first moment after now at which the answer of Player.isAllowedToPlay
+     * changes, assuming play continues until then.
+     *
+     * @param player The settings.
+     * @param now The current date and time.
+     * @param minutesPlayedToday The minutes already played today.
+     * @return The moment, or null if the answer can never change.
+     */
+    public static LocalDateTime nextChange(Player player, LocalDateTime now, int minutesPlayedToday) {
+        if (!player.isTimeRestrictionsEnabled()) {
+            return null;
+        }
+        PlaySchedule schedule = player.getPlaySchedule();
+        int limit = player.getDailyTimeLimit();
+        if (limit > 0 && minutesPlayedToday >= limit) {
+            // Nothing changes before the limit resets at midnight
+            LocalDateTime midnight = now.toLocalDate().plusDays(1).atStartOfDay();
+            return schedule.isAllowed(midnight) ? midnight : schedule.nextChange(midnight);
+        }
+        LocalDateTime next = schedule.nextChange(now);
+        if (limit > 0 && schedule.isAllowed(now)) {
+            LocalDateTime limitReached = now.plusMinutes(limit - minutesPlayedToday);
+            if (next == null || limitReached.isBefore(next)) {
+                next = limitReached;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Disarms the timer and stops the enforcer's thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduledCheck != null) {
+            scheduledCheck.cancel(false);
+        }
+        timer.shutdownNow();
+    }
+}
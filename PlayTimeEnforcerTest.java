@@ -0,0 +1,55 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayTimeEnforcerTest {
+    /** Noon on a Monday */
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 4, 1, 12, 0);
+
+    @Test
+    void testNextChangeIsWindowEndOrDailyLimit() {
+        Player player = new Player();
+        assertNull(PlayTimeEnforcer.nextChange(player, NOON, 0), "Nothing changes without restrictions");
+
+        player.setTimeRestrictionsEnabled(true);
+        assertEquals(NOON.withHour(20), PlayTimeEnforcer.nextChange(player, NOON, 0));
+
+        player.setDailyTimeLimit(90);
+        assertEquals(NOON.plusMinutes(30), PlayTimeEnforcer.nextChange(player, NOON, 60));
+        assertEquals(NOON.plusDays(1).withHour(8), PlayTimeEnforcer.nextChange(player, NOON, 90),
+                "Once the limit is reached, play is next allowed when tomorrow's window opens");
+        player.setAllowedEndTime(LocalTime.of(2, 0));
+        assertEquals(NOON.plusDays(1).toLocalDate().atStartOfDay(), PlayTimeEnforcer.nextChange(player, NOON, 90),
+                "The limit resets at midnight");
+        player.setAllowedEndTime(LocalTime.of(20, 0));
+
+        player.setPlaySchedule(player.getPlaySchedule().withDay(DayOfWeek.MONDAY, PlaySchedule.parseWindows("12:00-12:10")));
+        assertEquals(NOON.plusMinutes(10), PlayTimeEnforcer.nextChange(player, NOON, 60));
+        assertEquals(NOON.plusDays(1).withHour(8), PlayTimeEnforcer.nextChange(player, NOON.plusMinutes(10), 0));
+    }
+
+    @Test
+    void testLocksWhenPlayIsNotAllowed() throws Exception {
+        Player player = new Player();
+        player.setTimeRestrictionsEnabled(true);
+        player.setAllowedStartTime(LocalTime.of(8, 0));
+        player.setAllowedEndTime(LocalTime.of(9, 0));
+        CountDownLatch locked = new CountDownLatch(1);
+
+        try (PlayTimeEnforcer enforcer = new PlayTimeEnforcer(() -> player, () -> 0,
+                Clock.fixed(NOON.toInstant(ZoneOffset.UTC), ZoneOffset.UTC), locked::countDown)) {
+            enforcer.rearm();
+            assertTrue(locked.await(1, TimeUnit.SECONDS));
+        }
+    }
+}
@@ -0,0 +1,329 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Records how long the game is played on each calendar day, with running totals per week
+ * and month, so parental limits can ask "minutes played today" without adding anything up.
+ *
+ * Elapsed time is measured with the monotonic clock, so changing the system clock neither
+ * adds nor removes play time; the wall clock only decides which day the time belongs to.
+ * Time played across midnight is split between the two days. Day totals are appended to
+ * playtime.txt as "date=milliseconds" lines, where later lines override earlier ones, so
+ * they survive restarts.
+ */
+public class PlayTimeLedger {
+    /** Name of the ledger file inside the save directory */
+    public static final String LEDGER_FILE = "playtime.txt";
+    /** Longest time recorded play time stays in memory only */
+    public static final long SAVE_INTERVAL_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    /** The ledger file */
+    private final Path ledgerFile;
+    /** Decides which day play time belongs to */
+    private final Clock clock;
+    /** The monotonic clock, in nanoseconds */
+    private final LongSupplier nanoTime;
+    /** Milliseconds played per day */
+    private final Map<LocalDate, Long> dayMillis = new HashMap<>();
+    /** Milliseconds played per week, by the week's Monday */
+    private final Map<LocalDate, Long> weekMillis = new HashMap<>();
+    /** Milliseconds played per month */
+    private final Map<YearMonth, Long> monthMillis = new HashMap<>();
+    /** Days whose totals changed since the ledger was last written */
+    private final Set<LocalDate> unsavedDays = new LinkedHashSet<>();
+    /** Number of lines in the ledger file */
+    private int fileLines;
+    /** Whether a session is being timed */
+    private boolean running;
+    /** Monotonic time of the last checkpoint */
+    private long lastNanos;
+    /** Wall-clock time of the last checkpoint */
+    private Instant lastInstant;
+    /** Nanoseconds not yet added to a day because they make less than a millisecond */
+    private long carryNanos;
+    /** Milliseconds played in the current session */
+    private long sessionMillis;
+    /** Wall-clock time the current session started */
+    private Instant sessionStart;
+    /** Monotonic time the ledger was last written */
+    private long lastSaveNanos;
+
+    /**
+     * Creates a ledger in the given save directory, using the system clocks. Call load
+     * to read the recorded days.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public PlayTimeLedger(Path saveDirectory) {
+        this(saveDirectory, Clock.systemDefaultZone(), System::nanoTime);
+    }
+
+    /**
+     * Creates a ledger in the given save directory with the given clocks.
+     *
+     * @param saveDirectory The save directory.
+     * @param clock The wall clock and time zone deciding which day play time belongs to.
+     * @param nanoTime The monotonic clock measuring play time, in nanoseconds.
+     */
+    public PlayTimeLedger(Path saveDirectory, Clock clock, LongSupplier nanoTime) {
+        this.ledgerFile = saveDirectory.resolve(LEDGER_FILE);
+        this.clock = clock;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Reads the recorded days from the ledger file.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    public synchronized void load() throws IOException {
+        dayMillis.clear();
+        weekMillis.clear();
+        monthMillis.clear();
+        fileLines = 0;
+        if (!Files.exists(ledgerFile)) {
+            return;
+        }
+        Map<LocalDate, Long> days = new HashMap<>();
+        KeyValueReader reader = KeyValueReader.read(ledgerFile);
+        while (reader.next()) {
+            fileLines++;
+            try {
+                days.put(LocalDate.parse(reader.key()), reader.longValue());
+            } catch (DateTimeParseException | NumberFormatException e) {
+                System.err.println("Skipping bad play time line: " + reader.key());
+            }
+        }
+        days.forEach(this::add);
+        unsavedDays.clear();
+    }
+
+    /**
+     * Starts timing a session, ending the one being timed if any.
+     */
+    public synchronized void startSession() {
+        if (running) {
+            checkpoint();
+        }
+        running = true;
+        lastNanos = nanoTime.getAsLong();
+        lastInstant = clock.instant();
+        lastSaveNanos = lastNanos;
+        sessionMillis = 0;
+        sessionStart = lastInstant;
+    }
+
+    /**
+     * Stops timing the session and writes the ledger.
+     *
+     * @throws IOException If the ledger could not be written.
+     */
+    public synchronized void stopSession() throws IOException {
+        checkpoint();
+        running = false;
+        save();
+    }
+
+    /**
+     * Adds the time played since the last checkpoint to the day (or days) it was played on.
+     */
+    public synchronized void checkpoint() {
+        if (!running) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        long elapsedNanos = Math.max(0, now - lastNanos) + carryNanos;
+        long elapsedMillis = elapsedNanos / 1_000_000;
+        carryNanos = elapsedNanos % 1_000_000;
+        sessionMillis += elapsedMillis;
+
+        // Split the interval at each midnight it crosses
+        ZonedDateTime start = lastInstant.atZone(clock.getZone());
+        while (elapsedMillis > 0) {
+            LocalDate day = start.toLocalDate();
+            ZonedDateTime nextMidnight = day.plusDays(1).atStartOfDay(clock.getZone());
+            long part = Math.min(elapsedMillis, Duration.between(start, nextMidnight).toMillis());
+            add(day, part);
+            elapsedMillis -= part;
+            start = nextMidnight;
+        }
+        lastNanos = now;
+        lastInstant = clock.instant();
+    }
+
+    /**
+     * Takes a checkpoint and writes the ledger if it has not been written for SAVE_INTERVAL_MILLIS.
+     *
+     * @throws IOException If the ledger could not be written.
+     */
+    public synchronized void saveIfDue() throws IOException {
+        checkpoint();
+        if (nanoTime.getAsLong() - lastSaveNanos >= TimeUnit.MILLISECONDS.toNanos(SAVE_INTERVAL_MILLIS)) {
+            save();
+        }
+    }
+
+    /**
+     * Writes the changed days to the ledger file, rewriting the whole file instead once
+     * it holds more than twice as many lines as days.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void save() throws IOException {
+        lastSaveNanos = nanoTime.getAsLong();
+        if (unsavedDays.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(ledgerFile.getParent());
+        if (fileLines + unsavedDays.size() > 2 * dayMillis.size() + 16) {
+            Path tempFile = ledgerFile.resolveSibling(LEDGER_FILE + ".tmp");
+            Files.writeString(tempFile, lines(dayMillis.keySet()), StandardCharsets.UTF_8);
+            Files.move(tempFile, ledgerFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            fileLines = dayMillis.size();
+        } else {
+            Files.writeString(ledgerFile, lines(unsavedDays), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            fileLines += unsavedDays.size();
+        }
+        unsavedDays.clear();
+    }
+
+    /**
+     * Get the minutes played today, including the session being timed.
+     *
+     * @return The minutes played today.
+     */
+    public synchronized int getMinutesToday() {
+        checkpoint();
+        return toMinutes(dayMillis.get(LocalDate.now(clock)));
+    }
+
+    /**
+     * Get the minutes played on a day.
+     *
+     * @param day The day.
+     * @return The minutes played.
+     */
+    public synchronized int getMinutesOn(LocalDate day) {
+        checkpoint();
+        return toMinutes(dayMillis.get(day));
+    }
+
+    /**
+     * Get the minutes played in the week (Monday to Sunday) holding a day.
+     *
+     * @param day Any day of the week.
+     * @return The minutes played.
+     */
+    public synchronized int getMinutesInWeekOf(LocalDate day) {
+        checkpoint();
+        return toMinutes(weekMillis.get(day.with(DayOfWeek.MONDAY)));
+    }
+
+    /**
+     * Get the minutes played in a month.
+     *
+     * @param month The month.
+     * @return The minutes played.
+     */
+    public synchronized int getMinutesInMonth(YearMonth month) {
+        checkpoint();
+        return toMinutes(monthMillis.get(month));
+    }
+
+    /**
+     * Get the minutes played in the session being timed.
+     *
+     * @return The session's minutes.
+     */
+    public synchronized int getSessionMinutes() {
+        checkpoint();
+        return toMinutes(sessionMillis);
+    }
+
+    /**
+     * Get the milliseconds played in the session being timed.
+     *
+     * @return The session's milliseconds.
+     */
+    public synchronized long getSessionMillis() {
+        checkpoint();
+        return sessionMillis;
+    }
+
+    /**
+     * Get the wall-clock time the session being timed started.
+     *
+     * @return The start, or null if no session has been started.
+     */
+    public synchronized Instant getSessionStart() {
+        return sessionStart;
+    }
+
+    /**
+     * Get the time zone deciding which day play time belongs to.
+     *
+     * @return The time zone.
+     */
+    public ZoneId getZone() {
+        return clock.getZone();
+    }
+
+    /**
+     * Adds play time to a day and to the running totals of its week and month.
+     *
+     * @param day The day.
+     * @param millis The milliseconds played.
+     */
+    private void add(LocalDate day, long millis) {
+        dayMillis.merge(day, millis, Long::sum);
+        weekMillis.merge(day.with(DayOfWeek.MONDAY), millis, Long::sum);
+        monthMillis.merge(YearMonth.from(day), millis, Long::sum);
+        unsavedDays.add(day);
+    }
+
+    /**
+     * Writes the totals of some days as ledger lines.
+     *
+     * @param days The days.
+     * @return The lines.
+     */
+    private String lines(Set<LocalDate> days) {
+        StringBuilder text = new StringBuilder();
+        for (LocalDate day : days) {
+            text.append(day).append('=').append(dayMillis.get(day)).append(System.lineSeparator());
+        }
+        return text.toString();
+    }
+
+    /**
+     * Converts milliseconds to whole minutes.
+     *
+     * @param millis The milliseconds, or null for none.
+     * @return The whole minutes.
+     */
+    private static int toMinutes(Long millis) {
+        return millis == null ? 0 : (int) (millis / 60_000);
+    }
+}
@@ -0,0 +1,94 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlayTimeLedgerTest {
+    /** A Sunday evening */
+    private static final LocalDate SUNDAY = LocalDate.of(2024, 3, 31);
+
+    /** The monotonic clock of the ledger under test */
+    private final AtomicLong nanos = new AtomicLong();
+    /** The wall clock of the ledger under test */
+    private Clock clock = Clock.fixed(SUNDAY.atTime(23, 30).toInstant(ZoneOffset.UTC), ZoneOffset.UTC);
+
+    /**
+     * Moves both clocks forward.
+     *
+     * @param minutes The minutes to move by.
+     */
+    private void advance(long minutes) {
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(minutes));
+        clock = Clock.offset(clock, java.time.Duration.ofMinutes(minutes));
+    }
+
+    /**
+     * Creates a ledger reading the test clocks.
+     *
+     * @param saveDirectory The save directory.
+     * @return The ledger.
+     */
+    private PlayTimeLedger ledger(Path saveDirectory) {
+        Clock wall = new Clock() {
+            @Override public ZoneOffset getZone() { return ZoneOffset.UTC; }
+            @Override public Clock withZone(java.time.ZoneId zone) { return this; }
+            @Override public Instant instant() { return clock.instant(); }
+        };
+        return new PlayTimeLedger(saveDirectory, wall, nanos::get);
+    }
+
+    @Test
+    void testSessionAcrossMidnightIsSplit() throws Exception {
+        PlayTimeLedger ledger = ledger(Files.createTempDirectory("saves"));
+        ledger.startSession();
+        advance(45);
+
+        assertEquals(30, ledger.getMinutesOn(SUNDAY));
+        assertEquals(15, ledger.getMinutesToday());
+        assertEquals(30, ledger.getMinutesInWeekOf(SUNDAY));
+        assertEquals(15, ledger.getMinutesInWeekOf(SUNDAY.plusDays(1)));
+        assertEquals(30, ledger.getMinutesInMonth(YearMonth.of(2024, 3)));
+        assertEquals(45, ledger.getSessionMinutes());
+    }
+
+    @Test
+    void testDaysSurviveRestart() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        PlayTimeLedger first = ledger(saveDirectory);
+        first.startSession();
+        advance(10);
+        first.stopSession();
+
+        PlayTimeLedger second = ledger(saveDirectory);
+        second.load();
+        second.startSession();
+        advance(25);
+        second.stopSession();
+
+        PlayTimeLedger third = ledger(saveDirectory);
+        third.load();
+        assertEquals(30, third.getMinutesOn(SUNDAY));
+        assertEquals(5, third.getMinutesOn(SUNDAY.plusDays(1)));
+    }
+
+    @Test
+    void testWallClockChangesDoNotCount() throws Exception {
+        PlayTimeLedger ledger = ledger(Files.createTempDirectory("saves"));
+        ledger.startSession();
+        clock = Clock.offset(clock, java.time.Duration.ofHours(-5));
+        nanos.addAndGet(TimeUnit.MINUTES.toNanos(10));
+
+        assertEquals(10, ledger.getSessionMinutes());
+    }
+}
@@ -1,8 +1,9 @@
 package group02;
 
-import java.io.*;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
-import static java.time.temporal.ChronoUnit.MINUTES;
+import java.util.List;
 
 
 /**
@@ -18,15 +19,21 @@ public class Player {
     private String parentalPassword;
     /** The daily time limit in minutes */
     private int dailyTimeLimit;
-    /** The allowed start time */
-    private LocalTime allowedStartTime;
-    /** The allowed end time */
-    private LocalTime allowedEndTime;
+    /** Prefix of the settings keys holding the play schedule's weekdays and exceptions */
+    public static final String PLAY_SCHEDULE_PREFIX = "playSchedule.";
+    /** The times of the week play is allowed; the default window holds the allowed start and end time */
+    private PlaySchedule playSchedule;
 
     private boolean timeRestrictionsEnabled = false;
 
     private boolean fullScreen;
 
+    /** Seconds between autosaves of a changed pet, 0 to turn autosave off */
+    private int autosaveInterval = AutosaveScheduler.DEFAULT_INTERVAL_SECONDS;
+
+    /** Days without a save after which a pet is moved to the archive, 0 to never archive live pets */
+    private int archiveAfterDays = PetArchive.DEFAULT_ARCHIVE_AFTER_DAYS;
+
     /** The start time of the current session */
     private long sessionStartTime;
 
@@ -37,8 +44,7 @@ public class Player {
     public Player() {
         this.totalPlayTime = 0;
         this.numberOfSessions = 0;
-        this.allowedStartTime = LocalTime.of(8, 0);
-        this.allowedEndTime = LocalTime.of(20, 0);
+        this.playSchedule = new PlaySchedule(LocalTime.of(8, 0), LocalTime.of(20, 0));
         this.parentalPassword = null;
         this.fullScreen = false;
     }
@@ -49,37 +55,143 @@ public class Player {
      * @param settingsFile The file to read the player settings from.
      */
     public Player(String settingsFile){
-        try (BufferedReader reader = new BufferedReader(new FileReader(settingsFile))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split("=");
-
-                switch (parts[0]) {
-                    case "parentalPassword" -> this.parentalPassword = parts[1];
-                    case "dailyTimeLimit" -> this.dailyTimeLimit = Integer.parseInt(parts[1]);
-                    case "allowedStartTime" -> this.allowedStartTime = java.time.LocalTime.parse(parts[1]);
-                    case "allowedEndTime" -> this.allowedEndTime = java.time.LocalTime.parse(parts[1]);
-                    case "totalPlayTime" -> this.totalPlayTime = Integer.parseInt(parts[1]);
-                    case "numberOfSessions" -> this.numberOfSessions = Integer.parseInt(parts[1]);
-                    case "timeRestrictionsEnabled" -> this.timeRestrictionsEnabled = Boolean.parseBoolean(parts[1]);
-                    case "fullScreen" -> this.fullScreen = Boolean.parseBoolean(parts[1]);
-                    }
-                }
-            if (parentalPassword.equals("null")) {
-                parentalPassword = null;
-            }
+        this();
+        try {
+            readSettings(KeyValueReader.read(Paths.get(settingsFile)));
         }catch (Exception e){
             e.printStackTrace();
         }
     }
 
+    /**
+     * Player constructor. Constructs a new Player object from settings in key=value form.
+     *
+     * @param reader The reader positioned before the first setting.
+     */
+    public Player(KeyValueReader reader) {
+        this();
+        readSettings(reader);
+    }
+
+    /**
+     * Player constructor. Constructs a copy of another player.
+     *
+     * @param other The player to copy.
+     */
+    public Player(Player other) {
+        this.totalPlayTime = other.totalPlayTime;
+        this.numberOfSessions = other.numberOfSessions;
+        this.parentalPassword = other.parentalPassword;
+        this.dailyTimeLimit = other.dailyTimeLimit;
+        this.playSchedule = other.playSchedule;
+        this.timeRestrictionsEnabled = other.timeRestrictionsEnabled;
+        this.fullScreen = other.fullScreen;
+        this.autosaveInterval = other.autosaveInterval;
+        this.archiveAfterDays = other.archiveAfterDays;
+    }
+
+    /**
+     * Reads every setting from the reader, keeping defaults for missing ones.
+     *
+     * @param reader The reader positioned before the first setting.
+     */
+    private void readSettings(KeyValueReader reader) {
+        while (reader.next()) {
+            if (reader.keyEquals("parentalPassword")) this.parentalPassword = reader.valueEquals("null") ? null : reader.value();
+            else if (reader.keyEquals("dailyTimeLimit")) this.dailyTimeLimit = reader.intValue();
+            else if (reader.keyEquals("allowedStartTime")) setDefaultWindow(LocalTime.parse(reader.value()), null);
+            else if (reader.keyEquals("allowedEndTime")) setDefaultWindow(null, LocalTime.parse(reader.value()));
+            else if (reader.keyStartsWith(PLAY_SCHEDULE_PREFIX)) applyScheduleSetting(reader.key(), reader.value());
+            else if (reader.keyEquals("totalPlayTime")) this.totalPlayTime = reader.intValue();
+            else if (reader.keyEquals("numberOfSessions")) this.numberOfSessions = reader.intValue();
+            else if (reader.keyEquals("timeRestrictionsEnabled")) this.timeRestrictionsEnabled = reader.booleanValue();
+            else if (reader.keyEquals("fullscreen") || reader.keyEquals("fullScreen")) this.fullScreen = reader.booleanValue();
+            else if (reader.keyEquals("autosaveInterval")) this.autosaveInterval = reader.intValue();
+            else if (reader.keyEquals("archiveAfterDays")) this.archiveAfterDays = reader.intValue();
+        }
+    }
+
+    /**
+     * Sets one setting from its key and value as written in the settings file.
+     * Unknown keys are ignored.
+     *
+     * @param key The settings file key.
+     * @param value The value as written in the settings file.
+     */
+    public void applySetting(String key, String value) {
+        switch (key) {
+            case "parentalPassword" -> this.parentalPassword = value.equals("null") ? null : value;
+            case "dailyTimeLimit" -> this.dailyTimeLimit = Integer.parseInt(value);
+            case "allowedStartTime" -> setDefaultWindow(LocalTime.parse(value), null);
+            case "allowedEndTime" -> setDefaultWindow(null, LocalTime.parse(value));
+            case "totalPlayTime" -> this.totalPlayTime = Integer.parseInt(value);
+            case "numberOfSessions" -> this.numberOfSessions = Integer.parseInt(value);
+            case "timeRestrictionsEnabled" -> this.timeRestrictionsEnabled = Boolean.parseBoolean(value);
+            case "fullscreen", "fullScreen" -> this.fullScreen = Boolean.parseBoolean(value);
+            case "autosaveInterval" -> this.autosaveInterval = Integer.parseInt(value);
+            case "archiveAfterDays" -> this.archiveAfterDays = Integer.parseInt(value);
+            default -> {
+                if (key.startsWith(PLAY_SCHEDULE_PREFIX)) {
+                    applyScheduleSetting(key, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * Sets one play schedule entry from its settings file key and value.
+     *
+     * @param key The settings file key, starting with PLAY_SCHEDULE_PREFIX.
+     * @param value The value as written in the settings file.
+     */
+    private void applyScheduleSetting(String key, String value) {
+        try {
+            this.playSchedule = playSchedule.withEntry(key.substring(PLAY_SCHEDULE_PREFIX.length()), value);
+        } catch (IllegalArgumentException e) {
+            System.err.println("Skipping bad play schedule setting " + key + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces the default play window. Used by the constructors, so it must not call
+     * anything a subclass could override.
+     *
+     * @param start The window's start, or null to keep the current one.
+     * @param end The window's end, or null to keep the current one.
+     */
+    private void setDefaultWindow(LocalTime start, LocalTime end) {
+        PlaySchedule.Window current = playSchedule.getDefaultWindows().get(0);
+        this.playSchedule = playSchedule.withDefaultWindows(List.of(new PlaySchedule.Window(
+                start != null ? start : current.start(), end != null ? end : current.end())));
+    }
+
+    /**
+     * Writes every setting in the key=value form read by the Player constructors.
+     *
+     * @return The settings, one per line.
+     */
+    public String toSettingsText() {
+        String newline = System.lineSeparator();
+        return "parentalPassword=" + parentalPassword + newline
+                + "dailyTimeLimit=" + dailyTimeLimit + newline
+                + "allowedStartTime=" + getAllowedStartTime() + newline
+                + "allowedEndTime=" + getAllowedEndTime() + newline
+                + playSchedule.toSettingsText(PLAY_SCHEDULE_PREFIX)
+                + "totalPlayTime=" + totalPlayTime + newline
+                + "numberOfSessions=" + numberOfSessions + newline
+                + "timeRestrictionsEnabled=" + timeRestrictionsEnabled + newline
+                + "fullscreen=" + fullScreen + newline
+                + "autosaveInterval=" + autosaveInterval + newline
+                + "archiveAfterDays=" + archiveAfterDays + newline;
+    }
+
     /** Increment the number of sessions played. */
     public void incrementSessions() { this.numberOfSessions++; }
 
     /**
      * Get the player's total play time.
      *
-     * @return The player's total play time.
+     * @return The player's total play time in minutes.
      */
     public int getTotalPlayTime() { return totalPlayTime; }
 
@@ -114,7 +226,7 @@ public class Player {
     /**
      * Get the daily time limit.
      *
-     * @return The daily time limit.
+     * @return The daily time limit in minutes, 0 or less for no limit.
      */
     public int getDailyTimeLimit(){ return dailyTimeLimit; }
 
@@ -130,42 +242,62 @@ public class Player {
      *
      * @return The allowed start time.
      */
-    public LocalTime getAllowedStartTime(){ return allowedStartTime; }
+    public LocalTime getAllowedStartTime(){ return playSchedule.getDefaultWindows().get(0).start(); }
 
     /**
      * Set the allowed start time.
      *
      * @param allowedStartTime The allowed start time.
      */
-    public void setAllowedStartTime(LocalTime allowedStartTime) { this.allowedStartTime = allowedStartTime; }
+    public void setAllowedStartTime(LocalTime allowedStartTime) {
+        setDefaultWindow(allowedStartTime, null);
+    }
 
     /**
      * Get the allowed end time.
      *
      * @return The allowed end time.
      */
-    public LocalTime getAllowedEndTime(){ return allowedEndTime; }
+    public LocalTime getAllowedEndTime(){ return playSchedule.getDefaultWindows().get(0).end(); }
 
     /**
      * Set the allowed end time.
      *
      * @param allowedEndTime The allowed end time.
      */
-    public void setAllowedEndTime(LocalTime allowedEndTime) { this.allowedEndTime = allowedEndTime; }
+    public void setAllowedEndTime(LocalTime allowedEndTime) {
+        setDefaultWindow(null, allowedEndTime);
+    }
 
     /**
-     * Checks if the player is allowed to play based on the current time and session start time.
+     * Get the times of the week play is allowed.
      *
-     * @param sessionStartTime The time the current session started.
-     * @return True if the player is allowed to play, false otherwise.
+     * @return The play schedule.
      */
-    public boolean isAllowedToPlay(LocalTime sessionStartTime){
-        boolean withinDailyLimit = getDailyTimeLimit() - sessionStartTime.until(LocalTime.now(), MINUTES) >= 0;
-        boolean withinAllowedTime = (LocalTime.now().isAfter(allowedStartTime) && LocalTime.now().isBefore(allowedEndTime));
-        System.out.println(withinDailyLimit + " " + withinAllowedTime);
-        System.out.println(sessionStartTime.until(LocalTime.now(), MINUTES));
+    public PlaySchedule getPlaySchedule() { return playSchedule; }
 
-        return withinAllowedTime && withinDailyLimit;
+    /**
+     * Set the times of the week play is allowed. The schedule is compiled again on its next check.
+     *
+     * @param playSchedule The play schedule; its first default window is the allowed start and end time.
+     */
+    public void setPlaySchedule(PlaySchedule playSchedule) { this.playSchedule = playSchedule; }
+
+    /**
+     * Checks if the player is allowed to play now. Without time restrictions play is always
+     * allowed; with them, the time must be within the play schedule and the daily limit,
+     * if one is set, must not have been reached.
+     *
+     * @param now The current date and time.
+     * @param minutesPlayedToday The minutes already played today.
+     * @return True if the player is allowed to play, false otherwise.
+     */
+    public boolean isAllowedToPlay(LocalDateTime now, int minutesPlayedToday) {
+        if (!timeRestrictionsEnabled) {
+            return true;
+        }
+        boolean withinDailyLimit = dailyTimeLimit <= 0 || minutesPlayedToday < dailyTimeLimit;
+        return withinDailyLimit && playSchedule.isAllowed(now);
     }
 
     /**
@@ -212,4 +344,32 @@ public class Player {
     public boolean isFullScreen() { return fullScreen; }
 
     public void setFullScreen(boolean fullScreen) { this.fullScreen = fullScreen; }
-}
\ No newline at end of file
+
+    /**
+     * Get the number of seconds between autosaves of a changed pet.
+     *
+     * @return The autosave interval in seconds, 0 if autosave is off.
+     */
+    public int getAutosaveInterval() { return autosaveInterval; }
+
+    /**
+     * Set the number of seconds between autosaves of a changed pet.
+     *
+     * @param autosaveInterval The autosave interval in seconds, 0 to turn autosave off.
+     */
+    public void setAutosaveInterval(int autosaveInterval) { this.autosaveInterval = Math.max(0, autosaveInterval); }
+
+    /**
+     * Get the number of days without a save after which a pet is moved to the archive.
+     *
+     * @return The number of days, 0 if live pets are never archived.
+     */
+    public int getArchiveAfterDays() { return archiveAfterDays; }
+
+    /**
+     * Set the number of days without a save after which a pet is moved to the archive.
+     *
+     * @param archiveAfterDays The number of days, 0 to never archive live pets.
+     */
+    public void setArchiveAfterDays(int archiveAfterDays) { this.archiveAfterDays = Math.max(0, archiveAfterDays); }
+}
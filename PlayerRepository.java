@@ -0,0 +1,50 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Storage for the player's settings and statistics.
+ */
+public interface PlayerRepository extends AutoCloseable {
+
+    /**
+     * Opens a profile's settings in the store selected by the tomogachi.store system property.
+     *
+     * @param saveDirectory The profile's directory holding the text settings file.
+     * @param profileId The profile's id, keeping its settings apart from other profiles' in a shared database.
+     * @return The player repository.
+     * @throws IOException If the store could not be opened.
+     */
+    static PlayerRepository open(Path saveDirectory, String profileId) throws IOException {
+        String store = System.getProperty(PetRepository.STORE_PROPERTY, "text");
+        if (store.startsWith("jdbc:")) {
+            return new JdbcPlayerRepository(store, profileId);
+        }
+        return new TextPlayerRepository(saveDirectory);
+    }
+
+    /**
+     * Loads the player, or a player with default settings if none has been saved.
+     *
+     * @return The player.
+     * @throws IOException If the player could not be read.
+     */
+    Player load() throws IOException;
+
+    /**
+     * Saves the player, replacing what was stored before in one step.
+     *
+     * @param player The player to save.
+     * @throws IOException If the player could not be written.
+     */
+    void save(Player player) throws IOException;
+
+    /**
+     * Releases any resources held by the store.
+     *
+     * @throws IOException If the store could not be closed cleanly.
+     */
+    @Override
+    void close() throws IOException;
+}
@@ -3,11 +3,17 @@ package group02;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 class PlayerTest {
+    /** Noon on a Monday */
+    private static final LocalDateTime NOON = LocalDateTime.of(2024, 4, 1, 12, 0);
+
     private Player player;
 
     @BeforeEach
@@ -40,4 +46,33 @@ class PlayerTest {
         player.setDailyTimeLimit(120);
         assertEquals(120, player.getDailyTimeLimit());
     }
+
+    @Test
+    void testSettingsFileWithoutPassword() throws Exception {
+        Path settings = Files.createTempFile("settings", ".txt");
+        Files.writeString(settings, "dailyTimeLimit=30\nfullscreen=true\n");
+
+        Player loaded = new Player(settings.toString());
+        assertNull(loaded.getParentalPassword());
+        assertEquals(30, loaded.getDailyTimeLimit());
+        assertTrue(loaded.isFullScreen());
+        assertEquals(LocalTime.of(8, 0), loaded.getAllowedStartTime());
+
+        Files.delete(settings);
+    }
+
+    @Test
+    void testDailyLimitCountsMinutesPlayedToday() {
+        Player player = new Player();
+        player.setAllowedStartTime(LocalTime.of(0, 0));
+        player.setAllowedEndTime(LocalTime.of(23, 59));
+        player.setDailyTimeLimit(60);
+
+        assertTrue(player.isAllowedToPlay(NOON, 600), "Restrictions are off by default");
+        player.setTimeRestrictionsEnabled(true);
+        assertTrue(player.isAllowedToPlay(NOON, 59));
+        assertFalse(player.isAllowedToPlay(NOON, 60));
+        player.setDailyTimeLimit(0);
+        assertTrue(player.isAllowedToPlay(NOON, 600), "A limit of 0 means no limit");
+    }
 }
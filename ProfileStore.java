@@ -0,0 +1,203 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The player profiles on this device, each with its own settings, restrictions, statistics
+ * and pets in a save directory of its own. The default profile keeps using the save
+ * directory itself, so saves made before profiles existed stay where they are; other
+ * profiles live in profiles/&lt;id&gt;/ under it.
+ *
+ * An index, profiles.txt, lists every profile's id and name and which one was played last,
+ * as "key=value" lines where later lines override earlier ones. Listing and switching
+ * profiles read only the index; nothing from a profile's own directory is loaded until it
+ * is played.
+ */
+public class ProfileStore {
+    /** Name of the index file inside the save directory */
+    public static final String INDEX_FILE = "profiles.txt";
+    /** Directory holding every profile but the default one */
+    public static final String PROFILES_DIRECTORY = "profiles";
+    /** Id of the profile using the save directory itself */
+    public static final String DEFAULT_PROFILE = "default";
+    /** Index key of the profile played last */
+    private static final String ACTIVE_KEY = "active";
+    /** Prefix of the index keys naming a profile */
+    private static final String PROFILE_PREFIX = "profile.";
+
+    /**
+     * A player profile.
+     *
+     * @param id The profile's id, also the name of its directory.
+     * @param name The name shown to the player.
+     */
+    public record Profile(String id, String name) { }
+
+    /** The save directory */
+    private final Path saveDirectory;
+    /** The index file */
+    private final Path indexFile;
+    /** Every profile's name, by id, in the order they were created */
+    private final Map<String, String> profiles = new LinkedHashMap<>();
+    /** Id of the profile played last */
+    private String activeId = DEFAULT_PROFILE;
+    /** Number of lines in the index file */
+    private int indexLines;
+
+    /**
+     * Creates a profile store in the given save directory. Call load to read the index.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public ProfileStore(Path saveDirectory) {
+        this.saveDirectory = saveDirectory;
+        this.indexFile = saveDirectory.resolve(INDEX_FILE);
+    }
+
+    /**
+     * Reads the index. Without one, the store holds just the default profile.
+     *
+     * @throws IOException If the index could not be read.
+     */
+    public synchronized void load() throws IOException {
+        profiles.clear();
+        profiles.put(DEFAULT_PROFILE, "Player 1");
+        activeId = DEFAULT_PROFILE;
+        indexLines = 0;
+        if (!Files.exists(indexFile)) {
+            return;
+        }
+        KeyValueReader reader = KeyValueReader.read(indexFile);
+        while (reader.next()) {
+            indexLines++;
+            if (reader.keyEquals(ACTIVE_KEY)) {
+                activeId = reader.value();
+            } else if (reader.keyStartsWith(PROFILE_PREFIX)) {
+                profiles.put(reader.keySuffix(PROFILE_PREFIX.length()), reader.value());
+            }
+        }
+        if (!profiles.containsKey(activeId)) {
+            activeId = DEFAULT_PROFILE;
+        }
+    }
+
+    /**
+     * Get every profile, in the order they were created.
+     *
+     * @return The profiles.
+     */
+    public synchronized List<Profile> list() {
+        List<Profile> list = new ArrayList<>(profiles.size());
+        profiles.forEach((id, name) -> list.add(new Profile(id, name)));
+        return list;
+    }
+
+    /**
+     * Get the profile played last.
+     *
+     * @return The active profile.
+     */
+    public synchronized Profile getActive() {
+        return new Profile(activeId, profiles.get(activeId));
+    }
+
+    /**
+     * Makes a profile the one played next time the game starts.
+     *
+     * @param id The profile's id.
+     * @throws IOException If the index could not be written.
+     * @throws IllegalArgumentException If there is no such profile.
+     */
+    public synchronized void setActive(String id) throws IOException {
+        if (!profiles.containsKey(id)) {
+            throw new IllegalArgumentException("No profile " + id);
+        }
+        activeId = id;
+        append(ACTIVE_KEY + "=" + id);
+    }
+
+    /**
+     * Creates a profile with its own empty save directory.
+     *
+     * @param name The name shown to the player.
+     * @return The new profile.
+     * @throws IOException If the profile could not be created.
+     */
+    public synchronized Profile create(String name) throws IOException {
+        String cleanName = name.replaceAll("[\\r\\n]", " ").trim();
+        String base = cleanName.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "_").replaceAll("^_+|_+$", "");
+        if (base.isEmpty()) {
+            base = "player";
+        }
+        String id = base;
+        for (int i = 2; profiles.containsKey(id) || Files.exists(getDirectory(id)); i++) {
+            id = base + "_" + i;
+        }
+        Files.createDirectories(getDirectory(id));
+        profiles.put(id, cleanName);
+        append(PROFILE_PREFIX + id + "=" + cleanName);
+        return new Profile(id, cleanName);
+    }
+
+    /**
+     * Renames a profile.
+     *
+     * @param id The profile's id.
+     * @param name The new name.
+     * @throws IOException If the index could not be written.
+     * @throws IllegalArgumentException If there is no such profile.
+     */
+    public synchronized void rename(String id, String name) throws IOException {
+        if (!profiles.containsKey(id)) {
+            throw new IllegalArgumentException("No profile " + id);
+        }
+        String cleanName = name.replaceAll("[\\r\\n]", " ").trim();
+        profiles.put(id, cleanName);
+        append(PROFILE_PREFIX + id + "=" + cleanName);
+    }
+
+    /**
+     * Get a profile's save directory.
+     *
+     * @param id The profile's id.
+     * @return The directory holding the profile's settings and pets.
+     */
+    public Path getDirectory(String id) {
+        return id.equals(DEFAULT_PROFILE) ? saveDirectory : saveDirectory.resolve(PROFILES_DIRECTORY).resolve(id);
+    }
+
+    /**
+     * Appends a line to the index, rewriting the whole index instead once it holds
+     * more than twice as many lines as are needed.
+     *
+     * @param line The line.
+     * @throws IOException If the index could not be written.
+     */
+    private void append(String line) throws IOException {
+        Files.createDirectories(saveDirectory);
+        if (indexLines + 1 > 2 * (profiles.size() + 1) + 16) {
+            StringBuilder text = new StringBuilder();
+            profiles.forEach((id, name) -> text.append(PROFILE_PREFIX).append(id).append('=').append(name)
+                    .append(System.lineSeparator()));
+            text.append(ACTIVE_KEY).append('=').append(activeId).append(System.lineSeparator());
+            Path tempFile = indexFile.resolveSibling(INDEX_FILE + ".tmp");
+            Files.writeString(tempFile, text, StandardCharsets.UTF_8);
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            indexLines = profiles.size() + 1;
+        } else {
+            Files.writeString(indexFile, line + System.lineSeparator(), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            indexLines++;
+        }
+    }
+}
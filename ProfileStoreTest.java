@@ -0,0 +1,61 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProfileStoreTest {
+    @Test
+    void testDefaultProfileUsesSaveDirectory() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        ProfileStore profiles = new ProfileStore(saveDirectory);
+        profiles.load();
+
+        assertEquals(1, profiles.list().size());
+        assertEquals(ProfileStore.DEFAULT_PROFILE, profiles.getActive().id());
+        assertEquals(saveDirectory, profiles.getDirectory(ProfileStore.DEFAULT_PROFILE));
+    }
+
+    @Test
+    void testProfilesAndActiveProfileSurviveRestart() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        ProfileStore profiles = new ProfileStore(saveDirectory);
+        profiles.load();
+        ProfileStore.Profile sam = profiles.create("Sam");
+        ProfileStore.Profile otherSam = profiles.create("Sam");
+        profiles.setActive(sam.id());
+        profiles.rename(ProfileStore.DEFAULT_PROFILE, "Alex");
+
+        assertNotEquals(sam.id(), otherSam.id());
+        assertTrue(Files.isDirectory(profiles.getDirectory(sam.id())));
+
+        ProfileStore reopened = new ProfileStore(saveDirectory);
+        reopened.load();
+        assertEquals(3, reopened.list().size());
+        assertEquals(new ProfileStore.Profile(sam.id(), "Sam"), reopened.getActive());
+        assertEquals("Alex", reopened.list().get(0).name());
+    }
+
+    @Test
+    void testProfilesKeepTheirOwnSettings() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        ProfileStore profiles = new ProfileStore(saveDirectory);
+        profiles.load();
+        ProfileStore.Profile sam = profiles.create("Sam");
+
+        GameState samState = new GameState(profiles.getDirectory(sam.id()), sam.id());
+        samState.getPlayer().setDailyTimeLimit(45);
+        samState.saveSettings(true);
+        samState.close();
+
+        GameState defaultState = new GameState(profiles.getDirectory(ProfileStore.DEFAULT_PROFILE));
+        assertEquals(0, defaultState.getPlayer().getDailyTimeLimit());
+        defaultState.close();
+        GameState reopened = new GameState(profiles.getDirectory(sam.id()), sam.id());
+        assertEquals(45, reopened.getPlayer().getDailyTimeLimit());
+        reopened.close();
+    }
+}
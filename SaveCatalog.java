@@ -0,0 +1,286 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * In-memory catalog of every pet save. Saves and deletes made through the repository
+ * update it directly. Saves written by another process are found by rescanning the pets
+ * directory: every RESCAN_MILLIS, and sooner when a WatchService on the pets directory
+ * itself reports a change there. Only that one directory is watched, not every shard
+ * below it, so large installs never run out of watches; if it cannot be watched at all,
+ * the catalog just rescans on the timer. Bursts of events are debounced: the rescan waits
+ * until the directory has been quiet for DEBOUNCE_MILLIS (or MAX_DELAY_MILLIS have passed),
+ * and reads only the save files changed since the catalog last saw them.
+ */
+public class SaveCatalog implements TextPetRepository.SaveListener, AutoCloseable {
+    /** Quiet time after the last file event before the pets directory is rescanned */
+    public static final long DEBOUNCE_MILLIS = 200;
+    /** Longest time a rescan waits during a continuous burst of events */
+    public static final long MAX_DELAY_MILLIS = 2000;
+    /** Time between rescans of the pets directory for saves written by another process */
+    public static final long RESCAN_MILLIS = 60_000;
+
+    /** Where the initial catalog is read from, and told about this catalog's updates */
+    private final TextPetRepository repository;
+    /** The directory holding the sharded pet saves */
+    private final Path petsDirectory;
+    /** Time between rescans, in milliseconds */
+    private final long rescanMillis;
+    /** Summaries of every save, by save file */
+    private final ConcurrentSkipListMap<String, SaveSummary> summaries = new ConcurrentSkipListMap<>();
+    /** Watches the pets directory, or null if it is not watched; stays set once closed */
+    private volatile WatchService watcher;
+    /** Reads changed save files; only used on the catalog thread */
+    private final KeyValueReader reader = new KeyValueReader();
+    /** Rescans the pets directory, or null until started */
+    private Thread watchThread;
+    /** Whether the catalog has been closed */
+    private volatile boolean closed;
+
+    /**
+     * Creates a catalog of the pet saves in the given directory. Call start to fill it.
+     *
+     * @param saveDirectory The save directory.
+     * @param repository The repository of the same saves, read at start and followed afterwards.
+     */
+    public SaveCatalog(Path saveDirectory, TextPetRepository repository) {
+        this(saveDirectory, repository, RESCAN_MILLIS);
+    }
+
+    /**
+     * Creates a catalog of the pet saves in the given directory, rescanning it at the given
+     * interval. Call start to fill it.
+     *
+     * @param saveDirectory The save directory.
+     * @param repository The repository of the same saves, read at start and followed afterwards.
+     * @param rescanMillis Time between rescans of the pets directory, in milliseconds.
+     */
+    SaveCatalog(Path saveDirectory, TextPetRepository repository, long rescanMillis) {
+        this.repository = repository;
+        this.petsDirectory = new SaveLayout(saveDirectory).getPetsDirectory();
+        this.rescanMillis = rescanMillis;
+    }
+
+    /**
+     * Reads the current saves, starts following the repository and starts watching the
+     * pets directory, or rescanning it on a timer if it cannot be watched.
+     *
+     * @throws IOException If the saves could not be read.
+     */
+    public synchronized void start() throws IOException {
+        if (watchThread != null) {
+            return;
+        }
+        Files.createDirectories(petsDirectory);
+        repository.addSaveListener(this);
+        for (SaveSummary summary : repository.list(0, Integer.MAX_VALUE)) {
+            summaries.put(summary.saveFile(), summary);
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            try {
+                petsDirectory.register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.ENTRY_MODIFY);
+            } catch (IOException e) {
+                service.close();
+                throw e;
+            }
+            watcher = service;
+        } catch (IOException e) {
+            System.err.println("Failed to watch " + petsDirectory + ", rescanning it every "
+                    + TimeUnit.MILLISECONDS.toSeconds(rescanMillis) + " s instead: " + e.getMessage());
+        }
+
+        watchThread = new Thread(this::watch, "save-catalog");
+        watchThread.setDaemon(true);
+        watchThread.start();
+    }
+
+    /**
+     * Get the number of saves.
+     *
+     * @return The number of saves.
+     */
+    public int size() {
+        return summaries.size();
+    }
+
+    /**
+     * Lists a range of summaries, ordered by save file.
+     *
+     * @param offset The index of the first summary.
+     * @param limit The maximum number of summaries.
+     * @return The summaries.
+     */
+    public List<SaveSummary> list(int offset, int limit) {
+        List<SaveSummary> page = new ArrayList<>(Math.min(limit, 64));
+        Iterator<SaveSummary> all = summaries.values().iterator();
+        for (int i = 0; i < offset && all.hasNext(); i++) {
+            all.next();
+        }
+        while (page.size() < limit && all.hasNext()) {
+            page.add(all.next());
+        }
+        return page;
+    }
+
+    /**
+     * Finds the summary of a save file.
+     *
+     * @param saveFile The save file.
+     * @return The summary, or null if there is no such save.
+     */
+    public SaveSummary find(String saveFile) {
+        return summaries.get(saveFile);
+    }
+
+    /**
+     * Puts the summary of a save made through the repository into the catalog.
+     *
+     * @param summary The saved pet's summary.
+     */
+    @Override
+    public void saved(SaveSummary summary) {
+        summaries.put(summary.saveFile(), summary);
+    }
+
+    /**
+     * Removes a save deleted through the repository from the catalog.
+     *
+     * @param saveFile The deleted save file.
+     */
+    @Override
+    public void deleted(String saveFile) {
+        summaries.remove(saveFile);
+    }
+
+    /**
+     * Stops following the repository and the save directory.
+     *
+     * @throws IOException If the watch service could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        repository.removeSaveListener(this);
+        if (watchThread != null) {
+            watchThread.interrupt();
+        }
+        if (watcher != null) {
+            // Not nulled: the catalog thread may still be using it and stops on ClosedWatchServiceException
+            watcher.close();
+        }
+    }
+
+    /**
+     * Rescans the pets directory every rescanMillis, and after each debounced burst of
+     * events on it, until the catalog is closed.
+     */
+    private void watch() {
+        WatchService watcher = this.watcher;
+        try {
+            while (!closed) {
+                if (watcher == null) {
+                    Thread.sleep(rescanMillis);
+                } else {
+                    WatchKey key = watcher.poll(rescanMillis, TimeUnit.MILLISECONDS);
+                    long deadline = System.currentTimeMillis() + MAX_DELAY_MILLIS;
+                    while (key != null) {
+                        // Overflow or not, the rescan below finds every change
+                        key.pollEvents();
+                        key.reset();
+                        key = System.currentTimeMillis() < deadline
+                                ? watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS) : null;
+                    }
+                }
+                rescan();
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // the catalog was closed
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Save catalog stopped updating");
+        }
+    }
+
+    /**
+     * Walks the pets directory, reading the save files that are new or changed since the
+     * catalog last saw them and dropping the saves that are gone.
+     *
+     * @throws IOException If the directory could not be walked.
+     */
+    private void rescan() throws IOException {
+        long started = System.currentTimeMillis();
+        Set<String> found = new HashSet<>();
+        try (Stream<Path> paths = Files.walk(petsDirectory)) {
+            for (Path file : (Iterable<Path>) paths::iterator) {
+                String saveFile = file.getFileName().toString();
+                if (!saveFile.endsWith(".txt") || !Files.isRegularFile(file)) {
+                    continue;
+                }
+                found.add(saveFile);
+                SaveSummary known = summaries.get(saveFile);
+                if (known == null || lastModified(file) > known.lastSaved()) {
+                    refresh(file);
+                }
+            }
+        }
+        // Saves made through the repository during the walk may not have been walked past
+        summaries.values().removeIf(summary -> !found.contains(summary.saveFile()) && summary.lastSaved() < started);
+    }
+
+    /**
+     * Get when a file was last modified.
+     *
+     * @param file The file.
+     * @return The time in milliseconds since the epoch, or zero if the file is gone.
+     */
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Reads a changed save file into the catalog, or removes it if it is gone.
+     *
+     * @param file The save file.
+     */
+    private void refresh(Path file) {
+        String saveFile = file.getFileName().toString();
+        try {
+            if (!Files.exists(file)) {
+                summaries.remove(saveFile);
+                return;
+            }
+            Pet pet = new Pet(file, reader);
+            if (pet.getName() == null || pet.getType() == null) {
+                return; // not a pet save
+            }
+            summaries.put(saveFile, SaveSummary.of(pet, saveFile, Files.getLastModifiedTime(file).toMillis()));
+        } catch (IOException e) {
+            // deleted while being read; a delete event follows
+            summaries.remove(saveFile);
+        } catch (RuntimeException e) {
+            System.err.println("Dropping unreadable save " + saveFile + " from the catalog: " + e.getMessage());
+            summaries.remove(saveFile);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveCatalogTest {
+
+    @Test
+    void testFollowsSavesWrittenAndDeletedOnDisk() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        TextPetRepository repository = new TextPetRepository(saveDirectory);
+        repository.saveAs(new Pet("Buddy", "Dog"), "dog_a_save.txt");
+
+        try (SaveCatalog catalog = new SaveCatalog(saveDirectory, repository, 100)) {
+            catalog.start();
+            assertEquals("Buddy", catalog.find("dog_a_save.txt").name());
+
+            // Written by "another process": a second repository over the same directory
+            new TextPetRepository(saveDirectory).saveAs(new Pet("Tom", "Cat"), "cat_b_save.txt");
+            assertTrue(eventually(() -> catalog.find("cat_b_save.txt") != null));
+            assertEquals("Tom", catalog.find("cat_b_save.txt").name());
+
+            Files.delete(new SaveLayout(saveDirectory).path("dog_a_save.txt"));
+            assertTrue(eventually(() -> catalog.find("dog_a_save.txt") == null));
+            assertEquals(1, catalog.size());
+        }
+    }
+
+    @Test
+    void testFollowsTheRepositoryWithoutWaitingForTheDisk() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        TextPetRepository repository = new TextPetRepository(saveDirectory);
+
+        try (SaveCatalog catalog = new SaveCatalog(saveDirectory, repository, TimeUnit.HOURS.toMillis(1))) {
+            catalog.start();
+            repository.saveAs(new Pet("Buddy", "Dog"), "dog_a_save.txt");
+            assertEquals("Buddy", catalog.find("dog_a_save.txt").name());
+
+            repository.patch("dog_a_save.txt", Map.of("health", "0"));
+            assertEquals(0, catalog.find("dog_a_save.txt").health());
+
+            repository.delete("dog_a_save.txt");
+            assertNull(catalog.find("dog_a_save.txt"));
+        }
+    }
+
+    private static boolean eventually(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 100 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(50);
+        }
+        return condition.getAsBoolean();
+    }
+}
@@ -0,0 +1,84 @@
+package group02;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * Decides where a pet's save file lives. Pet saves are spread over two levels of
+ * subdirectories picked by a hash of the save file name (e.g. saves/pets/3f/a2/dog_x_save.txt),
+ * so no directory holds more than a handful of files even with hundreds of thousands of pets.
+ */
+public class SaveLayout {
+    /** Name of the directory holding the sharded pet saves, inside the save directory */
+    public static final String PETS_DIRECTORY = "pets";
+
+    /** The directory holding the sharded pet saves */
+    private final Path petsDirectory;
+
+    /**
+     * Creates the layout for the saves in the given directory.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public SaveLayout(Path saveDirectory) {
+        this.petsDirectory = saveDirectory.resolve(PETS_DIRECTORY);
+    }
+
+    /**
+     * Get the path of a pet's save file. Only the name is hashed, so no disk access is needed.
+     *
+     * @param saveFile The save file name.
+     * @return The path of the save file in its shard.
+     */
+    public Path path(String saveFile) {
+        return shard(petsDirectory, saveFile);
+    }
+
+    /**
+     * Get the path of a file or directory named after a save file, sharded the same way
+     * below another directory, e.g. to keep per-pet data next to the saves.
+     *
+     * @param root The directory holding the shards.
+     * @param saveFile The save file name.
+     * @return The path in its shard.
+     */
+    public static Path shard(Path root, String saveFile) {
+        int hash = hash(saveFile);
+        return root.resolve(hex(hash & 0xFF)).resolve(hex((hash >>> 8) & 0xFF)).resolve(saveFile);
+    }
+
+    /**
+     * Get the directory holding every shard.
+     *
+     * @return The pets directory.
+     */
+    public Path getPetsDirectory() {
+        return petsDirectory;
+    }
+
+    /**
+     * Hashes a save file name with 32-bit FNV-1a over its UTF-8 bytes. Unlike String.hashCode,
+     * the spread of the low bits is good enough to use them directly as shard numbers.
+     *
+     * @param saveFile The save file name.
+     * @return The hash.
+     */
+    static int hash(String saveFile) {
+        int hash = 0x811C9DC5;
+        for (byte b : saveFile.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xFF;
+            hash *= 0x01000193;
+        }
+        return hash;
+    }
+
+    /**
+     * Formats a shard number as two lowercase hex digits.
+     *
+     * @param shard The shard number, 0 to 255.
+     * @return The shard directory name.
+     */
+    private static String hex(int shard) {
+        return Character.forDigit(shard >>> 4, 16) + "" + Character.forDigit(shard & 0xF, 16);
+    }
+}
@@ -0,0 +1,96 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Moves pet saves from the old flat save directory into the sharded layout. Running it
+ * again does nothing, so it is safe to run at every startup; it only lists the top level
+ * of the save directory, which stays small once the saves have been moved. A flat save
+ * whose sharded save already exists and is at least as new is renamed with OLD_SUFFIX
+ * rather than moved over it.
+ * Can also be run on its own: java group02.SaveLayoutMigrator [saveDirectory]
+ */
+public class SaveLayoutMigrator {
+    /** Suffix given to a flat save left behind because its sharded save is newer */
+    public static final String OLD_SUFFIX = ".old";
+
+    /**
+     * Migrates the save directory given on the command line, or saves/ by default.
+     *
+     * @param args The save directory, optional.
+     */
+    public static void main(String[] args) {
+        Path saveDirectory = Paths.get(args.length > 0 ? args[0] : GameState.SAVE_DIRECTORY);
+        try {
+            int moved = migrate(saveDirectory);
+            System.out.println("Moved " + moved + " pet saves into " + saveDirectory.resolve(SaveLayout.PETS_DIRECTORY));
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to migrate " + saveDirectory);
+        }
+    }
+
+    /**
+     * Moves every flat pet save in the save directory to its shard.
+     *
+     * @param saveDirectory The save directory.
+     * @return The number of saves moved.
+     * @throws IOException If the directory could not be listed or a save could not be moved.
+     */
+    public static int migrate(Path saveDirectory) throws IOException {
+        if (!Files.isDirectory(saveDirectory)) {
+            return 0;
+        }
+        SaveLayout layout = new SaveLayout(saveDirectory);
+        int moved = 0;
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(saveDirectory, "*.txt")) {
+            for (Path entry : entries) {
+                if (!isPetSave(entry)) {
+                    continue;
+                }
+                Path target = layout.path(entry.getFileName().toString());
+                if (Files.exists(target)
+                        && Files.getLastModifiedTime(target).compareTo(Files.getLastModifiedTime(entry)) >= 0) {
+                    // The sharded save is at least as new, so set the flat copy aside instead of overwriting it
+                    Files.move(entry, entry.resolveSibling(entry.getFileName() + OLD_SUFFIX),
+                            StandardCopyOption.REPLACE_EXISTING);
+                    System.err.println("Kept the newer sharded save of " + entry.getFileName()
+                            + ", the flat copy is now " + entry.getFileName() + OLD_SUFFIX);
+                    continue;
+                }
+                Files.createDirectories(target.getParent());
+                Files.move(entry, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                moved++;
+            }
+        }
+        return moved;
+    }
+
+    /**
+     * Checks if a file in the save directory is a pet save, i.e. a key=value file with a
+     * pet type, as opposed to the settings or manifest. Version 0 saves name the type
+     * petType; SaveSchema upgrades them when they are loaded from the shard.
+     *
+     * @param file The file to check.
+     * @return true if the file is a pet save, false otherwise.
+     * @throws IOException If the file could not be read.
+     */
+    private static boolean isPetSave(Path file) throws IOException {
+        String name = file.getFileName().toString();
+        if (!Files.isRegularFile(file) || name.equals(GameState.SETTINGS_FILE) || name.equals(SaveManifest.MANIFEST_FILE)) {
+            return false;
+        }
+        KeyValueReader reader = KeyValueReader.read(file);
+        while (reader.next()) {
+            if (reader.keyEquals("type") || reader.keyEquals("petType")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
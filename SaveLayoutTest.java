@@ -0,0 +1,68 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveLayoutTest {
+
+    @Test
+    void testPathsAreShardedTwoLevelsDeep() {
+        SaveLayout layout = new SaveLayout(Path.of("saves"));
+        Path path = layout.path("dog_abc_save.txt");
+
+        assertEquals(layout.getPetsDirectory(), path.getParent().getParent().getParent());
+        assertEquals("dog_abc_save.txt", path.getFileName().toString());
+        assertEquals(path, layout.path("dog_abc_save.txt"));
+    }
+
+    @Test
+    void testMigratorMovesOnlyPetSaves() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Files.writeString(saveDirectory.resolve("dog_save.txt"), "name=Buddy\ntype=DOG\n");
+        Files.writeString(saveDirectory.resolve(GameState.SETTINGS_FILE), "dailyTimeLimit=60\n");
+
+        assertEquals(1, SaveLayoutMigrator.migrate(saveDirectory));
+        assertEquals(0, SaveLayoutMigrator.migrate(saveDirectory));
+
+        assertTrue(Files.exists(new SaveLayout(saveDirectory).path("dog_save.txt")));
+        assertFalse(Files.exists(saveDirectory.resolve("dog_save.txt")));
+        assertTrue(Files.exists(saveDirectory.resolve(GameState.SETTINGS_FILE)));
+        assertEquals("Buddy", new TextPetRepository(saveDirectory).load("dog_save.txt").getName());
+    }
+
+    @Test
+    void testMigratorMovesVersionZeroSaves() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Files.writeString(saveDirectory.resolve("cat_save.txt"),
+                "version=0\nplayerName=hawk\npetName=Buddy\npetType=CAT\nhealth=50\n");
+
+        assertEquals(1, SaveLayoutMigrator.migrate(saveDirectory));
+
+        assertFalse(Files.exists(saveDirectory.resolve("cat_save.txt")));
+        Pet pet = new TextPetRepository(saveDirectory).load("cat_save.txt");
+        assertEquals("Buddy", pet.getName());
+        assertEquals("CAT", pet.getType());
+        assertEquals(50, pet.getHealth());
+    }
+
+    @Test
+    void testMigratorKeepsNewerShardedSave() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Path sharded = new SaveLayout(saveDirectory).path("dog_save.txt");
+        Files.createDirectories(sharded.getParent());
+        Files.writeString(sharded, "name=Buddy\ntype=DOG\nhealth=40\n");
+        Path flat = saveDirectory.resolve("dog_save.txt");
+        Files.writeString(flat, "name=Buddy\ntype=DOG\nhealth=100\n");
+        Files.setLastModifiedTime(flat, java.nio.file.attribute.FileTime.fromMillis(0));
+
+        assertEquals(0, SaveLayoutMigrator.migrate(saveDirectory));
+
+        assertEquals(40, new TextPetRepository(saveDirectory).load("dog_save.txt").getHealth());
+        assertFalse(Files.exists(flat));
+        assertTrue(Files.exists(saveDirectory.resolve("dog_save.txt" + SaveLayoutMigrator.OLD_SUFFIX)));
+    }
+}
@@ -0,0 +1,377 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Index of every pet save, holding one fixed-length summary record per save file.
+ * Records are RECORD_LENGTH bytes of tab-separated text padded with spaces.
+ *
+ * The manifest is read once, the first time it is used, into an in-memory index, so
+ * looking up, counting and listing saves never touch the file again. Every change updates
+ * the index and then writes only the records it changed, in place at their slots, so a
+ * save costs the same however many pets there are. A record is a fraction of a page and
+ * written with one call; one that is torn anyway is dropped when the manifest is read.
+ * The whole file is only rewritten, to a temporary file moved into place, when it is
+ * built from the saves on disk or compacted after damaged or repeated records were read.
+ * Callers update the manifest after writing the save it describes.
+ */
+public class SaveManifest {
+    /** Name of the manifest file inside the save directory */
+    public static final String MANIFEST_FILE = "manifest.txt";
+    /** Length of each record in bytes, including the trailing newline. Divides the 4 KB page size. */
+    public static final int RECORD_LENGTH = 256;
+    /** Longest pet name kept in a record */
+    private static final int MAX_NAME_LENGTH = 40;
+
+    /** The directory holding the save files */
+    private final Path saveDirectory;
+    /** The manifest file */
+    private final Path manifestFile;
+    /** Every summary, in record order, loaded on first use */
+    private List<SaveSummary> records;
+    /** Record slot of each save file, loaded on first use */
+    private Map<String, Integer> slots;
+
+    /**
+     * Creates a manifest for the saves in the given directory.
+     *
+     * @param saveDirectory The directory holding the save files.
+     */
+    public SaveManifest(Path saveDirectory) {
+        this.saveDirectory = saveDirectory;
+        this.manifestFile = saveDirectory.resolve(MANIFEST_FILE);
+    }
+
+    /**
+     * Writes the summary of a save into its record, adding a record if the save is new.
+     *
+     * @param summary The summary to write.
+     * @throws IOException If the manifest could not be written.
+     */
+    public synchronized void update(SaveSummary summary) throws IOException {
+        updateAll(List.of(summary));
+    }
+
+    /**
+     * Writes the summaries of many saves, syncing the manifest only once.
+     *
+     * @param summaries The summaries to write.
+     * @throws IOException If the manifest could not be written.
+     */
+    public synchronized void updateAll(Collection<SaveSummary> summaries) throws IOException {
+        load();
+        List<Integer> changed = new ArrayList<>(summaries.size());
+        for (SaveSummary summary : summaries) {
+            encode(summary);
+            Integer slot = slots.get(summary.saveFile());
+            if (slot == null) {
+                slot = records.size();
+                slots.put(summary.saveFile(), slot);
+                records.add(summary);
+            } else {
+                records.set(slot, summary);
+            }
+            changed.add(slot);
+        }
+        try (FileChannel channel = openForWrite()) {
+            for (int slot : changed) {
+                writeSlot(channel, slot);
+            }
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Removes the record of a save file. The last record is moved into its slot so that
+     * the manifest never has gaps.
+     *
+     * @param saveFile The save file to remove.
+     * @throws IOException If the manifest could not be written.
+     */
+    public synchronized void remove(String saveFile) throws IOException {
+        load();
+        Integer slot = slots.remove(saveFile);
+        if (slot == null) {
+            return;
+        }
+        SaveSummary last = records.remove(records.size() - 1);
+        try (FileChannel channel = openForWrite()) {
+            if (slot < records.size()) {
+                records.set(slot, last);
+                slots.put(last.saveFile(), slot);
+                writeSlot(channel, slot);
+            }
+            // A crash before the truncate leaves the moved record twice, which reading merges
+            channel.truncate((long) records.size() * RECORD_LENGTH);
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Checks if the manifest has a record of a save file.
+     *
+     * @param saveFile The save file to look up.
+     * @return true if the save file is in the manifest, false otherwise.
+     * @throws IOException If the manifest could not be read.
+     */
+    public synchronized boolean contains(String saveFile) throws IOException {
+        load();
+        return slots.containsKey(saveFile);
+    }
+
+    /**
+     * Finds the summary of a save file.
+     *
+     * @param saveFile The save file to look up.
+     * @return The save's summary, or null if the manifest has no record of it.
+     * @throws IOException If the manifest could not be read.
+     */
+    public synchronized SaveSummary find(String saveFile) throws IOException {
+        load();
+        Integer slot = slots.get(saveFile);
+        return slot == null ? null : records.get(slot);
+    }
+
+    /**
+     * Reads every summary in the manifest.
+     *
+     * @return The summaries in record order.
+     * @throws IOException If the manifest could not be read.
+     */
+    public synchronized List<SaveSummary> readAll() throws IOException {
+        return read(0, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Reads a range of records.
+     *
+     * @param firstSlot The first record slot to read.
+     * @param count The maximum number of records to read.
+     * @return The summaries found in the range.
+     * @throws IOException If the manifest could not be read.
+     */
+    public synchronized List<SaveSummary> read(int firstSlot, int count) throws IOException {
+        load();
+        int from = Math.min(Math.max(firstSlot, 0), records.size());
+        int to = (int) Math.min(records.size(), (long) from + count);
+        return new ArrayList<>(records.subList(from, to));
+    }
+
+    /**
+     * Get the number of records in the manifest.
+     *
+     * @return The number of records.
+     * @throws IOException If the manifest could not be read.
+     */
+    public synchronized int slotCount() throws IOException {
+        load();
+        return records.size();
+    }
+
+    /**
+     * Reads the manifest into the in-memory index the first time it is needed, building
+     * it from the save files on disk if it does not exist yet. Damaged and repeated records
+     * are dropped and the file compacted, so every record's slot matches the index.
+     *
+     * @throws IOException If the manifest could not be read.
+     */
+    private void load() throws IOException {
+        if (records != null) {
+            return;
+        }
+        if (!Files.exists(manifestFile)) {
+            build();
+            return;
+        }
+        byte[] bytes = Files.readAllBytes(manifestFile);
+        List<SaveSummary> loaded = new ArrayList<>(bytes.length / RECORD_LENGTH);
+        Map<String, Integer> index = new HashMap<>();
+        boolean compact = bytes.length % RECORD_LENGTH != 0;
+        for (int offset = 0; offset + RECORD_LENGTH <= bytes.length; offset += RECORD_LENGTH) {
+            SaveSummary summary = decode(bytes, offset);
+            if (summary == null) {
+                compact = true;
+                continue;
+            }
+            Integer slot = index.get(summary.saveFile());
+            if (slot == null) {
+                index.put(summary.saveFile(), loaded.size());
+                loaded.add(summary);
+            } else {
+                loaded.set(slot, summary);
+                compact = true;
+            }
+        }
+        records = loaded;
+        slots = index;
+        if (compact) {
+            rewrite();
+        }
+    }
+
+    /**
+     * Opens the manifest for writing records in place.
+     *
+     * @return The open channel.
+     * @throws IOException If the manifest could not be opened.
+     */
+    private FileChannel openForWrite() throws IOException {
+        Files.createDirectories(saveDirectory);
+        return FileChannel.open(manifestFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * Writes one record at its slot.
+     *
+     * @param channel The open manifest.
+     * @param slot The record's slot.
+     * @throws IOException If the record could not be written.
+     */
+    private void writeSlot(FileChannel channel, int slot) throws IOException {
+        ByteBuffer record = ByteBuffer.wrap(encode(records.get(slot)));
+        long position = (long) slot * RECORD_LENGTH;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+    }
+
+    /**
+     * Writes every record to a temporary file and moves it over the manifest.
+     *
+     * @throws IOException If the manifest could not be written.
+     */
+    private void rewrite() throws IOException {
+        Files.createDirectories(saveDirectory);
+        byte[] bytes = new byte[records.size() * RECORD_LENGTH];
+        for (int slot = 0; slot < records.size(); slot++) {
+            System.arraycopy(encode(records.get(slot)), 0, bytes, slot * RECORD_LENGTH, RECORD_LENGTH);
+        }
+        Path tempFile = manifestFile.resolveSibling(MANIFEST_FILE + ".tmp");
+        Files.write(tempFile, bytes);
+        Files.move(tempFile, manifestFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Builds the manifest from the save files already on disk.
+     *
+     * @throws IOException If a save file could not be read or the manifest could not be written.
+     */
+    private void build() throws IOException {
+        // Filled in locally, so a save that cannot be read leaves no half-built index behind
+        List<SaveSummary> built = new ArrayList<>();
+        Map<String, Integer> builtSlots = new HashMap<>();
+        Path petsDirectory = saveDirectory.resolve(SaveLayout.PETS_DIRECTORY);
+        if (Files.isDirectory(petsDirectory)) {
+            List<Path> saveFiles = new ArrayList<>();
+            try (Stream<Path> files = Files.walk(petsDirectory)) {
+                files.filter(file -> file.toString().endsWith(".txt") && Files.isRegularFile(file)).forEach(saveFiles::add);
+            }
+            KeyValueReader reader = new KeyValueReader();
+            for (Path saveFile : saveFiles) {
+                Pet pet = new Pet(saveFile, reader);
+                long lastSaved = Files.getLastModifiedTime(saveFile).toMillis();
+                builtSlots.put(saveFile.getFileName().toString(), built.size());
+                built.add(SaveSummary.of(pet, saveFile.getFileName().toString(), lastSaved));
+            }
+        }
+        records = built;
+        slots = builtSlots;
+        rewrite();
+    }
+
+    /**
+     * Encodes a summary as a fixed-length record.
+     *
+     * @param summary The summary to encode.
+     * @return The record bytes.
+     */
+    static byte[] encode(SaveSummary summary) {
+        String name = clean(summary.name());
+        if (name.length() > MAX_NAME_LENGTH) {
+            name = name.substring(0, MAX_NAME_LENGTH);
+        }
+
+        byte[] text = encodeLine(summary, name);
+        while (text.length > RECORD_LENGTH - 1 && !name.isEmpty()) {
+            // Shorten the name until the record fits
+            name = name.substring(0, name.length() - 1);
+            text = encodeLine(summary, name);
+        }
+        if (text.length > RECORD_LENGTH - 1) {
+            throw new IllegalArgumentException("Save summary too long for a manifest record: " + summary.saveFile());
+        }
+
+        byte[] record = new byte[RECORD_LENGTH];
+        System.arraycopy(text, 0, record, 0, text.length);
+        for (int i = text.length; i < RECORD_LENGTH - 1; i++) {
+            record[i] = ' ';
+        }
+        record[RECORD_LENGTH - 1] = '\n';
+        return record;
+    }
+
+    /**
+     * Encodes the fields of a summary as one tab-separated line.
+     *
+     * @param summary The summary to encode.
+     * @param name The pet name to write in place of the summary's name.
+     * @return The line's UTF-8 bytes.
+     */
+    private static byte[] encodeLine(SaveSummary summary, String name) {
+        String line = String.join("\t", clean(summary.saveFile()), name, clean(summary.type()),
+                String.valueOf(summary.maxHealth()), String.valueOf(summary.health()),
+                String.valueOf(summary.energy()), String.valueOf(summary.fullness()),
+                String.valueOf(summary.happiness()), String.valueOf(summary.currency()),
+                String.valueOf(summary.score()), String.valueOf(summary.lastSaved()));
+        return line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the record starting at the given offset.
+     *
+     * @param bytes The manifest bytes.
+     * @param offset The start of the record.
+     * @return The summary, or null if the record is damaged.
+     */
+    static SaveSummary decode(byte[] bytes, int offset) {
+        String line = new String(bytes, offset, RECORD_LENGTH, StandardCharsets.UTF_8).strip();
+        if (line.isEmpty()) {
+            return null;
+        }
+        String[] parts = line.split("\t");
+        if (parts.length != 11) {
+            return null;
+        }
+        try {
+            return new SaveSummary(parts[0], parts[1], parts[2],
+                    Integer.parseInt(parts[3]), Integer.parseInt(parts[4]), Integer.parseInt(parts[5]),
+                    Integer.parseInt(parts[6]), Integer.parseInt(parts[7]), Integer.parseInt(parts[8]),
+                    Integer.parseInt(parts[9]), Long.parseLong(parts[10]));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Replaces characters that would break a record's layout.
+     *
+     * @param text The text to clean.
+     * @return The text with tabs and line breaks replaced by spaces.
+     */
+    private static String clean(String text) {
+        return text == null ? "" : text.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+}
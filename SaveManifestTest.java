@@ -0,0 +1,122 @@
+package group02;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveManifestTest {
+    private Path saveDirectory;
+    private SaveManifest manifest;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        saveDirectory = Files.createTempDirectory("saves");
+        manifest = new SaveManifest(saveDirectory);
+    }
+
+    private SaveSummary summary(String saveFile, String name, int health) {
+        return new SaveSummary(saveFile, name, "DOG", 100, health, 90, 80, 70, 60, 50, 1234L);
+    }
+
+    @Test
+    void testUpdateRewritesRecordInPlace() throws Exception {
+        manifest.update(summary("a_save.txt", "Buddy", 100));
+        manifest.update(summary("b_save.txt", "Rex", 100));
+        manifest.update(summary("a_save.txt", "Buddy", 40));
+
+        assertEquals(2, manifest.slotCount());
+        assertEquals(40, manifest.find("a_save.txt").health());
+        assertEquals(2 * SaveManifest.RECORD_LENGTH, Files.size(saveDirectory.resolve(SaveManifest.MANIFEST_FILE)));
+    }
+
+    @Test
+    void testReadsRangeOfRecords() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            manifest.update(summary("pet" + i + "_save.txt", "Pet " + i, 100));
+        }
+
+        assertEquals("Pet 2", manifest.read(2, 2).get(0).name());
+        assertEquals(2, manifest.read(2, 2).size());
+        assertEquals(5, new SaveManifest(saveDirectory).readAll().size());
+    }
+
+    @Test
+    void testLongNamesAreShortened() throws Exception {
+        manifest.update(summary("a_save.txt", "é".repeat(200) + "\tx", 100));
+
+        SaveSummary found = new SaveManifest(saveDirectory).find("a_save.txt");
+        assertNotNull(found);
+        assertTrue(found.name().length() <= 40);
+    }
+
+    @Test
+    void testRemoveKeepsRecordsDense() throws Exception {
+        manifest.update(summary("a_save.txt", "A", 100));
+        manifest.update(summary("b_save.txt", "B", 100));
+        manifest.update(summary("c_save.txt", "C", 100));
+
+        manifest.remove("a_save.txt");
+        manifest.update(summary("c_save.txt", "C", 10));
+
+        assertEquals(2, manifest.slotCount());
+        assertFalse(manifest.contains("a_save.txt"));
+        assertEquals(10, new SaveManifest(saveDirectory).find("c_save.txt").health());
+    }
+
+    @Test
+    void testLookupsUseInMemoryIndex() throws Exception {
+        manifest.update(summary("a_save.txt", "A", 100));
+        Path manifestFile = saveDirectory.resolve(SaveManifest.MANIFEST_FILE);
+        byte[] written = Files.readAllBytes(manifestFile);
+        Files.writeString(manifestFile, "damaged");
+
+        assertEquals("A", manifest.find("a_save.txt").name());
+        assertEquals(1, manifest.slotCount());
+
+        manifest.update(summary("b_save.txt", "B", 100));
+        assertEquals(2 * SaveManifest.RECORD_LENGTH, Files.size(manifestFile));
+        assertFalse(Files.exists(saveDirectory.resolve(SaveManifest.MANIFEST_FILE + ".tmp")));
+        assertEquals(written.length, SaveManifest.RECORD_LENGTH);
+    }
+
+    @Test
+    void testUpdateWritesOnlyItsRecord() throws Exception {
+        manifest.update(summary("a_save.txt", "A", 100));
+        manifest.update(summary("b_save.txt", "B", 100));
+        Path manifestFile = saveDirectory.resolve(SaveManifest.MANIFEST_FILE);
+        // Mark the first record, which an update of the second must leave alone
+        byte[] bytes = Files.readAllBytes(manifestFile);
+        bytes[SaveManifest.RECORD_LENGTH - 2] = '#';
+        Files.write(manifestFile, bytes);
+
+        manifest.update(summary("b_save.txt", "B", 50));
+        bytes = Files.readAllBytes(manifestFile);
+        assertEquals('#', bytes[SaveManifest.RECORD_LENGTH - 2]);
+        assertEquals(2 * SaveManifest.RECORD_LENGTH, bytes.length);
+        assertEquals(50, new SaveManifest(saveDirectory).find("b_save.txt").health());
+    }
+
+    @Test
+    void testDamagedRecordIsCompactedAway() throws Exception {
+        manifest.update(summary("a_save.txt", "A", 100));
+        manifest.update(summary("b_save.txt", "B", 100));
+        manifest.update(summary("c_save.txt", "C", 100));
+        Path manifestFile = saveDirectory.resolve(SaveManifest.MANIFEST_FILE);
+        byte[] bytes = Files.readAllBytes(manifestFile);
+        // Blank out the second record, as a torn write would
+        Arrays.fill(bytes, SaveManifest.RECORD_LENGTH, 2 * SaveManifest.RECORD_LENGTH - 1, (byte) ' ');
+        Files.write(manifestFile, bytes);
+
+        SaveManifest reopened = new SaveManifest(saveDirectory);
+        assertEquals(2, reopened.slotCount());
+        reopened.update(summary("c_save.txt", "C", 10));
+        assertEquals(2 * SaveManifest.RECORD_LENGTH, Files.size(manifestFile));
+        assertEquals(10, new SaveManifest(saveDirectory).find("c_save.txt").health());
+        assertEquals("A", new SaveManifest(saveDirectory).find("a_save.txt").name());
+    }
+}
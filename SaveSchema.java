@@ -0,0 +1,136 @@
+package group02;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+/**
+ * The versions of the pet save format and the migrations between them. Every snapshot
+ * starts with a "version=" line. Older records are upgraded in memory when they are read,
+ * one version at a time, and are written back in the current form the next time the pet
+ * is saved, so a format change never needs the whole store rewritten at once.
+ *
+ * Version 0 is the layout written by GameState.saveToFile: petName, petType,
+ * inventory_ item keys and player statistics mixed in. Version 1 is the original save
+ * file, without a version line, where every key that is not a pet field is an item.
+ * Version 2 adds the version line and writes items as "item." keys, so unknown keys are
+ * no longer mistaken for items.
+ */
+public final class SaveSchema {
+    /** Key of the line holding a record's format version */
+    public static final String VERSION_KEY = "version";
+    /** The version written by this game */
+    public static final int CURRENT_VERSION = 2;
+    /** Prefix of inventory keys from version 2 on */
+    public static final String ITEM_PREFIX = "item.";
+
+    /** Keys of version 0 records that are player statistics, not part of the pet */
+    private static final List<String> VERSION_0_PLAYER_KEYS = List.of(
+            "playerName", "totalPlayTime", "totalPlaySessions", "totalFeedings", "totalVetVisits");
+
+    /** Migrations indexed by the version they upgrade from; each returns the next version */
+    private static final List<UnaryOperator<Map<String, String>>> MIGRATIONS = List.of(
+            SaveSchema::fromVersion0,
+            SaveSchema::fromVersion1);
+
+    /** Not instantiable */
+    private SaveSchema() {
+    }
+
+    /**
+     * Works out the format version of a record.
+     *
+     * @param record The record's keys and values.
+     * @return The version.
+     * @throws IllegalArgumentException If the version line is not a number.
+     */
+    public static int versionOf(Map<String, String> record) {
+        String version = record.get(VERSION_KEY);
+        if (version != null) {
+            try {
+                return Integer.parseInt(version.trim());
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid save format version: " + version);
+            }
+        }
+        return record.containsKey("petName") || record.containsKey("petType") ? 0 : 1;
+    }
+
+    /**
+     * Upgrades a record to the current version.
+     *
+     * @param record The record's keys and values, later lines already applied over earlier ones.
+     * @return The record in the current version, starting with its version line.
+     * @throws IllegalArgumentException If the record was written by a newer game.
+     */
+    public static Map<String, String> upgrade(Map<String, String> record) {
+        int version = versionOf(record);
+        if (version > CURRENT_VERSION) {
+            throw new IllegalArgumentException("Save format version " + version
+                    + " is newer than this game supports (" + CURRENT_VERSION + ")");
+        }
+        Map<String, String> upgraded = record;
+        for (int from = version; from < CURRENT_VERSION; from++) {
+            upgraded = MIGRATIONS.get(from).apply(upgraded);
+        }
+        Map<String, String> current = new LinkedHashMap<>();
+        current.put(VERSION_KEY, String.valueOf(CURRENT_VERSION));
+        upgraded.forEach(current::putIfAbsent);
+        return current;
+    }
+
+    /**
+     * Writes a record in the key=value form of a save file.
+     *
+     * @param record The record's keys and values.
+     * @return The save file lines.
+     */
+    public static String toText(Map<String, String> record) {
+        StringBuilder text = new StringBuilder(256);
+        record.forEach((key, value) -> text.append(key).append('=').append(value).append(System.lineSeparator()));
+        return text.toString();
+    }
+
+    /**
+     * Upgrades an export written by GameState.saveToFile to the original save layout.
+     *
+     * @param record A version 0 record.
+     * @return The version 1 record.
+     */
+    private static Map<String, String> fromVersion0(Map<String, String> record) {
+        Map<String, String> upgraded = new LinkedHashMap<>();
+        record.forEach((key, value) -> {
+            if (VERSION_0_PLAYER_KEYS.contains(key) || key.equals(VERSION_KEY)) {
+                return;
+            }
+            switch (key) {
+                case "petName" -> upgraded.put("name", value);
+                case "petType" -> upgraded.put("type", value);
+                default -> upgraded.put(key.startsWith("inventory_") ? key.substring("inventory_".length()) : key, value);
+            }
+        });
+        return upgraded;
+    }
+
+    /**
+     * Adds the item prefix to inventory keys. Keys already carrying it were appended by a
+     * patch written after the upgrade and are kept as they are.
+     *
+     * @param record A version 1 record.
+     * @return The version 2 record.
+     */
+    private static Map<String, String> fromVersion1(Map<String, String> record) {
+        Map<String, String> upgraded = new LinkedHashMap<>();
+        record.forEach((key, value) -> {
+            if (key.equals(VERSION_KEY)) {
+                return;
+            }
+            String upgradedKey = Pet.getFieldIndex(key) >= 0 || key.startsWith(ITEM_PREFIX) ? key : ITEM_PREFIX + key;
+            // A later line for the same item wins
+            upgraded.remove(upgradedKey);
+            upgraded.put(upgradedKey, value);
+        });
+        return upgraded;
+    }
+}
@@ -0,0 +1,63 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SaveSchemaTest {
+
+    @Test
+    void testOriginalSavesAreUpgradedOnRead() throws Exception {
+        Path saveFile = Files.createTempDirectory("saves").resolve("dog_save.txt");
+        Files.writeString(saveFile, "name=Buddy\ntype=DOG\nhealth=80\nKibble=3\nhealth=70\n");
+
+        Pet pet = new Pet(saveFile);
+
+        assertEquals("Buddy", pet.getName());
+        assertEquals(70, pet.getHealth());
+        assertEquals(3, pet.getItemCount("Kibble"));
+        assertTrue(pet.isSchemaUpgraded());
+    }
+
+    @Test
+    void testExportLayoutIsUpgradedOnRead() throws Exception {
+        Path saveFile = Files.createTempDirectory("saves").resolve("export.txt");
+        Files.writeString(saveFile, "version=0\nplayerName=hawk\npetName=Buddy\npetType=CAT\nhealth=50\n"
+                + "inventory_Treats=4\ntotalFeedings=333\n");
+
+        Pet pet = new Pet(saveFile);
+
+        assertEquals("Buddy", pet.getName());
+        assertEquals("CAT", pet.getType());
+        assertEquals(4, pet.getItemCount("Treats"));
+        assertEquals(1, pet.getInventory().size());
+    }
+
+    @Test
+    void testUpgradedSaveIsRewrittenAtNextSave() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Path saveFile = new SaveLayout(saveDirectory).path("dog_save.txt");
+        Files.createDirectories(saveFile.getParent());
+        Files.writeString(saveFile, "name=Buddy\ntype=DOG\ncreationDate=2024-01-01\nKibble=3\n");
+        TextPetRepository repository = new TextPetRepository(saveDirectory);
+
+        Pet pet = repository.load("dog_save.txt");
+        pet.setEnergy(10);
+        repository.save(pet);
+
+        assertTrue(Files.readString(saveFile).startsWith("version=" + SaveSchema.CURRENT_VERSION));
+        Pet reloaded = repository.load("dog_save.txt");
+        assertFalse(reloaded.isSchemaUpgraded());
+        assertEquals(10, reloaded.getEnergy());
+        assertEquals(3, reloaded.getItemCount("Kibble"));
+    }
+
+    @Test
+    void testNewerVersionsAreRejected() {
+        assertThrows(IllegalArgumentException.class,
+                () -> SaveSchema.upgrade(java.util.Map.of("version", String.valueOf(SaveSchema.CURRENT_VERSION + 1))));
+    }
+}
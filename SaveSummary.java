@@ -0,0 +1,71 @@
+package group02;
+
+import java.util.Map;
+
+/**
+ * Summary of a saved pet, holding just what the load screen needs to display a save slot.
+ *
+ * @param saveFile The save file the pet is stored in.
+ * @param name The pet's name.
+ * @param type The pet's type (e.g., DOG, BUNNY, CAT).
+ * @param maxHealth The pet's maximum health.
+ * @param health The pet's health.
+ * @param energy The pet's energy.
+ * @param fullness The pet's fullness.
+ * @param happiness The pet's happiness.
+ * @param currency The pet's currency.
+ * @param score The pet's score.
+ * @param lastSaved When the pet was last saved, in milliseconds since the epoch.
+ */
+public record SaveSummary(String saveFile, String name, String type, int maxHealth, int health, int energy,
+                          int fullness, int happiness, int currency, int score, long lastSaved) {
+
+    /**
+     * Creates a summary of the given pet.
+     *
+     * @param pet The pet to summarise.
+     * @param saveFile The save file the pet is stored in.
+     * @param lastSaved When the pet was saved, in milliseconds since the epoch.
+     * @return The pet's summary.
+     */
+    public static SaveSummary of(Pet pet, String saveFile, long lastSaved) {
+        return new SaveSummary(saveFile, pet.getName(), pet.getType(), pet.getMaxHealth(), pet.getHealth(),
+                pet.getEnergy(), pet.getFullness(), pet.getHappiness(), pet.getCurrency(), pet.getScore(), lastSaved);
+    }
+
+    /**
+     * Creates a copy of this summary with some pet fields replaced, as written by a patch.
+     * Inventory items in the patch are ignored, as summaries do not hold the inventory.
+     *
+     * @param fields The changed fields by save file key, with values as written in a save file.
+     * @param lastSaved When the patch was saved, in milliseconds since the epoch.
+     * @return The patched summary.
+     */
+    public SaveSummary patched(Map<String, String> fields, long lastSaved) {
+        return new SaveSummary(saveFile, fields.getOrDefault("name", name), fields.getOrDefault("type", type),
+                intField(fields, "maxHealth", maxHealth), intField(fields, "health", health),
+                intField(fields, "energy", energy), intField(fields, "fullness", fullness),
+                intField(fields, "happiness", happiness), intField(fields, "currency", currency),
+                intField(fields, "score", score), lastSaved);
+    }
+
+    /**
+     * Reads a whole number field from a patch.
+     *
+     * @param fields The changed fields.
+     * @param key The field's save file key.
+     * @param current The value to keep if the field did not change.
+     * @return The field's value.
+     */
+    private static int intField(Map<String, String> fields, String key, int current) {
+        String value = fields.get(key);
+        return value == null ? current : Integer.parseInt(value);
+    }
+
+    /**
+     * Checks if the summarised pet is alive.
+     *
+     * @return true if the pet's health is above zero, false otherwise.
+     */
+    public boolean isAlive() { return health > 0; }
+}
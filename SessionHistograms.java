@@ -0,0 +1,136 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+
+/**
+ * Distributions of how long sessions last and what time of day the game is played, kept
+ * at a fixed size however many sessions there have been. Each finished session adds its
+ * length to a log-bucketed histogram and its seconds to the hours of the day it spanned.
+ * The distributions are written to histograms.txt as "key=value" lines.
+ */
+public class SessionHistograms {
+    /** Name of the histogram file inside the save directory */
+    public static final String HISTOGRAM_FILE = "histograms.txt";
+    /** Key of the session length histogram */
+    private static final String SESSION_SECONDS_KEY = "sessionSeconds";
+    /** Key of the seconds played per hour of day */
+    private static final String HOUR_SECONDS_KEY = "hourSeconds";
+
+    /** The histogram file */
+    private final Path histogramFile;
+    /** Session lengths, in seconds */
+    private LogHistogram sessionSeconds = new LogHistogram();
+    /** Seconds played in each hour of the day */
+    private final long[] hourSeconds = new long[24];
+
+    /**
+     * Creates empty histograms in the given save directory. Call load to read the recorded ones.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public SessionHistograms(Path saveDirectory) {
+        this.histogramFile = saveDirectory.resolve(HISTOGRAM_FILE);
+    }
+
+    /**
+     * Reads the histograms from the histogram file.
+     *
+     * @throws IOException If the file could not be read.
+     */
+    public synchronized void load() throws IOException {
+        sessionSeconds = new LogHistogram();
+        Arrays.fill(hourSeconds, 0);
+        if (!Files.exists(histogramFile)) {
+            return;
+        }
+        KeyValueReader reader = KeyValueReader.read(histogramFile);
+        while (reader.next()) {
+            try {
+                if (reader.keyEquals(SESSION_SECONDS_KEY)) {
+                    sessionSeconds = LogHistogram.fromText(reader.value());
+                } else if (reader.keyEquals(HOUR_SECONDS_KEY)) {
+                    String[] hours = reader.value().split(",");
+                    for (int hour = 0; hour < Math.min(hours.length, hourSeconds.length); hour++) {
+                        hourSeconds[hour] = Long.parseLong(hours[hour]);
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                System.err.println("Skipping bad histogram line: " + reader.key());
+            }
+        }
+    }
+
+    /**
+     * Adds a finished session to the histograms.
+     *
+     * @param start The wall-clock time the session started.
+     * @param millis The milliseconds played.
+     * @param zone The time zone deciding the hour of day.
+     */
+    public synchronized void recordSession(Instant start, long millis, ZoneId zone) {
+        long seconds = millis / 1000;
+        sessionSeconds.record(seconds);
+
+        // Split the session at each hour boundary it crosses
+        ZonedDateTime time = start.atZone(zone);
+        while (seconds > 0) {
+            ZonedDateTime nextHour = time.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            long part = Math.max(1, Math.min(seconds, Duration.between(time, nextHour).getSeconds()));
+            hourSeconds[time.getHour()] += part;
+            seconds -= part;
+            time = nextHour;
+        }
+    }
+
+    /**
+     * Writes the histograms to the histogram file, replacing it atomically.
+     *
+     * @throws IOException If the file could not be written.
+     */
+    public synchronized void save() throws IOException {
+        StringBuilder hours = new StringBuilder();
+        for (int hour = 0; hour < hourSeconds.length; hour++) {
+            if (hour > 0) {
+                hours.append(',');
+            }
+            hours.append(hourSeconds[hour]);
+        }
+        String text = SESSION_SECONDS_KEY + "=" + sessionSeconds.toText() + System.lineSeparator()
+                + HOUR_SECONDS_KEY + "=" + hours + System.lineSeparator();
+
+        Files.createDirectories(histogramFile.getParent());
+        Path tempFile = histogramFile.resolveSibling(HISTOGRAM_FILE + ".tmp");
+        Files.writeString(tempFile, text, StandardCharsets.UTF_8);
+        Files.move(tempFile, histogramFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Get a copy of the session length histogram, in seconds.
+     *
+     * @return The session lengths.
+     */
+    public synchronized LogHistogram getSessionSeconds() {
+        LogHistogram copy = new LogHistogram();
+        copy.merge(sessionSeconds);
+        return copy;
+    }
+
+    /**
+     * Get a copy of the seconds played in each hour of the day.
+     *
+     * @return The seconds played, indexed by hour 0 to 23.
+     */
+    public synchronized long[] getHourSeconds() {
+        return hourSeconds.clone();
+    }
+}
@@ -4,6 +4,7 @@ import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ComboBox;
 import javafx.scene.control.RadioButton;
 import javafx.scene.control.ToggleGroup;
 import javafx.scene.control.Separator;
@@ -24,6 +25,12 @@ public class SettingsScreen {
     private Scene scene;
     private RadioButton windowedButton;
     private RadioButton fullscreenButton;
+    private ComboBox<String> autosaveInterval;
+
+    /** Autosave intervals offered, in seconds */
+    private static final int[] AUTOSAVE_SECONDS = {0, 30, 60, 120, 300};
+    /** Labels for the autosave intervals offered */
+    private static final String[] AUTOSAVE_LABELS = {"Off", "30 seconds", "1 minute", "2 minutes", "5 minutes"};
 
     /**
      * Constructor for SettingsScreen.
@@ -53,6 +60,9 @@ public class SettingsScreen {
         // Display settings
         VBox displayBox = createDisplaySettings();
 
+        // Autosave settings
+        VBox autosaveBox = createAutosaveSettings();
+
         // Navigation buttons
         HBox buttonBox = new HBox(20);
         buttonBox.setAlignment(Pos.CENTER);
@@ -75,6 +85,7 @@ public class SettingsScreen {
         root.getChildren().addAll(
             title,
             displayBox,
+            autosaveBox,
             buttonBox
         );
 
@@ -138,9 +149,46 @@ public class SettingsScreen {
     }
 
     /**
-     * Creates the volume settings section.
+     * Creates the autosave settings section.
+     *
+     * @return VBox containing autosave settings.
      */
-    private void saveSettings() { gameState.saveSettings(false); }
+    private VBox createAutosaveSettings() {
+        VBox autosaveBox = new VBox(15);
+        autosaveBox.setAlignment(Pos.CENTER);
+        autosaveBox.setPadding(new Insets(25));
+        autosaveBox.setMaxWidth(500);
+        autosaveBox.setStyle("-fx-background-color: #FFFFFF; -fx-border-color: #8B4513; -fx-border-width: 2px; -fx-border-radius: 10; -fx-background-radius: 10;");
+
+        Text autosaveTitle = new Text("Autosave");
+        autosaveTitle.setFont(Font.font("Arial", FontWeight.BOLD, 24));
+        autosaveTitle.setStyle("-fx-fill: #8B4513;");
+
+        autosaveInterval = new ComboBox<>();
+        autosaveInterval.getItems().addAll(AUTOSAVE_LABELS);
+        autosaveInterval.setValue(AUTOSAVE_LABELS[0]);
+        int current = gameState.getPlayer().getAutosaveInterval();
+        for (int i = 0; i < AUTOSAVE_SECONDS.length; i++) {
+            if (AUTOSAVE_SECONDS[i] == current) {
+                autosaveInterval.setValue(AUTOSAVE_LABELS[i]);
+            }
+        }
+
+        autosaveBox.getChildren().addAll(autosaveTitle, new Separator(), autosaveInterval);
+        return autosaveBox;
+    }
+
+    /**
+     * Saves the settings, including the selected autosave interval.
+     */
+    private void saveSettings() {
+        for (int i = 0; i < AUTOSAVE_LABELS.length; i++) {
+            if (AUTOSAVE_LABELS[i].equals(autosaveInterval.getValue())) {
+                gameState.getPlayer().setAutosaveInterval(AUTOSAVE_SECONDS[i]);
+            }
+        }
+        gameState.saveSettings(false);
+    }
 
     /**
      * Applies the settings to the game.
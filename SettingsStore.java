@@ -0,0 +1,174 @@
+package group02;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+
+/**
+ * Writes the player's settings in the background. Changes are collected for DEBOUNCE_MILLIS
+ * after the last one (or at most MAX_DELAY_MILLIS after the first) and only the latest
+ * settings are written, so a burst of toggles costs one write, made off the UI thread.
+ * The repository replaces the stored settings in one step.
+ *
+ * The settings to write are taken under the store's lock and written outside it, so
+ * submitting never waits for a write. A failed background write is tried again after
+ * RETRY_MILLIS.
+ */
+public class SettingsStore implements AutoCloseable {
+    /** Quiet time after the last change before the settings are written */
+    public static final long DEBOUNCE_MILLIS = 500;
+    /** Longest time a change waits while changes keep coming */
+    public static final long MAX_DELAY_MILLIS = 5000;
+    /** Time before a failed background write is tried again */
+    public static final long RETRY_MILLIS = 5000;
+
+    /** Where the settings are written */
+    private final PlayerRepository repository;
+    /** Told the sequence number of the settings after each write, e.g. to drop the journaled settings changes */
+    private final LongConsumer onWritten;
+    /** Timer thread that writes the settings */
+    private final ScheduledExecutorService writer;
+    /** Held while the settings are written, so writes never overlap or go out of order */
+    private final Object writeLock = new Object();
+    /** Settings waiting to be written, or null if everything has been written */
+    private Player pending;
+    /** Sequence number the pending settings were submitted with */
+    private long pendingSequence;
+    /** When the oldest unwritten change was submitted, in milliseconds */
+    private long pendingSince;
+    /** The scheduled write, or null if none is scheduled */
+    private ScheduledFuture<?> scheduledWrite;
+
+    /**
+     * Creates a settings store writing to the given repository on its own timer thread.
+     *
+     * @param repository Where the settings are written.
+     * @param onWritten Told the sequence number of the settings after each successful write, on the thread that wrote.
+     */
+    public SettingsStore(PlayerRepository repository, LongConsumer onWritten) {
+        this(repository, onWritten, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "settings-writer");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Creates a settings store writing to the given repository on the given timer.
+     *
+     * @param repository Where the settings are written.
+     * @param onWritten Told the sequence number of the settings after each successful write, on the thread that wrote.
+     * @param writer Runs the scheduled writes; shut down when the store is closed.
+     */
+    public SettingsStore(PlayerRepository repository, LongConsumer onWritten, ScheduledExecutorService writer) {
+        this.repository = repository;
+        this.onWritten = onWritten;
+        this.writer = writer;
+    }
+
+    /**
+     * Schedules the settings to be written. Settings submitted before the write replace
+     * these ones, so pass a copy that is not changed afterwards.
+     *
+     * @param player The settings to write.
+     * @param sequence The caller's sequence number for these settings, passed to onWritten once they are written.
+     */
+    public synchronized void submit(Player player, long sequence) {
+        long now = System.currentTimeMillis();
+        if (pending == null) {
+            pendingSince = now;
+        }
+        pending = player;
+        pendingSequence = sequence;
+        long delay = Math.min(DEBOUNCE_MILLIS, Math.max(0, pendingSince + MAX_DELAY_MILLIS - now));
+        schedule(delay);
+    }
+
+    /**
+     * Writes any settings waiting to be written right away, on the calling thread.
+     *
+     * @throws IOException If the settings could not be written; they stay pending.
+     */
+    public void flush() throws IOException {
+        synchronized (writeLock) {
+            Player written;
+            long sequence;
+            synchronized (this) {
+                if (scheduledWrite != null) {
+                    scheduledWrite.cancel(false);
+                    scheduledWrite = null;
+                }
+                if (pending == null) {
+                    return;
+                }
+                written = pending;
+                sequence = pendingSequence;
+            }
+
+            repository.save(written);
+            synchronized (this) {
+                // Settings submitted during the write are still pending and have their own write scheduled
+                if (pending == written) {
+                    pending = null;
+                }
+            }
+            onWritten.accept(sequence);
+        }
+    }
+
+    /**
+     * Checks if there are settings waiting to be written.
+     *
+     * @return true if a write is pending, false otherwise.
+     */
+    public synchronized boolean hasPending() {
+        return pending != null;
+    }
+
+    /**
+     * Writes any pending settings and stops the writer thread.
+     *
+     * @throws IOException If the pending settings could not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            writer.shutdownNow();
+        }
+    }
+
+    /**
+     * Replaces the scheduled write with one after the given delay.
+     *
+     * @param delay The delay in milliseconds.
+     */
+    private synchronized void schedule(long delay) {
+        if (scheduledWrite != null) {
+            scheduledWrite.cancel(false);
+        }
+        scheduledWrite = writer.schedule(this::flushQuietly, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Writes the pending settings from the writer thread, reporting failures and trying
+     * again later if the settings are still pending.
+     */
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.err.println("Failed to save settings to " + GameState.SETTINGS_FILE + ", trying again");
+            synchronized (this) {
+                if (pending != null && scheduledWrite == null && !writer.isShutdown()) {
+                    schedule(RETRY_MILLIS);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SettingsStoreTest {
+    /**
+     * A timer that only runs its tasks when told to.
+     */
+    private static final class ManualScheduler extends ScheduledThreadPoolExecutor {
+        /** Tasks scheduled and not yet run */
+        private final List<Runnable> tasks = new ArrayList<>();
+        /** Futures handed out for the tasks, used to see if a task was cancelled */
+        private final List<ScheduledFuture<?>> futures = new ArrayList<>();
+        /** Delay of the last task scheduled, in milliseconds */
+        private long lastDelay;
+
+        ManualScheduler() {
+            super(1);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            ScheduledFuture<?> future = super.schedule(() -> { }, 1, TimeUnit.DAYS);
+            tasks.add(command);
+            futures.add(future);
+            lastDelay = unit.toMillis(delay);
+            return future;
+        }
+
+        /**
+         * Runs every scheduled task that was not cancelled.
+         *
+         * @return The number of tasks run.
+         */
+        int runDue() {
+            List<Runnable> due = new ArrayList<>();
+            for (int i = 0; i < tasks.size(); i++) {
+                if (!futures.get(i).isCancelled()) {
+                    due.add(tasks.get(i));
+                }
+            }
+            tasks.clear();
+            futures.clear();
+            due.forEach(Runnable::run);
+            return due.size();
+        }
+    }
+
+    @Test
+    void testBurstOfChangesIsWrittenOnce() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        List<Long> written = new ArrayList<>();
+        ManualScheduler scheduler = new ManualScheduler();
+        SettingsStore store = new SettingsStore(new TextPlayerRepository(saveDirectory), written::add, scheduler);
+
+        for (int limit = 1; limit <= 20; limit++) {
+            Player player = new Player();
+            player.setAutosaveInterval(limit);
+            store.submit(player, limit);
+        }
+        assertEquals(1, scheduler.runDue());
+
+        assertEquals(List.of(20L), written);
+        assertFalse(store.hasPending());
+        assertEquals(20, new TextPlayerRepository(saveDirectory).load().getAutosaveInterval());
+        store.close();
+    }
+
+    @Test
+    void testFailedWriteIsRetried() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        int[] failures = {1};
+        PlayerRepository flaky = new TextPlayerRepository(saveDirectory) {
+            @Override
+            public void save(Player player) throws IOException {
+                if (failures[0]-- > 0) {
+                    throw new IOException("disk full");
+                }
+                super.save(player);
+            }
+        };
+        ManualScheduler scheduler = new ManualScheduler();
+        SettingsStore store = new SettingsStore(flaky, sequence -> { }, scheduler);
+        Player player = new Player();
+        player.setAutosaveInterval(9);
+
+        store.submit(player, 1);
+        assertEquals(1, scheduler.runDue());
+        assertTrue(store.hasPending());
+        assertEquals(SettingsStore.RETRY_MILLIS, scheduler.lastDelay);
+
+        assertEquals(1, scheduler.runDue());
+        assertFalse(store.hasPending());
+        assertEquals(9, new TextPlayerRepository(saveDirectory).load().getAutosaveInterval());
+        store.close();
+    }
+
+    @Test
+    void testJournalKeepsSettingsChangedAfterTheWrittenOnes() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        Journal journal = new Journal(saveDirectory);
+        journal.open();
+        long first = journal.record(GameState.SETTINGS_FILE, "autosaveInterval", "5");
+        journal.record(GameState.SETTINGS_FILE, "autosaveInterval", "6");
+        journal.flush();
+
+        // The write held the first change only, so the second one must survive a crash
+        journal.saved(GameState.SETTINGS_FILE, first);
+        assertEquals("6", new Journal(saveDirectory).recover().get(GameState.SETTINGS_FILE).get("autosaveInterval"));
+    }
+
+    @Test
+    void testCloseWritesPendingSettings() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        SettingsStore store = new SettingsStore(new TextPlayerRepository(saveDirectory), sequence -> { });
+        Player player = new Player();
+        player.setAutosaveInterval(7);
+
+        store.submit(player, 1);
+        store.close();
+
+        assertEquals(7, new TextPlayerRepository(saveDirectory).load().getAutosaveInterval());
+    }
+}
@@ -267,6 +267,7 @@ public class ShopScreen {
         // Deduct currency and add item
         gameState.getPet().spendCurrency(price);
         gameState.getPet().addItem(itemName, 1);
+        gameState.recordCare(CareEvent.Type.PURCHASE, gameState.getPet(), itemName);
         
         // Show success message
         showAlert("Purchase Successful", "You purchased " + itemName + "!");
@@ -0,0 +1,146 @@
+package group02;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Live line chart of a pet's stat history. The chart sweeps from left to right like a
+ * heart monitor: sample n is drawn in slot n % window, and a small gap just ahead of the
+ * newest sample is cleared to erase the previous lap. Each refresh therefore draws only
+ * the samples appended since the last one, reading them straight from the history.
+ */
+public final class StatChart extends Canvas {
+    /** Default number of samples across the chart */
+    public static final int DEFAULT_WINDOW = 120;
+    /** Number of slots cleared ahead of the newest sample */
+    private static final int GAP_SLOTS = 3;
+    /** Highest stat value on the chart */
+    private static final double MAX_VALUE = 100;
+    /** Background colour of the chart */
+    private static final Color BACKGROUND = Color.web("#FAFAD2");
+    /** Line colour of each stat, matching the stat bars */
+    private static final Color[] COLORS = new Color[StatHistory.STAT_COUNT];
+
+    static {
+        COLORS[StatHistory.HEALTH] = Color.RED;
+        COLORS[StatHistory.HAPPINESS] = Color.PINK;
+        COLORS[StatHistory.FULLNESS] = Color.GREEN;
+        COLORS[StatHistory.ENERGY] = Color.BLUE;
+    }
+
+    /** Number of samples across the chart */
+    private final int window;
+    /** The history drawn, or null to show an empty chart */
+    private StatHistory history;
+    /** Sequence number of the next sample to draw */
+    private long nextSequence;
+
+    /**
+     * Creates an empty chart.
+     *
+     * @param width The chart's width in pixels.
+     * @param height The chart's height in pixels.
+     * @param window The number of samples across the chart.
+     */
+    public StatChart(double width, double height, int window) {
+        super(width, height);
+        this.window = window;
+        redrawAll();
+    }
+
+    /**
+     * Shows another history, redrawing the whole chart.
+     *
+     * @param history The history to show, or null to show an empty chart.
+     */
+    public void setHistory(StatHistory history) {
+        this.history = history;
+        redrawAll();
+    }
+
+    /**
+     * Draws the samples appended since the last refresh. Falls back to a full redraw if
+     * more samples than fit on the chart have been appended.
+     */
+    public void refresh() {
+        if (history == null) {
+            return;
+        }
+        long sampleCount = history.getSampleCount();
+        if (sampleCount - nextSequence > window || sampleCount < nextSequence) {
+            redrawAll();
+            return;
+        }
+        GraphicsContext graphics = getGraphicsContext2D();
+        for (long sequence = nextSequence; sequence < sampleCount; sequence++) {
+            drawSample(graphics, sequence);
+        }
+        nextSequence = sampleCount;
+    }
+
+    /**
+     * Clears the chart and draws every sample that fits on it.
+     */
+    private void redrawAll() {
+        GraphicsContext graphics = getGraphicsContext2D();
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(0, 0, getWidth(), getHeight());
+        if (history == null) {
+            nextSequence = 0;
+            return;
+        }
+        long sampleCount = history.getSampleCount();
+        long first = Math.max(history.getOldestSequence(), sampleCount - window);
+        for (long sequence = first; sequence < sampleCount; sequence++) {
+            drawSample(graphics, sequence);
+        }
+        nextSequence = sampleCount;
+    }
+
+    /**
+     * Clears the gap ahead of a sample's slot and draws the lines from the previous sample to it.
+     *
+     * @param graphics The chart's graphics context.
+     * @param sequence The sample's sequence number.
+     */
+    private void drawSample(GraphicsContext graphics, long sequence) {
+        int slot = (int) (sequence % window);
+        double x = slotX(slot);
+        double gapEnd = Math.min(getWidth(), slotX(slot + GAP_SLOTS));
+        graphics.setFill(BACKGROUND);
+        graphics.fillRect(x + 1, 0, gapEnd - x, getHeight());
+
+        // The first slot of each lap starts a new line
+        if (slot == 0 || sequence == 0 || sequence - 1 < history.getOldestSequence()) {
+            return;
+        }
+        double previousX = slotX(slot - 1);
+        graphics.setLineWidth(1.5);
+        for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+            graphics.setStroke(COLORS[stat]);
+            graphics.strokeLine(previousX, valueY(history.get(sequence - 1, stat)), x, valueY(history.get(sequence, stat)));
+        }
+    }
+
+    /**
+     * Get the x position of a slot.
+     *
+     * @param slot The slot.
+     * @return The x position in pixels.
+     */
+    private double slotX(int slot) {
+        return slot * getWidth() / (window - 1);
+    }
+
+    /**
+     * Get the y position of a stat value.
+     *
+     * @param value The stat value.
+     * @return The y position in pixels.
+     */
+    private double valueY(int value) {
+        double clamped = Math.max(0, Math.min(MAX_VALUE, value));
+        return getHeight() - 1 - clamped / MAX_VALUE * (getHeight() - 2);
+    }
+}
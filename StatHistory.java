@@ -0,0 +1,114 @@
+package group02;
+
+/**
+ * Fixed-size history of a pet's stats, one sample per tick. Samples are kept in a single
+ * primitive ring buffer, interleaved by stat, so recording a tick allocates nothing and
+ * the history never grows past its capacity; the oldest samples are overwritten.
+ *
+ * Samples are addressed by sequence number: the first sample ever recorded is 0, and
+ * the samples still held run from getOldestSequence() to getSampleCount() - 1.
+ */
+public class StatHistory {
+    /** Stat index of health */
+    public static final int HEALTH = 0;
+    /** Stat index of happiness */
+    public static final int HAPPINESS = 1;
+    /** Stat index of fullness */
+    public static final int FULLNESS = 2;
+    /** Stat index of energy */
+    public static final int ENERGY = 3;
+    /** Number of stats in each sample */
+    public static final int STAT_COUNT = 4;
+    /** Default number of samples kept, one hour of three-second ticks */
+    public static final int DEFAULT_CAPACITY = 1200;
+
+    /** The samples, STAT_COUNT values per slot */
+    private final short[] samples;
+    /** Number of slots */
+    private final int capacity;
+    /** Number of samples recorded so far, including overwritten ones */
+    private long sampleCount;
+
+    /**
+     * Creates an empty history.
+     *
+     * @param capacity The number of samples kept.
+     */
+    public StatHistory(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.capacity = capacity;
+        this.samples = new short[capacity * STAT_COUNT];
+    }
+
+    /**
+     * Records one sample, overwriting the oldest one if the history is full.
+     *
+     * @param health The pet's health.
+     * @param happiness The pet's happiness.
+     * @param fullness The pet's fullness.
+     * @param energy The pet's energy.
+     */
+    public synchronized void record(int health, int happiness, int fullness, int energy) {
+        int base = (int) (sampleCount % capacity) * STAT_COUNT;
+        samples[base + HEALTH] = clamp(health);
+        samples[base + HAPPINESS] = clamp(happiness);
+        samples[base + FULLNESS] = clamp(fullness);
+        samples[base + ENERGY] = clamp(energy);
+        sampleCount++;
+    }
+
+    /**
+     * Get a stat of a sample still held in the history.
+     *
+     * @param sequence The sample's sequence number.
+     * @param stat The stat index (e.g., HEALTH, ENERGY).
+     * @return The stat's value.
+     * @throws IndexOutOfBoundsException If the sample has been overwritten or not recorded yet.
+     */
+    public synchronized int get(long sequence, int stat) {
+        if (sequence < getOldestSequence() || sequence >= sampleCount) {
+            throw new IndexOutOfBoundsException("Sample " + sequence + " is not held");
+        }
+        return samples[(int) (sequence % capacity) * STAT_COUNT + stat];
+    }
+
+    /**
+     * Get the number of samples recorded so far, including overwritten ones. This is also
+     * the sequence number the next sample will get.
+     *
+     * @return The number of samples recorded.
+     */
+    public synchronized long getSampleCount() {
+        return sampleCount;
+    }
+
+    /**
+     * Get the sequence number of the oldest sample still held.
+     *
+     * @return The oldest sequence number, equal to getSampleCount() if the history is empty.
+     */
+    public synchronized long getOldestSequence() {
+        return Math.max(0, sampleCount - capacity);
+    }
+
+    /**
+     * Get the number of samples the history holds when full.
+     *
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Clamps a stat to the range a short holds.
+     *
+     * @param value The stat.
+     * @return The stat as a short.
+     */
+    private static short clamp(int value) {
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, value));
+    }
+}
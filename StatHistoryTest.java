@@ -0,0 +1,34 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatHistoryTest {
+
+    @Test
+    void testOldestSamplesAreOverwritten() {
+        StatHistory history = new StatHistory(4);
+        for (int tick = 0; tick < 6; tick++) {
+            history.record(100 - tick, 90 - tick, 80 - tick, 70 - tick);
+        }
+
+        assertEquals(6, history.getSampleCount());
+        assertEquals(2, history.getOldestSequence());
+        assertEquals(98, history.get(2, StatHistory.HEALTH));
+        assertEquals(65, history.get(5, StatHistory.ENERGY));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(1, StatHistory.HEALTH));
+        assertThrows(IndexOutOfBoundsException.class, () -> history.get(6, StatHistory.HEALTH));
+    }
+
+    @Test
+    void testEveryTickIsRecorded() {
+        Pet pet = new Pet("Buddy", "DOG");
+        pet.update();
+        pet.update();
+
+        StatHistory history = pet.getStatHistory();
+        assertEquals(2, history.getSampleCount());
+        assertEquals(pet.getEnergy(), history.get(1, StatHistory.ENERGY));
+    }
+}
@@ -0,0 +1,737 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only, column-oriented store of every pet's stats at every tick, for analytics over
+ * long periods. Each pet has a directory (sharded like its save file) holding one file per
+ * resolution and column: the tick times, one file per stat and, for rollups, the number of
+ * ticks in each bucket. Columns are written in blocks, each encoded by ColumnCodec, of up
+ * to BLOCK_SIZE raw values or about an hour, a day or a week of rollup buckets. A pet's
+ * buffers are only allocated once it is appended to, and are written and dropped once it
+ * has been idle for IDLE_MILLIS.
+ *
+ * Besides the raw ticks, every sample is rolled up into minute, hour and day averages as it
+ * is appended, so a query over a long range reads a few hundred rollup values instead of
+ * every tick. A query opens only the time column and the one stat column it needs at the
+ * chosen resolution, and skips blocks outside the range by their headers.
+ *
+ * Each column block starts with its value count and encoded length; time blocks also hold
+ * their first and last time so they can be skipped without decoding. Stat columns are
+ * written before the time column, so a block is only visible once its time block exists;
+ * columns left ahead of the time column by a crash or a failed write are cut back before
+ * the next write.
+ */
+public class StatSeriesStore implements AutoCloseable {
+    /** Name of the stats directory inside the save directory */
+    public static final String STATS_DIRECTORY = "stats";
+    /** Number of raw values buffered per column before a block is written */
+    public static final int BLOCK_SIZE = 256;
+    /** Time without appends after which a pet's buffers are written and dropped */
+    public static final long IDLE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    /** Time between ticks assumed when estimating the number of raw samples in a range */
+    public static final long TICK_MILLIS = 3000;
+
+    /** Column file suffix of each stat, indexed by StatHistory stat index */
+    private static final String[] STAT_COLUMNS = {"health", "happiness", "fullness", "energy"};
+    /** Size of a time block header: count, length, first time and last time */
+    private static final int TIME_HEADER_BYTES = 24;
+    /** Size of a value block header: count and length */
+    private static final int VALUE_HEADER_BYTES = 8;
+
+    /**
+     * The resolutions samples are stored at.
+     */
+    public enum Resolution {
+        RAW(0, BLOCK_SIZE), MINUTE(TimeUnit.MINUTES.toMillis(1), 60), HOUR(TimeUnit.HOURS.toMillis(1), 24),
+        DAY(TimeUnit.DAYS.toMillis(1), 7);
+
+        /** Length of a bucket in milliseconds, 0 for raw samples */
+        private final long bucketMillis;
+        /** Number of values buffered per column before a block is written */
+        private final int blockSize;
+
+        /**
+         * Creates a resolution.
+         *
+         * @param bucketMillis Length of a bucket in milliseconds, 0 for raw samples.
+         * @param blockSize Number of values buffered per column before a block is written.
+         */
+        Resolution(long bucketMillis, int blockSize) {
+            this.bucketMillis = bucketMillis;
+            this.blockSize = blockSize;
+        }
+
+        /**
+         * Get the length of a bucket.
+         *
+         * @return The length in milliseconds, 0 for raw samples.
+         */
+        public long getBucketMillis() {
+            return bucketMillis;
+        }
+
+        /**
+         * Picks the finest resolution that returns at most the given number of points over a range.
+         *
+         * @param rangeMillis The length of the range in milliseconds.
+         * @param maxPoints The most points wanted.
+         * @return The resolution, DAY if even that gives more points.
+         */
+        public static Resolution forRange(long rangeMillis, int maxPoints) {
+            for (Resolution resolution : values()) {
+                long step = resolution == RAW ? TICK_MILLIS : resolution.bucketMillis;
+                if (rangeMillis / step <= maxPoints) {
+                    return resolution;
+                }
+            }
+            return DAY;
+        }
+    }
+
+    /**
+     * Points of one stat over time, in time order. Rollup values are bucket averages.
+     *
+     * @param times The time of each point, in milliseconds since the epoch.
+     * @param values The stat value of each point.
+     */
+    public record Series(long[] times, int[] values) {
+        /**
+         * Get the number of points.
+         *
+         * @return The number of points.
+         */
+        public int size() {
+            return times.length;
+        }
+    }
+
+    /** The directory holding the shards of per-pet directories */
+    private final Path statsDirectory;
+    /** Buffers and rollups of pets appended to this session, by save file */
+    private final Map<String, PetSeries> openSeries = new HashMap<>();
+    /** Reused for each appended sample, so appending allocates nothing */
+    private final long[] sample = new long[StatHistory.STAT_COUNT];
+    /** Time of the last check for idle pets, in milliseconds since the epoch */
+    private long lastIdleCheck;
+
+    /**
+     * Creates a store in the given save directory.
+     *
+     * @param saveDirectory The save directory.
+     */
+    public StatSeriesStore(Path saveDirectory) {
+        this.statsDirectory = saveDirectory.resolve(STATS_DIRECTORY);
+    }
+
+    /**
+     * Appends one tick of a pet's stats and adds it to the rollups. Values are buffered and
+     * written a block at a time. The buffers of pets without appends for IDLE_MILLIS are
+     * written and dropped.
+     *
+     * @param saveFile The pet's save file.
+     * @param time The tick's time, in milliseconds since the epoch.
+     * @param health The pet's health.
+     * @param happiness The pet's happiness.
+     * @param fullness The pet's fullness.
+     * @param energy The pet's energy.
+     * @throws IOException If a full block could not be written.
+     */
+    public synchronized void append(String saveFile, long time, int health, int happiness, int fullness, int energy)
+            throws IOException {
+        PetSeries series = openSeries.get(saveFile);
+        if (series == null) {
+            series = new PetSeries(SaveLayout.shard(statsDirectory, saveFile));
+            openSeries.put(saveFile, series);
+        }
+        sample[StatHistory.HEALTH] = health;
+        sample[StatHistory.HAPPINESS] = happiness;
+        sample[StatHistory.FULLNESS] = fullness;
+        sample[StatHistory.ENERGY] = energy;
+        series.append(time, sample);
+        if (time - lastIdleCheck >= IDLE_MILLIS) {
+            lastIdleCheck = time;
+            closeIdle(time - IDLE_MILLIS);
+        }
+    }
+
+    /**
+     * Writes and drops the buffers of pets with no appends since a time.
+     *
+     * @param before The time; pets last appended to before it are dropped.
+     * @throws IOException If a block could not be written; the pet is dropped anyway.
+     */
+    private void closeIdle(long before) throws IOException {
+        Iterator<PetSeries> all = openSeries.values().iterator();
+        IOException failure = null;
+        while (all.hasNext()) {
+            PetSeries series = all.next();
+            if (series.lastTime < before) {
+                all.remove();
+                try {
+                    series.flush();
+                } catch (IOException e) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Reads a stat of a pet over a time range, at the finest resolution that gives at most
+     * maxPoints points.
+     *
+     * @param saveFile The pet's save file.
+     * @param stat The stat index (e.g., StatHistory.HAPPINESS).
+     * @param from The start of the range, in milliseconds since the epoch.
+     * @param to The end of the range, inclusive.
+     * @param maxPoints The most points wanted.
+     * @return The points.
+     * @throws IOException If the columns could not be read.
+     */
+    public Series query(String saveFile, int stat, long from, long to, int maxPoints) throws IOException {
+        return query(saveFile, stat, from, to, Resolution.forRange(to - from, maxPoints));
+    }
+
+    /**
+     * Reads a stat of a pet over a time range at the given resolution, including samples
+     * not written yet. Rollup buckets are identified by their start time.
+     *
+     * @param saveFile The pet's save file.
+     * @param stat The stat index (e.g., StatHistory.HAPPINESS).
+     * @param from The start of the range, in milliseconds since the epoch.
+     * @param to The end of the range, inclusive.
+     * @param resolution The resolution to read.
+     * @return The points.
+     * @throws IOException If the columns could not be read.
+     */
+    public synchronized Series query(String saveFile, int stat, long from, long to, Resolution resolution)
+            throws IOException {
+        SeriesBuilder points = new SeriesBuilder();
+        Path directory = SaveLayout.shard(statsDirectory, saveFile);
+        readColumns(directory, resolution, stat, from, to, points);
+        PetSeries open = openSeries.get(saveFile);
+        if (open != null) {
+            open.readBuffered(resolution, stat, from, to, points);
+        }
+        return points.build();
+    }
+
+    /**
+     * Writes every buffered value, including the rollup buckets still being filled. A bucket
+     * written early and continued later is merged with its continuation when it is read.
+     *
+     * @throws IOException If a block could not be written.
+     */
+    public synchronized void flush() throws IOException {
+        for (PetSeries series : openSeries.values()) {
+            series.flush();
+        }
+    }
+
+    /**
+     * Writes every buffered value.
+     *
+     * @throws IOException If a block could not be written.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        openSeries.clear();
+    }
+
+    /**
+     * Reads the blocks of one stat column that overlap a time range, together with the
+     * matching time (and count) blocks.
+     *
+     * @param directory The pet's directory.
+     * @param resolution The resolution to read.
+     * @param stat The stat index.
+     * @param from The start of the range.
+     * @param to The end of the range, inclusive.
+     * @param points Receives the points in the range.
+     * @throws IOException If a column could not be read.
+     */
+    private static void readColumns(Path directory, Resolution resolution, int stat, long from, long to,
+                                    SeriesBuilder points) throws IOException {
+        Path timeFile = timeColumn(directory, resolution);
+        if (!Files.exists(timeFile)) {
+            return;
+        }
+        boolean rollup = resolution != Resolution.RAW;
+        try (FileChannel times = FileChannel.open(timeFile, StandardOpenOption.READ);
+             FileChannel values = FileChannel.open(statColumn(directory, resolution, stat), StandardOpenOption.READ);
+             FileChannel counts = rollup ? FileChannel.open(countColumn(directory, resolution), StandardOpenOption.READ) : null) {
+            ByteBuffer timeHeader = ByteBuffer.allocate(TIME_HEADER_BYTES);
+            ByteBuffer valueHeader = ByteBuffer.allocate(VALUE_HEADER_BYTES);
+            ByteBuffer countHeader = ByteBuffer.allocate(VALUE_HEADER_BYTES);
+            long timePosition = 0;
+            long valuePosition = 0;
+            long countPosition = 0;
+            while (readFully(times, timeHeader.clear(), timePosition)
+                    && readFully(values, valueHeader.clear(), valuePosition)
+                    && (!rollup || readFully(counts, countHeader.clear(), countPosition))) {
+                int count = timeHeader.getInt(0);
+                int timeLength = timeHeader.getInt(4);
+                long first = timeHeader.getLong(8);
+                long last = timeHeader.getLong(16);
+                int valueLength = valueHeader.getInt(4);
+                int countLength = rollup ? countHeader.getInt(4) : 0;
+
+                if (last >= from && first <= to) {
+                    long[] blockTimes = readBlock(times, timePosition + TIME_HEADER_BYTES, timeLength, count);
+                    long[] blockValues = readBlock(values, valuePosition + VALUE_HEADER_BYTES, valueLength, count);
+                    long[] blockCounts = rollup
+                            ? readBlock(counts, countPosition + VALUE_HEADER_BYTES, countLength, count) : null;
+                    if (blockTimes == null || blockValues == null || (rollup && blockCounts == null)) {
+                        return; // the last block was cut short
+                    }
+                    for (int i = 0; i < count; i++) {
+                        if (blockTimes[i] >= from && blockTimes[i] <= to) {
+                            points.add(blockTimes[i], blockValues[i], rollup ? blockCounts[i] : 1);
+                        }
+                    }
+                }
+                timePosition += TIME_HEADER_BYTES + timeLength;
+                valuePosition += VALUE_HEADER_BYTES + valueLength;
+                countPosition += VALUE_HEADER_BYTES + countLength;
+            }
+        }
+    }
+
+    /**
+     * Reads and decodes one block body.
+     *
+     * @param channel The column file.
+     * @param position The position of the body.
+     * @param length The encoded length.
+     * @param count The number of values.
+     * @return The values, or null if the file ends before the body does.
+     * @throws IOException If the file could not be read or the block is damaged.
+     */
+    private static long[] readBlock(FileChannel channel, long position, int length, int count) throws IOException {
+        ByteBuffer body = ByteBuffer.allocate(length);
+        if (!readFully(channel, body, position)) {
+            return null;
+        }
+        try {
+            return ColumnCodec.decode(body.array(), count);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Damaged stats block", e);
+        }
+    }
+
+    /**
+     * Fills a buffer from a channel at a position.
+     *
+     * @param channel The channel.
+     * @param buffer The buffer to fill.
+     * @param position The position to read from.
+     * @return true if the buffer was filled, false if the channel ended first.
+     * @throws IOException If the channel could not be read.
+     */
+    private static boolean readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        int start = buffer.position();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position() - start) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the time column of a resolution.
+     *
+     * @param directory The pet's directory.
+     * @param resolution The resolution.
+     * @return The column file.
+     */
+    private static Path timeColumn(Path directory, Resolution resolution) {
+        return directory.resolve(resolution.name().toLowerCase() + ".time");
+    }
+
+    /**
+     * Get the column of a stat at a resolution.
+     *
+     * @param directory The pet's directory.
+     * @param resolution The resolution.
+     * @param stat The stat index.
+     * @return The column file.
+     */
+    private static Path statColumn(Path directory, Resolution resolution, int stat) {
+        return directory.resolve(resolution.name().toLowerCase() + "." + STAT_COLUMNS[stat]);
+    }
+
+    /**
+     * Get the column of bucket sample counts at a rollup resolution.
+     *
+     * @param directory The pet's directory.
+     * @param resolution The rollup resolution.
+     * @return The column file.
+     */
+    private static Path countColumn(Path directory, Resolution resolution) {
+        return directory.resolve(resolution.name().toLowerCase() + ".count");
+    }
+
+    /**
+     * The buffers and rollup buckets of one pet.
+     */
+    private static final class PetSeries {
+        /** The pet's directory */
+        private final Path directory;
+        /** A block buffer per resolution, indexed by ordinal, each created on its first value */
+        private final ColumnWriter[] writers = new ColumnWriter[Resolution.values().length];
+        /** Start of the bucket being filled, per resolution */
+        private final long[] bucketStarts = new long[writers.length];
+        /** Number of samples in the bucket being filled, per resolution */
+        private final long[] bucketCounts = new long[writers.length];
+        /** Sum of each stat over the bucket being filled, per resolution */
+        private final long[][] bucketSums = new long[writers.length][StatHistory.STAT_COUNT];
+        /** Reused for each emitted bucket average */
+        private final long[] averages = new long[StatHistory.STAT_COUNT];
+        /** Time of the last sample appended */
+        private long lastTime;
+
+        /**
+         * Creates the buffers of a pet.
+         *
+         * @param directory The pet's directory.
+         */
+        PetSeries(Path directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Get the buffer of a resolution, creating it the first time.
+         *
+         * @param r The resolution's ordinal.
+         * @return The buffer.
+         */
+        private ColumnWriter writer(int r) {
+            if (writers[r] == null) {
+                writers[r] = new ColumnWriter(directory, Resolution.values()[r]);
+            }
+            return writers[r];
+        }
+
+        /**
+         * Appends a raw sample and adds it to each rollup, emitting the buckets it closes.
+         *
+         * @param time The sample's time.
+         * @param stats The sample's stats.
+         * @throws IOException If a full block could not be written.
+         */
+        void append(long time, long[] stats) throws IOException {
+            lastTime = time;
+            writer(Resolution.RAW.ordinal()).add(time, stats, 1);
+            for (Resolution resolution : Resolution.values()) {
+                if (resolution == Resolution.RAW) {
+                    continue;
+                }
+                int r = resolution.ordinal();
+                long bucket = time - Math.floorMod(time, resolution.bucketMillis);
+                if (bucketCounts[r] > 0 && bucket != bucketStarts[r]) {
+                    emit(r);
+                }
+                bucketStarts[r] = bucket;
+                bucketCounts[r]++;
+                for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+                    bucketSums[r][stat] += stats[stat];
+                }
+            }
+        }
+
+        /**
+         * Writes the average of a rollup's current bucket to its buffer and empties the bucket.
+         *
+         * @param r The rollup's ordinal.
+         * @throws IOException If a full block could not be written.
+         */
+        private void emit(int r) throws IOException {
+            for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+                averages[stat] = Math.round((double) bucketSums[r][stat] / bucketCounts[r]);
+                bucketSums[r][stat] = 0;
+            }
+            writer(r).add(bucketStarts[r], averages, bucketCounts[r]);
+            bucketCounts[r] = 0;
+        }
+
+        /**
+         * Adds the buffered values and the bucket being filled to a query's points.
+         *
+         * @param resolution The resolution queried.
+         * @param stat The stat index.
+         * @param from The start of the range.
+         * @param to The end of the range, inclusive.
+         * @param points Receives the points in the range.
+         */
+        void readBuffered(Resolution resolution, int stat, long from, long to, SeriesBuilder points) {
+            int r = resolution.ordinal();
+            if (writers[r] != null) {
+                writers[r].readBuffered(stat, from, to, points);
+            }
+            if (resolution != Resolution.RAW && bucketCounts[r] > 0
+                    && bucketStarts[r] >= from && bucketStarts[r] <= to) {
+                points.add(bucketStarts[r], Math.round((double) bucketSums[r][stat] / bucketCounts[r]), bucketCounts[r]);
+            }
+        }
+
+        /**
+         * Writes every buffered value, including the buckets being filled.
+         *
+         * @throws IOException If a block could not be written.
+         */
+        void flush() throws IOException {
+            for (int r = 0; r < writers.length; r++) {
+                if (r != Resolution.RAW.ordinal() && bucketCounts[r] > 0) {
+                    emit(r);
+                }
+                if (writers[r] != null) {
+                    writers[r].writeBlock();
+                }
+            }
+        }
+    }
+
+    /**
+     * Buffers the columns of one resolution of one pet and writes them a block at a time.
+     */
+    private static final class ColumnWriter {
+        /** The pet's directory */
+        private final Path directory;
+        /** The resolution written */
+        private final Resolution resolution;
+        /** Buffered times */
+        private final long[] times;
+        /** Buffered stats, per stat */
+        private final long[][] stats;
+        /** Buffered bucket sample counts, or null for raw samples */
+        private final long[] counts;
+        /** Number of buffered values */
+        private int size;
+        /** Whether the columns have been checked for blocks left over by a crash */
+        private boolean repaired;
+
+        /**
+         * Creates the writer of one resolution.
+         *
+         * @param directory The pet's directory.
+         * @param resolution The resolution.
+         */
+        ColumnWriter(Path directory, Resolution resolution) {
+            this.directory = directory;
+            this.resolution = resolution;
+            this.times = new long[resolution.blockSize];
+            this.stats = new long[StatHistory.STAT_COUNT][resolution.blockSize];
+            this.counts = resolution == Resolution.RAW ? null : new long[resolution.blockSize];
+        }
+
+        /**
+         * Buffers one value of every column, writing a block once the buffer is full.
+         *
+         * @param time The time.
+         * @param values The stats.
+         * @param count The number of samples the values stand for.
+         * @throws IOException If the block could not be written.
+         */
+        void add(long time, long[] values, long count) throws IOException {
+            times[size] = time;
+            for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+                stats[stat][size] = values[stat];
+            }
+            if (counts != null) {
+                counts[size] = count;
+            }
+            size++;
+            if (size == times.length) {
+                writeBlock();
+            }
+        }
+
+        /**
+         * Adds the buffered values of a stat to a query's points.
+         *
+         * @param stat The stat index.
+         * @param from The start of the range.
+         * @param to The end of the range, inclusive.
+         * @param points Receives the points in the range.
+         */
+        void readBuffered(int stat, long from, long to, SeriesBuilder points) {
+            for (int i = 0; i < size; i++) {
+                if (times[i] >= from && times[i] <= to) {
+                    points.add(times[i], stats[stat][i], counts == null ? 1 : counts[i]);
+                }
+            }
+        }
+
+        /**
+         * Writes the buffered values as one block of each column.
+         *
+         * @throws IOException If the block could not be written.
+         */
+        void writeBlock() throws IOException {
+            if (size == 0) {
+                return;
+            }
+            Files.createDirectories(directory);
+            if (!repaired) {
+                repair();
+                repaired = true;
+            }
+            try {
+                for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+                    appendBlock(statColumn(directory, resolution, stat), ColumnCodec.encode(stats[stat], size), null);
+                }
+                if (counts != null) {
+                    appendBlock(countColumn(directory, resolution), ColumnCodec.encode(counts, size), null);
+                }
+                // The time block goes last; it is what makes the block visible to readers
+                appendBlock(timeColumn(directory, resolution), ColumnCodec.encode(times, size), times);
+            } catch (IOException e) {
+                // Stat blocks may have been appended without their time block; cut them back before retrying
+                repaired = false;
+                throw e;
+            }
+            size = 0;
+        }
+
+        /**
+         * Appends one block to a column file.
+         *
+         * @param file The column file.
+         * @param encoded The encoded values.
+         * @param times The block's times, for a time column, or null.
+         * @throws IOException If the file could not be written.
+         */
+        private void appendBlock(Path file, byte[] encoded, long[] times) throws IOException {
+            int headerBytes = times != null ? TIME_HEADER_BYTES : VALUE_HEADER_BYTES;
+            ByteBuffer block = ByteBuffer.allocate(headerBytes + encoded.length);
+            block.putInt(size).putInt(encoded.length);
+            if (times != null) {
+                block.putLong(times[0]).putLong(times[size - 1]);
+            }
+            block.put(encoded).flip();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                while (block.hasRemaining()) {
+                    channel.write(block);
+                }
+            }
+        }
+
+        /**
+         * Cuts every column back to the blocks the time column has completely, dropping
+         * blocks a crash left half-written.
+         *
+         * @throws IOException If a column could not be truncated.
+         */
+        private void repair() throws IOException {
+            int blocks = truncateToBlocks(timeColumn(directory, resolution), TIME_HEADER_BYTES, Integer.MAX_VALUE);
+            for (int stat = 0; stat < StatHistory.STAT_COUNT; stat++) {
+                truncateToBlocks(statColumn(directory, resolution, stat), VALUE_HEADER_BYTES, blocks);
+            }
+            if (resolution != Resolution.RAW) {
+                truncateToBlocks(countColumn(directory, resolution), VALUE_HEADER_BYTES, blocks);
+            }
+        }
+
+        /**
+         * Truncates a column file after a number of complete blocks.
+         *
+         * @param file The column file.
+         * @param headerBytes The size of the file's block headers.
+         * @param maxBlocks The number of blocks to keep.
+         * @return The number of complete blocks kept.
+         * @throws IOException If the file could not be read or truncated.
+         */
+        private static int truncateToBlocks(Path file, int headerBytes, int maxBlocks) throws IOException {
+            if (!Files.exists(file)) {
+                return 0;
+            }
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                ByteBuffer header = ByteBuffer.allocate(headerBytes);
+                long position = 0;
+                int blocks = 0;
+                long size = channel.size();
+                while (blocks < maxBlocks && readFully(channel, header.clear(), position)) {
+                    long end = position + headerBytes + header.getInt(4);
+                    if (end > size) {
+                        break;
+                    }
+                    position = end;
+                    blocks++;
+                }
+                if (position < size) {
+                    channel.truncate(position);
+                }
+                return blocks;
+            }
+        }
+    }
+
+    /**
+     * Collects query points, merging consecutive points with the same time (a rollup
+     * bucket written in parts) into their sample-weighted average.
+     */
+    private static final class SeriesBuilder {
+        /** Point times */
+        private long[] times = new long[64];
+        /** Sum of value times sample count per point */
+        private double[] weightedSums = new double[64];
+        /** Number of samples per point */
+        private long[] counts = new long[64];
+        /** Number of points */
+        private int size;
+
+        /**
+         * Adds a point.
+         *
+         * @param time The point's time.
+         * @param value The point's value.
+         * @param count The number of samples the value stands for.
+         */
+        void add(long time, long value, long count) {
+            if (size > 0 && times[size - 1] == time) {
+                weightedSums[size - 1] += (double) value * count;
+                counts[size - 1] += count;
+                return;
+            }
+            if (size == times.length) {
+                times = Arrays.copyOf(times, size * 2);
+                weightedSums = Arrays.copyOf(weightedSums, size * 2);
+                counts = Arrays.copyOf(counts, size * 2);
+            }
+            times[size] = time;
+            weightedSums[size] = (double) value * count;
+            counts[size] = count;
+            size++;
+        }
+
+        /**
+         * Builds the series.
+         *
+         * @return The points collected.
+         */
+        Series build() {
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) {
+                values[i] = (int) Math.round(weightedSums[i] / counts[i]);
+            }
+            return new Series(Arrays.copyOf(times, size), values);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatSeriesStoreTest {
+    /** Start of the samples, on an hour boundary */
+    private static final long START = TimeUnit.DAYS.toMillis(20_000);
+
+    @Test
+    void testCodecRoundTrip() {
+        long[] values = {100, 99, 98, 97, 97, 97, 50, -3, Long.MAX_VALUE / 2, 0};
+        byte[] encoded = ColumnCodec.encode(values, values.length);
+
+        assertArrayEquals(values, ColumnCodec.decode(encoded, values.length));
+        long[] ticks = new long[256];
+        for (int i = 0; i < ticks.length; i++) {
+            ticks[i] = START + i * StatSeriesStore.TICK_MILLIS;
+        }
+        assertTrue(ColumnCodec.encode(ticks, ticks.length).length < 16);
+
+        byte[] truncated = java.util.Arrays.copyOf(encoded, encoded.length - 1);
+        truncated[truncated.length - 1] |= (byte) 0x80;
+        assertThrows(IllegalArgumentException.class, () -> ColumnCodec.decode(truncated, values.length));
+    }
+
+    @Test
+    void testIdlePetsAreWrittenAndDropped() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        StatSeriesStore store = new StatSeriesStore(saveDirectory);
+        store.append("cat_save.txt", START, 10, 10, 10, 10);
+        store.append("dog_save.txt", START + StatSeriesStore.IDLE_MILLIS + 1, 20, 20, 20, 20);
+
+        // Written when the cat went idle, so another store sees it without a flush
+        StatSeriesStore.Series cat = new StatSeriesStore(saveDirectory).query("cat_save.txt", StatHistory.HEALTH,
+                START, Long.MAX_VALUE, StatSeriesStore.Resolution.RAW);
+        assertArrayEquals(new int[] {10}, cat.values());
+        store.close();
+    }
+
+    @Test
+    void testRawAndRollupsAreReadBack() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        int samples = 2 * 3600 / 3;
+        try (StatSeriesStore store = new StatSeriesStore(saveDirectory)) {
+            for (int i = 0; i < samples; i++) {
+                store.append("dog_save.txt", START + i * StatSeriesStore.TICK_MILLIS, 100, i < samples / 2 ? 80 : 40, 50, 0);
+            }
+            // Buffered samples are visible before they are written
+            assertEquals(samples, store.query("dog_save.txt", StatHistory.HAPPINESS,
+                    START, Long.MAX_VALUE, StatSeriesStore.Resolution.RAW).size());
+        }
+
+        StatSeriesStore reopened = new StatSeriesStore(saveDirectory);
+        StatSeriesStore.Series raw = reopened.query("dog_save.txt", StatHistory.HAPPINESS,
+                START, START + TimeUnit.MINUTES.toMillis(1) - 1, StatSeriesStore.Resolution.RAW);
+        assertEquals(20, raw.size());
+        assertEquals(80, raw.values()[0]);
+
+        StatSeriesStore.Series hours = reopened.query("dog_save.txt", StatHistory.HAPPINESS,
+                START, Long.MAX_VALUE, StatSeriesStore.Resolution.HOUR);
+        assertArrayEquals(new long[] {START, START + TimeUnit.HOURS.toMillis(1)}, hours.times());
+        assertArrayEquals(new int[] {80, 40}, hours.values());
+
+        StatSeriesStore.Series days = reopened.query("dog_save.txt", StatHistory.HAPPINESS,
+                START, START + TimeUnit.DAYS.toMillis(30), 100);
+        assertEquals(1, days.size());
+        assertEquals(60, days.values()[0]);
+    }
+
+    @Test
+    void testBucketsSplitAcrossSessionsAreMerged() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        try (StatSeriesStore store = new StatSeriesStore(saveDirectory)) {
+            store.append("cat_save.txt", START, 0, 0, 0, 10);
+        }
+        try (StatSeriesStore store = new StatSeriesStore(saveDirectory)) {
+            store.append("cat_save.txt", START + 3000, 0, 0, 0, 20);
+            store.append("cat_save.txt", START + 6000, 0, 0, 0, 30);
+        }
+
+        StatSeriesStore.Series minutes = new StatSeriesStore(saveDirectory).query("cat_save.txt", StatHistory.ENERGY,
+                START, Long.MAX_VALUE, StatSeriesStore.Resolution.MINUTE);
+        assertEquals(1, minutes.size());
+        assertEquals(20, minutes.values()[0]);
+    }
+
+    @Test
+    void testHalfWrittenBlocksAreDropped() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        try (StatSeriesStore store = new StatSeriesStore(saveDirectory)) {
+            store.append("dog_save.txt", START, 1, 1, 1, 1);
+        }
+        // A crash after writing a stat block but before its time block
+        Path health;
+        try (Stream<Path> files = Files.walk(saveDirectory)) {
+            health = files.filter(file -> file.getFileName().toString().equals("raw.health")).findFirst().orElseThrow();
+        }
+        Files.write(health, new byte[] {0, 0, 0, 1, 0, 0, 0, 2, 5, 5}, StandardOpenOption.APPEND);
+
+        try (StatSeriesStore store = new StatSeriesStore(saveDirectory)) {
+            store.append("dog_save.txt", START + 3000, 2, 2, 2, 2);
+        }
+
+        StatSeriesStore.Series series = new StatSeriesStore(saveDirectory).query("dog_save.txt", StatHistory.HEALTH,
+                START, Long.MAX_VALUE, StatSeriesStore.Resolution.RAW);
+        assertArrayEquals(new int[] {1, 2}, series.values());
+    }
+}
@@ -0,0 +1,305 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Keeps each pet in its own key=value save file, sharded by SaveLayout, with summaries
+ * in the save manifest. Saves append only the changed fields and rewrite the file in full
+ * once it has accumulated too many delta lines. Save listeners are told about every save
+ * and delete made through the repository.
+ */
+public class TextPetRepository implements PetRepository {
+    /** Number of delta lines a save file may accumulate before it is compacted by a full rewrite */
+    public static final int COMPACTION_THRESHOLD = 50;
+
+    /**
+     * Told about the saves and deletes made through the repository.
+     */
+    public interface SaveListener {
+        /**
+         * Called on the saving thread after a pet's save file and manifest record were written.
+         *
+         * @param summary The pet's new summary.
+         */
+        void saved(SaveSummary summary);
+
+        /**
+         * Called on the deleting thread after a pet's save file was deleted.
+         *
+         * @param saveFile The deleted save file.
+         */
+        void deleted(String saveFile);
+    }
+
+    /** Where each save file lives */
+    private final SaveLayout layout;
+    /** Summaries of every pet save, used for listing and queries */
+    private final SaveManifest manifest;
+    /** Told about every save and delete */
+    private final List<SaveListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Creates a repository for the save files in the given directory.
+     *
+     * @param saveDirectory The directory holding the save files.
+     */
+    public TextPetRepository(Path saveDirectory) {
+        this.layout = new SaveLayout(saveDirectory);
+        this.manifest = new SaveManifest(saveDirectory);
+    }
+
+    @Override
+    public Pet load(String saveFile) throws IOException {
+        return load(saveFile, new KeyValueReader());
+    }
+
+    @Override
+    public Pet load(String saveFile, KeyValueReader reader) throws IOException {
+        Path path = layout.path(saveFile);
+        if (!Files.exists(path)) {
+            return null;
+        }
+        return new Pet(path, reader);
+    }
+
+    @Override
+    public void save(Pet pet) throws IOException {
+        SaveSummary summary = write(pet);
+        manifest.update(summary);
+        notifySaved(summary);
+    }
+
+    @Override
+    public void saveAs(Pet pet, String saveFile) throws IOException {
+        writeSnapshot(pet, layout.path(saveFile));
+        pet.setSaveFile(saveFile);
+        pet.markClean();
+        SaveSummary summary = SaveSummary.of(pet, saveFile, System.currentTimeMillis());
+        manifest.update(summary);
+        notifySaved(summary);
+    }
+
+    @Override
+    public void saveAll(Collection<Pet> pets) throws IOException {
+        // Each file is written on its own, then the manifest is opened once for the whole batch
+        List<SaveSummary> summaries = new ArrayList<>(pets.size());
+        for (Pet pet : pets) {
+            summaries.add(write(pet));
+        }
+        manifest.updateAll(summaries);
+        for (SaveSummary summary : summaries) {
+            notifySaved(summary);
+        }
+    }
+
+    /**
+     * Appends the patch to the pet's save file with a single write, where it overrides the
+     * earlier lines, then updates the pet's manifest record.
+     */
+    @Override
+    public void patch(String saveFile, Map<String, String> fields) throws IOException {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, String> field : fields.entrySet()) {
+            Pet.checkFieldValue(field.getKey(), field.getValue());
+            lines.append(Pet.getSaveKey(field.getKey())).append('=').append(field.getValue()).append(System.lineSeparator());
+        }
+        Path path = layout.path(saveFile);
+        if (!Files.exists(path)) {
+            throw new NoSuchFileException(saveFile);
+        }
+
+        ByteBuffer bytes = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+            channel.force(false);
+        }
+
+        SaveSummary summary = manifest.find(saveFile);
+        if (summary != null) {
+            SaveSummary patched = summary.patched(fields, System.currentTimeMillis());
+            manifest.update(patched);
+            notifySaved(patched);
+        }
+    }
+
+    /**
+     * Checks the manifest's in-memory index, which is read once and kept up to date by
+     * every save and delete, so no directory is searched.
+     */
+    @Override
+    public boolean exists(String saveFile) throws IOException {
+        return manifest.contains(saveFile);
+    }
+
+    @Override
+    public void delete(String saveFile) throws IOException {
+        Files.deleteIfExists(layout.path(saveFile));
+        manifest.remove(saveFile);
+        for (SaveListener listener : listeners) {
+            listener.deleted(saveFile);
+        }
+    }
+
+    @Override
+    public int count() throws IOException {
+        return manifest.slotCount();
+    }
+
+    @Override
+    public List<SaveSummary> list(int offset, int limit) throws IOException {
+        return manifest.read(offset, limit);
+    }
+
+    @Override
+    public List<SaveSummary> findByType(String type) throws IOException {
+        List<SaveSummary> found = new ArrayList<>();
+        for (SaveSummary summary : manifest.readAll()) {
+            if (summary.type().equalsIgnoreCase(type)) {
+                found.add(summary);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<SaveSummary> findByAlive(boolean alive) throws IOException {
+        List<SaveSummary> found = new ArrayList<>();
+        for (SaveSummary summary : manifest.readAll()) {
+            if (summary.isAlive() == alive) {
+                found.add(summary);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<SaveSummary> topByScore(int limit) throws IOException {
+        List<SaveSummary> all = new ArrayList<>(manifest.readAll());
+        all.sort(Comparator.comparingInt(SaveSummary::score).reversed());
+        return all.subList(0, Math.min(limit, all.size()));
+    }
+
+    @Override
+    public void close() {
+        // files are opened and closed per operation
+    }
+
+    /**
+     * Adds a listener told about every save and delete made through the repository.
+     *
+     * @param listener The listener.
+     */
+    public void addSaveListener(SaveListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Removes a save listener.
+     *
+     * @param listener The listener.
+     */
+    public void removeSaveListener(SaveListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Tells the save listeners about a save.
+     *
+     * @param summary The saved pet's summary.
+     */
+    private void notifySaved(SaveSummary summary) {
+        for (SaveListener listener : listeners) {
+            listener.saved(summary);
+        }
+    }
+
+    /**
+     * Get the manifest of pet saves.
+     *
+     * @return The save manifest.
+     */
+    public SaveManifest getManifest() {
+        return manifest;
+    }
+
+    /**
+     * Writes a pet to its save file, appending only what changed unless the file is new,
+     * has accumulated too many delta lines or is in an older save format.
+     *
+     * @param pet The pet to write.
+     * @return The pet's summary for the manifest.
+     * @throws IOException If the file could not be written.
+     */
+    private SaveSummary write(Pet pet) throws IOException {
+        Path path = layout.path(pet.getSaveFile());
+        if (Files.exists(path) && pet.getDeltaLineCount() < COMPACTION_THRESHOLD && !pet.isSchemaUpgraded()) {
+            appendDelta(pet, path);
+        } else {
+            writeSnapshot(pet, path);
+        }
+        pet.markClean();
+        return SaveSummary.of(pet, pet.getSaveFile(), System.currentTimeMillis());
+    }
+
+    /**
+     * Appends the pet's dirty fields and inventory entries to its save file. Later lines
+     * override earlier ones when the file is read back.
+     *
+     * @param pet The pet to save.
+     * @param path The pet's save file.
+     * @throws IOException If the file could not be written.
+     */
+    private static void appendDelta(Pet pet, Path path) throws IOException {
+        if (!pet.isDirty()) {
+            return;
+        }
+
+        StringBuilder delta = new StringBuilder();
+        int lines = 0;
+        for (int field = 0; field < Pet.FIELD_COUNT; field++) {
+            if (pet.isFieldDirty(field)) {
+                delta.append(Pet.getFieldKey(field)).append('=').append(pet.getFieldValue(field)).append(System.lineSeparator());
+                lines++;
+            }
+        }
+        for (String item : pet.getDirtyItems()) {
+            delta.append(Pet.getItemKey(item)).append('=').append(pet.getItemCount(item)).append(System.lineSeparator());
+            lines++;
+        }
+
+        Files.writeString(path, delta, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        pet.setDeltaLineCount(pet.getDeltaLineCount() + lines);
+    }
+
+    /**
+     * Writes every field and inventory entry of the pet to a save file, replacing any
+     * delta lines. The snapshot is written to a temporary file first and moved into place.
+     *
+     * @param pet The pet to save.
+     * @param path The save file.
+     * @throws IOException If the file could not be written.
+     */
+    private static void writeSnapshot(Pet pet, Path path) throws IOException {
+        Files.createDirectories(path.getParent());
+        Path tempFile = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.writeString(tempFile, pet.toSaveText(), StandardCharsets.UTF_8);
+        Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        pet.setDeltaLineCount(0);
+    }
+}
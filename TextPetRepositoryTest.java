@@ -0,0 +1,49 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextPetRepositoryTest {
+
+    @Test
+    void testPatchChangesOnlyTheGivenFields() throws Exception {
+        TextPetRepository repository = new TextPetRepository(Files.createTempDirectory("saves"));
+        Pet pet = new Pet("Buddy", "Dog");
+        pet.setHealth(0);
+        pet.setEnergy(20);
+        repository.saveAs(pet, "dog_a_save.txt");
+
+        repository.patch("dog_a_save.txt", Map.of("health", "100", "Kibble", "3"));
+
+        Pet patched = repository.load("dog_a_save.txt");
+        assertEquals(100, patched.getHealth());
+        assertEquals(20, patched.getEnergy());
+        assertEquals(3, patched.getItemCount("Kibble"));
+        assertTrue(repository.findByAlive(false).isEmpty());
+        assertEquals(100, repository.list(0, 1).get(0).health());
+    }
+
+    @Test
+    void testPatchRejectsInvalidValuesAndMissingPets() throws Exception {
+        TextPetRepository repository = new TextPetRepository(Files.createTempDirectory("saves"));
+        repository.saveAs(new Pet("Buddy", "Dog"), "dog_a_save.txt");
+
+        assertThrows(IllegalArgumentException.class, () -> repository.patch("dog_a_save.txt", Map.of("health", "lots")));
+        assertThrows(NoSuchFileException.class, () -> repository.patch("cat_b_save.txt", Map.of("health", "1")));
+        assertEquals(100, repository.load("dog_a_save.txt").getHealth());
+    }
+
+    @Test
+    void testUnreadableSaveReachesTheCaller() throws Exception {
+        java.nio.file.Path saveDirectory = Files.createTempDirectory("saves");
+        // A directory where the save file should be cannot be read as one
+        Files.createDirectories(new SaveLayout(saveDirectory).path("dog_a_save.txt"));
+
+        assertThrows(java.io.IOException.class, () -> new TextPetRepository(saveDirectory).load("dog_a_save.txt"));
+    }
+}
@@ -0,0 +1,46 @@
+package group02;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Keeps the player's settings in the key=value settings.txt file.
+ */
+public class TextPlayerRepository implements PlayerRepository {
+    /** The settings file */
+    private final Path settingsFile;
+
+    /**
+     * Creates a repository for the settings file in the given directory.
+     *
+     * @param saveDirectory The directory holding the settings file.
+     */
+    public TextPlayerRepository(Path saveDirectory) {
+        this.settingsFile = saveDirectory.resolve(GameState.SETTINGS_FILE);
+    }
+
+    @Override
+    public Player load() throws IOException {
+        if (!Files.exists(settingsFile)) {
+            return new Player();
+        }
+        return new Player(KeyValueReader.read(settingsFile));
+    }
+
+    @Override
+    public void save(Player player) throws IOException {
+        // Replace the old settings in one step so a crash never leaves them half-written
+        Files.createDirectories(settingsFile.getParent());
+        Path tempFile = settingsFile.resolveSibling(settingsFile.getFileName() + ".tmp");
+        Files.writeString(tempFile, player.toSettingsText(), StandardCharsets.UTF_8);
+        Files.move(tempFile, settingsFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    @Override
+    public void close() {
+        // nothing to release
+    }
+}
@@ -0,0 +1,186 @@
+package group02;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes what the household's ticks produce on a background thread, so the thread ticking
+ * the pets never waits for the disk. Each tick adds the ticked pets' stats to an in-memory
+ * batch; handOff passes the batch to the writer thread, which appends it to the stat
+ * history, flushes the journal the ticks wrote to and saves the play time when due.
+ * While the writer is still busy, samples keep collecting and go with the next hand-off.
+ * Two batches are swapped back and forth, so after they have grown to the size of the
+ * household, a tick allocates nothing.
+ */
+public class TickWriter implements AutoCloseable {
+    /** Longest time close waits for the writer thread to finish */
+    private static final long CLOSE_TIMEOUT_MILLIS = 5000;
+
+    /**
+     * Stat samples of ticked pets, reused from hand-off to hand-off.
+     */
+    private static final class Batch {
+        /** Save file of each sample */
+        private String[] saveFiles = new String[16];
+        /** Time of each sample, in milliseconds since the epoch */
+        private long[] times = new long[16];
+        /** Health, happiness, fullness and energy of each sample, four values per sample */
+        private int[] stats = new int[64];
+        /** Number of samples */
+        private int size;
+
+        /**
+         * Adds a pet's current stats.
+         *
+         * @param pet The pet.
+         * @param time The time of the sample, in milliseconds since the epoch.
+         */
+        void add(Pet pet, long time) {
+            if (size == times.length) {
+                saveFiles = Arrays.copyOf(saveFiles, size * 2);
+                times = Arrays.copyOf(times, size * 2);
+                stats = Arrays.copyOf(stats, size * 8);
+            }
+            saveFiles[size] = pet.getSaveFile();
+            times[size] = time;
+            stats[size * 4] = pet.getHealth();
+            stats[size * 4 + 1] = pet.getHappiness();
+            stats[size * 4 + 2] = pet.getFullness();
+            stats[size * 4 + 3] = pet.getEnergy();
+            size++;
+        }
+
+        /**
+         * Empties the batch.
+         */
+        void clear() {
+            Arrays.fill(saveFiles, 0, size, null);
+            size = 0;
+        }
+    }
+
+    /** Where the stat samples are appended */
+    private final StatSeriesStore statSeries;
+    /** The journal the ticked pets' changes are recorded in */
+    private final Journal journal;
+    /** The play time ledger, saved when due */
+    private final PlayTimeLedger playTime;
+    /** Writes the batches */
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "tick-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /** Writes the handed-off batch; created once so a hand-off allocates nothing */
+    private final Runnable writeTask;
+    /** Batch the ticking thread adds to */
+    private Batch filling = new Batch();
+    /** Batch being written, or waiting to be filled again */
+    private Batch writing = new Batch();
+    /** Whether the writer thread has a batch it has not finished */
+    private boolean busy;
+
+    /**
+     * Creates a tick writer.
+     *
+     * @param statSeries Where the stat samples are appended.
+     * @param journal The journal the ticked pets' changes are recorded in.
+     * @param playTime The play time ledger, saved when due.
+     */
+    public TickWriter(StatSeriesStore statSeries, Journal journal, PlayTimeLedger playTime) {
+        this.statSeries = statSeries;
+        this.journal = journal;
+        this.playTime = playTime;
+        this.writeTask = this::write;
+    }
+
+    /**
+     * Adds a ticked pet's stats to the next batch. Call from the ticking thread only.
+     *
+     * @param pet The pet that was ticked.
+     */
+    public synchronized void add(Pet pet) {
+        if (pet.getSaveFile() != null) {
+            filling.add(pet, System.currentTimeMillis());
+        }
+    }
+
+    /**
+     * Passes the samples collected since the last hand-off to the writer thread, unless it
+     * is still writing the previous ones, in which case they go with the next hand-off.
+     */
+    public synchronized void handOff() {
+        if (busy || writer.isShutdown()) {
+            return;
+        }
+        Batch full = filling;
+        filling = writing;
+        writing = full;
+        busy = true;
+        writer.execute(writeTask);
+    }
+
+    /**
+     * Writes the handed-off batch, the journal and the play time, on the writer thread.
+     */
+    private void write() {
+        Batch batch;
+        synchronized (this) {
+            batch = writing;
+        }
+        try {
+            for (int i = 0; i < batch.size; i++) {
+                statSeries.append(batch.saveFiles[i], batch.times[i], batch.stats[i * 4],
+                        batch.stats[i * 4 + 1], batch.stats[i * 4 + 2], batch.stats[i * 4 + 3]);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write stat history: " + e.getMessage());
+        }
+        batch.clear();
+        try {
+            journal.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to write journal: " + e.getMessage());
+        }
+        try {
+            playTime.saveIfDue();
+        } catch (IOException e) {
+            System.err.println("Failed to write play time: " + e.getMessage());
+        }
+        synchronized (this) {
+            busy = false;
+        }
+    }
+
+    /**
+     * Hands off the samples not yet written and waits for the writer thread to finish them.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (writer.isShutdown()) {
+                return;
+            }
+            // Whatever is still filling goes in one last batch after the one being written
+            writer.execute(() -> {
+                synchronized (this) {
+                    Batch last = filling;
+                    filling = writing;
+                    writing = last;
+                }
+                write();
+            });
+            writer.shutdown();
+        }
+        try {
+            if (!writer.awaitTermination(CLOSE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                System.err.println("Gave up waiting for the stat history to be written");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package group02;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TickWriterTest {
+
+    @Test
+    void testTicksAreWrittenOffTheHouseholdLock() throws Exception {
+        Path saveDirectory = Files.createTempDirectory("saves");
+        StatSeriesStore store = new StatSeriesStore(saveDirectory);
+        Journal journal = new Journal(saveDirectory);
+        journal.open();
+        TickWriter writer = new TickWriter(store, journal, new PlayTimeLedger(saveDirectory));
+        Household household = new Household();
+        Pet buddy = new Pet("Buddy", "dog");
+        buddy.setSaveFile("dog_save.txt");
+        buddy.addChangeListener(journal);
+        household.add(buddy);
+        boolean[] heldLock = {false};
+        household.start(pet -> {
+            heldLock[0] |= Thread.holdsLock(household);
+            writer.add(pet);
+        }, writer::handOff);
+
+        for (int i = 0; i < 3; i++) {
+            household.tick();
+            Thread.sleep(2); // samples with the same time are merged when read
+        }
+        writer.close();
+
+        assertFalse(heldLock[0], "Listener told while holding the household's lock");
+        assertEquals(3, store.query("dog_save.txt", StatHistory.FULLNESS, 0, Long.MAX_VALUE,
+                StatSeriesStore.Resolution.RAW).size());
+        // The journal was flushed by the writer, so a crash now loses nothing
+        assertEquals(String.valueOf(buddy.getFullness()),
+                new Journal(saveDirectory).recover().get("dog_save.txt").get("fullness"));
+        store.close();
+    }
+}
@@ -200,7 +200,8 @@ public class TutorialScreen {
             "Your game is automatically saved when:\n\n" +
             "• You return to the main menu\n" +
             "• You close the game\n" +
-            "• You start a new game\n\n" +
+            "• You start a new game\n" +
+            "• Your pet has changed since the last save (every minute by default, see Settings)\n\n" +
             "You can also manually save using the save button."
         ));
     }